@@ -57,6 +57,7 @@ import es.upm.dit.xsdinferencer.merge.mergerimpl.children.ReducePatternComparato
 import es.upm.dit.xsdinferencer.merge.mergerimpl.children.SubsumptionPatternComparator;
 import es.upm.dit.xsdinferencer.merge.mergerimpl.enumeration.MinIntersectionBidirectionalEnumComparator;
 import es.upm.dit.xsdinferencer.merge.mergerimpl.enumeration.MinIntersectionUnidirectionalEnumComparator;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
 
 /**
  * Objects of this class represent inference configurations.
@@ -110,6 +111,24 @@ public class XSDInferenceConfiguration {
 	 * Maximum number of distinct values of a single type to generate an enumeration
 	 */
 	private int maxNumberOfDistinctValuesToEnum = 10;
+	/**
+	 * Flag to indicate whether builtin types other than xs:boolean, xs:integer, xs:decimal and xs:string (i.e. xs:int, 
+	 * xs:double, xs:date, xs:dateTime, xs:anyURI...) may be inferred for simple types. It only applies to the XML working format.
+	 */
+	private boolean inferExtendedBuiltinTypes = false;
+	/**
+	 * Precision of the HyperLogLog sketches which estimate the distinct values of each path and of each node of each 
+	 * complex type at the statistics (there are 2^precision registers, with a relative standard error of 1.04/sqrt(2^precision)). 
+	 * Once the estimate of a path or node is greater than maxNumberOfDistinctValuesToEnum, the statistics of its concrete 
+	 * values are discarded and not gathered anymore. 0 means that no sketches are used and all the values are kept (default value).
+	 */
+	private int distinctValuesSketchPrecision = 0;
+	/**
+	 * Number of most frequent values of each path whose approximate frequencies are kept at the statistics, by means of 
+	 * SpaceSaving sketches (so that the memory used by them does not grow with the number of distinct values). 
+	 * 0 means that the full statistics of all the values at each path are kept (default value).
+	 */
+	private int valuesTopK = 0;
 	/**
 	 * Children comparator that compares the children structures (automatons) of two complex types 
 	 * and decides if they are similar enough, according to its own criterion.
@@ -237,6 +256,111 @@ public class XSDInferenceConfiguration {
 	 * </ul>
 	 */
 	private String workingFormat = "xml";
+	/**
+	 * If this flag is true, XML input documents are not loaded into memory but streamed (via StAX) 
+	 * during the extraction, so that memory usage does not depend on the size of the input documents.
+	 * 
+	 * Ignored at JSON inference.
+	 */
+	private boolean streamingExtraction = false;
+	/**
+	 * Number of threads used to extract the input XML documents. If it is greater than 1, the documents are 
+	 * partitioned among the threads of a fork/join pool and the partial extraction results are combined at the end. 
+	 * 
+	 * Ignored at JSON inference and at streaming extraction.
+	 */
+	private int extractionThreads = 1;
+	/**
+	 * If it is not null, each input XML document is split into records: it is streamed and each element at this 
+	 * path (i.e. /root/record) is extracted as an independent document. Elements above the records are extracted 
+	 * only once per file. It implies a streaming extraction.
+	 * 
+	 * Ignored at JSON inference.
+	 */
+	private String recordPath = null;
+	/**
+	 * If this flag is true, identical input documents (or files, when they hold several documents) are extracted only once 
+	 * and counted as many times as they occur, so the inferred schemas and the statistics are the same, except for the 
+	 * order of the documents at the statistics. The content of the input documents is fingerprinted before the extraction.
+	 */
+	private boolean deduplicateDocuments = false;
+	/**
+	 * Absolute paths of elements (i.e. /envelope/body/blob) whose content is not extracted: their attributes, text and 
+	 * descendants are skipped (streaming extractors do not even build them) and the generated schemas allow any 
+	 * content for them. A step matches an element if it is equal to its local name or to its prefixed name.
+	 */
+	private List<String> excludePaths = new ArrayList<String>();
+	/**
+	 * If it is not empty, only the elements at, above or under any of these absolute paths are extracted, the content of 
+	 * any other element is skipped as if its path was excluded (see {@link XSDInferenceConfiguration#excludePaths}).
+	 */
+	private List<String> includePaths = new ArrayList<String>();
+	/**
+	 * If this flag is true, the structure of each element subtree (names and namespaces, attribute names and children 
+	 * order) is hash-consed at its path, and the structure of each distinct subtree of a document is learned once and 
+	 * replayed by its number of occurrences: children sequences, element and attribute occurrences and paths. Text and 
+	 * attribute values are still learned for each element. The inferred schemas and statistics are the same, but 
+	 * documents made of many repeated records are extracted faster. Streaming extractions ignore it.
+	 */
+	private boolean shapeSharing = false;
+	/**
+	 * Number of input files which are read (and decompressed) ahead on background I/O threads while the current 
+	 * one is being extracted. If it is 0, each input file is read only when it is its turn.
+	 */
+	private int prefetchFiles = 0;
+	/**
+	 * Number of threads which parse the input XML documents while the previous ones are being extracted. If it is 0, 
+	 * all the documents are parsed before the extraction starts. Ignored at streaming extraction.
+	 */
+	private int parserThreads = 0;
+	/**
+	 * Maximum number of input documents which have been read but not extracted yet when they are parsed by parser 
+	 * threads (see {@link XSDInferenceConfiguration#parserThreads}), so that it bounds the memory used by parsed documents.
+	 */
+	private int parseQueueDepth = 64;
+	/**
+	 * Sampling strategy used to choose which input documents are extracted:
+	 * <ul>
+	 * <li>none: all the input documents are extracted (default value)</li>
+	 * <li>reservoir: a uniform random sample of sampleSize documents</li>
+	 * <li>stratifiedByDirectory: a uniform random sample of sampleSize documents where each directory contributes 
+	 * proportionally to its number of documents</li>
+	 * <li>firstThenEvery: the first sampleFirstDocuments documents and then one of each sampleEvery documents, 
+	 * up to sampleSize documents</li>
+	 * </ul>
+	 */
+	private String sampling = VALUE_SAMPLING_NONE;
+	/**
+	 * Maximum number of sampled input documents (size budget). Ignored if sampling is none.
+	 */
+	private int sampleSize = 1000;
+	/**
+	 * Number of documents provided before skipping any one by the firstThenEvery sampling.
+	 */
+	private int sampleFirstDocuments = 100;
+	/**
+	 * After the first documents, one of each sampleEvery documents is provided by the firstThenEvery sampling.
+	 */
+	private int sampleEvery = 10;
+	/**
+	 * Time budget of the sampling in milliseconds: once it is exhausted, no more documents are sampled. 
+	 * 0 means no time budget. Ignored if sampling is none.
+	 */
+	private long sampleTimeBudget = 0;
+	/**
+	 * Directory of the on-disk cache of the learner states extracted from each input file, keyed by the content of the file. 
+	 * If it is not null, reruns only extract the input files which are not at the cache. Null means no cache.
+	 */
+	private String extractionCache = null;
+	/**
+	 * Maximum size of the extraction cache in megabytes. The least recently used entries are evicted when it is exceeded.
+	 */
+	private long extractionCacheMaxSize = 1024;
+	/**
+	 * Maximum number of entries of the extraction cache (0 means no limit). The least recently used entries are evicted 
+	 * when it is exceeded.
+	 */
+	private int extractionCacheMaxEntries = 0;
 	/**
 	 * Prefix to escape keys at JSON objects matching ARRAY_ELEMENT_NAME, to prevent problems.
 	 */
@@ -311,6 +435,9 @@ public class XSDInferenceConfiguration {
 	public static final String KEY_GENERATE_ENUMERATIONS = "generateEnumerations";
 	public static final String KEY_MIN_NUMBER_OF_DISTINCT_VALUES_TO_ENUM = "minNumberOfDistinctValuesToEnum";
 	public static final String KEY_MAX_NUMBER_OF_DISTINCT_VALUES_TO_ENUM = "maxNumberOfDistinctValuesToEnum";
+	public static final String KEY_INFER_EXTENDED_BUILTIN_TYPES = "inferExtendedBuiltinTypes";
+	public static final String KEY_DISTINCT_VALUES_SKETCH_PRECISION = "distinctValuesSketchPrecision";
+	public static final String KEY_VALUES_TOP_K = "valuesTopK";
 	public static final String KEY_SIMPLE_TYPE_INFERENCER = "simpleTypeInferencer";
 	public static final String KEY_ATTRIBUTE_LIST_INFERENCER = "attributeListInferencer";
 	public static final String KEY_CHILDREN_PATTERN_COMPARATOR = "childrenPatternComparator";
@@ -333,6 +460,24 @@ public class XSDInferenceConfiguration {
 	public static final String KEY_TYPE_NAMES_ANCESTORS_SEPARATOR = "typeNamesAncestorsSeparator";
 	public static final String KEY_MERGED_TYPES_SEPARATOR = "mergedTypesSeparator";
 	public static final String KEY_WORKING_FORMAT = "workingFormat";
+	public static final String KEY_STREAMING_EXTRACTION = "streamingExtraction";
+	public static final String KEY_EXTRACTION_THREADS = "extractionThreads";
+	public static final String KEY_RECORD_PATH = "recordPath";
+	public static final String KEY_DEDUPLICATE_DOCUMENTS = "deduplicateDocuments";
+	public static final String KEY_MULTIPLE_EXCLUDE_PATHS = "excludePath";
+	public static final String KEY_MULTIPLE_INCLUDE_PATHS = "includePath";
+	public static final String KEY_SHAPE_SHARING = "shapeSharing";
+	public static final String KEY_PREFETCH_FILES = "prefetchFiles";
+	public static final String KEY_PARSER_THREADS = "parserThreads";
+	public static final String KEY_PARSE_QUEUE_DEPTH = "parseQueueDepth";
+	public static final String KEY_SAMPLING = "sampling";
+	public static final String KEY_SAMPLE_SIZE = "sampleSize";
+	public static final String KEY_SAMPLE_FIRST_DOCUMENTS = "sampleFirstDocuments";
+	public static final String KEY_SAMPLE_EVERY = "sampleEvery";
+	public static final String KEY_SAMPLE_TIME_BUDGET = "sampleTimeBudget";
+	public static final String KEY_EXTRACTION_CACHE = "extractionCache";
+	public static final String KEY_EXTRACTION_CACHE_MAX_SIZE = "extractionCacheMaxSize";
+	public static final String KEY_EXTRACTION_CACHE_MAX_ENTRIES = "extractionCacheMaxEntries";
 	//Special key to indicate via the command line the path at which the properties file that must be loaded as a configuration.
 	public static final String KEY_CONFIG_FILE = "configFile";
 	
@@ -358,6 +503,11 @@ public class XSDInferenceConfiguration {
 	public static final String VALUE_ENUMS_COMPARATOR_MIN_INTERSECTION_UNIDIRECTIONAL="minIntersectionUnidirectional";
 	public static final String VALUE_WORKING_FORMAT_XML = "xml";
 	public static final String VALUE_WORKING_FORMAT_JSON = "json";
+	public static final String VALUE_WORKING_FORMAT_JSONL = "jsonl";
+	public static final String VALUE_SAMPLING_NONE = "none";
+	public static final String VALUE_SAMPLING_RESERVOIR = "reservoir";
+	public static final String VALUE_SAMPLING_STRATIFIED_BY_DIRECTORY = "stratifiedByDirectory";
+	public static final String VALUE_SAMPLING_FIRST_THEN_EVERY = "firstThenEvery";
 	
 	/**
 	 * Default constructor. It initializes the the default values
@@ -468,6 +618,21 @@ public class XSDInferenceConfiguration {
 		if(readMaxNumberOfDistinctValuesToEnum!=null){
 			maxNumberOfDistinctValuesToEnum=Integer.parseInt(readMaxNumberOfDistinctValuesToEnum);
 		}
+		
+		String readInferExtendedBuiltinTypes = properties.getProperty(KEY_INFER_EXTENDED_BUILTIN_TYPES);
+		if(readInferExtendedBuiltinTypes!=null){
+			setInferExtendedBuiltinTypes(readInferExtendedBuiltinTypes);
+		}
+		
+		String readDistinctValuesSketchPrecision = properties.getProperty(KEY_DISTINCT_VALUES_SKETCH_PRECISION);
+		if(readDistinctValuesSketchPrecision!=null){
+			setDistinctValuesSketchPrecision(Integer.parseInt(readDistinctValuesSketchPrecision));
+		}
+		
+		String readValuesTopK = properties.getProperty(KEY_VALUES_TOP_K);
+		if(readValuesTopK!=null){
+			setValuesTopK(Integer.parseInt(readValuesTopK));
+		}
 				
 		String readSimpleTypeInferencer = properties.getProperty(KEY_SIMPLE_TYPE_INFERENCER);
 		if(readSimpleTypeInferencer!=null){
@@ -572,6 +737,106 @@ public class XSDInferenceConfiguration {
 		if(readMergedTypesSeparator!=null){
 			setMergedTypesSeparator(readMergedTypesSeparator);
 		}
+		
+		String readExtractionThreads = properties.getProperty(KEY_EXTRACTION_THREADS);
+		if(readExtractionThreads!=null){
+			setExtractionThreads(Integer.parseInt(readExtractionThreads));
+		}
+		
+		String readStreamingExtraction = properties.getProperty(KEY_STREAMING_EXTRACTION);
+		if(readStreamingExtraction!=null){
+			setStreamingExtraction(readStreamingExtraction);
+		}
+		
+		String readRecordPath = properties.getProperty(KEY_RECORD_PATH);
+		if(readRecordPath!=null){
+			setRecordPath(readRecordPath);
+		}
+		
+		String readDeduplicateDocuments = properties.getProperty(KEY_DEDUPLICATE_DOCUMENTS);
+		if(readDeduplicateDocuments!=null){
+			setDeduplicateDocuments(readDeduplicateDocuments);
+		}
+		
+		Set<String> foundExcludePathsKeys = Sets.filter(properties.stringPropertyNames(), 
+				Predicates.containsPattern("^\\Q"+KEY_MULTIPLE_EXCLUDE_PATHS+"\\E.*$"));
+		if(!foundExcludePathsKeys.isEmpty()) {
+			List<String> readExcludePaths = new ArrayList<>(foundExcludePathsKeys.size());
+			for(String excludePathKey: foundExcludePathsKeys){
+				readExcludePaths.add(properties.getProperty(excludePathKey));
+			}
+			setExcludePaths(readExcludePaths);
+		}
+		
+		Set<String> foundIncludePathsKeys = Sets.filter(properties.stringPropertyNames(), 
+				Predicates.containsPattern("^\\Q"+KEY_MULTIPLE_INCLUDE_PATHS+"\\E.*$"));
+		if(!foundIncludePathsKeys.isEmpty()) {
+			List<String> readIncludePaths = new ArrayList<>(foundIncludePathsKeys.size());
+			for(String includePathKey: foundIncludePathsKeys){
+				readIncludePaths.add(properties.getProperty(includePathKey));
+			}
+			setIncludePaths(readIncludePaths);
+		}
+		
+		String readShapeSharing = properties.getProperty(KEY_SHAPE_SHARING);
+		if(readShapeSharing!=null){
+			setShapeSharing(readShapeSharing);
+		}
+		
+		String readPrefetchFiles = properties.getProperty(KEY_PREFETCH_FILES);
+		if(readPrefetchFiles!=null){
+			setPrefetchFiles(Integer.parseInt(readPrefetchFiles));
+		}
+		
+		String readParserThreads = properties.getProperty(KEY_PARSER_THREADS);
+		if(readParserThreads!=null){
+			setParserThreads(Integer.parseInt(readParserThreads));
+		}
+		
+		String readParseQueueDepth = properties.getProperty(KEY_PARSE_QUEUE_DEPTH);
+		if(readParseQueueDepth!=null){
+			setParseQueueDepth(Integer.parseInt(readParseQueueDepth));
+		}
+		
+		String readSampling = properties.getProperty(KEY_SAMPLING);
+		if(readSampling!=null){
+			setSampling(readSampling);
+		}
+		
+		String readSampleSize = properties.getProperty(KEY_SAMPLE_SIZE);
+		if(readSampleSize!=null){
+			setSampleSize(Integer.parseInt(readSampleSize));
+		}
+		
+		String readSampleFirstDocuments = properties.getProperty(KEY_SAMPLE_FIRST_DOCUMENTS);
+		if(readSampleFirstDocuments!=null){
+			setSampleFirstDocuments(Integer.parseInt(readSampleFirstDocuments));
+		}
+		
+		String readSampleEvery = properties.getProperty(KEY_SAMPLE_EVERY);
+		if(readSampleEvery!=null){
+			setSampleEvery(Integer.parseInt(readSampleEvery));
+		}
+		
+		String readSampleTimeBudget = properties.getProperty(KEY_SAMPLE_TIME_BUDGET);
+		if(readSampleTimeBudget!=null){
+			setSampleTimeBudget(Long.parseLong(readSampleTimeBudget));
+		}
+		
+		String readExtractionCache = properties.getProperty(KEY_EXTRACTION_CACHE);
+		if(readExtractionCache!=null){
+			setExtractionCache(readExtractionCache);
+		}
+		
+		String readExtractionCacheMaxSize = properties.getProperty(KEY_EXTRACTION_CACHE_MAX_SIZE);
+		if(readExtractionCacheMaxSize!=null){
+			setExtractionCacheMaxSize(Long.parseLong(readExtractionCacheMaxSize));
+		}
+		
+		String readExtractionCacheMaxEntries = properties.getProperty(KEY_EXTRACTION_CACHE_MAX_ENTRIES);
+		if(readExtractionCacheMaxEntries!=null){
+			setExtractionCacheMaxEntries(Integer.parseInt(readExtractionCacheMaxEntries));
+		}
 
 	}
 	
@@ -743,6 +1008,21 @@ public class XSDInferenceConfiguration {
 		if(readMaxNumberOfDistinctValuesToEnum!=null){
 			maxNumberOfDistinctValuesToEnum=Integer.parseInt(readMaxNumberOfDistinctValuesToEnum);
 		}
+		
+		String readInferExtendedBuiltinTypes = getParamIsCheckedOrUnchecked(KEY_INFER_EXTENDED_BUILTIN_TYPES,parameterList);
+		if(readInferExtendedBuiltinTypes!=null){
+			setInferExtendedBuiltinTypes(readInferExtendedBuiltinTypes);
+		}
+		
+		String readDistinctValuesSketchPrecision = getParamValue(KEY_DISTINCT_VALUES_SKETCH_PRECISION,parameterList);
+		if(readDistinctValuesSketchPrecision!=null){
+			setDistinctValuesSketchPrecision(Integer.parseInt(readDistinctValuesSketchPrecision));
+		}
+		
+		String readValuesTopK = getParamValue(KEY_VALUES_TOP_K,parameterList);
+		if(readValuesTopK!=null){
+			setValuesTopK(Integer.parseInt(readValuesTopK));
+		}
 				
 		String readSimpleTypeInferencer = getParamValue(KEY_SIMPLE_TYPE_INFERENCER,parameterList);
 		if(readSimpleTypeInferencer!=null){
@@ -847,6 +1127,96 @@ public class XSDInferenceConfiguration {
 		if(readMergedTypesSeparator!=null){
 			setMergedTypesSeparator(readMergedTypesSeparator);
 		}
+		
+		String readExtractionThreads = getParamValue(KEY_EXTRACTION_THREADS,parameterList);
+		if(readExtractionThreads!=null){
+			setExtractionThreads(Integer.parseInt(readExtractionThreads));
+		}
+		
+		String readStreamingExtraction = getParamIsCheckedOrUnchecked(KEY_STREAMING_EXTRACTION,parameterList);
+		if(readStreamingExtraction!=null){
+			setStreamingExtraction(readStreamingExtraction);
+		}
+		
+		String readRecordPath = getParamValue(KEY_RECORD_PATH,parameterList);
+		if(readRecordPath!=null){
+			setRecordPath(readRecordPath);
+		}
+		
+		String readDeduplicateDocuments = getParamIsCheckedOrUnchecked(KEY_DEDUPLICATE_DOCUMENTS,parameterList);
+		if(readDeduplicateDocuments!=null){
+			setDeduplicateDocuments(readDeduplicateDocuments);
+		}
+		
+		Set<String> foundExcludePaths = getParamValues(KEY_MULTIPLE_EXCLUDE_PATHS, parameterList);
+		if(!foundExcludePaths.isEmpty()) {
+			setExcludePaths(new ArrayList<>(foundExcludePaths));
+		}
+		
+		Set<String> foundIncludePaths = getParamValues(KEY_MULTIPLE_INCLUDE_PATHS, parameterList);
+		if(!foundIncludePaths.isEmpty()) {
+			setIncludePaths(new ArrayList<>(foundIncludePaths));
+		}
+		
+		String readShapeSharing = getParamIsCheckedOrUnchecked(KEY_SHAPE_SHARING,parameterList);
+		if(readShapeSharing!=null){
+			setShapeSharing(readShapeSharing);
+		}
+		
+		String readPrefetchFiles = getParamValue(KEY_PREFETCH_FILES,parameterList);
+		if(readPrefetchFiles!=null){
+			setPrefetchFiles(Integer.parseInt(readPrefetchFiles));
+		}
+		
+		String readParserThreads = getParamValue(KEY_PARSER_THREADS,parameterList);
+		if(readParserThreads!=null){
+			setParserThreads(Integer.parseInt(readParserThreads));
+		}
+		
+		String readParseQueueDepth = getParamValue(KEY_PARSE_QUEUE_DEPTH,parameterList);
+		if(readParseQueueDepth!=null){
+			setParseQueueDepth(Integer.parseInt(readParseQueueDepth));
+		}
+		
+		String readSampling = getParamValue(KEY_SAMPLING,parameterList);
+		if(readSampling!=null){
+			setSampling(readSampling);
+		}
+		
+		String readSampleSize = getParamValue(KEY_SAMPLE_SIZE,parameterList);
+		if(readSampleSize!=null){
+			setSampleSize(Integer.parseInt(readSampleSize));
+		}
+		
+		String readSampleFirstDocuments = getParamValue(KEY_SAMPLE_FIRST_DOCUMENTS,parameterList);
+		if(readSampleFirstDocuments!=null){
+			setSampleFirstDocuments(Integer.parseInt(readSampleFirstDocuments));
+		}
+		
+		String readSampleEvery = getParamValue(KEY_SAMPLE_EVERY,parameterList);
+		if(readSampleEvery!=null){
+			setSampleEvery(Integer.parseInt(readSampleEvery));
+		}
+		
+		String readSampleTimeBudget = getParamValue(KEY_SAMPLE_TIME_BUDGET,parameterList);
+		if(readSampleTimeBudget!=null){
+			setSampleTimeBudget(Long.parseLong(readSampleTimeBudget));
+		}
+		
+		String readExtractionCache = getParamValue(KEY_EXTRACTION_CACHE,parameterList);
+		if(readExtractionCache!=null){
+			setExtractionCache(readExtractionCache);
+		}
+		
+		String readExtractionCacheMaxSize = getParamValue(KEY_EXTRACTION_CACHE_MAX_SIZE,parameterList);
+		if(readExtractionCacheMaxSize!=null){
+			setExtractionCacheMaxSize(Long.parseLong(readExtractionCacheMaxSize));
+		}
+		
+		String readExtractionCacheMaxEntries = getParamValue(KEY_EXTRACTION_CACHE_MAX_ENTRIES,parameterList);
+		if(readExtractionCacheMaxEntries!=null){
+			setExtractionCacheMaxEntries(Integer.parseInt(readExtractionCacheMaxEntries));
+		}
 	}
 
 	/**
@@ -1113,6 +1483,18 @@ public class XSDInferenceConfiguration {
 		generateEnumerations=Boolean.parseBoolean(readGenerateEnumerations);
 	}
 
+	/**
+	 * Sets inferExtendedBuiltinTypes from a read String
+	 * @param readInferExtendedBuiltinTypes
+	 * @throws InvalidXSDConfigurationParameterException if an invalid value is provided 
+	 */
+	public void setInferExtendedBuiltinTypes(String readInferExtendedBuiltinTypes)
+			throws InvalidXSDConfigurationParameterException {
+		if(!(readInferExtendedBuiltinTypes.equalsIgnoreCase("true")||readInferExtendedBuiltinTypes.equalsIgnoreCase("false")))
+			throw new InvalidXSDConfigurationParameterException("'inferExtendedBuiltinTypes' must be a valid boolean: true or false");
+		inferExtendedBuiltinTypes=Boolean.parseBoolean(readInferExtendedBuiltinTypes);
+	}
+
 	/**
 	 * Sets typeInferencer from a read String
 	 * @param readTypeInferencer
@@ -1215,6 +1597,51 @@ public class XSDInferenceConfiguration {
 		simpleTypesGlobal=Boolean.parseBoolean(readSimpleTypesGlobal);
 	}
 
+	/**
+	 * Sets streamingExtraction from a read String
+	 * @param readStreamingExtraction
+	 * @throws InvalidXSDConfigurationParameterException if an invalid value is given
+	 * @throws NullPointerException if a null value is passed
+	 */
+	public void setStreamingExtraction(String readStreamingExtraction)
+			throws InvalidXSDConfigurationParameterException {
+		if(readStreamingExtraction==null)
+			throw new NullPointerException();
+		if(!(readStreamingExtraction.equalsIgnoreCase("true")||readStreamingExtraction.equalsIgnoreCase("false")))
+			throw new InvalidXSDConfigurationParameterException("'streamingExtraction' must be a valid boolean: true or false");
+		streamingExtraction=Boolean.parseBoolean(readStreamingExtraction);
+	}
+
+	/**
+	 * Sets deduplicateDocuments from a read String
+	 * @param readDeduplicateDocuments
+	 * @throws InvalidXSDConfigurationParameterException if an invalid value is given
+	 * @throws NullPointerException if a null value is passed
+	 */
+	public void setDeduplicateDocuments(String readDeduplicateDocuments)
+			throws InvalidXSDConfigurationParameterException {
+		if(readDeduplicateDocuments==null)
+			throw new NullPointerException();
+		if(!(readDeduplicateDocuments.equalsIgnoreCase("true")||readDeduplicateDocuments.equalsIgnoreCase("false")))
+			throw new InvalidXSDConfigurationParameterException("'deduplicateDocuments' must be a valid boolean: true or false");
+		deduplicateDocuments=Boolean.parseBoolean(readDeduplicateDocuments);
+	}
+
+	/**
+	 * Sets shapeSharing from a read String
+	 * @param readShapeSharing
+	 * @throws InvalidXSDConfigurationParameterException if an invalid value is given
+	 * @throws NullPointerException if a null value is passed
+	 */
+	public void setShapeSharing(String readShapeSharing)
+			throws InvalidXSDConfigurationParameterException {
+		if(readShapeSharing==null)
+			throw new NullPointerException();
+		if(!(readShapeSharing.equalsIgnoreCase("true")||readShapeSharing.equalsIgnoreCase("false")))
+			throw new InvalidXSDConfigurationParameterException("'shapeSharing' must be a valid boolean: true or false");
+		shapeSharing=Boolean.parseBoolean(readShapeSharing);
+	}
+
 	public XSDInferenceConfiguration(File file, String [] cmdLineArgs) {
 	
 	}
@@ -1275,6 +1702,13 @@ public class XSDInferenceConfiguration {
 		return maxNumberOfDistinctValuesToEnum;
 	}
 
+	/**
+	 * @return the inferExtendedBuiltinTypes
+	 */
+	public boolean getInferExtendedBuiltinTypes() {
+		return inferExtendedBuiltinTypes;
+	}
+
 	/**
 	 * @return the childrenPatternComparator
 	 */
@@ -1438,6 +1872,50 @@ public class XSDInferenceConfiguration {
 		this.maxNumberOfDistinctValuesToEnum = maxNumberOfDistinctValuesToEnum;
 	}
 
+	/**
+	 * @param inferExtendedBuiltinTypes the inferExtendedBuiltinTypes to set
+	 */
+	public void setInferExtendedBuiltinTypes(boolean inferExtendedBuiltinTypes) {
+		this.inferExtendedBuiltinTypes = inferExtendedBuiltinTypes;
+	}
+
+	/**
+	 * @return the distinctValuesSketchPrecision
+	 */
+	public int getDistinctValuesSketchPrecision() {
+		return distinctValuesSketchPrecision;
+	}
+
+	/**
+	 * @param distinctValuesSketchPrecision the distinctValuesSketchPrecision to set
+	 * @throws IllegalArgumentException if the provided value is neither 0 nor a valid precision of a {@link HyperLogLog} sketch
+	 */
+	public void setDistinctValuesSketchPrecision(int distinctValuesSketchPrecision) {
+		if(distinctValuesSketchPrecision!=0 && (distinctValuesSketchPrecision<HyperLogLog.MIN_PRECISION || distinctValuesSketchPrecision>HyperLogLog.MAX_PRECISION)){
+			throw new IllegalArgumentException("Provided value "+distinctValuesSketchPrecision+" for 'distinctValuesSketchPrecision' should be 0 or between "
+					+HyperLogLog.MIN_PRECISION+" and "+HyperLogLog.MAX_PRECISION+".");
+		}
+		this.distinctValuesSketchPrecision = distinctValuesSketchPrecision;
+	}
+
+	/**
+	 * @return the valuesTopK
+	 */
+	public int getValuesTopK() {
+		return valuesTopK;
+	}
+
+	/**
+	 * @param valuesTopK the valuesTopK to set
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setValuesTopK(int valuesTopK) {
+		if(valuesTopK<0){
+			throw new IllegalArgumentException("Provided value "+valuesTopK+" for 'valuesTopK' should not be negative.");
+		}
+		this.valuesTopK = valuesTopK;
+	}
+
 	/**
 	 * @param childrenPatternComparator the childrenPatternComparator to set
 	 */
@@ -1568,13 +2046,338 @@ public class XSDInferenceConfiguration {
 	}
 
 	/**
-	 * @param workingFormat the workingFormat to set (only "xml" and "json" values are allowed and are converted to lower case)
+	 * @param workingFormat the workingFormat to set (only "xml", "json" and "jsonl" values are allowed and are converted to lower case)
 	 */
 	public void setWorkingFormat(String workingFormat) {
 		String workingFormatLC = workingFormat.toLowerCase();
-		if (!(workingFormatLC.equals(VALUE_WORKING_FORMAT_XML) || workingFormatLC.equals(VALUE_WORKING_FORMAT_JSON))){
-			throw new IllegalArgumentException("Provided value "+workingFormat+" is not either 'xml' or 'json' and it should.");
+		if (!(workingFormatLC.equals(VALUE_WORKING_FORMAT_XML) || workingFormatLC.equals(VALUE_WORKING_FORMAT_JSON) 
+				|| workingFormatLC.equals(VALUE_WORKING_FORMAT_JSONL))){
+			throw new IllegalArgumentException("Provided value "+workingFormat+" is not either 'xml', 'json' or 'jsonl' and it should.");
 		}
 		this.workingFormat = workingFormatLC;
 	}
+
+	/**
+	 * @return the streamingExtraction
+	 */
+	public boolean getStreamingExtraction() {
+		return streamingExtraction;
+	}
+
+	/**
+	 * @param streamingExtraction the streamingExtraction to set
+	 */
+	public void setStreamingExtraction(boolean streamingExtraction) {
+		this.streamingExtraction = streamingExtraction;
+	}
+
+	/**
+	 * @return the extractionThreads
+	 */
+	public int getExtractionThreads() {
+		return extractionThreads;
+	}
+
+	/**
+	 * @param extractionThreads the extractionThreads to set
+	 * @throws IllegalArgumentException if the value is less than 1
+	 */
+	public void setExtractionThreads(int extractionThreads) {
+		if(extractionThreads<1){
+			throw new IllegalArgumentException("Provided value "+extractionThreads+" for 'extractionThreads' is less than 1 and it should not.");
+		}
+		this.extractionThreads = extractionThreads;
+	}
+
+	/**
+	 * @return the recordPath (null if input documents are not split into records)
+	 */
+	public String getRecordPath() {
+		return recordPath;
+	}
+
+	/**
+	 * @param recordPath the recordPath to set: an absolute path of element names separated by '/' (i.e. /root/record) or null to 
+	 * extract whole documents
+	 * @throws IllegalArgumentException if the path is not absolute or it has empty steps
+	 */
+	public void setRecordPath(String recordPath) {
+		if(recordPath!=null && !recordPath.matches("(/[^/\\s]+)+")){
+			throw new IllegalArgumentException("Provided value "+recordPath+" for 'recordPath' is not an absolute path of element names (i.e. /root/record) and it should.");
+		}
+		this.recordPath = recordPath;
+	}
+
+	/**
+	 * @return the excludePaths
+	 */
+	public List<String> getExcludePaths() {
+		return excludePaths;
+	}
+
+	/**
+	 * @param excludePaths the excludePaths to set: absolute paths of element names separated by '/' (i.e. /envelope/body/blob)
+	 * @throws IllegalArgumentException if any path is not absolute or it has empty steps
+	 */
+	public void setExcludePaths(List<String> excludePaths) {
+		checkElementPaths(excludePaths, KEY_MULTIPLE_EXCLUDE_PATHS);
+		this.excludePaths = excludePaths;
+	}
+
+	/**
+	 * @return the includePaths (if empty, every path is included)
+	 */
+	public List<String> getIncludePaths() {
+		return includePaths;
+	}
+
+	/**
+	 * @param includePaths the includePaths to set: absolute paths of element names separated by '/' (i.e. /envelope/header) 
+	 * or an empty list to include every path
+	 * @throws IllegalArgumentException if any path is not absolute or it has empty steps
+	 */
+	public void setIncludePaths(List<String> includePaths) {
+		checkElementPaths(includePaths, KEY_MULTIPLE_INCLUDE_PATHS);
+		this.includePaths = includePaths;
+	}
+
+	/**
+	 * Checks that all the given paths are absolute paths of element names separated by '/'.
+	 * @param paths the paths
+	 * @param parameterName the name of the parameter (for the error message)
+	 * @throws IllegalArgumentException if any path is not valid
+	 */
+	private static void checkElementPaths(List<String> paths, String parameterName) {
+		for(String path: paths){
+			if(path==null || !path.matches("(/[^/\\s]+)+")){
+				throw new IllegalArgumentException("Provided value "+path+" for '"+parameterName+"' is not an absolute path of element names (i.e. /root/element) and it should.");
+			}
+		}
+	}
+
+	/**
+	 * @return the deduplicateDocuments
+	 */
+	public boolean getDeduplicateDocuments() {
+		return deduplicateDocuments;
+	}
+
+	/**
+	 * @param deduplicateDocuments the deduplicateDocuments to set
+	 */
+	public void setDeduplicateDocuments(boolean deduplicateDocuments) {
+		this.deduplicateDocuments = deduplicateDocuments;
+	}
+
+	/**
+	 * @return the shapeSharing
+	 */
+	public boolean getShapeSharing() {
+		return shapeSharing;
+	}
+
+	/**
+	 * @param shapeSharing the shapeSharing to set
+	 */
+	public void setShapeSharing(boolean shapeSharing) {
+		this.shapeSharing = shapeSharing;
+	}
+
+	/**
+	 * @return the prefetchFiles
+	 */
+	public int getPrefetchFiles() {
+		return prefetchFiles;
+	}
+
+	/**
+	 * @param prefetchFiles the prefetchFiles to set
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setPrefetchFiles(int prefetchFiles) {
+		if(prefetchFiles<0){
+			throw new IllegalArgumentException("Provided value "+prefetchFiles+" for 'prefetchFiles' is negative and it should not.");
+		}
+		this.prefetchFiles = prefetchFiles;
+	}
+
+	/**
+	 * @return the parserThreads (0 means that documents are parsed before the extraction)
+	 */
+	public int getParserThreads() {
+		return parserThreads;
+	}
+
+	/**
+	 * @param parserThreads the parserThreads to set
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setParserThreads(int parserThreads) {
+		if(parserThreads<0){
+			throw new IllegalArgumentException("Provided value "+parserThreads+" for 'parserThreads' is negative and it should not.");
+		}
+		this.parserThreads = parserThreads;
+	}
+
+	/**
+	 * @return the parseQueueDepth
+	 */
+	public int getParseQueueDepth() {
+		return parseQueueDepth;
+	}
+
+	/**
+	 * @param parseQueueDepth the parseQueueDepth to set
+	 * @throws IllegalArgumentException if the provided value is less than 1
+	 */
+	public void setParseQueueDepth(int parseQueueDepth) {
+		if(parseQueueDepth<1){
+			throw new IllegalArgumentException("Provided value "+parseQueueDepth+" for 'parseQueueDepth' is less than 1 and it should not.");
+		}
+		this.parseQueueDepth = parseQueueDepth;
+	}
+
+	/**
+	 * @return the sampling strategy
+	 */
+	public String getSampling() {
+		return sampling;
+	}
+
+	/**
+	 * @param sampling the sampling strategy to set: none, reservoir, stratifiedByDirectory or firstThenEvery (case insensitive)
+	 * @throws IllegalArgumentException if the provided value is not a valid strategy
+	 */
+	public void setSampling(String sampling) {
+		String[] validValues = {VALUE_SAMPLING_NONE, VALUE_SAMPLING_RESERVOIR, VALUE_SAMPLING_STRATIFIED_BY_DIRECTORY, VALUE_SAMPLING_FIRST_THEN_EVERY};
+		for(String validValue: validValues){
+			if(validValue.equalsIgnoreCase(sampling)){
+				this.sampling = validValue;
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Provided value "+sampling+" is not either 'none', 'reservoir', 'stratifiedByDirectory' or 'firstThenEvery' and it should.");
+	}
+
+	/**
+	 * @return the sampleSize
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * @param sampleSize the sampleSize to set
+	 * @throws IllegalArgumentException if the provided value is less than 1
+	 */
+	public void setSampleSize(int sampleSize) {
+		if(sampleSize<1){
+			throw new IllegalArgumentException("Provided value "+sampleSize+" for 'sampleSize' is less than 1 and it should not.");
+		}
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * @return the sampleFirstDocuments
+	 */
+	public int getSampleFirstDocuments() {
+		return sampleFirstDocuments;
+	}
+
+	/**
+	 * @param sampleFirstDocuments the sampleFirstDocuments to set
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setSampleFirstDocuments(int sampleFirstDocuments) {
+		if(sampleFirstDocuments<0){
+			throw new IllegalArgumentException("Provided value "+sampleFirstDocuments+" for 'sampleFirstDocuments' is negative and it should not.");
+		}
+		this.sampleFirstDocuments = sampleFirstDocuments;
+	}
+
+	/**
+	 * @return the sampleEvery
+	 */
+	public int getSampleEvery() {
+		return sampleEvery;
+	}
+
+	/**
+	 * @param sampleEvery the sampleEvery to set
+	 * @throws IllegalArgumentException if the provided value is less than 1
+	 */
+	public void setSampleEvery(int sampleEvery) {
+		if(sampleEvery<1){
+			throw new IllegalArgumentException("Provided value "+sampleEvery+" for 'sampleEvery' is less than 1 and it should not.");
+		}
+		this.sampleEvery = sampleEvery;
+	}
+
+	/**
+	 * @return the sampleTimeBudget in milliseconds
+	 */
+	public long getSampleTimeBudget() {
+		return sampleTimeBudget;
+	}
+
+	/**
+	 * @param sampleTimeBudget the sampleTimeBudget to set, in milliseconds (0 means no time budget)
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setSampleTimeBudget(long sampleTimeBudget) {
+		if(sampleTimeBudget<0){
+			throw new IllegalArgumentException("Provided value "+sampleTimeBudget+" for 'sampleTimeBudget' is negative and it should not.");
+		}
+		this.sampleTimeBudget = sampleTimeBudget;
+	}
+
+	/**
+	 * @return the directory of the extraction cache (null if there is no cache)
+	 */
+	public String getExtractionCache() {
+		return extractionCache;
+	}
+
+	/**
+	 * @param extractionCache the directory of the extraction cache to set (null means no cache)
+	 */
+	public void setExtractionCache(String extractionCache) {
+		this.extractionCache = extractionCache;
+	}
+
+	/**
+	 * @return the extractionCacheMaxSize in megabytes
+	 */
+	public long getExtractionCacheMaxSize() {
+		return extractionCacheMaxSize;
+	}
+
+	/**
+	 * @param extractionCacheMaxSize the extractionCacheMaxSize to set, in megabytes
+	 * @throws IllegalArgumentException if the provided value is less than 1
+	 */
+	public void setExtractionCacheMaxSize(long extractionCacheMaxSize) {
+		if(extractionCacheMaxSize<1){
+			throw new IllegalArgumentException("Provided value "+extractionCacheMaxSize+" for 'extractionCacheMaxSize' is less than 1 and it should not.");
+		}
+		this.extractionCacheMaxSize = extractionCacheMaxSize;
+	}
+
+	/**
+	 * @return the extractionCacheMaxEntries (0 means no limit)
+	 */
+	public int getExtractionCacheMaxEntries() {
+		return extractionCacheMaxEntries;
+	}
+
+	/**
+	 * @param extractionCacheMaxEntries the extractionCacheMaxEntries to set (0 means no limit)
+	 * @throws IllegalArgumentException if the provided value is negative
+	 */
+	public void setExtractionCacheMaxEntries(int extractionCacheMaxEntries) {
+		if(extractionCacheMaxEntries<0){
+			throw new IllegalArgumentException("Provided value "+extractionCacheMaxEntries+" for 'extractionCacheMaxEntries' is negative and it should not.");
+		}
+		this.extractionCacheMaxEntries = extractionCacheMaxEntries;
+	}
 }
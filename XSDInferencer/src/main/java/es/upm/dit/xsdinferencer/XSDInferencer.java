@@ -15,31 +15,36 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.nio.file.Files;
 import java.nio.file.NotDirectoryException;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.google.common.base.Charsets;
-import com.google.common.base.Joiner;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
 
 import es.upm.dit.xsdinferencer.conversion.TypeConverter;
 import es.upm.dit.xsdinferencer.conversion.converterimpl.TypeConverterImpl;
@@ -48,14 +53,28 @@ import es.upm.dit.xsdinferencer.exceptions.InvalidXSDConfigurationParameterExcep
 import es.upm.dit.xsdinferencer.exceptions.XSDConfigurationException;
 import es.upm.dit.xsdinferencer.exceptions.XSDInferencerException;
 import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.CachedTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ExtractionCache;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONLinesTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONStreamTypesExtractorImpl;
 import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ParallelTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.PipelinedTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ShardsCombinerTypesExtractorImpl;
 import es.upm.dit.xsdinferencer.extraction.extractorImpl.TypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.XMLStreamTypesExtractorImpl;
 import es.upm.dit.xsdinferencer.generation.ResultsGenerator;
 import es.upm.dit.xsdinferencer.generation.generatorimpl.ResultsGeneratorImpl;
 import es.upm.dit.xsdinferencer.generation.generatorimpl.schemageneration.SchemaDocumentGeneratorFactory;
 import es.upm.dit.xsdinferencer.generation.generatorimpl.statisticsgeneration.StatisticResultsDocGeneratorFactory;
 import es.upm.dit.xsdinferencer.merge.TypeMerger;
 import es.upm.dit.xsdinferencer.merge.mergerimpl.TypeMergerImpl;
+import es.upm.dit.xsdinferencer.util.inputs.DeduplicatedInputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+import es.upm.dit.xsdinferencer.util.inputs.InputFilesFinder;
+import es.upm.dit.xsdinferencer.util.inputs.SampledInputDocumentsSource;
 import es.upm.dit.xsdinferencer.util.xsdfilenaming.XSDFileNameGeneratorDefaultImpl;
 
 /**
@@ -77,12 +96,66 @@ public class XSDInferencer {
 	 */
 	protected static final String KEY_INPUT_DIRECTORY = "inputDirectory";
 	
+	/**
+	 * Key for the input parameter that makes the input directories be walked recursively
+	 */
+	protected static final String KEY_RECURSIVE = "recursive";
+	
+	/**
+	 * Key for the input parameter that indicates a glob of the files of the input directories that should be used 
+	 * (it may occur many times)
+	 */
+	protected static final String KEY_INCLUDE = "include";
+	
+	/**
+	 * Key for the input parameter that indicates a glob of the files or subdirectories of the input directories 
+	 * that should be ignored (it may occur many times)
+	 */
+	protected static final String KEY_EXCLUDE = "exclude";
+	
+	/**
+	 * Key for the input parameter that indicates a file which lists input files, one per line
+	 */
+	protected static final String KEY_INPUT_MANIFEST = "inputManifest";
+	
 	/**
 	 * Key for the input parameter that indicates the output directory for the generated files (names are generated 
 	 * dinamically and cannot be changed).
 	 */
 	protected static final String KEY_OUTPUT_DIRECTORY = "outputDirectory";
 	
+	/**
+	 * Key for the input parameter that indicates a file with a learner state saved by a previous run, 
+	 * from which the extraction is resumed
+	 */
+	protected static final String KEY_LOAD_STATE = "loadState";
+	
+	/**
+	 * Key for the input parameter that indicates the file where the learner state is saved after the extraction
+	 */
+	protected static final String KEY_SAVE_STATE = "saveState";
+	
+	/**
+	 * Key for the input parameter that indicates the partial state file written by the extract-shard command or, 
+	 * at the combine command, the file where the combined partial state is written instead of generating the results
+	 */
+	protected static final String KEY_SHARD_FILE = "shardFile";
+	
+	/**
+	 * Key for the input parameter which indicates the list of partial state files combined by the combine command
+	 */
+	protected static final String KEY_SHARD_FILES = "shardFiles";
+	
+	/**
+	 * Command which only extracts the input files and writes their partial state to a shard file
+	 */
+	protected static final String COMMAND_EXTRACT_SHARD = "extract-shard";
+	
+	/**
+	 * Command which combines shard files and then generates the results as usual
+	 */
+	protected static final String COMMAND_COMBINE = "combine";
+	
 //	/**
 //	 * New line separator at the current system
 //	 */
@@ -94,6 +167,15 @@ public class XSDInferencer {
 	protected static final String TEXT_HELP ="XSDInferencer - A tool to infer XSDs from XML instances\r\n" + 
 			"\r\n" + 
 			"Usage: java -jar XSDInferencer.jar parameters\r\n" + 
+			"       java -jar XSDInferencer.jar extract-shard --shardFile file parameters\r\n" + 
+			"       java -jar XSDInferencer.jar combine --shardFiles file1 [file2 ...] [--shardFile file] parameters\r\n" + 
+			"\r\n" + 
+			"The extract-shard command only extracts the input files and writes their partial state (automatons, values, \r\n" + 
+			"attributes and statistics) to the shard file, so that the extraction may be distributed among many machines. \r\n" + 
+			"The combine command merges the given shard files (the documents of each one follow the ones of the previous \r\n" + 
+			"shards) and then generates the results as usual, or writes the combined partial state to the file given \r\n" + 
+			"with --shardFile, so that shards may be combined in a tree. All the shards must be extracted and combined with \r\n" + 
+			"the same configuration parameters.\r\n" + 
 			"\r\n" + 
 			"Where parameters may be:\r\n" + 
 			"\r\n" + 
@@ -104,6 +186,50 @@ public class XSDInferencer {
 			"--inputDirectory directory                                  All the xml files of that directory are considered input files.\r\n" + 
 			"                                                            It may be combined with --inputFiles. Either --inputFiles or \r\n" + 
 			"                                                            --inputDirectory must be specified.\r\n" + 
+			"                                                            Input files may be .zip, .tar, .tar.gz or .tgz archives (whose \r\n" + 
+			"                                                            matching entries are read without extracting them) or gzip \r\n" + 
+			"                                                            compressed files (.gz).\r\n" + 
+			"[--inputManifest file]                                      A file which lists input files, one per line (relative paths are \r\n" + 
+			"                                                            resolved against its directory). It may be combined with the \r\n" + 
+			"                                                            other input parameters.\r\n" + 
+			"[--recursive]                                               Input directories are walked recursively.\r\n" + 
+			"[--include glob] [--include glob2 ...]                      Only the files of the input directories matching any of these globs \r\n" + 
+			"                                                            (i.e. *.xml or data/**.xml) are considered input files, instead of \r\n" + 
+			"                                                            those with the extension of the working format.\r\n" + 
+			"[--exclude glob] [--exclude glob2 ...]                      Files and subdirectories of the input directories matching any of \r\n" + 
+			"                                                            these globs are ignored.\r\n" + 
+			"[--prefetchFiles n]                                         Number of input files read ahead by background I/O threads while \r\n" + 
+			"                                                            the current one is extracted. Default: 0 (no prefetch).\r\n" + 
+			"[--parserThreads n]                                         Number of threads which parse the input XML documents while the \r\n" + 
+			"                                                            previous ones are extracted. Default: 0 (all the documents are \r\n" + 
+			"                                                            parsed before the extraction).\r\n" + 
+			"[--parseQueueDepth n]                                       Maximum number of read documents waiting to be extracted when \r\n" + 
+			"                                                            parser threads are used. Default: 64.\r\n" + 
+			"[--sampling {none|reservoir|stratifiedByDirectory|firstThenEvery}]\r\n" + 
+			"                                                            Only a sample of the input documents is extracted: a uniform random \r\n" + 
+			"                                                            one, a uniform random one where each directory contributes \r\n" + 
+			"                                                            proportionally, or the first documents and then one of each k. \r\n" + 
+			"                                                            JSON Lines files are sampled as whole files. The statistics tell how \r\n" + 
+			"                                                            many occurrences back each inferred edge and enumeration value. \r\n" + 
+			"                                                            Default: none.\r\n" + 
+			"[--sampleSize n]                                            Maximum number of sampled documents. Default: 1000.\r\n" + 
+			"[--sampleFirstDocuments n]                                  Documents taken before skipping any one by firstThenEvery. Default: 100.\r\n" + 
+			"[--sampleEvery k]                                           One of each k documents is then taken by firstThenEvery. Default: 10.\r\n" + 
+			"[--sampleTimeBudget ms]                                     No more documents are sampled once this time has elapsed. \r\n" + 
+			"                                                            Default: 0 (no time budget).\r\n" + 
+			"[--extractionCache directory]                               Each input file is extracted on its own and its learner state is kept \r\n" + 
+			"                                                            at this directory, keyed by the content of the file, so reruns only \r\n" + 
+			"                                                            extract new or changed files. Files must bind each namespace URI to \r\n" + 
+			"                                                            the same prefix. Default: no cache.\r\n" + 
+			"[--extractionCacheMaxSize MB]                               Maximum size of the extraction cache. The least recently used entries \r\n" + 
+			"                                                            are evicted when it is exceeded. Default: 1024.\r\n" + 
+			"[--extractionCacheMaxEntries n]                             Maximum number of entries of the extraction cache (least recently used \r\n" + 
+			"                                                            ones are evicted). Default: 0 (no limit).\r\n" + 
+			"[--loadState file]                                          The extraction resumes from the learner state saved at that file by a \r\n" + 
+			"                                                            previous run (with the same type naming configuration), so only \r\n" + 
+			"                                                            the new input documents need to be given.\r\n" + 
+			"[--saveState file]                                          The learner state is saved to that file after the extraction (before \r\n" + 
+			"                                                            merging the types), so that a later run may resume from it.\r\n" + 
 			"--outputDirectory directory                                 The directory where output files will be placed. If it is not \r\n" + 
 			"                                                            specified, output documents will be print to stdout.\r\n" + 
 			"\r\n" + 
@@ -114,10 +240,31 @@ public class XSDInferencer {
 			"                                                            given properties file. However, concrete configuration \r\n" + 
 			"                                                            values may be overwritten via the following command \r\n" + 
 			"                                                            line parameters.\r\n" + 
-			"[--workingFormat {xml|json}]                                If 'xml' value is provided, the inferencer will read XML files to \r\n" +
+			"[--workingFormat {xml|json|jsonl}]                          If 'xml' value is provided, the inferencer will read XML files to \r\n" +
 			"                                                            infer XSDs from them. If 'json' is provided, JSON files will be read to \r\n" + 
-			"                                                            infer a JSON Schema file from them. No more values are allowed. \r\n" + 
+			"                                                            infer a JSON Schema file from them. If 'jsonl' is provided, JSON Lines \r\n" + 
+			"                                                            files (.jsonl or .ndjson) will be streamed and each line will be a \r\n" + 
+			"                                                            document. No more values are allowed. \r\n" + 
 			"															 Default value: xml.\r\n" +
+			"[{--streamingExtraction|--noStreamingExtraction}]           If the former is provided, input XML files are streamed during the \r\n" + 
+			"                                                            extraction instead of being loaded into memory. Default: not streamed.\r\n" + 
+			"[--extractionThreads n]                                     Number of threads used to extract the input XML files (when they are \r\n" + 
+			"                                                            not streamed). Default: 1.\r\n" + 
+			"[--recordPath path]                                         Input XML files are streamed and each element at the given absolute \r\n" + 
+			"                                                            path (i.e. /root/record) is extracted as an independent document. \r\n" + 
+			"                                                            Default: whole files are documents.\r\n" + 
+			"[{--deduplicateDocuments|--noDeduplicateDocuments}]         If the former is provided, identical input files are extracted only \r\n" + 
+			"                                                            once and counted as many times as they occur. Default: off.\r\n" + 
+			"[--excludePath path] [--excludePath path2...]               The content of the elements at the given absolute path (i.e. \r\n" + 
+			"                                                            /envelope/body/blob) is not extracted (streaming extractions do \r\n" + 
+			"                                                            not even build it) and the schemas allow any content for them. \r\n" + 
+			"[--includePath path] [--includePath path2...]               Only the elements at, above or under the given absolute paths are \r\n" + 
+			"                                                            extracted, the content of any other element is skipped as if its \r\n" + 
+			"                                                            path was excluded. Default: every path is included.\r\n" + 
+			"[{--shapeSharing|--noShapeSharing}]                         If the former is provided, the structure of repeated subtrees is \r\n" + 
+			"                                                            learned once per document and replayed by its occurrences, so only \r\n" + 
+			"                                                            values are learned again. Results do not change. Not applied to \r\n" + 
+			"                                                            streaming extractions. Default: off.\r\n" + 
 			"[--mainNamespace namespace]                                 The specified namespace will be forced to be the main namespace \r\n" + 
 			"                                                            of the inference process. It must exist in the input documents.\r\n" + 
 			"[--skipNamespace namespace] [--skipNamespace namespace2...] The specified namespace will be skipped. This parameter \r\n" + 
@@ -134,6 +281,18 @@ public class XSDInferencer {
 			"                                                            it becomes an enumeration.\r\n" + 
 			"[--maxNumberOfDistinctValuesToEnum N]                       Maximum number of distinct values on a simple type so that \r\n" + 
 			"                                                            it becomes an enumeration.\r\n" + 
+			"[{--inferExtendedBuiltinTypes|--noInferExtendedBuiltinTypes}]\r\n" + 
+			"                                                            If the former is provided, simple types may also be inferred \r\n" + 
+			"                                                            as xs:long, xs:int, xs:short, xs:byte, xs:double, xs:date, \r\n" + 
+			"                                                            xs:time, xs:dateTime, xs:anyURI or xs:base64Binary (only \r\n" + 
+			"                                                            with the xml working format).\r\n" + 
+			"[--distinctValuesSketchPrecision p]                         Precision (4-18) of the HyperLogLog sketches which estimate the \r\n" + 
+			"                                                            distinct values of each path and node at the statistics. Values \r\n" + 
+			"                                                            are only kept while the estimate is not greater than \r\n" + 
+			"                                                            maxNumberOfDistinctValuesToEnum. Default: 0 (no sketches).\r\n" + 
+			"[--valuesTopK K]                                            Only the approximate frequencies of the K most frequent values \r\n" + 
+			"                                                            of each path are kept at the statistics. Default: 0 (all the \r\n" + 
+			"                                                            values are kept).\r\n" + 
 			"[--simpleTypeInferencer SimpleTypeInferencerImpl]           Parameter designed to make easier to extend the inferencer.\r\n" + 
 			"                                                            DO NOT SPECIFY ANOTHER VALUE!!!!\r\n" + 
 			"[--attributeListInferencer AttributeListInferencerImpl]     Parameter designed to make easier to extend the inferencer.\r\n" + 
@@ -190,6 +349,21 @@ public class XSDInferencer {
 			"[--mergedTypesSeparator separator]                          Separator used by the merger module to build merged type names.\r\n" + 
 			"";
 	
+	/**
+	 * File with a saved learner state from which the extraction is resumed (null if it starts from scratch)
+	 */
+	private File loadStateFile = null;
+	
+	/**
+	 * File where the learner state is saved after the extraction (null if it is not saved)
+	 */
+	private File saveStateFile = null;
+	
+	/**
+	 * Whether the inference stops after the extraction (and the saving of the learner state)
+	 */
+	private boolean extractionOnly = false;
+	
 	/**
 	 * A {@link FilenameFilter} that filters all the files with .xml extension (case insensitive).
 	 */
@@ -220,6 +394,22 @@ public class XSDInferencer {
 		}
 	};
 	
+	/**
+	 * A {@link FilenameFilter} that filters all the files with .jsonl or .ndjson extension (case insensitive).
+	 */
+	private static final FilenameFilter FILE_NAME_FILTER_JSON_LINES_EXTENSION = new FilenameFilter() {
+		
+		@Override
+		public boolean accept(File dir, String name) {
+			String nameLC = name.toLowerCase();
+			if(nameLC.endsWith(".jsonl")||nameLC.endsWith(".ndjson")){
+				return true;
+			}else{
+				return false;
+			}
+		}
+	};
+	
 	/**
 	 * Method that, given a list of input documents represented as JDOM2 {@link Document} objects and an 
 	 * inference configuration, does the whole inference process by calling the appropriate submodules.
@@ -229,38 +419,86 @@ public class XSDInferencer {
 	 * @throws XSDConfigurationException if there is a problem with the configuration
 	 */
 	public Results inferSchema(List<Document> xmlFiles, XSDInferenceConfiguration configuration) throws XSDInferencerException {
-		long startTime = System.currentTimeMillis();
 		System.out.println("Starting inference process of "+xmlFiles.size()+" files");
-		TypesExtractor extractor = new TypesExtractorImpl(xmlFiles, configuration);
-		System.out.println("Extracting types...");
-		Schema schema = extractor.getInitalSchema();
-		long extractedTime = System.currentTimeMillis();
-		long extractedElapsedTime = extractedTime-startTime;
-		System.out.println("Types extracted in "+extractedElapsedTime+"ms");
-		System.out.println("Merging types");
-		TypeMerger merger = new TypeMergerImpl();
-		merger.mergeTypes(schema, configuration);
-		long mergedTime = System.currentTimeMillis();
-		long mergedElapsedTime = mergedTime-extractedTime;
-		System.out.println("Types merged in "+mergedElapsedTime+"ms");
-		System.out.println("Converting automatons to regular expressions and optimizing...");
-		TypeConverter converter = new TypeConverterImpl();
-		converter.converTypes(schema, configuration);
-		long convertedTime = System.currentTimeMillis();
-		long convertedElapsedTime = convertedTime-mergedTime;
-		System.out.println("Automatons converted and optimized in "+convertedElapsedTime+"ms");
-		System.out.println("Generating results...");
-		ResultsGenerator generator = new ResultsGeneratorImpl(SchemaDocumentGeneratorFactory.getInstance(), StatisticResultsDocGeneratorFactory.getInstance(), new XSDFileNameGeneratorDefaultImpl());
-		Results results = generator.generateResults(schema, configuration);
-		long generatedTime = System.currentTimeMillis();
-		long generatedElapsedTime=generatedTime-convertedTime;
-		System.out.println("Results generated in "+generatedElapsedTime+"ms");
-		System.out.println("Done!!!!");
-		
-		long totalElapsedTime = generatedTime-startTime;
-		System.out.println("Total time: "+totalElapsedTime+"ms");
+		return inferSchema(createTypesExtractor(xmlFiles, configuration), configuration);
+	}
+	
+	/**
+	 * It builds the extractor of a list of input documents represented as JDOM2 {@link Document} objects.
+	 * @param xmlFiles A list of {@link Document} object with the input documents
+	 * @param configuration the inference configuration
+	 * @return the extractor (a parallel one if more than one extraction thread is configured)
+	 */
+	private TypesExtractorImpl createTypesExtractor(List<Document> xmlFiles, XSDInferenceConfiguration configuration) {
+		if(configuration.getExtractionThreads()>1){
+			return new ParallelTypesExtractorImpl(xmlFiles, configuration);
+		} else {
+			return new TypesExtractorImpl(xmlFiles, configuration);
+		}
+	}
+	
+	/**
+	 * Method that, given a list of input XML documents represented as {@link ByteSource} objects and an 
+	 * inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * The documents are streamed during the extraction, so they are never fully loaded into memory.
+	 * @param xmlSources A list of {@link ByteSource} objects with the input documents
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaStreaming(List<ByteSource> xmlSources, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting streaming inference process of "+xmlSources.size()+" files");
+		TypesExtractor extractor = new XMLStreamTypesExtractorImpl(xmlSources, configuration);
+		return inferSchema(extractor, configuration);
+	}
+	
+	/**
+	 * Method that, given an {@link InputDocumentsSource} with the input XML documents (i.e. the entries of some archives) 
+	 * and an inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * The documents are streamed during the extraction, so they are never fully loaded into memory.
+	 * @param xmlSource the source of the input documents
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaStreaming(InputDocumentsSource xmlSource, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting streaming inference process");
+		TypesExtractor extractor = new XMLStreamTypesExtractorImpl(xmlSource, configuration);
+		return inferSchema(extractor, xmlSource, configuration);
+	}
+	
+	/**
+	 * Method that, given an {@link InputDocumentsSource} with the input XML documents and an inference configuration, 
+	 * does the whole inference process by calling the appropriate submodules. The documents are parsed by 
+	 * {@link XSDInferenceConfiguration#getParserThreads()} threads while the previous ones are extracted, and at most 
+	 * {@link XSDInferenceConfiguration#getParseQueueDepth()} of them are kept in memory. The throughput of each stage 
+	 * is reported after the extraction.
+	 * @param xmlSource the source of the input documents
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaPipelined(InputDocumentsSource xmlSource, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting pipelined inference process with "+configuration.getParserThreads()+" parser threads");
+		PipelinedTypesExtractorImpl extractor = new PipelinedTypesExtractorImpl(xmlSource, configuration);
+		Results results = inferSchema(extractor, xmlSource, configuration);
+		int documentsCount = extractor.getPipelinedDocumentsCount();
+		System.out.println("Reading: "+extractor.getReadingTime()+"ms ("+getThroughput(documentsCount, extractor.getReadingTime())
+				+" docs/s), "+extractor.getQueueFullTime()+"ms waiting for the queue");
+		System.out.println("Parsing: "+extractor.getParsingTime()+"ms over "+extractor.getParserThreads()+" threads ("
+				+getThroughput(documentsCount*extractor.getParserThreads(), extractor.getParsingTime())+" docs/s)");
+		System.out.println("Extraction: "+extractor.getExtractionTime()+"ms ("+getThroughput(documentsCount, extractor.getExtractionTime())
+				+" docs/s), "+extractor.getExtractionWaitTime()+"ms waiting for parsed documents");
 		return results;
+	}
 	
+	/**
+	 * @param documentsCount number of processed documents
+	 * @param elapsedTime time spent processing them, in milliseconds
+	 * @return the number of documents processed per second, as a String
+	 */
+	private static String getThroughput(int documentsCount, long elapsedTime) {
+		return elapsedTime>0?String.format("%.1f", documentsCount*1000.0/elapsedTime):"-";
 	}
 	
 	/**
@@ -273,11 +511,152 @@ public class XSDInferencer {
 	 */
 	public Results inferSchema(List<JSONObject> jsonDocumentWithRootObjects, List<JSONArray> jsonDocumentWithRootArrays, XSDInferenceConfiguration configuration) throws XSDInferencerException {
 		int size = jsonDocumentWithRootArrays.size()+jsonDocumentWithRootObjects.size();
-		long startTime = System.currentTimeMillis();
 		System.out.println("Starting inference process of "+size+" files");
 		TypesExtractor extractor = new JSONTypesExtractorImpl(jsonDocumentWithRootObjects, jsonDocumentWithRootArrays, configuration); 
+		return inferSchema(extractor, configuration);
+	}
+	
+	/**
+	 * Method that, given a list of input JSON documents represented as {@link CharSource} objects and an 
+	 * inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * The documents are read token by token during the extraction, so they are neither parsed into trees nor 
+	 * converted into XML.
+	 * @param jsonSources A list of {@link CharSource} objects with the input documents
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and JSON Schemas)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaJSONStreaming(List<CharSource> jsonSources, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting inference process of "+jsonSources.size()+" files");
+		TypesExtractor extractor = new JSONStreamTypesExtractorImpl(jsonSources, configuration);
+		return inferSchema(extractor, configuration);
+	}
+	
+	/**
+	 * Method that, given an {@link InputDocumentsSource} with the input JSON documents (i.e. the entries of some archives) 
+	 * and an inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * The documents are read token by token during the extraction.
+	 * @param jsonSource the source of the input documents
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and JSON Schemas)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaJSONStreaming(InputDocumentsSource jsonSource, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting inference process");
+		TypesExtractor extractor = new JSONStreamTypesExtractorImpl(jsonSource, configuration);
+		return inferSchema(extractor, jsonSource, configuration);
+	}
+	
+	/**
+	 * Method that, given a list of input JSON Lines files represented as {@link CharSource} objects and an 
+	 * inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * Files are streamed and each line is treated as an independent JSON document.
+	 * @param jsonLinesSources A list of {@link CharSource} objects with the input JSON Lines files
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and JSON Schemas)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaJSONLines(List<CharSource> jsonLinesSources, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting inference process of "+jsonLinesSources.size()+" JSON Lines files");
+		TypesExtractor extractor = new JSONLinesTypesExtractorImpl(jsonLinesSources, configuration);
+		return inferSchema(extractor, configuration);
+	}
+	
+	/**
+	 * Method that, given an {@link InputDocumentsSource} with the input JSON Lines files (i.e. the entries of some archives) 
+	 * and an inference configuration, does the whole inference process by calling the appropriate submodules. 
+	 * Files are streamed and each line is treated as an independent JSON document.
+	 * @param jsonLinesSource the source of the input JSON Lines files
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and JSON Schemas)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaJSONLines(InputDocumentsSource jsonLinesSource, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting inference process of JSON Lines files");
+		TypesExtractor extractor = new JSONLinesTypesExtractorImpl(jsonLinesSource, configuration);
+		return inferSchema(extractor, jsonLinesSource, configuration);
+	}
+	
+	/**
+	 * Method that, given an {@link InputDocumentsSource} with the input files and an inference configuration, does the 
+	 * whole inference process by calling the appropriate submodules. Each input file is extracted on its own and its 
+	 * learner state is kept at the configured extraction cache, so that unchanged files are not extracted again by 
+	 * the following runs.
+	 * @param source the source of the input files
+	 * @param fileExtractorFactory builds the extractor of a single input file, given a source with only that file
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs or JSON Schemas) or null if 
+	 * the inference stops after the extraction
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchemaCached(InputDocumentsSource source, Function<InputDocumentsSource, TypesExtractorImpl> fileExtractorFactory, 
+			XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		System.out.println("Starting inference process using the extraction cache at "+configuration.getExtractionCache());
+		ExtractionCache cache;
+		try{
+			cache = new ExtractionCache(new File(configuration.getExtractionCache()), configuration.getExtractionCacheMaxSize()*1024*1024, 
+					configuration.getExtractionCacheMaxEntries());
+		} catch (IOException e) {
+			throw new XSDInferencerException("Error while opening the extraction cache at "+configuration.getExtractionCache(), e);
+		}
+		CachedTypesExtractorImpl extractor = new CachedTypesExtractorImpl(source, configuration, cache, fileExtractorFactory);
+		Results results = inferSchema(extractor, source, configuration);
+		System.out.println("Extraction cache: "+extractor.getExtractedFilesCount()+" files extracted, "+extractor.getCachedFilesCount()
+				+" files taken from the cache, "+cache.getEvictions()+" entries evicted");
+		return results;
+	}
+	
+	/**
+	 * Method that, given an already built {@link TypesExtractor} and an inference configuration, does the whole 
+	 * inference process by calling the appropriate submodules.
+	 * @param extractor the extractor which will provide the initial schema
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs or JSON Schemas)
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	public Results inferSchema(TypesExtractor extractor, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		return inferSchema(extractor, null, configuration);
+	}
+	
+	/**
+	 * Method that, given an already built {@link TypesExtractor} and an inference configuration, does the whole 
+	 * inference process by calling the appropriate submodules. If the input documents of the extractor are a sample, 
+	 * the sampling information is added to the statistics.
+	 * @param extractor the extractor which will provide the initial schema
+	 * @param source the source of the input documents of the extractor, if they are read from one (null otherwise)
+	 * @param configuration the inference configuration
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs or JSON Schemas) or null if 
+	 * the inference stops after the extraction
+	 * @throws XSDConfigurationException if there is a problem with the configuration
+	 */
+	private Results inferSchema(TypesExtractor extractor, InputDocumentsSource source, XSDInferenceConfiguration configuration) throws XSDInferencerException {
+		long startTime = System.currentTimeMillis();
+		if(loadStateFile!=null){
+			checkArgument(extractor instanceof TypesExtractorImpl, "The learner state may only be resumed by a TypesExtractorImpl");
+			System.out.println("Resuming from the learner state saved at "+loadStateFile);
+			((TypesExtractorImpl) extractor).setResumedState(Files.asByteSource(loadStateFile));
+		}
 		System.out.println("Extracting types...");
 		Schema schema = extractor.getInitalSchema();
+		if(saveStateFile!=null){
+			checkArgument(extractor instanceof TypesExtractorImpl, "The learner state may only be saved by a TypesExtractorImpl");
+			saveState((TypesExtractorImpl) extractor);
+		}
+		if(extractionOnly){
+			System.out.println("Types extracted in "+(System.currentTimeMillis()-startTime)+"ms");
+			return null;
+		}
+		SampledInputDocumentsSource sampledSource = getSampledSource(source);
+		if(sampledSource!=null){
+			schema.getStatistics().setSamplingInfo(sampledSource.getStrategyName(), sampledSource.getCandidateDocumentsCount());
+			System.out.println("Sampled "+sampledSource.getSampledDocumentsCount()+" of "+sampledSource.getCandidateDocumentsCount()+" documents");
+		}
+		if(source instanceof DeduplicatedInputDocumentsSource){
+			DeduplicatedInputDocumentsSource deduplicatedSource = (DeduplicatedInputDocumentsSource) source;
+			schema.getStatistics().setDeduplicated(true);
+			System.out.println("Deduplicated "+deduplicatedSource.getInputDocumentsCount()+" input documents into "
+					+deduplicatedSource.getUniqueDocumentsCount()+" unique ones ("+deduplicatedSource.getCollapsedDocumentsCount()+" collapsed)");
+		}
 		long extractedTime = System.currentTimeMillis();
 		long extractedElapsedTime = extractedTime-startTime;
 		System.out.println("Types extracted in "+extractedElapsedTime+"ms");
@@ -308,45 +687,134 @@ public class XSDInferencer {
 	}
 	
 	/**
-	 * Method that, given the input args lists, returns a {@link List} of {@link File} object that represent the input files
+	 * Saves the learner state of an extractor to the save state file. It is written to a temporary file first, which 
+	 * then replaces the previous one, so that an interrupted run does not leave a truncated state.
+	 * @param extractor the extractor, after the extraction
+	 * @throws XSDInferencerException if the state cannot be written
+	 */
+	private void saveState(TypesExtractorImpl extractor) throws XSDInferencerException {
+		File temporaryFile = new File(saveStateFile.getPath()+".tmp");
+		try{
+			try(OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temporaryFile))){
+				extractor.saveState(outputStream);
+			}
+			java.nio.file.Files.move(temporaryFile.toPath(), saveStateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new XSDInferencerException("Error while saving the learner state to "+saveStateFile, e);
+		}
+		System.out.println("Learner state saved to "+saveStateFile);
+	}
+	
+	/**
+	 * Returns a source which only provides a sample of the documents of another one, according to the sampling configuration.
+	 * @param source the source of the input documents
+	 * @param configuration the inference configuration
+	 * @return the sampled source, or the given source if no sampling is configured
+	 */
+	private static InputDocumentsSource sample(InputDocumentsSource source, XSDInferenceConfiguration configuration) {
+		switch(configuration.getSampling()){
+		case XSDInferenceConfiguration.VALUE_SAMPLING_RESERVOIR:
+			return SampledInputDocumentsSource.reservoir(source, configuration.getSampleSize(), configuration.getSampleTimeBudget());
+		case XSDInferenceConfiguration.VALUE_SAMPLING_STRATIFIED_BY_DIRECTORY:
+			return SampledInputDocumentsSource.stratifiedByDirectory(source, configuration.getSampleSize(), configuration.getSampleTimeBudget());
+		case XSDInferenceConfiguration.VALUE_SAMPLING_FIRST_THEN_EVERY:
+			return SampledInputDocumentsSource.firstThenEvery(source, configuration.getSampleFirstDocuments(), configuration.getSampleEvery(), 
+					configuration.getSampleSize(), configuration.getSampleTimeBudget());
+		default:
+			return source;
+		}
+	}
+	
+	/**
+	 * Builds the source of the documents of some input files, which are sampled or prefetched according to the configuration. 
+	 * Files are not prefetched while sampling, because most of them may be skipped.
+	 * @param files the input files
+	 * @param filenameFilter the filter of the entries of the archives
+	 * @param configuration the inference configuration
+	 * @return the source of the input documents
+	 */
+	private static InputDocumentsSource getInputSource(List<File> files, FilenameFilter filenameFilter, XSDInferenceConfiguration configuration) {
+		InputDocumentsSource source;
+		if(configuration.getSampling().equals(XSDInferenceConfiguration.VALUE_SAMPLING_NONE)){
+			source = InputDocumentsSources.fromFiles(files, filenameFilter, configuration.getPrefetchFiles());
+		} else {
+			if(configuration.getPrefetchFiles()>0){
+				System.out.println("Input files are not prefetched while sampling");
+			}
+			source = sample(InputDocumentsSources.fromFiles(files, filenameFilter), configuration);
+		}
+		return configuration.getDeduplicateDocuments()?new DeduplicatedInputDocumentsSource(source):source;
+	}
+	
+	/**
+	 * @param source a source of input documents (it may be null)
+	 * @return the source as a {@link SampledInputDocumentsSource} if it is one (or if it deduplicates one), null otherwise
+	 */
+	private static SampledInputDocumentsSource getSampledSource(InputDocumentsSource source) {
+		if(source instanceof DeduplicatedInputDocumentsSource)
+			source = ((DeduplicatedInputDocumentsSource) source).getSource();
+		return source instanceof SampledInputDocumentsSource?(SampledInputDocumentsSource) source:null;
+	}
+	
+	/**
+	 * Method that, given the input args lists, returns a {@link List} of {@link File} object that represent the input files. 
+	 * They are the files given at the --inputFiles parameter, the ones listed at the --inputManifest file and the ones 
+	 * found at the --inputDirectory directories (walked recursively if --recursive is given and filtered with the 
+	 * --include and --exclude globs).
 	 * @param args the args array, as provided by {@link XSDInferencer#main(String[])}
-	 * @param filenameFilter the {@link FilenameFilter} to look for input files
+	 * @param filenameFilter the {@link FilenameFilter} to look for input files when no --include glob is given
 	 * @return a {@link List} of {@link File} object that represent the input XML files
 	 * @throws FileNotFoundException if a file is not find
 	 * @throws NotDirectoryException if the path to an input directory is not a path to a directory
+	 * @throws IOException if an input directory or the manifest cannot be read
 	 */
-	private List<File> getInstanceFileNames(String[] args, FilenameFilter filenameFilter) throws FileNotFoundException, NotDirectoryException{
-		boolean somethingFound = false;
+	private List<File> getInstanceFileNames(String[] args, FilenameFilter filenameFilter) throws IOException{
 		List<File> result = new ArrayList<>();
-		int startingIndex=-1;
-		if(args.length<1)
-			throw new IllegalArgumentException("Input files parameter not found");
+		List<File> directories = new ArrayList<>();
+		List<String> includeGlobs = new ArrayList<>();
+		List<String> excludeGlobs = new ArrayList<>();
+		boolean recursive = false;
+		boolean somethingFound = false;
 		for(int i=0;i<args.length;i++){
 			if(args[i].equalsIgnoreCase("--"+KEY_INPUT_FILES)){
-				startingIndex=i;
 				somethingFound=true;
+				for(i=i+1;(i<args.length&&!args[i].startsWith("--"));i++){
+					File xmlFile = new File(args[i]);
+					if(!xmlFile.exists())
+						throw new FileNotFoundException("XML input file not found: "+args[i]);
+					result.add(xmlFile);
+				}
+				i--;
 			}
-			else if(args[i].equalsIgnoreCase("--"+KEY_INPUT_DIRECTORY)){
-				String directoryPath = args[i+1];
+			else if(args[i].equalsIgnoreCase("--"+KEY_INPUT_DIRECTORY) && i<args.length-1){
+				String directoryPath = args[++i];
 				File directory = new File(directoryPath);
 				if(!directory.exists())
 					throw new FileNotFoundException("XMLs input files directory not found");
 				if(!directory.isDirectory())
 					throw new NotDirectoryException(directoryPath);
-				File[] xmlFiles = directory.listFiles(filenameFilter);
-				result.addAll(Arrays.asList(xmlFiles));
+				directories.add(directory);
+				somethingFound=true;
+			}
+			else if(args[i].equalsIgnoreCase("--"+KEY_INPUT_MANIFEST) && i<args.length-1){
+				result.addAll(InputFilesFinder.readManifest(new File(args[++i])));
 				somethingFound=true;
 			}
-			if(i>=(args.length-1)&&!somethingFound)
-				throw new IllegalArgumentException("Input files parameter not found");
+			else if(args[i].equalsIgnoreCase("--"+KEY_RECURSIVE)){
+				recursive=true;
+			}
+			else if(args[i].equalsIgnoreCase("--"+KEY_INCLUDE) && i<args.length-1){
+				includeGlobs.add(args[++i]);
+			}
+			else if(args[i].equalsIgnoreCase("--"+KEY_EXCLUDE) && i<args.length-1){
+				excludeGlobs.add(args[++i]);
+			}
 		}
-		for(int i=startingIndex+1;(i<args.length&&!args[i].startsWith("--"));i++){
-			if(startingIndex<0)
-				break;
-			File xmlFile = new File(args[i]);
-			if(!xmlFile.exists())
-				throw new FileNotFoundException("XML input file not found: "+args[i]);
-			result.add(xmlFile);
+		if(!somethingFound)
+			throw new IllegalArgumentException("Input files parameter not found");
+		FilenameFilter directoriesFilter = InputDocumentsSources.withCompressedFiles(filenameFilter);
+		for(File directory: directories){
+			result.addAll(InputFilesFinder.findFiles(directory, recursive, directoriesFilter, includeGlobs, excludeGlobs));
 		}
 		if(result.size()<1)
 			throw new IllegalArgumentException("Input files not found");
@@ -364,51 +832,57 @@ public class XSDInferencer {
 	public Results inferSchema(String[] args) throws XSDInferencerException{
 		try {
 			XSDInferenceConfiguration configuration = new XSDInferenceConfiguration(args);
+			setStateFiles(args);
 			FilenameFilter filenameFilter;
 			if(configuration.getWorkingFormat().equals("xml")){
 				filenameFilter=FILE_NAME_FILTER_XML_EXTENSION;
 				List<File> xmlFiles=getInstanceFileNames(args, filenameFilter);
+				InputDocumentsSource xmlSource = getInputSource(xmlFiles, filenameFilter, configuration);
+				if(configuration.getExtractionCache()!=null){
+					return inferSchemaCached(xmlSource, fileSource -> new XMLStreamTypesExtractorImpl(fileSource, configuration), configuration);
+				}
+				if(configuration.getStreamingExtraction() || configuration.getRecordPath()!=null){
+					return inferSchemaStreaming(xmlSource, configuration);
+				}
+				if(configuration.getParserThreads()>0){
+					return inferSchemaPipelined(xmlSource, configuration);
+				}
 				List<Document> xmlDocuments = new ArrayList<>(xmlFiles.size());
+				List<Integer> documentMultiplicities = new ArrayList<>(xmlFiles.size());
 				SAXBuilder saxBuilder = new SAXBuilder();
-				for(int i=0;i<xmlFiles.size();i++){
-					File xmlFile = xmlFiles.get(i);
-					System.out.print("Reading input file "+xmlFile.getName()+"...");
-					FileInputStream fis = new FileInputStream(xmlFile);
-					//BufferedReader reader = new BufferedReader(new InputStreamReader(fis, Charsets.UTF_8));
-					Document xmlDocument = saxBuilder.build(fis);
-					xmlDocuments.add(xmlDocument);
-					System.out.println("OK");
+				System.out.println("Reading "+xmlFiles.size()+" input files...");
+				try(InputDocumentsReader documents = xmlSource.open()){
+					while(documents.next()){
+						try {
+							xmlDocuments.add(saxBuilder.build(documents.getInputStream()));
+							documentMultiplicities.add(documents.getMultiplicity());
+						} catch (JDOMException e) {
+							throw new JDOMException("Error parsing input file "+documents.getName()+": "+e.getMessage(), e);
+						}
+					}
 				}
-				return inferSchema(xmlDocuments, configuration);
+				System.out.println(xmlDocuments.size()+" input documents read");
+				TypesExtractorImpl extractor = createTypesExtractor(xmlDocuments, configuration);
+				if(configuration.getDeduplicateDocuments()){
+					extractor.setDocumentMultiplicities(documentMultiplicities);
+				}
+				return inferSchema(extractor, xmlSource, configuration);
 			} else if(configuration.getWorkingFormat().equals("json")){
 				filenameFilter=FILE_NAME_FILTER_JSON_EXTENSION;
 				List<File> jsonFiles=getInstanceFileNames(args, filenameFilter);
-				List<JSONObject> jsonDocumentWithRootObjects = new ArrayList<>(jsonFiles.size());
-				List<JSONArray> jsonDocumentWithRootArrays = new ArrayList<>(jsonFiles.size());
-				for (int i = 0; i < jsonFiles.size(); i++) {
-					File jsonFile = jsonFiles.get(i);
-					String jsonString = Joiner.on(System.lineSeparator()).join(Files.readAllLines(jsonFile.toPath()));
-					JSONObject jsonObject = null;
-					try{
-						jsonObject = new JSONObject(jsonString);
-					} catch(JSONException e){}
-					
-					if(jsonObject!=null){
-						jsonDocumentWithRootObjects.add(jsonObject);
-					}else{
-						JSONArray jsonArray = null;
-						try{
-							jsonArray=new JSONArray(jsonString);
-						} catch (JSONException e) {}
-						if(jsonArray!=null){
-							jsonDocumentWithRootArrays.add(jsonArray);
-						} else {
-							throw new JSONException("Invalid JSON Document "+jsonFile);
-						}
-						
-					}
+				InputDocumentsSource jsonSource = getInputSource(jsonFiles, filenameFilter, configuration);
+				if(configuration.getExtractionCache()!=null){
+					return inferSchemaCached(jsonSource, fileSource -> new JSONStreamTypesExtractorImpl(fileSource, configuration), configuration);
+				}
+				return inferSchemaJSONStreaming(jsonSource, configuration);
+			} else if(configuration.getWorkingFormat().equals("jsonl")){
+				filenameFilter=FILE_NAME_FILTER_JSON_LINES_EXTENSION;
+				List<File> jsonLinesFiles=getInstanceFileNames(args, filenameFilter);
+				InputDocumentsSource jsonLinesSource = getInputSource(jsonLinesFiles, filenameFilter, configuration);
+				if(configuration.getExtractionCache()!=null){
+					return inferSchemaCached(jsonLinesSource, fileSource -> new JSONLinesTypesExtractorImpl(fileSource, configuration), configuration);
 				}
-				return inferSchema(jsonDocumentWithRootObjects, jsonDocumentWithRootArrays, configuration);
+				return inferSchemaJSONLines(jsonLinesSource, configuration);
 			} else {
 				throw new InvalidXSDConfigurationParameterException("Unknown working format. Impossible to load files");
 			}
@@ -418,6 +892,131 @@ public class XSDInferencer {
 		
 	}
 	
+	/**
+	 * Sets the learner state files given at the --loadState and --saveState parameters, if any.
+	 * @param args the args array, as provided by {@link XSDInferencer#main(String[])}
+	 * @throws FileNotFoundException if the file of the state to load does not exist
+	 */
+	private void setStateFiles(String[] args) throws FileNotFoundException {
+		for(int i=0;i<args.length-1;i++){
+			if(args[i].equalsIgnoreCase("--"+KEY_LOAD_STATE))
+				setLoadStateFile(new File(args[++i]));
+			else if(args[i].equalsIgnoreCase("--"+KEY_SAVE_STATE))
+				setSaveStateFile(new File(args[++i]));
+		}
+	}
+	
+	/**
+	 * Returns the value of the --shardFile parameter.
+	 * @param args the args array, without the command
+	 * @return the shard file or null if it is not given
+	 */
+	private static File getShardFile(String[] args) {
+		for(int i=0;i<args.length-1;i++){
+			if(args[i].equalsIgnoreCase("--"+KEY_SHARD_FILE))
+				return new File(args[i+1]);
+		}
+		return null;
+	}
+	
+	/**
+	 * Method that, given an args array, only extracts the input files and writes their partial state to the 
+	 * file given at the --shardFile parameter, so that it is combined later with other shards via {@link XSDInferencer#combineShards(String[])}.
+	 * @param args the args array, without the command
+	 * @throws XSDInferencerException if there is any problem while reading the input files or writing the shard file
+	 */
+	public void extractShard(String[] args) throws XSDInferencerException {
+		File shardFile = getShardFile(args);
+		if(shardFile==null)
+			throw new XSDInferencerException(new IllegalArgumentException("Shard file parameter not found"));
+		File previousSaveStateFile = saveStateFile;
+		extractionOnly = true;
+		try {
+			setSaveStateFile(shardFile);
+			inferSchema(args);
+		} finally {
+			extractionOnly = false;
+			setSaveStateFile(previousSaveStateFile);
+		}
+	}
+	
+	/**
+	 * Method that, given an args array, combines the shard files given at the --shardFiles parameter (in order) and 
+	 * then does the rest of the inference process by calling the appropriate submodules. If the --shardFile parameter 
+	 * is given, the combined partial state is written to that file instead, so that it may be combined again later.
+	 * @param args the args array, without the command
+	 * @return a {@link Results} object with the inference results (both statistics and XSDs or JSON Schemas) or null if 
+	 * the combined partial state has been written to a shard file
+	 * @throws XSDInferencerException if there is any problem while reading the shard files or combining them
+	 */
+	public Results combineShards(String[] args) throws XSDInferencerException {
+		try {
+			XSDInferenceConfiguration configuration = new XSDInferenceConfiguration(args);
+			setStateFiles(args);
+			List<ByteSource> shards = new ArrayList<>();
+			for(int i=0;i<args.length;i++){
+				if(!args[i].equalsIgnoreCase("--"+KEY_SHARD_FILES))
+					continue;
+				for(i=i+1;(i<args.length&&!args[i].startsWith("--"));i++){
+					File shardFile = new File(args[i]);
+					if(!shardFile.isFile())
+						throw new FileNotFoundException("Shard file not found: "+args[i]);
+					shards.add(Files.asByteSource(shardFile));
+				}
+				i--;
+			}
+			if(shards.isEmpty())
+				throw new IllegalArgumentException("Shard files parameter not found");
+			System.out.println("Combining "+shards.size()+" shards...");
+			TypesExtractor extractor = new ShardsCombinerTypesExtractorImpl(shards, configuration);
+			File combinedShardFile = getShardFile(args);
+			if(combinedShardFile==null)
+				return inferSchema(extractor, null, configuration);
+			File previousSaveStateFile = saveStateFile;
+			extractionOnly = true;
+			try {
+				setSaveStateFile(combinedShardFile);
+				return inferSchema(extractor, null, configuration);
+			} finally {
+				extractionOnly = false;
+				setSaveStateFile(previousSaveStateFile);
+			}
+		} catch (IOException | RuntimeException e) {
+			throw new XSDInferencerException(e);
+		}
+	}
+	
+	/**
+	 * @return the file with a saved learner state from which the extraction is resumed (null if it starts from scratch)
+	 */
+	public File getLoadStateFile() {
+		return loadStateFile;
+	}
+
+	/**
+	 * @param loadStateFile the file with a saved learner state from which the extraction is resumed (null to start from scratch)
+	 * @throws FileNotFoundException if the file does not exist
+	 */
+	public void setLoadStateFile(File loadStateFile) throws FileNotFoundException {
+		if(loadStateFile!=null && !loadStateFile.isFile())
+			throw new FileNotFoundException("Learner state file not found: "+loadStateFile);
+		this.loadStateFile = loadStateFile;
+	}
+
+	/**
+	 * @return the file where the learner state is saved after the extraction (null if it is not saved)
+	 */
+	public File getSaveStateFile() {
+		return saveStateFile;
+	}
+
+	/**
+	 * @param saveStateFile the file where the learner state is saved after the extraction (null not to save it)
+	 */
+	public void setSaveStateFile(File saveStateFile) {
+		this.saveStateFile = saveStateFile;
+	}
+	
 	/**
 	 * This method prints the help of the tool.
 	 */
@@ -438,22 +1037,36 @@ public class XSDInferencer {
 			printHelp();
 			System.exit(0);
 		}
+		String command = args.length>0 && !args[0].startsWith("--")?args[0]:null;
+		String[] parameters = command!=null?Arrays.copyOfRange(args, 1, args.length):args;
 		try {
 			XSDInferencer inferencer = new XSDInferencer();
 			
-			Results results = inferencer.inferSchema(args);
+			Results results;
+			if(command==null){
+				results = inferencer.inferSchema(parameters);
+			} else if(command.equalsIgnoreCase(COMMAND_EXTRACT_SHARD)){
+				inferencer.extractShard(parameters);
+				return;
+			} else if(command.equalsIgnoreCase(COMMAND_COMBINE)){
+				results = inferencer.combineShards(parameters);
+				if(results==null)
+					return;
+			} else {
+				throw new IllegalArgumentException("Unknown command: "+command);
+			}
 			
 			Map<String, String> xsdsAsXMLStrings = results.getXSDsAsStrings();
 			Map<String, String> jsonsAsStrings = results.getJsonSchemasAsStrings();
 			Map<String, String> schemasAsStrings = xsdsAsXMLStrings!=null?xsdsAsXMLStrings:jsonsAsStrings;
 			Map<String, String> statisticsDocumentsAsXMLStrings = results.getStatisticsAsStrings();
 			File outputDirectory = null;
-			for(int i=0;i<args.length;i++){
-				if(!args[i].equalsIgnoreCase("--"+KEY_OUTPUT_DIRECTORY))
+			for(int i=0;i<parameters.length;i++){
+				if(!parameters[i].equalsIgnoreCase("--"+KEY_OUTPUT_DIRECTORY))
 					continue;
-				if(args[i+1].startsWith("--")||i==args.length-1)
+				if(parameters[i+1].startsWith("--")||i==parameters.length-1)
 					throw new IllegalArgumentException("Output directory parameter bad specified");
-				outputDirectory=new File(args[i+1]);
+				outputDirectory=new File(parameters[i+1]);
 				if(!outputDirectory.exists())
 					throw new FileNotFoundException("Output directory not found.");
 				if(!outputDirectory.isDirectory())
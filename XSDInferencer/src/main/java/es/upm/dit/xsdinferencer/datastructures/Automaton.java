@@ -15,6 +15,7 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.datastructures;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
@@ -670,6 +671,80 @@ public class Automaton<E extends Comparable<? super E>> implements Cloneable,Ite
 	 * @param word word to learn
 	 */
 	public void learn(List<E> word) {
+		checkWord(word);
+		if(word.size()==1){
+			addNode(word.get(0));
+			return;
+		}else {
+			for(int i=0;i<word.size()-1;i++){
+				addEdge(word.get(i), word.get(i+1));
+			}
+		}
+	}
+	
+	/**
+	 * Learns a word into the automaton as many times as indicated. The result is the same as calling 
+	 * {@link Automaton#learn(List)} that number of times, but the word is only checked once and the weight 
+	 * of each edge is only updated once.
+	 * @param word word to learn
+	 * @param multiplicity how many times the word is learned
+	 * @throws IllegalArgumentException if multiplicity is not positive
+	 */
+	public void learn(List<E> word, long multiplicity) {
+		checkArgument(multiplicity>0, "'multiplicity' must be >= 1");
+		checkWord(word);
+		if(word.size()==1){
+			addNode(word.get(0));
+			return;
+		}
+		for(int i=0;i<word.size()-1;i++){
+			E source = word.get(i);
+			E destination = word.get(i+1);
+			Long weight = edges.get(source, destination);
+			addEdge(source, destination, (weight!=null?weight:0)+multiplicity);
+		}
+	}
+	
+	/**
+	 * Learns a run-length encoded word into the automaton as many times as indicated. Each symbol of the word stands 
+	 * for as many consecutive occurrences of it as its run length, so the result is the same as calling 
+	 * {@link Automaton#learn(List, long)} with the expanded word, whose length may be much bigger.
+	 * @param word symbols of the runs of the word to learn
+	 * @param runLengths length of the run of each symbol of the word, in the same order
+	 * @param multiplicity how many times the word is learned
+	 * @throws IllegalArgumentException if multiplicity or any run length is not positive, or there are not as many 
+	 * run lengths as symbols
+	 */
+	public void learnRuns(List<E> word, List<Integer> runLengths, long multiplicity) {
+		checkArgument(multiplicity>0, "'multiplicity' must be >= 1");
+		checkArgument(runLengths.size()==word.size(), "there must be a run length for each symbol of 'word'");
+		checkWord(word);
+		for(int i=0;i<word.size();i++){
+			int runLength = runLengths.get(i);
+			checkArgument(runLength>0, "run lengths must be >= 1");
+			E source = word.get(i);
+			if(runLength>1){
+				Long weight = edges.get(source, source);
+				addEdge(source, source, (weight!=null?weight:0)+(runLength-1)*multiplicity);
+			}
+			if(i<word.size()-1){
+				E destination = word.get(i+1);
+				Long weight = edges.get(source, destination);
+				addEdge(source, destination, (weight!=null?weight:0)+multiplicity);
+			} else if(word.size()==1 && runLength==1){
+				addNode(source);
+			}
+		}
+	}
+	
+	/**
+	 * Checks that a word may be learned by this automaton
+	 * @param word the word
+	 * @throws NullPointerException if the word is null
+	 * @throws IllegalArgumentException if the word is empty or it does not start or end by the initial or the final state 
+	 * (if this automaton has them)
+	 */
+	private void checkWord(List<E> word) {
 		if(word==null){
 			throw new NullPointerException("'word' must not be null");
 		}
@@ -683,16 +758,50 @@ public class Automaton<E extends Comparable<? super E>> implements Cloneable,Ite
 		else if(finalState!=null && (finalState!=word.get(word.size()-1) || Collections.frequency(word, finalState)>1)){
 			throw new IllegalArgumentException("the automaton has a final state, so the word must end at that final state");
 		}
-		else if(word.size()==1){
-			addNode(word.get(0));
-			return;
-		}else {
-			for(int i=0;i<word.size()-1;i++){
-				addEdge(word.get(i), word.get(i+1));
-			}
-		}
 	}
 
+	/**
+	 * Adds all the nodes and edges of another automaton to this one, so that the result is the same as if 
+	 * the words learned by the other automaton had been learned by this one. The weights of the edges present 
+	 * at both automatons are summed. 
+	 * The initial and final states of the other automaton (if any) are replaced by the ones of this automaton.
+	 * @param other the other automaton (it is not modified)
+	 * @param nodeMapping mapping between nodes of the other automaton and the equivalent nodes which must be used 
+	 * at this automaton instead of them. Nodes which are not mapped are added as they are.
+	 * @throws NullPointerException if any argument is null
+	 */
+	public void addAll(Automaton<E> other, Map<E,E> nodeMapping){
+		checkNotNull(other,"'other' must not be null");
+		checkNotNull(nodeMapping,"'nodeMapping' must not be null");
+		for(E otherNode: other.nodes){
+			addNode(getMappedNode(otherNode, other, nodeMapping));
+		}
+		for(Table.Cell<E, E, Long> otherEdge: other.edges.cellSet()){
+			E source = getMappedNode(otherEdge.getRowKey(), other, nodeMapping);
+			E destination = getMappedNode(otherEdge.getColumnKey(), other, nodeMapping);
+			Long previousWeight = edges.get(source, destination);
+			long newWeight = otherEdge.getValue()+(previousWeight!=null?previousWeight:0);
+			addEdge(source, destination, newWeight);
+		}
+	}
+	
+	/**
+	 * Returns the node of this automaton which corresponds to a node of other automaton, 
+	 * as described at {@link Automaton#addAll(Automaton, Map)}.
+	 * @param otherNode the node of the other automaton
+	 * @param other the other automaton
+	 * @param nodeMapping mapping between nodes of the other automaton and nodes of this one
+	 * @return the node which must be used at this automaton
+	 */
+	protected E getMappedNode(E otherNode, Automaton<E> other, Map<E,E> nodeMapping){
+		if(otherNode==other.initialState && this.initialState!=null)
+			return this.initialState;
+		if(otherNode==other.finalState && this.finalState!=null)
+			return this.finalState;
+		E mappedNode = nodeMapping.get(otherNode);
+		return mappedNode!=null?mappedNode:otherNode;
+	}
+	
 	/**
 	 * @return an iterator over the nodes.
 	 */
@@ -15,10 +15,10 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.datastructures;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -75,6 +75,12 @@ public class ComplexType {
 	 */
 	private Set<String> comments;
 	
+	/**
+	 * Whether the content of the elements of this complex type has been skipped at extraction (because their paths 
+	 * were excluded), so that any content is allowed for them.
+	 */
+	private boolean contentSkipped = false;
+	
 	/**
 	 * Constructor
 	 * @param name name of the complex type. It must not be null
@@ -162,7 +168,8 @@ public class ComplexType {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(name);
+		//Same value as Objects.hash(name), without building an array on each call
+		return 31 + ((name == null) ? 0 : name.hashCode());
 	}
 
 	//Autogenerated
@@ -267,6 +274,16 @@ public class ComplexType {
 		return sourceElementsNamespaceAndNames.addAll(other.sourceElementsNamespaceAndNames);
 	}
 	
+	/**
+	 * Adds all the element nameAndNamespaces from a collection (already in the form <i>namespaceURI</i>:<i>name</i>) 
+	 * into the set of source elementsAndNamespaces.
+	 * @param c the collection
+	 * @return true if they have been added
+	 */
+	public boolean addAllTheSourceNodeNamespaceAndNames(Collection<String> c) {
+		return sourceElementsNamespaceAndNames.addAll(c);
+	}
+	
 	/**
 	 * Returns an unmodifiable view (via {@linkplain Collections#unmodifiableSet(Set)} of the set of source namespacesAndNames.
 	 * @return an unmodifiable view (via {@linkplain Collections#unmodifiableSet(Set)} of the set of source namespacesAndNames.
@@ -275,6 +292,20 @@ public class ComplexType {
 		return Collections.unmodifiableSet(sourceElementsNamespaceAndNames);
 	}
 
+	/**
+	 * @return whether the content of the elements of this complex type has been skipped at extraction
+	 */
+	public boolean isContentSkipped() {
+		return contentSkipped;
+	}
+
+	/**
+	 * @param contentSkipped whether the content of the elements of this complex type has been skipped at extraction
+	 */
+	public void setContentSkipped(boolean contentSkipped) {
+		this.contentSkipped = contentSkipped;
+	}
+
 	/**
 	 * Returns the set of comments of the complex type
 	 * @return the set of comments
@@ -18,6 +18,7 @@ package es.upm.dit.xsdinferencer.datastructures;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -139,19 +140,81 @@ public class ExtendedAutomaton extends Automaton<SchemaElement> {
 	@Override
 	public void learn(List<SchemaElement> word) {
 		super.learn(word);
+		addSourceWordSymbolOccurrences(word);
+	}
+	
+	/**
+	 * It learns a word several times in the way that Automaton does. The symbol occurrences of the word are only 
+	 * stored once, as they are used to find the minimum and maximum occurrences at any word, which do not change if 
+	 * a word is repeated.
+	 * @see es.upm.dit.xsdinferencer.datastructures.Automaton#learn(java.util.List, long)
+	 */
+	@Override
+	public void learn(List<SchemaElement> word, long multiplicity) {
+		super.learn(word, multiplicity);
+		addSourceWordSymbolOccurrences(word);
+	}
+	
+	/**
+	 * It learns a run-length encoded word several times in the way that Automaton does. The symbol occurrences of 
+	 * the word are stored once, counting the whole length of the runs.
+	 * @see es.upm.dit.xsdinferencer.datastructures.Automaton#learnRuns(java.util.List, java.util.List, long)
+	 */
+	@Override
+	public void learnRuns(List<SchemaElement> word, List<Integer> runLengths, long multiplicity) {
+		super.learnRuns(word, runLengths, multiplicity);
+		addSourceWordSymbolOccurrences(word, runLengths);
+	}
+	
+	/**
+	 * Adds the symbol occurrences of a new learned word
+	 * @param word the word
+	 */
+	private void addSourceWordSymbolOccurrences(List<SchemaElement> word){
+		addSourceWordSymbolOccurrences(word, Collections.nCopies(word.size(), 1));
+	}
+	
+	/**
+	 * Adds the symbol occurrences of a new learned run-length encoded word
+	 * @param word the symbols of the runs of the word
+	 * @param runLengths the length of the run of each symbol
+	 */
+	private void addSourceWordSymbolOccurrences(List<SchemaElement> word, List<Integer> runLengths){
 		int newWordIndex = sourceWordSymbolOccurrences.rowKeySet().size()+1;
-		for(SchemaElement element: word){
+		for(int i=0;i<word.size();i++){
+			SchemaElement element = word.get(i);
 			if(!sourceWordSymbolOccurrences.contains(newWordIndex, element)){
-				sourceWordSymbolOccurrences.put(newWordIndex, element, 1);
+				sourceWordSymbolOccurrences.put(newWordIndex, element, runLengths.get(i));
 			} else {
 				sourceWordSymbolOccurrences.put(newWordIndex, 
 						element, 
-						sourceWordSymbolOccurrences.get(newWordIndex, element) + 1);
+						sourceWordSymbolOccurrences.get(newWordIndex, element) + runLengths.get(i));
 				
 			}
 		}
 	}
 
+	/**
+	 * It adds the nodes and edges of the other automaton in the way that Automaton does, but also appends the symbol 
+	 * occurrences information of the words learned by the other automaton, after the words learned by this one.
+	 * @see es.upm.dit.xsdinferencer.datastructures.Automaton#addAll(Automaton, Map)
+	 */
+	@Override
+	public void addAll(Automaton<SchemaElement> other, Map<SchemaElement, SchemaElement> nodeMapping) {
+		super.addAll(other, nodeMapping);
+		if(!(other instanceof ExtendedAutomaton))
+			return;
+		Table<Integer, SchemaElement, Integer> otherOccurrences = ((ExtendedAutomaton) other).sourceWordSymbolOccurrences;
+		int wordIndexOffset = sourceWordSymbolOccurrences.rowKeySet().size();
+		for(Table.Cell<Integer, SchemaElement, Integer> otherCell: otherOccurrences.cellSet()){
+			int newWordIndex = otherCell.getRowKey()+wordIndexOffset;
+			SchemaElement element = getMappedNode(otherCell.getColumnKey(), other, nodeMapping);
+			Integer previousOccurrences = sourceWordSymbolOccurrences.get(newWordIndex, element);
+			int newOccurrences = otherCell.getValue()+(previousOccurrences!=null?previousOccurrences:0);
+			sourceWordSymbolOccurrences.put(newWordIndex, element, newOccurrences);
+		}
+	}
+
 	/**
 	 * @see java.lang.Object#hashCode()
 	 */
@@ -15,8 +15,6 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.datastructures;
 
-import java.util.Objects;
-
 import org.apache.xerces.util.XMLChar;
 
 /**
@@ -152,8 +150,11 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 //		result = prime * result + ((name == null) ? 0 : name.hashCode());
 //		result = prime * result + ((type == null) ? 0 : type.hashCode());
 //		return result;
-		return Objects.hash(type,name,namespace);
 //		return Objects.hash(name,namespace);
+		//Same value as Objects.hash(type,name,namespace), without building an array on each call
+		int result = 31 + ((type == null) ? 0 : type.hashCode());
+		result = 31 * result + name.hashCode();
+		return 31 * result + namespace.hashCode();
 	}
 
 	/**
@@ -172,11 +173,8 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 			return false;
 		}
 		SchemaElement other = (SchemaElement) obj;
-		if (name == null) {
-			if (other.name != null) {
-				return false;
-			}
-		} else if (!name.equals(other.name)) {
+		//Names are usually interned, so equal ones are found without comparing their characters
+		if (!name.equals(other.name)) {
 			return false;
 		}
 		if (type == null) {
@@ -187,11 +185,7 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 			return false;
 		}
 		
-		if (namespace == null) {
-			if (other.namespace != null) {
-				return false;
-			}
-		} else if (!namespace.equals(other.namespace)) {
+		if (!namespace.equals(other.namespace)) {
 			return false;
 		}
 		
@@ -213,11 +207,7 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 			return false;
 		}
 		SchemaElement other = (SchemaElement) otherNode;
-		if (name == null) {
-			if (other.name != null) {
-				return false;
-			}
-		} else if (!name.equals(other.name)) {
+		if (!name.equals(other.name)) {
 			return false;
 		}
 //		if (type == null) {
@@ -228,11 +218,7 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 //			return false;
 //		}
 		
-		if (namespace == null) {
-			if (other.namespace != null) {
-				return false;
-			}
-		} else if (!namespace.equals(other.namespace)) {
+		if (!namespace.equals(other.namespace)) {
 			return false;
 		}
 		
@@ -278,6 +264,10 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 	 */
 	@Override
 	public int compareTo(RegularExpression other) {
+		if(other instanceof SchemaElement){
+			SchemaElement otherElement = (SchemaElement) other;
+			return SymbolTable.compareQualifiedNames(namespace, name, otherElement.namespace, otherElement.name);
+		}
 		return this.toString().compareTo(other.toString());
 	}
 
@@ -304,7 +294,7 @@ public class SchemaElement implements RegularExpression, SchemaNode{
 	 * @param namespace the namespace to set
 	 */
 	public void setNamespace(String namespace){
-		this.namespace=namespace;
+		this.namespace=namespace!=null?namespace:"";
 	}
 	
 }
@@ -25,6 +25,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier;
 
 /**
  * Represents a simple type, it means, the type of a text of an element or 
@@ -34,10 +35,6 @@ import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
  */
 public class SimpleType implements Iterable<String> {
 	
-	//Regular expressions used to check whether individual values belong to the pointed types.
-	private static final String BUILTIN_REGEX_XSINTEGER = "^(\\+|\\-)?[0-9]+$";
-	private static final String BUILTIN_REGEX_XSDECIMAL = "^(\\+|\\-)?[0-9]+(\\.[0-9]+)?$";
-	
 	/**
 	 * Name of simpleType.
 	 * It should be of the form:
@@ -165,7 +162,7 @@ public class SimpleType implements Iterable<String> {
 	 */
 	public boolean consistOnlyOfWhitespaceCharacters(){
 		for(int i=0;i<knownValues.size();i++){
-			if(!knownValues.get(i).matches("[\t\n\r ]*"))
+			if(!LexicalClassifier.consistsOfWhitespaces(knownValues.get(i)))
 				return false;
 		}
 		return !isEmpty(); //true if this is not empty, false otherwise, as specified.
@@ -386,7 +383,7 @@ public class SimpleType implements Iterable<String> {
 	 */
 	public boolean containsIntegerValues(){
 		for(String knownValue:knownValues){
-			if(knownValue.trim().matches(BUILTIN_REGEX_XSINTEGER)){
+			if((LexicalClassifier.classify(knownValue)&LexicalClassifier.INTEGER)!=0){
 				return true;
 			}
 		}
@@ -399,7 +396,8 @@ public class SimpleType implements Iterable<String> {
 	 */
 	public boolean containsDecimalNonIntegerValues(){
 		for(String knownValue:knownValues){
-			if(knownValue.trim().matches(BUILTIN_REGEX_XSDECIMAL)&&!knownValue.matches(BUILTIN_REGEX_XSINTEGER)){
+			int lexicalSpaces = LexicalClassifier.classify(knownValue);
+			if((lexicalSpaces&LexicalClassifier.DECIMAL)!=0&&(lexicalSpaces&LexicalClassifier.UNTRIMMED_INTEGER)==0){
 				return true;
 			}
 		}
@@ -420,8 +418,7 @@ public class SimpleType implements Iterable<String> {
 	 */
 	public boolean containsTrueFalseValues(){
 		for(String knownValue:knownValues){
-			String knownValueTrim = knownValue.trim();
-			if (knownValueTrim.equals("true") || knownValueTrim.equals("false")){
+			if ((LexicalClassifier.classify(knownValue)&LexicalClassifier.TRUE_FALSE)!=0){
 				return true;
 			}
 		}
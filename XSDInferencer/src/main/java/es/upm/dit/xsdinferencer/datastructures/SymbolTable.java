@@ -0,0 +1,139 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.datastructures;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of the symbols found by an extraction (element names, namespace URIs and type names). Each symbol is kept 
+ * once in memory, however many documents it has been found at, and each (namespace URI, local name) pair is given 
+ * a dense integer id, so that the structures of the extraction may be keyed by qualified names without hashing or 
+ * comparing their strings. A table lives as long as the extraction which uses it, so the memory it uses is bounded by 
+ * the number of distinct names found by that extraction. Ids are only meaningful within the same table.
+ * <br/>
+ * This class is not thread-safe.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public final class SymbolTable {
+	
+	/**
+	 * Canonical instance of each symbol
+	 */
+	private final Map<String, String> symbols = new HashMap<>();
+	
+	/**
+	 * Ids of the known qualified names, indexed by namespace URI and then by local name (so no key object is built 
+	 * in order to look up a qualified name).
+	 */
+	private final Map<String, Map<String, Integer>> qualifiedNameIds = new HashMap<>();
+	
+	/**
+	 * Id of the next new qualified name
+	 */
+	private int nextQualifiedNameId = 0;
+	
+	/**
+	 * Default constructor. The table is empty.
+	 */
+	public SymbolTable(){
+		
+	}
+	
+	/**
+	 * Returns the canonical instance of a symbol, so that equal symbols share the same String object.
+	 * @param symbol the symbol
+	 * @return the canonical instance of the symbol
+	 * @throws NullPointerException if symbol is null
+	 */
+	public String intern(String symbol){
+		checkNotNull(symbol,"'symbol' must not be null");
+		String canonicalSymbol = symbols.get(symbol);
+		if(canonicalSymbol==null){
+			canonicalSymbol = symbol;
+			symbols.put(symbol, symbol);
+		}
+		return canonicalSymbol;
+	}
+	
+	/**
+	 * Returns the id of a qualified name. Two qualified names have the same id if and only if they have equal namespace 
+	 * URIs and local names.
+	 * @param namespaceURI the namespace URI
+	 * @param localName the local name
+	 * @return the id of the qualified name
+	 * @throws NullPointerException if any argument is null
+	 */
+	public int getQualifiedNameId(String namespaceURI, String localName){
+		checkNotNull(namespaceURI,"'namespaceURI' must not be null");
+		checkNotNull(localName,"'localName' must not be null");
+		Map<String, Integer> localNameIds = qualifiedNameIds.get(namespaceURI);
+		if(localNameIds==null){
+			localNameIds = new HashMap<>();
+			qualifiedNameIds.put(intern(namespaceURI), localNameIds);
+		}
+		Integer id = localNameIds.get(localName);
+		if(id==null){
+			id = nextQualifiedNameId++;
+			localNameIds.put(intern(localName), id);
+		}
+		return id;
+	}
+	
+	/**
+	 * Compares two qualified names in the same order as their <i>namespaceURI</i>:<i>localName</i> strings, 
+	 * without building those strings.
+	 * @param namespaceURI1 the namespace URI of the first qualified name
+	 * @param localName1 the local name of the first qualified name
+	 * @param namespaceURI2 the namespace URI of the second qualified name
+	 * @param localName2 the local name of the second qualified name
+	 * @return a negative integer, zero or a positive integer if the first qualified name is less than, equal to or greater than the second one
+	 */
+	public static int compareQualifiedNames(String namespaceURI1, String localName1, String namespaceURI2, String localName2){
+		if(namespaceURI1.equals(namespaceURI2))
+			return localName1.compareTo(localName2);
+		int length1 = namespaceURI1.length()+1+localName1.length();
+		int length2 = namespaceURI2.length()+1+localName2.length();
+		int minLength = Math.min(length1, length2);
+		for(int i=0;i<minLength;i++){
+			char c1 = charAt(namespaceURI1, localName1, i);
+			char c2 = charAt(namespaceURI2, localName2, i);
+			if(c1!=c2)
+				return c1-c2;
+		}
+		return length1-length2;
+	}
+	
+	/**
+	 * Returns a character of the <i>namespaceURI</i>:<i>localName</i> string of a qualified name
+	 * @param namespaceURI the namespace URI
+	 * @param localName the local name
+	 * @param index the index of the character
+	 * @return the character
+	 */
+	private static char charAt(String namespaceURI, String localName, int index){
+		int namespaceLength = namespaceURI.length();
+		if(index<namespaceLength)
+			return namespaceURI.charAt(index);
+		else if(index==namespaceLength)
+			return ':';
+		else
+			return localName.charAt(index-namespaceLength-1);
+	}
+}
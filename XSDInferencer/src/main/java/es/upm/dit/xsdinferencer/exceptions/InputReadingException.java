@@ -0,0 +1,47 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.exceptions;
+
+/**
+ * Unchecked exception thrown when an input document cannot be read or parsed while it is being 
+ * streamed by an extractor (so the error happens inside methods which cannot throw checked exceptions, 
+ * like {@link es.upm.dit.xsdinferencer.extraction.TypesExtractor#getInitalSchema()}).
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class InputReadingException extends RuntimeException {
+
+	/**
+	 * UID for serialization
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public InputReadingException() {
+	}
+
+	public InputReadingException(String message) {
+		super(message);
+	}
+
+	public InputReadingException(Throwable cause) {
+		super(cause);
+	}
+
+	public InputReadingException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
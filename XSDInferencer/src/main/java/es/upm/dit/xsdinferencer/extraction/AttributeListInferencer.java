@@ -40,12 +40,39 @@ public interface AttributeListInferencer extends Cloneable{
 	 */
 	public void learnAttributeList(List<Attribute> attrList, int documentIndex);
 	
+	/**
+	 * Learns a list of attributes present on an element which stands for several identical elements of identical 
+	 * documents. The list is registered once at the given document (the copies of the document are registered 
+	 * later), but the values of the attributes are learned as many times as the element occurs.
+	 * @param attrList a list of JDOM2 attributes
+	 * @param documentIndex the index of the document where the list comes from
+	 * @param valuesOccurrences the number of occurrences of the element
+	 * @throws UnsupportedOperationException if valuesOccurrences is greater than 1 and the inferencer does not support it 
+	 * (which is the default behaviour)
+	 */
+	public default void learnAttributeList(List<Attribute> attrList, int documentIndex, int valuesOccurrences) {
+		if(valuesOccurrences!=1)
+			throw new UnsupportedOperationException("This attribute list inferencer cannot learn repeated values");
+		learnAttributeList(attrList, documentIndex);
+	}
+	
 	/**
 	 * Gets the current list of attributes of the inferencer.
 	 * @return the list of attributes.
 	 */
 	public List<SchemaAttribute> getAttributesList();
 	
+	/**
+	 * Adds all the attribute lists learned by another inferencer (of the same complex type) to this one, as if 
+	 * they had been learned by this inferencer. An attribute remains required if and only if it is required at 
+	 * both inferencers (an inferencer which has not learned any list yet does not make any attribute optional). 
+	 * This allows to learn attribute lists at several partial inferencers (i.e. at different threads) and 
+	 * combine them at the end.
+	 * @param other the other inferencer
+	 * @throws IllegalArgumentException if the other inferencer cannot be merged into this one
+	 */
+	public void merge(AttributeListInferencer other);
+	
 //	/**
 //	 * This allows the inferencer to be cloned
 //	 * @return a clone
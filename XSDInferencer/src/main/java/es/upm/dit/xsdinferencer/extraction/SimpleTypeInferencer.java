@@ -42,6 +42,20 @@ public interface SimpleTypeInferencer extends Iterable<String>,Cloneable {
 	 * @param sourceNodeName the name of the source node
 	 */
 	public void learnValue(String value, String sourceNodeNamespace, String sourceNodeName);
+	
+	/**
+	 * Learns a value which has occurred several times, as if {@link SimpleTypeInferencer#learnValue(String, String, String)} 
+	 * had been called that number of times. By default, it does exactly that.
+	 * @param value the value to learn
+	 * @param sourceNodeNamespace the namespace of the source node
+	 * @param sourceNodeName the name of the source node
+	 * @param occurrences the number of occurrences of the value
+	 */
+	public default void learnValue(String value, String sourceNodeNamespace, String sourceNodeName, int occurrences) {
+		for(int i=0;i<occurrences;i++){
+			learnValue(value, sourceNodeNamespace, sourceNodeName);
+		}
+	}
 	/**
 	 * Infers a SimpleType based on the currently available data (learned values, parameters...)
 	 * @param name name of the new SimpleType
@@ -61,6 +75,16 @@ public interface SimpleTypeInferencer extends Iterable<String>,Cloneable {
 	 */
 	public int getDistinctValuesCount();
 	
+	/**
+	 * Adds all the values learned by another inferencer to this one, as if they had been learned by 
+	 * this inferencer. The other inferencer is not modified. As the result does not depend on the 
+	 * order in which inferencers are merged, this allows to learn values at several partial inferencers 
+	 * (i.e. at different threads) and combine them at the end.
+	 * @param other the other inferencer
+	 * @throws IllegalArgumentException if the other inferencer cannot be merged into this one
+	 */
+	public void merge(SimpleTypeInferencer other);
+	
 //	/**
 //	 * This allows the inferencer to be cloned
 //	 * @return a clone
@@ -126,13 +126,41 @@ public class AttributeListInferencerImpl implements AttributeListInferencer {
 		}
 		return null;
 	}
+	
+	/**
+	 * Helper method that returns the SchemaAttribute object of a known attribute or, if it is not known, creates it 
+	 * (along with its simple type inferencer). New attributes are optional unless no attribute list has been learned yet.
+	 * @param namespace the namespace of the attribute
+	 * @param name the name of the attribute
+	 * @return the SchemaAttribute object of the attribute
+	 */
+	private SchemaAttribute getOrCreateSchemaAttribute(String namespace, String name){
+		SchemaAttribute schemaAttribute = searchSchemaAttribute(namespace, name);
+		if(schemaAttribute==null){
+			schemaAttribute= new SchemaAttribute(name, namespace, true, new SimpleType(""));
+			if(firstTime)
+				schemaAttribute.setOptional(false);
+			SimpleTypeInferencer simpleTypeInferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance(schemaAttribute.getNamespace()+config.getTypeNamesAncestorsSeparator()+schemaAttribute.getName(), config);
+			knownAttributes.put(schemaAttribute,simpleTypeInferencer);
+		}
+		return schemaAttribute;
+	}
 
 	/**
 	 * @see AttributeListInferencer#learnAttributeList(List, int)
 	 */
 	@Override
 	public void learnAttributeList(List<Attribute> attrList, int documentIndex) {
+		learnAttributeList(attrList, documentIndex, 1);
+	}
+	
+	/**
+	 * @see AttributeListInferencer#learnAttributeList(List, int, int)
+	 */
+	@Override
+	public void learnAttributeList(List<Attribute> attrList, int documentIndex, int valuesOccurrences) {
 		checkNotNull(attrList,"'attrList' must not be null");
+		checkArgument(valuesOccurrences>0,"'valuesOccurrences' must be positive");
 		if(!firstTime){
 			//First, we mark as optional any known attribute which does not reoccur
 			for(SchemaAttribute schemaAttribute: knownAttributes.keySet()){
@@ -149,25 +177,116 @@ public class AttributeListInferencerImpl implements AttributeListInferencer {
 		for(Attribute attribute:attrList){
 			if(attribute.getNamespaceURI().equals(XSI_NAMESPACE_URI))
 				continue;//Attributes in the XSI namespace are not extracted.
-			SchemaAttribute schemaAttribute = searchSchemaAttribute(attribute.getNamespaceURI(), attribute.getName());
+			SchemaAttribute schemaAttribute = getOrCreateSchemaAttribute(attribute.getNamespaceURI(), attribute.getName());
+			knownAttributes.get(schemaAttribute).learnValue(attribute.getValue(),attribute.getNamespaceURI(), "@"+attribute.getName(), valuesOccurrences);
+			complexTypeStatisticsEntry.registerAttributeOccurrenceInfoCount(schemaAttribute, documentIndex);
+			complexTypeStatisticsEntry.registerValueOfNodeCount(attribute.getValue(), schemaAttribute, documentIndex);
+			String realPathFiltered=TypesExtractorImpl.filterAndJoinRealPath(TypesExtractorImpl.getRealPathOfAttributeUnfiltered(attribute, config, solvedNamespaceToPrefixMapping));
+			statistics.registerAttributeOccurrenceAtPathCount(realPathFiltered, documentIndex);
+			statistics.registerValueAtPathCount(realPathFiltered, attribute.getValue(), documentIndex);
+		}
+		firstTime=false;
+	}
+	
+	/**
+	 * Describes the attributes of an attribute list (ignoring the ones in the XSI namespace), so that the occurrences of 
+	 * that list may be learned later via {@link AttributeListInferencerImpl#learnAttributeListOccurrences(AttributeListShape, int, int)}, 
+	 * after the attributes have been detached from their element.
+	 * @param attrList the attribute list (its attributes must be attached to their element)
+	 * @return the description of the attribute list
+	 */
+	public AttributeListShape describeAttributeList(List<Attribute> attrList) {
+		checkNotNull(attrList,"'attrList' must not be null");
+		AttributeListShape shape = new AttributeListShape(attrList.size());
+		for(Attribute attribute:attrList){
+			if(attribute.getNamespaceURI().equals(XSI_NAMESPACE_URI))
+				continue;
+			shape.namespaces.add(attribute.getNamespaceURI());
+			shape.names.add(attribute.getName());
+			shape.realPathsFiltered.add(TypesExtractorImpl.filterAndJoinRealPath(TypesExtractorImpl.getRealPathOfAttributeUnfiltered(attribute, config, solvedNamespaceToPrefixMapping)));
+		}
+		return shape;
+	}
+	
+	/**
+	 * Learns several occurrences of an attribute list at once, without its values, which must be learned via 
+	 * {@link AttributeListInferencerImpl#learnAttributeValues(List, int, int)}. The attributes are learned as if 
+	 * {@link AttributeListInferencerImpl#learnAttributeList(List, int, int)} had been called that number of times, 
+	 * provided that all the attributes whose values have been learned belong to lists whose occurrences are learned too. 
+	 * @param shape the description of the attribute list
+	 * @param documentIndex the index of the document
+	 * @param count the number of occurrences of the attribute list
+	 */
+	public void learnAttributeListOccurrences(AttributeListShape shape, int documentIndex, int count) {
+		checkNotNull(shape,"'shape' must not be null");
+		checkArgument(count>0,"'count' must be positive");
+		//Known attributes which do not occur are optional, even the first time, as the attributes whose values have been 
+		//learned for other lists are known before their occurrences are learned
+		for(SchemaAttribute schemaAttribute: knownAttributes.keySet()){
+			if(!shape.contains(schemaAttribute.getNamespace(), schemaAttribute.getName()))
+				schemaAttribute.setOptional(true);
+		}
+		for(int i=0;i<shape.names.size();i++){
+			SchemaAttribute schemaAttribute = getOrCreateSchemaAttribute(shape.namespaces.get(i), shape.names.get(i));
+			complexTypeStatisticsEntry.registerAttributeOccurrenceInfoCount(schemaAttribute, documentIndex, count);
+			statistics.registerAttributeOccurrenceAtPathCount(shape.realPathsFiltered.get(i), documentIndex, count);
+		}
+		firstTime=false;
+	}
+	
+	/**
+	 * Learns the values of an attribute list, without learning the occurrence of the list, which must be learned via 
+	 * {@link AttributeListInferencerImpl#learnAttributeListOccurrences(AttributeListShape, int, int)}.
+	 * @param attrList the attribute list (its attributes must be attached to their element)
+	 * @param documentIndex the index of the document
+	 * @param valuesOccurrences number of occurrences of the values
+	 */
+	public void learnAttributeValues(List<Attribute> attrList, int documentIndex, int valuesOccurrences) {
+		checkNotNull(attrList,"'attrList' must not be null");
+		checkArgument(valuesOccurrences>0,"'valuesOccurrences' must be positive");
+		for(Attribute attribute:attrList){
+			if(attribute.getNamespaceURI().equals(XSI_NAMESPACE_URI))
+				continue;
+			SchemaAttribute schemaAttribute = getOrCreateSchemaAttribute(attribute.getNamespaceURI(), attribute.getName());
+			knownAttributes.get(schemaAttribute).learnValue(attribute.getValue(),attribute.getNamespaceURI(), "@"+attribute.getName(), valuesOccurrences);
+			complexTypeStatisticsEntry.registerValueOfNodeCount(attribute.getValue(), schemaAttribute, documentIndex);
+			String realPathFiltered=TypesExtractorImpl.filterAndJoinRealPath(TypesExtractorImpl.getRealPathOfAttributeUnfiltered(attribute, config, solvedNamespaceToPrefixMapping));
+			statistics.registerValueAtPathCount(realPathFiltered, attribute.getValue(), documentIndex);
+		}
+	}
+	
+	/**
+	 * @see AttributeListInferencer#merge(AttributeListInferencer)
+	 */
+	@Override
+	public void merge(AttributeListInferencer other) {
+		checkNotNull(other,"'other' must not be null");
+		checkArgument(other instanceof AttributeListInferencerImpl, "Only AttributeListInferencerImpl objects may be merged into an AttributeListInferencerImpl");
+		AttributeListInferencerImpl otherImpl = (AttributeListInferencerImpl) other;
+		if(otherImpl.firstTime)
+			return; //Nothing has been learned by the other inferencer
+		//Known attributes which do not occur at the other inferencer are optional 
+		for(SchemaAttribute schemaAttribute: knownAttributes.keySet()){
+			if(otherImpl.searchSchemaAttribute(schemaAttribute.getNamespace(), schemaAttribute.getName())==null)
+				schemaAttribute.setOptional(true);
+		}
+		for(SchemaAttribute otherSchemaAttribute: otherImpl.knownAttributes.keySet()){
+			SimpleTypeInferencer otherSimpleTypeInferencer = otherImpl.knownAttributes.get(otherSchemaAttribute);
+			SchemaAttribute schemaAttribute = searchSchemaAttribute(otherSchemaAttribute.getNamespace(), otherSchemaAttribute.getName());
 			//New attribute
 			if(schemaAttribute==null){
-				schemaAttribute= new SchemaAttribute(attribute.getName(), attribute.getNamespaceURI(), true, new SimpleType(""));
-				if(firstTime)
-					schemaAttribute.setOptional(false);
-				SimpleTypeInferencer simpleTypeInferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance(schemaAttribute.getNamespace()+config.getTypeNamesAncestorsSeparator()+schemaAttribute.getName(), config);
-				simpleTypeInferencer.learnValue(attribute.getValue(), attribute.getNamespaceURI(), "@"+attribute.getName());
-				knownAttributes.put(schemaAttribute,simpleTypeInferencer);
+				//The same object is kept, so that it matches the one registered at the statistics of the other inferencer
+				if(!firstTime)
+					otherSchemaAttribute.setOptional(true);
+				SimpleTypeInferencer simpleTypeInferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance(otherSchemaAttribute.getNamespace()+config.getTypeNamesAncestorsSeparator()+otherSchemaAttribute.getName(), config);
+				simpleTypeInferencer.merge(otherSimpleTypeInferencer);
+				knownAttributes.put(otherSchemaAttribute, simpleTypeInferencer);
 			}
 			//Already known attribute
 			else{
-				knownAttributes.get(schemaAttribute).learnValue(attribute.getValue(),attribute.getNamespaceURI(), "@"+attribute.getName());
+				schemaAttribute.setOptional(schemaAttribute.isOptional()||otherSchemaAttribute.isOptional());
+				knownAttributes.get(schemaAttribute).merge(otherSimpleTypeInferencer);
 			}
-			complexTypeStatisticsEntry.registerAttributeOccurrenceInfoCount(schemaAttribute, documentIndex);
-			complexTypeStatisticsEntry.registerValueOfNodeCount(attribute.getValue(), schemaAttribute, documentIndex);
-			String realPathFiltered=TypesExtractorImpl.filterAndJoinRealPath(TypesExtractorImpl.getRealPathOfAttributeUnfiltered(attribute, config, solvedNamespaceToPrefixMapping));
-			statistics.registerAttributeOccurrenceAtPathCount(realPathFiltered, documentIndex);
-			statistics.registerValueAtPathCount(realPathFiltered, attribute.getValue(), documentIndex);
 		}
 		firstTime=false;
 	}
@@ -194,4 +313,76 @@ public class AttributeListInferencerImpl implements AttributeListInferencer {
 		inferAllSimpleTypes(); //First, we infer the simple type of each attribute
 		return new ArrayList<SchemaAttribute>(knownAttributes.keySet());
 	}
+	
+	/**
+	 * @return the known attributes mapped to their simple type inferencers
+	 */
+	Map<SchemaAttribute, SimpleTypeInferencer> getKnownAttributes() {
+		return knownAttributes;
+	}
+	
+	/**
+	 * @return true if no attribute list has been learned yet
+	 */
+	boolean getFirstTime() {
+		return firstTime;
+	}
+	
+	/**
+	 * Replaces all the learned information by a previously saved one. The attributes must be the same objects 
+	 * registered at the statistics entry of the enclosing complex type.
+	 * @param knownAttributes the known attributes mapped to their simple type inferencers
+	 * @param firstTime true if no attribute list had been learned
+	 */
+	void restoreState(Map<SchemaAttribute, SimpleTypeInferencer> knownAttributes, boolean firstTime) {
+		this.knownAttributes=new HashMap<>(knownAttributes);
+		this.firstTime=firstTime;
+	}
+	
+	/**
+	 * Description of an attribute list (namespace, name and filtered path of each attribute, but not its value), 
+	 * built via {@link AttributeListInferencerImpl#describeAttributeList(List)}.
+	 * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+	 *
+	 */
+	public static final class AttributeListShape {
+		
+		/**
+		 * Namespace URIs of the attributes
+		 */
+		private final List<String> namespaces;
+		
+		/**
+		 * Names of the attributes
+		 */
+		private final List<String> names;
+		
+		/**
+		 * Filtered paths of the attributes
+		 */
+		private final List<String> realPathsFiltered;
+		
+		/**
+		 * Default constructor
+		 * @param expectedSize expected number of attributes
+		 */
+		private AttributeListShape(int expectedSize) {
+			this.namespaces = new ArrayList<>(expectedSize);
+			this.names = new ArrayList<>(expectedSize);
+			this.realPathsFiltered = new ArrayList<>(expectedSize);
+		}
+		
+		/**
+		 * @param namespace namespace URI of an attribute
+		 * @param name name of an attribute
+		 * @return whether the attribute is at the list
+		 */
+		private boolean contains(String namespace, String name) {
+			for(int i=0;i<names.size();i++){
+				if(names.get(i).equals(name) && namespaces.get(i).equals(namespace))
+					return true;
+			}
+			return false;
+		}
+	}
 }
@@ -0,0 +1,288 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.jdom2.Document;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * {@link TypesExtractor} implementation which extracts each input file on its own and keeps the learner state of each 
+ * file at an {@link ExtractionCache}, keyed by a fingerprint of its content. The states of the files are then combined 
+ * as {@link ShardsCombinerTypesExtractorImpl} does with shards, so, when the same inputs are extracted again, only the 
+ * new or changed files are read and extracted and the states of the other ones are taken from the cache. 
+ * The initial schema is the same one that the extraction of all the files at once would generate. 
+ * <br/>
+ * Each file is extracted by a streaming extractor chosen by the caller (XML, with or without records, JSON or JSON Lines), 
+ * whose namespace URI to prefix mappings are solved from that file only, so all the files must bind each namespace URI 
+ * to the same prefix (otherwise, an {@link IllegalArgumentException} is thrown while combining them). 
+ * The fingerprints also cover the settings on which the learner states depend, so entries saved with other settings 
+ * are never used, and the number of identical files a file stands for (when the source is deduplicated), so the 
+ * state of those files is read once. Entries which cannot be read are removed and their files extracted again.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class CachedTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * Hash function used to build the keys of the cache entries
+	 */
+	private static final HashFunction KEY_FUNCTION = Hashing.murmur3_128();
+	
+	/**
+	 * Input files
+	 */
+	private InputDocumentsSource source;
+	
+	/**
+	 * Cache of the learner states of the files
+	 */
+	private ExtractionCache cache;
+	
+	/**
+	 * Builds the extractor of a single input file, given a source with only that file
+	 */
+	private Function<InputDocumentsSource, TypesExtractorImpl> fileExtractorFactory;
+	
+	/**
+	 * Number of files extracted by the last extraction
+	 */
+	private int extractedFilesCount = 0;
+	
+	/**
+	 * Number of files whose state was taken from the cache by the last extraction
+	 */
+	private int cachedFilesCount = 0;
+	
+	/**
+	 * Constructor for XML input files, which are extracted by {@link XMLStreamTypesExtractorImpl}.
+	 * 
+	 * @param xmlSource the source of the input XML files
+	 * @param configuration the inference configuration
+	 * @param cache the cache of the learner states of the files
+	 */
+	public CachedTypesExtractorImpl(InputDocumentsSource xmlSource, XSDInferenceConfiguration configuration, ExtractionCache cache) {
+		this(xmlSource, configuration, cache, fileSource -> new XMLStreamTypesExtractorImpl(fileSource, configuration));
+	}
+	
+	/**
+	 * Constructor with a custom extractor of the input files.
+	 * 
+	 * @param source the source of the input files
+	 * @param configuration the inference configuration
+	 * @param cache the cache of the learner states of the files
+	 * @param fileExtractorFactory builds the extractor of a single input file, given a source with only that file. 
+	 * Its state must be saveable via {@link TypesExtractorImpl#saveState(java.io.OutputStream)}.
+	 */
+	public CachedTypesExtractorImpl(InputDocumentsSource source, XSDInferenceConfiguration configuration, ExtractionCache cache, 
+			Function<InputDocumentsSource, TypesExtractorImpl> fileExtractorFactory) {
+		super();
+		checkNotNull(source, "'source' must not be null");
+		checkNotNull(cache, "'cache' must not be null");
+		checkNotNull(fileExtractorFactory, "'fileExtractorFactory' must not be null");
+		initializeData(Collections.<Document>emptyList(), configuration, InferencersFactory.getInstance());
+		this.source = source;
+		this.cache = cache;
+		this.fileExtractorFactory = fileExtractorFactory;
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 * @throws InputReadingException if any input file cannot be read or parsed
+	 * @throws IllegalArgumentException if the input files bind a namespace URI to different prefixes
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		extractedFilesCount = 0;
+		cachedFilesCount = 0;
+		String settings = LearnerStateSnapshot.describeCompatibility(getConfiguration())+":"+getConfiguration().getWorkingFormat()
+				+":"+Strings.nullToEmpty(getConfiguration().getRecordPath());
+		try(InputDocumentsReader files = source.open()){
+			while(files.next()){
+				int multiplicity = files.getMultiplicity();
+				//The content is spooled to a temporary file while it is fingerprinted, so that it is only read once from 
+				//the source and it is not kept in memory
+				File spooledFile = File.createTempFile("xsdinferencer", ".input");
+				try{
+					HashCode key = spool(files, spooledFile, settings, multiplicity);
+					if(mergeCachedState(key)){
+						cachedFilesCount++;
+					} else {
+						byte[] savedState = extractState(Files.asByteSource(spooledFile), multiplicity);
+						cache.put(key, savedState);
+						extractedFilesCount++;
+						mergeSavedState(ByteSource.wrap(savedState));
+					}
+				} finally {
+					spooledFile.delete();
+				}
+			}
+		} catch (IOException e) {
+			throw new InputReadingException("Error while reading the input files", e);
+		}
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Copies the content of the current file of a reader to another file and computes its cache key.
+	 * @param files the reader, positioned at the file
+	 * @param spooledFile the file where the content is copied
+	 * @param settings the description of the settings which the learner states depend on
+	 * @param multiplicity how many identical files the file stands for
+	 * @return the key of the file
+	 * @throws IOException if the file cannot be read or copied
+	 */
+	private static HashCode spool(InputDocumentsReader files, File spooledFile, String settings, int multiplicity) throws IOException {
+		Hasher hasher = KEY_FUNCTION.newHasher().putString(settings, StandardCharsets.UTF_8).putInt(multiplicity);
+		byte[] buffer = new byte[8192];
+		try(InputStream content = files.getInputStream(); OutputStream spooledContent = new FileOutputStream(spooledFile)){
+			int read;
+			while((read=content.read(buffer))!=-1){
+				hasher.putBytes(buffer, 0, read);
+				spooledContent.write(buffer, 0, read);
+			}
+		}
+		return hasher.hash();
+	}
+	
+	/**
+	 * Merges the cached learner state of a file. An entry which cannot be read is removed, so that the file is 
+	 * extracted again.
+	 * @param key the key of the file
+	 * @return true if the state has been merged, false if it is not cached (or it cannot be read)
+	 * @throws IOException if an entry which cannot be read cannot be removed either
+	 */
+	private boolean mergeCachedState(HashCode key) throws IOException {
+		ByteSource cachedState = cache.get(key);
+		if(cachedState==null)
+			return false;
+		try {
+			mergeSavedState(cachedState);
+			return true;
+		} catch (InputReadingException | IllegalArgumentException e) {
+			cache.remove(key);
+			return false;
+		}
+	}
+	
+	/**
+	 * Extracts a single file and saves its learner state. A file which stands for several identical ones is extracted 
+	 * once and its documents are registered as many times as the file occurs.
+	 * @param content the content of the file
+	 * @param multiplicity how many identical files the file stands for
+	 * @return the saved state
+	 * @throws IOException if the state cannot be saved
+	 */
+	private byte[] extractState(ByteSource content, int multiplicity) throws IOException {
+		TypesExtractorImpl fileExtractor = fileExtractorFactory.apply(singleFileSource(content, multiplicity));
+		fileExtractor.getInitalSchema();
+		ByteArrayOutputStream savedState = new ByteArrayOutputStream();
+		fileExtractor.saveState(savedState);
+		return savedState.toByteArray();
+	}
+	
+	/**
+	 * Builds a source with a single file which stands for several identical ones.
+	 * @param content the content of the file
+	 * @param multiplicity how many identical files the file stands for
+	 * @return the source
+	 */
+	private static InputDocumentsSource singleFileSource(ByteSource content, final int multiplicity) {
+		final InputDocumentsSource fileSource = InputDocumentsSources.fromByteSources(Collections.singletonList(content));
+		return new InputDocumentsSource() {
+			
+			@Override
+			public InputDocumentsReader open() throws IOException {
+				final InputDocumentsReader reader = fileSource.open();
+				return new InputDocumentsReader() {
+					
+					@Override
+					public boolean next() throws IOException {
+						return reader.next();
+					}
+					
+					@Override
+					public String getName() {
+						return reader.getName();
+					}
+					
+					@Override
+					public InputStream getInputStream() throws IOException {
+						return reader.getInputStream();
+					}
+					
+					@Override
+					public int getMultiplicity() {
+						return multiplicity;
+					}
+					
+					@Override
+					public void close() throws IOException {
+						reader.close();
+					}
+				};
+			}
+			
+			@Override
+			public int getDocumentsCount() {
+				return multiplicity;
+			}
+		};
+	}
+	
+	/**
+	 * @return how many files were extracted by the last extraction (the other ones were taken from the cache)
+	 */
+	public int getExtractedFilesCount() {
+		return extractedFilesCount;
+	}
+	
+	/**
+	 * @return how many files were taken from the cache by the last extraction
+	 */
+	public int getCachedFilesCount() {
+		return cachedFilesCount;
+	}
+
+}
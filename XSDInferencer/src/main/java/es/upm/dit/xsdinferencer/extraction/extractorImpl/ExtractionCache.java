@@ -0,0 +1,221 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+/**
+ * On-disk cache of the learner states extracted from single input files, keyed by a fingerprint of the content of 
+ * each file (and the settings which the extraction depends on), so that reruns over mostly unchanged inputs only 
+ * extract the new or changed files (see {@link CachedTypesExtractorImpl}). 
+ * <br/>
+ * Each entry is a file of the cache directory. The least recently used entries are evicted whenever the cache 
+ * exceeds its maximum size or number of entries. The last modification time of the entry files records when they were 
+ * last used, so the cache survives between runs. Entries are written to a temporary file first, so that an interrupted 
+ * run does not leave truncated entries.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ExtractionCache {
+	
+	/**
+	 * Extension of the entry files
+	 */
+	private static final String ENTRY_EXTENSION = ".state";
+	
+	/**
+	 * Directory of the cache
+	 */
+	private final File directory;
+	
+	/**
+	 * Maximum size of all the entries, in bytes
+	 */
+	private final long maxSize;
+	
+	/**
+	 * Maximum number of entries (0 means no limit)
+	 */
+	private final int maxEntries;
+	
+	/**
+	 * Size of each entry file, by name, from the least recently used one to the most recently used one
+	 */
+	private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/**
+	 * Size of all the entries, in bytes
+	 */
+	private long size = 0;
+	
+	/**
+	 * Number of lookups which found their entry since the cache was created
+	 */
+	private int hits = 0;
+	
+	/**
+	 * Number of lookups which did not find their entry since the cache was created
+	 */
+	private int misses = 0;
+	
+	/**
+	 * Number of entries evicted since the cache was created
+	 */
+	private int evictions = 0;
+	
+	/**
+	 * Constructor. The directory is created if it does not exist, and the entries already there are kept.
+	 * @param directory the directory of the cache
+	 * @param maxSize maximum size of all the entries, in bytes
+	 * @param maxEntries maximum number of entries (0 means no limit)
+	 * @throws IOException if the directory cannot be created
+	 */
+	public ExtractionCache(File directory, long maxSize, int maxEntries) throws IOException {
+		checkNotNull(directory,"'directory' must not be null");
+		checkArgument(maxSize>0,"'maxSize' must be positive");
+		checkArgument(maxEntries>=0,"'maxEntries' must not be negative");
+		java.nio.file.Files.createDirectories(directory.toPath());
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.maxEntries = maxEntries;
+		File[] entryFiles = directory.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+		if(entryFiles!=null){
+			Arrays.sort(entryFiles, Comparator.comparingLong(File::lastModified));
+			for(File entryFile: entryFiles){
+				entrySizes.put(entryFile.getName(), entryFile.length());
+				size+=entryFile.length();
+			}
+		}
+		evict();
+	}
+	
+	/**
+	 * @param key the key of an entry
+	 * @return the file of the entry
+	 */
+	private File getEntryFile(HashCode key) {
+		return new File(directory, key.toString()+ENTRY_EXTENSION);
+	}
+	
+	/**
+	 * Looks for an entry, which is marked as the most recently used one if it is found.
+	 * @param key the key of the entry
+	 * @return the content of the entry or null if it is not cached
+	 */
+	public ByteSource get(HashCode key) {
+		checkNotNull(key,"'key' must not be null");
+		File entryFile = getEntryFile(key);
+		if(entrySizes.get(entryFile.getName())==null || !entryFile.isFile()){
+			misses++;
+			return null;
+		}
+		entryFile.setLastModified(System.currentTimeMillis());
+		hits++;
+		return Files.asByteSource(entryFile);
+	}
+	
+	/**
+	 * Stores an entry (replacing the previous one with the same key, if any) and evicts the least recently used entries 
+	 * if the limits of the cache are exceeded.
+	 * @param key the key of the entry
+	 * @param content the content of the entry
+	 * @throws IOException if the entry cannot be written
+	 */
+	public void put(HashCode key, byte[] content) throws IOException {
+		checkNotNull(key,"'key' must not be null");
+		checkNotNull(content,"'content' must not be null");
+		File entryFile = getEntryFile(key);
+		File temporaryFile = new File(entryFile.getPath()+".tmp");
+		Files.write(content, temporaryFile);
+		java.nio.file.Files.move(temporaryFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Long previousSize = entrySizes.put(entryFile.getName(), (long) content.length);
+		size+=content.length-(previousSize!=null?previousSize:0);
+		evict();
+	}
+	
+	/**
+	 * Removes an entry (i.e. because its content cannot be read), if it exists.
+	 * @param key the key of the entry
+	 * @throws IOException if the entry cannot be deleted
+	 */
+	public void remove(HashCode key) throws IOException {
+		checkNotNull(key,"'key' must not be null");
+		File entryFile = getEntryFile(key);
+		java.nio.file.Files.deleteIfExists(entryFile.toPath());
+		Long previousSize = entrySizes.remove(entryFile.getName());
+		if(previousSize!=null)
+			size-=previousSize;
+	}
+	
+	/**
+	 * Evicts the least recently used entries until the limits of the cache are met.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> leastRecentlyUsedFirst = entrySizes.entrySet().iterator();
+		while(leastRecentlyUsedFirst.hasNext() && (size>maxSize || (maxEntries>0 && entrySizes.size()>maxEntries))){
+			Map.Entry<String, Long> entry = leastRecentlyUsedFirst.next();
+			File entryFile = new File(directory, entry.getKey());
+			if(entryFile.delete() || !entryFile.exists()){
+				size-=entry.getValue();
+				leastRecentlyUsedFirst.remove();
+				evictions++;
+			}
+		}
+	}
+	
+	/**
+	 * @return the directory of the cache
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
+	/**
+	 * @return how many lookups have found their entry
+	 */
+	public int getHits() {
+		return hits;
+	}
+	
+	/**
+	 * @return how many lookups have not found their entry
+	 */
+	public int getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * @return how many entries have been evicted
+	 */
+	public int getEvictions() {
+		return evictions;
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jdom2.IllegalNameException;
+
+import com.google.common.io.CharSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.json.JSONTokenReader;
+
+/**
+ * {@link TypesExtractor} implementation intended to work with JSON Lines (also known as NDJSON) input files, 
+ * where each line of a file is a whole JSON document (usually, a record of a bigger collection). 
+ * Each input file is streamed by means of a single {@link JSONTokenReader} and each top-level value 
+ * is extracted as an independent document, exactly as {@link JSONStreamTypesExtractorImpl} does with whole files. 
+ * So, only the record which is being read is kept in memory (and just its open objects and arrays). 
+ * <br/>
+ * Documents are numbered consecutively across all the input files. As the number of documents is not known until 
+ * all of them have been read, the {@link Statistics} are filled for the real count of documents at the end of the extraction.
+ * Each non-blank line must hold exactly one top-level value: a value split across several lines or several values at the same line 
+ * are reported as input errors, together with the number of the offending line.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class JSONLinesTypesExtractorImpl extends JSONStreamTypesExtractorImpl {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param jsonLinesSources A list of all the input JSON Lines files, as {@link CharSource} objects.
+	 * @param configuration the inference configuration
+	 */
+	public JSONLinesTypesExtractorImpl(List<CharSource> jsonLinesSources,
+			XSDInferenceConfiguration configuration) {
+		super(jsonLinesSources, configuration);
+	}
+	
+	/**
+	 * Default constructor with custom inferencers factory.
+	 * 
+	 * @param jsonLinesSources A list of all the input JSON Lines files, as {@link CharSource} objects.
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public JSONLinesTypesExtractorImpl(List<CharSource> jsonLinesSources,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		super(jsonLinesSources, configuration, inferencersFactory);
+	}
+	
+	/**
+	 * Constructor which reads the input files from an {@link InputDocumentsSource} (i.e. the entries of an archive).
+	 * 
+	 * @param jsonLinesSource the source of all the input JSON Lines files
+	 * @param configuration the inference configuration
+	 */
+	public JSONLinesTypesExtractorImpl(InputDocumentsSource jsonLinesSource,
+			XSDInferenceConfiguration configuration) {
+		super(jsonLinesSource, configuration);
+	}
+	
+	/**
+	 * Constructor which reads the input files from an {@link InputDocumentsSource} (i.e. the entries of an archive), 
+	 * with custom inferencers factory.
+	 * 
+	 * @param jsonLinesSource the source of all the input JSON Lines files
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public JSONLinesTypesExtractorImpl(InputDocumentsSource jsonLinesSource,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		super(jsonLinesSource, configuration, inferencersFactory);
+	}
+	
+	/**
+	 * The number of documents is unknown before reading the input files, so the statistics are 
+	 * built for a single document and increased at the end of the extraction.
+	 * @see TypesExtractorImpl#getInputDocumentsCount()
+	 */
+	@Override
+	protected int getInputDocumentsCount() {
+		return 1;
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 * @throws InputReadingException if any input file cannot be read or any of its lines is not a well-formed JSON document
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		setSolvedNamespaceToPrefixMapping(getSolvedJSONNamespaceToPrefixMapping());
+		int documentIndex = 0;
+		try(InputDocumentsReader documents = getJSONSource().open()){
+			while(documents.next()){
+				setDocumentMultiplicity(documents.getMultiplicity());
+				int firstDocumentIndex = documentIndex;
+				try(JSONTokenReader reader = openTokenReader(documents)){
+					int previousLine = 0;
+					try{
+						while(extractDocument(documentIndex, reader)){
+							checkSingleLineValue(reader, previousLine);
+							previousLine = reader.getLine();
+							documentIndex++;
+						}
+					} catch (IOException | IllegalNameException e) {
+						throw new InputReadingException("Error while reading the line "+reader.getLine()+" (document "+documentIndex+") from the input JSON Lines file "+documents.getName(),e);
+					}
+				} catch (IOException e) {
+					throw new InputReadingException("Error while reading the input JSON Lines file "+documents.getName(),e);
+				}
+				//A file which stands for several identical ones is copied (with all its documents) after itself
+				documentIndex = registerDocumentCopies(firstDocumentIndex, documentIndex, documentIndex);
+			}
+		} catch (IOException e) {
+			throw new InputReadingException("Error while reading the input JSON Lines files",e);
+		}
+		registerExtractedDocumentsCount(documentIndex);
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Checks that the top-level value which has just been read is the only one at its line.
+	 * @param reader the reader, just after the end of the value
+	 * @param previousLine the line where the previous value of the same file ended, or 0 if there is none
+	 * @throws IOException if the value spans several lines or shares its line with the previous value
+	 */
+	private static void checkSingleLineValue(JSONTokenReader reader, int previousLine) throws IOException {
+		if(reader.getValueStartLine()!=reader.getLine())
+			throw new IOException("The JSON value which begins at line "+reader.getValueStartLine()+" spans several lines");
+		if(reader.getValueStartLine()==previousLine)
+			throw new IOException("More than one JSON value at line "+previousLine);
+	}
+
+}
@@ -0,0 +1,375 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.ARRAY_ELEMENT_NAME;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.NAMESPACE_ARRAY_ELEMENT;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.NAMESPACE_ROOT_ARRAY;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.NAMESPACE_ROOT_OBJECT;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.XML_NAMESPACE_URI;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.XML_ROOT_NAME;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.IllegalNameException;
+import org.jdom2.Namespace;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+import es.upm.dit.xsdinferencer.util.json.JSONTokenReader;
+import es.upm.dit.xsdinferencer.util.json.JSONTokenReader.Token;
+
+/**
+ * {@link TypesExtractor} implementation intended to work with JSON input files, which reads them by means of a 
+ * streaming {@link JSONTokenReader}. 
+ * Unlike {@link JSONTypesExtractorImpl}, JSON documents are neither parsed into trees nor converted into XML: 
+ * each token is directly learned by the methods of the parent {@link TypesExtractorImpl}, as if it were part of the 
+ * XML document that {@link JSONTypesExtractorImpl} would generate from the JSON document. It means:
+ * <ul>
+ * <li>The root element is called {@link XSDInferenceConfiguration#XML_ROOT_NAME} and its namespace is 
+ * {@link XSDInferenceConfiguration#NAMESPACE_ROOT_OBJECT} or {@link XSDInferenceConfiguration#NAMESPACE_ROOT_ARRAY}.</li>
+ * <li>Each member of an object is an element named after its key, without namespace.</li>
+ * <li>Each item of an array is an element called {@link XSDInferenceConfiguration#ARRAY_ELEMENT_NAME} whose namespace 
+ * is {@link XSDInferenceConfiguration#NAMESPACE_ARRAY_ELEMENT}.</li>
+ * <li>The text of strings is quoted, so that they are distinguished from other primitive values. Numbers are 
+ * learned with the same text that the Java JSON library generates for them.</li>
+ * <li>Children are learned sorted by namespace URI and name (array items keep their order).</li>
+ * </ul>
+ * Only the currently open objects and arrays are kept as detached JDOM2 {@link Element} objects, so that paths 
+ * may be calculated in the same way than the parent does.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class JSONStreamTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * Comparator for {@link SchemaElement} objects which first looks at the namespace URI and then at the name. 
+	 * It sorts children in the same way than {@link JSONTypesExtractorImpl#NAMESPACE_AND_NAME_COMPARATOR}.
+	 */
+	public static final Comparator<SchemaElement> NAMESPACE_AND_NAME_COMPARATOR = 
+			Comparator.comparing(SchemaElement::getNamespace)
+			          .thenComparing(SchemaElement::getName);
+	
+	/**
+	 * Input JSON documents
+	 */
+	private InputDocumentsSource jsonSource;
+	
+	/**
+	 * Flag that indicates whether the mapping of the namespace of array items has already been registered
+	 */
+	private boolean arrayNamespaceRegistered;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param jsonSources A list of all the input JSON documents, as {@link CharSource} objects.
+	 * @param configuration the inference configuration
+	 */
+	public JSONStreamTypesExtractorImpl(List<CharSource> jsonSources,
+			XSDInferenceConfiguration configuration) {
+		this(jsonSources,configuration,InferencersFactory.getInstance());
+	}
+	
+	/**
+	 * Default constructor with custom inferencers factory.
+	 * 
+	 * @param jsonSources A list of all the input JSON documents, as {@link CharSource} objects.
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public JSONStreamTypesExtractorImpl(List<CharSource> jsonSources,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		this(InputDocumentsSources.fromCharSources(jsonSources),configuration,inferencersFactory);
+	}
+	
+	/**
+	 * Constructor which reads the input documents from an {@link InputDocumentsSource} (i.e. the entries of an archive). 
+	 * Documents are decoded as UTF-8.
+	 * 
+	 * @param jsonSource the source of all the input JSON documents
+	 * @param configuration the inference configuration
+	 */
+	public JSONStreamTypesExtractorImpl(InputDocumentsSource jsonSource,
+			XSDInferenceConfiguration configuration) {
+		this(jsonSource,configuration,InferencersFactory.getInstance());
+	}
+	
+	/**
+	 * Constructor which reads the input documents from an {@link InputDocumentsSource} (i.e. the entries of an archive), 
+	 * with custom inferencers factory. Documents are decoded as UTF-8.
+	 * 
+	 * @param jsonSource the source of all the input JSON documents
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public JSONStreamTypesExtractorImpl(InputDocumentsSource jsonSource,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		super();
+		checkNotNull(jsonSource,"'jsonSource' must not be null");
+		this.jsonSource=jsonSource;
+		initializeData(Collections.<Document>emptyList(), configuration, inferencersFactory);
+	}
+	
+	/**
+	 * If the source does not know how many documents it has, the statistics are built for a single document and 
+	 * increased at the end of the extraction.
+	 * @see TypesExtractorImpl#getInputDocumentsCount()
+	 */
+	@Override
+	protected int getInputDocumentsCount() {
+		return Math.max(jsonSource.getDocumentsCount(), 1);
+	}
+	
+	/**
+	 * @return the input JSON documents
+	 */
+	protected InputDocumentsSource getJSONSource() {
+		return jsonSource;
+	}
+	
+	/**
+	 * Opens a {@link JSONTokenReader} over the current document of a documents reader.
+	 * @param documents the documents reader
+	 * @return the token reader
+	 * @throws IOException if the document cannot be read
+	 */
+	protected static JSONTokenReader openTokenReader(InputDocumentsReader documents) throws IOException {
+		return new JSONTokenReader(documents.getReader(Charsets.UTF_8));
+	}
+	
+	/**
+	 * @see TypesExtractorImpl#clearAll()
+	 */
+	@Override
+	protected void clearAll() {
+		super.clearAll();
+		arrayNamespaceRegistered=false;
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 * @throws InputReadingException if any input document cannot be read or is not a well-formed JSON document
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		//The namespaces are always the same ones, so there is no need to read documents twice. 
+		//Known mappings are only registered when they are found, as if they had been read from the documents.
+		setSolvedNamespaceToPrefixMapping(getSolvedJSONNamespaceToPrefixMapping());
+		int documentIndex = 0;
+		try(InputDocumentsReader documents = jsonSource.open()){
+			while(documents.next()){
+				setDocumentMultiplicity(documents.getMultiplicity());
+				try(JSONTokenReader reader = openTokenReader(documents)){
+					if(!extractDocument(documentIndex, reader))
+						throw new InputReadingException("Empty JSON document: "+documents.getName());
+					if(reader.next()!=Token.END_DOCUMENT)
+						throw new InputReadingException("Unexpected content after the end of the JSON document: "+documents.getName());
+				} catch (IOException | IllegalNameException e) {
+					throw new InputReadingException("Error while reading the input JSON document "+documents.getName(),e);
+				}
+				//A document which stands for several identical ones is copied after itself
+				documentIndex = registerDocumentCopies(documentIndex, documentIndex+1, documentIndex+1);
+			}
+		} catch (IOException e) {
+			throw new InputReadingException("Error while reading the input JSON documents",e);
+		}
+		registerExtractedDocumentsCount(documentIndex);
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Returns the solved mapping between all the namespace URIs that may appear at JSON extraction and their prefixes.
+	 * @return the solved mapping
+	 */
+	protected static NavigableMap<String, String> getSolvedJSONNamespaceToPrefixMapping(){
+		NavigableMap<String, SortedSet<String>> knownMappings = new TreeMap<>();
+		for(Namespace namespace: new Namespace[]{Namespace.XML_NAMESPACE, Namespace.NO_NAMESPACE, NAMESPACE_ROOT_OBJECT, NAMESPACE_ROOT_ARRAY, NAMESPACE_ARRAY_ELEMENT}){
+			SortedSet<String> prefixes = new TreeSet<>();
+			prefixes.add(namespace.getPrefix());
+			knownMappings.put(namespace.getURI(), prefixes);
+		}
+		return Schema.solveMappings(knownMappings);
+	}
+	
+	/**
+	 * Reads a whole JSON document (a top-level object or array) and extracts all the information from it. 
+	 * Only the open objects and arrays are kept in memory (without their contents).
+	 * @param documentIndex index of the document
+	 * @param reader a reader positioned before the start of the document
+	 * @return false if the input had already ended, so there was not any document to read
+	 * @throws IOException if the document cannot be read or it is not well-formed
+	 */
+	protected boolean extractDocument(int documentIndex, JSONTokenReader reader) throws IOException {
+		Token token = reader.next();
+		Namespace rootNamespace;
+		if(token==Token.END_DOCUMENT){
+			return false;
+		} else if(token==Token.BEGIN_OBJECT){
+			rootNamespace=NAMESPACE_ROOT_OBJECT;
+		} else if(token==Token.BEGIN_ARRAY){
+			rootNamespace=NAMESPACE_ROOT_ARRAY;
+		} else {
+			throw new IOException("The root of a JSON document must be either an object or an array");
+		}
+		registerKnownNamespaceToPrefixMapping(XML_NAMESPACE_URI, Namespace.XML_NAMESPACE.getPrefix());
+		registerKnownNamespaceToPrefixMapping("", "");
+		registerKnownNamespaceToPrefixMapping(rootNamespace.getURI(), rootNamespace.getPrefix());
+		//Open objects and arrays, their extraction frames and whether they are arrays, indexed by depth
+		List<Element> openElements = new ArrayList<>();
+		List<ElementFrame> openFrames = new ArrayList<>();
+		List<Boolean> openArrays = new ArrayList<>();
+		Element rootElement = new Element(XML_ROOT_NAME, rootNamespace);
+		openElements.add(rootElement);
+		openFrames.add(startElement(documentIndex, rootElement, null));
+		openArrays.add(token==Token.BEGIN_ARRAY);
+		if(openFrames.get(0).isContentSkipped()){
+			skipContent(reader);
+			endElement(openFrames.get(0), "");
+			return true;
+		}
+		String currentKey = null;
+		while(!openElements.isEmpty()){
+			token = reader.next();
+			int depth = openElements.size();
+			if(token==Token.KEY){
+				currentKey=reader.getText();
+				continue;
+			}
+			if(token==Token.END_OBJECT || token==Token.END_ARRAY){
+				Element closedElement = openElements.remove(depth-1);
+				ElementFrame closedFrame = openFrames.remove(depth-1);
+				openArrays.remove(depth-1);
+				closedFrame.sortChildren(NAMESPACE_AND_NAME_COMPARATOR);
+				SchemaElement schemaElement = endElement(closedFrame, "");
+				if(depth>1){
+					openElements.get(depth-2).removeContent(closedElement);
+					registerChild(openFrames.get(depth-2), schemaElement);
+				}
+				continue;
+			}
+			//Any value starts a new element
+			Element element;
+			if(openArrays.get(depth-1)){
+				if(!arrayNamespaceRegistered){
+					registerKnownNamespaceToPrefixMapping(NAMESPACE_ARRAY_ELEMENT.getURI(), NAMESPACE_ARRAY_ELEMENT.getPrefix());
+					arrayNamespaceRegistered=true;
+				}
+				element = new Element(ARRAY_ELEMENT_NAME, NAMESPACE_ARRAY_ELEMENT);
+			} else {
+				element = new Element(currentKey);
+			}
+			Element parentElement = openElements.get(depth-1);
+			ElementFrame parentFrame = openFrames.get(depth-1);
+			parentElement.addContent(element);
+			ElementFrame frame = startElement(documentIndex, element, parentFrame);
+			if(frame.isContentSkipped()){
+				if(token==Token.BEGIN_OBJECT || token==Token.BEGIN_ARRAY){
+					skipContent(reader);
+				}
+				SchemaElement schemaElement = endElement(frame, "");
+				parentElement.removeContent(element);
+				registerChild(parentFrame, schemaElement);
+			} else if(token==Token.BEGIN_OBJECT || token==Token.BEGIN_ARRAY){
+				openElements.add(element);
+				openFrames.add(frame);
+				openArrays.add(token==Token.BEGIN_ARRAY);
+			} else {
+				SchemaElement schemaElement = endElement(frame, getPrimitiveValueText(token, reader.getText()));
+				parentElement.removeContent(element);
+				registerChild(parentFrame, schemaElement);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads the content of the object or array which has just begun, up to its end, without building anything. 
+	 * It is used to skip the content of the elements whose paths are excluded.
+	 * @param reader the reader, positioned at the beginning of an object or array
+	 * @throws IOException if the input cannot be read or it is not well-formed JSON
+	 */
+	private static void skipContent(JSONTokenReader reader) throws IOException {
+		int skippedDepth = reader.getDepth();
+		while(reader.getDepth()>=skippedDepth){
+			reader.next();
+		}
+	}
+	
+	/**
+	 * Returns the text that represents a primitive JSON value.
+	 * @param token the token of the value
+	 * @param tokenText the text of the token as returned by {@link JSONTokenReader#getText()}
+	 * @return the text of the value
+	 */
+	private static String getPrimitiveValueText(Token token, String tokenText){
+		switch(token){
+		case STRING:
+			return "\""+tokenText+"\"";
+		case NUMBER:
+			return normalizeNumber(tokenText);
+		case TRUE:
+			return "true";
+		case FALSE:
+			return "false";
+		case NULL:
+			return "null";
+		default:
+			throw new IllegalArgumentException("Unexpected token: "+token);
+		}
+	}
+	
+	/**
+	 * Returns the text that the Java JSON library would generate for a number: 
+	 * integer literals are kept and any other literal is written as a {@link Double}.
+	 * @param literal the literal of the number
+	 * @return the normalized text of the number
+	 */
+	private static String normalizeNumber(String literal){
+		if(literal.indexOf('.')<0 && literal.indexOf('e')<0 && literal.indexOf('E')<0 && !literal.equals("-0"))
+			return literal;
+		Double value = Double.valueOf(literal);
+		if(value.isInfinite() || value.isNaN())
+			return literal;
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,1119 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Table;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.ExtendedAutomaton;
+import es.upm.dit.xsdinferencer.datastructures.SchemaAttribute;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.datastructures.SchemaNode;
+import es.upm.dit.xsdinferencer.datastructures.SimpleType;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypeNameInferencer;
+import es.upm.dit.xsdinferencer.statistics.BasicStatisticsEntry;
+import es.upm.dit.xsdinferencer.statistics.ComplexTypeStatisticsEntry;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
+import es.upm.dit.xsdinferencer.util.sketches.SpaceSaving;
+
+/**
+ * Snapshot of the state learned by a {@link TypesExtractorImpl} from its input documents (before the initial schema is merged), 
+ * which may be written to a compact binary form and read again, so that a later extraction resumes from it. 
+ * It contains the known namespaces, the complex types, the elements, the automatons, the learned values of the simple type 
+ * and attribute list inferencers (only the default implementations are supported) and the statistics.<br/>
+ * The binary form is a GZIP compressed stream where strings are only written once, objects are referenced by their index, 
+ * numbers are variable-length encoded and the values of the statistics entries which are zero are skipped.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+final class LearnerStateSnapshot {
+	
+	/**
+	 * Magic number at the beginning of the binary form ("XSDI")
+	 */
+	private static final int MAGIC_NUMBER = 0x58534449;
+	
+	/**
+	 * Version of the binary form
+	 */
+	private static final int FORMAT_VERSION = 6;
+	
+	/**
+	 * Reference to the initial state of an automaton
+	 */
+	private static final int NODE_REFERENCE_INITIAL_STATE = 0;
+	
+	/**
+	 * Reference to the final state of an automaton
+	 */
+	private static final int NODE_REFERENCE_FINAL_STATE = 1;
+	
+	/**
+	 * Offset of the references to elements at automatons
+	 */
+	private static final int NODE_REFERENCE_ELEMENTS_OFFSET = 2;
+	
+	/**
+	 * Map between namespace URIs and their known prefixes
+	 */
+	private final NavigableMap<String, SortedSet<String>> prefixNamespaceMapping;
+	
+	/**
+	 * Solved mappings between namespace URIs and prefixes
+	 */
+	private final NavigableMap<String, String> solvedNamespaceToPrefixMapping;
+	
+	/**
+	 * Complex types by name
+	 */
+	private final Map<String, ComplexType> complexTypes;
+	
+	/**
+	 * Elements by namespace and key
+	 */
+	private final Table<String, String, SchemaElement> elements;
+	
+	/**
+	 * Automatons by complex type name
+	 */
+	private final Map<String, ExtendedAutomaton> automatons;
+	
+	/**
+	 * Simple type inferencers of the texts by complex type name
+	 */
+	private final Map<String, SimpleTypeInferencer> simpleTypeInferencers;
+	
+	/**
+	 * Attribute list inferencers by complex type name
+	 */
+	private final Map<String, AttributeListInferencer> attributeListInferencers;
+	
+	/**
+	 * Statistics
+	 */
+	private final Statistics statistics;
+	
+	/**
+	 * Default constructor. The structures are not copied.
+	 * @param prefixNamespaceMapping map between namespace URIs and their known prefixes
+	 * @param solvedNamespaceToPrefixMapping solved mappings between namespace URIs and prefixes
+	 * @param complexTypes complex types by name
+	 * @param elements elements by namespace and key
+	 * @param automatons automatons by complex type name
+	 * @param simpleTypeInferencers simple type inferencers of the texts by complex type name
+	 * @param attributeListInferencers attribute list inferencers by complex type name
+	 * @param statistics the statistics
+	 */
+	LearnerStateSnapshot(NavigableMap<String, SortedSet<String>> prefixNamespaceMapping, NavigableMap<String, String> solvedNamespaceToPrefixMapping,
+			Map<String, ComplexType> complexTypes, Table<String, String, SchemaElement> elements, Map<String, ExtendedAutomaton> automatons,
+			Map<String, SimpleTypeInferencer> simpleTypeInferencers, Map<String, AttributeListInferencer> attributeListInferencers, Statistics statistics) {
+		this.prefixNamespaceMapping = checkNotNull(prefixNamespaceMapping);
+		this.solvedNamespaceToPrefixMapping = checkNotNull(solvedNamespaceToPrefixMapping);
+		this.complexTypes = checkNotNull(complexTypes);
+		this.elements = checkNotNull(elements);
+		this.automatons = checkNotNull(automatons);
+		this.simpleTypeInferencers = checkNotNull(simpleTypeInferencers);
+		this.attributeListInferencers = checkNotNull(attributeListInferencers);
+		this.statistics = checkNotNull(statistics);
+	}
+	
+	/**
+	 * Describes the settings of the configuration on which the names of the complex types and the keys of the elements depend, 
+	 * so that a state is not resumed with an incompatible configuration.
+	 * @param configuration the inference configuration
+	 * @return the description
+	 */
+	private static String describeTypeNaming(XSDInferenceConfiguration configuration) {
+		TypeNameInferencer typeNameInferencer = configuration.getTypeNameInferencer();
+		String description = typeNameInferencer.getClass().getName();
+		if(typeNameInferencer instanceof KLocalTypeNameInferencer)
+			description+="("+((KLocalTypeNameInferencer) typeNameInferencer).getLocality()+")";
+		return description+configuration.getTypeNamesAncestorsSeparator();
+	}
+	
+	/**
+	 * Describes the version of the binary form and the settings of the configuration on which a saved state depends 
+	 * (type naming, path filters, maximum number of distinct values of an enumeration and sketches of values), so that 
+	 * states saved with different ones may be told apart (i.e. at the keys of an {@link ExtractionCache}).
+	 * @param configuration the inference configuration
+	 * @return the description
+	 */
+	static String describeCompatibility(XSDInferenceConfiguration configuration) {
+		return FORMAT_VERSION+":"+describeTypeNaming(configuration)+":"+new TreeSet<>(configuration.getExcludePaths())
+				+":"+new TreeSet<>(configuration.getIncludePaths())+":"+configuration.getMaxNumberOfDistinctValuesToEnum()
+				+":"+configuration.getDistinctValuesSketchPrecision()+":"+configuration.getValuesTopK();
+	}
+	
+	/**
+	 * Writes the snapshot in its binary form.
+	 * @param outputStream the stream where the snapshot is written (it is not closed)
+	 * @param configuration the inference configuration used to learn the state
+	 * @throws IOException if the snapshot cannot be written
+	 * @throws IllegalStateException if the inferencers are not the default implementations
+	 */
+	void write(OutputStream outputStream, XSDInferenceConfiguration configuration) throws IOException {
+		GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64*1024);
+		Output output = new Output(new DataOutputStream(gzipStream));
+		output.data.writeInt(MAGIC_NUMBER);
+		output.data.writeInt(FORMAT_VERSION);
+		output.writeString(describeTypeNaming(configuration));
+		//The learned values and the discarded ones depend on it
+		output.data.writeInt(configuration.getMaxNumberOfDistinctValuesToEnum());
+		output.writeNumber(statistics.getDistinctValuesSketchPrecision());
+		output.writeNumber(statistics.getValuesTopK());
+		output.writeNumber(statistics.getInputDocumentsCount());
+		//Namespaces
+		output.writeNumber(prefixNamespaceMapping.size());
+		for(Map.Entry<String, SortedSet<String>> mapping: prefixNamespaceMapping.entrySet()){
+			output.writeString(mapping.getKey());
+			output.writeStrings(mapping.getValue());
+		}
+		output.writeNumber(solvedNamespaceToPrefixMapping.size());
+		for(Map.Entry<String, String> mapping: solvedNamespaceToPrefixMapping.entrySet()){
+			output.writeString(mapping.getKey());
+			output.writeString(mapping.getValue());
+		}
+		//Complex types
+		output.writeNumber(complexTypes.size());
+		for(ComplexType complexType: complexTypes.values()){
+			output.writeString(complexType.getName());
+			output.writeStrings(complexType.getSourceElementNamespacesAndNames());
+			output.writeStrings(complexType.getComments());
+			output.data.writeBoolean(complexType.isContentSkipped());
+		}
+		//Elements and attributes (referenced by index from now on)
+		List<SchemaElement> elementsList = collectElements();
+		Map<SchemaElement, Integer> elementIndexes = indexesOf(elementsList);
+		output.writeNumber(elementsList.size());
+		for(SchemaElement element: elementsList){
+			output.writeString(element.getName());
+			output.writeString(element.getNamespace());
+			output.writeString(element.getType().getName());
+			output.data.writeBoolean(element.isValidRoot());
+		}
+		output.writeNumber(elements.size());
+		for(Table.Cell<String, String, SchemaElement> cell: elements.cellSet()){
+			output.writeString(cell.getRowKey());
+			output.writeString(cell.getColumnKey());
+			output.writeNumber(elementIndexes.get(cell.getValue()));
+		}
+		List<SchemaAttribute> attributesList = collectAttributes();
+		Map<SchemaAttribute, Integer> attributeIndexes = indexesOf(attributesList);
+		output.writeNumber(attributesList.size());
+		for(SchemaAttribute attribute: attributesList){
+			output.writeString(attribute.getName());
+			output.writeString(attribute.getNamespace());
+			output.data.writeBoolean(attribute.isOptional());
+		}
+		//Automatons
+		output.writeNumber(automatons.size());
+		for(Map.Entry<String, ExtendedAutomaton> automatonEntry: automatons.entrySet()){
+			ExtendedAutomaton automaton = automatonEntry.getValue();
+			output.writeString(automatonEntry.getKey());
+			Set<SchemaElement> nodes = automaton.getNodesImmutable();
+			output.writeNumber(nodes.size());
+			for(SchemaElement node: nodes){
+				output.writeNumber(getNodeReference(automaton, node, elementIndexes));
+			}
+			Set<Table.Cell<SchemaElement, SchemaElement, Long>> edges = automaton.getEdgeCellSet();
+			output.writeNumber(edges.size());
+			for(Table.Cell<SchemaElement, SchemaElement, Long> edge: edges){
+				output.writeNumber(getNodeReference(automaton, edge.getRowKey(), elementIndexes));
+				output.writeNumber(getNodeReference(automaton, edge.getColumnKey(), elementIndexes));
+				output.writeNumber(edge.getValue());
+			}
+			Table<Integer, SchemaElement, Integer> sourceWordSymbolOccurrences = automaton.getSourceWordSymbolOccurrences();
+			output.writeNumber(sourceWordSymbolOccurrences.size());
+			for(Table.Cell<Integer, SchemaElement, Integer> cell: sourceWordSymbolOccurrences.cellSet()){
+				output.writeNumber(cell.getRowKey());
+				output.writeNumber(getNodeReference(automaton, cell.getColumnKey(), elementIndexes));
+				output.writeNumber(cell.getValue());
+			}
+		}
+		//Statistics
+		writeStatistics(output, elementIndexes, attributeIndexes);
+		//Inferencers
+		output.writeNumber(simpleTypeInferencers.size());
+		for(Map.Entry<String, SimpleTypeInferencer> inferencerEntry: simpleTypeInferencers.entrySet()){
+			output.writeString(inferencerEntry.getKey());
+			writeSimpleTypeInferencer(output, inferencerEntry.getValue());
+		}
+		output.writeNumber(attributeListInferencers.size());
+		for(Map.Entry<String, AttributeListInferencer> inferencerEntry: attributeListInferencers.entrySet()){
+			checkState(inferencerEntry.getValue() instanceof AttributeListInferencerImpl, "Only the state of AttributeListInferencerImpl objects may be saved");
+			AttributeListInferencerImpl inferencer = (AttributeListInferencerImpl) inferencerEntry.getValue();
+			output.writeString(inferencerEntry.getKey());
+			output.data.writeBoolean(inferencer.getFirstTime());
+			output.writeNumber(inferencer.getKnownAttributes().size());
+			for(Map.Entry<SchemaAttribute, SimpleTypeInferencer> attributeEntry: inferencer.getKnownAttributes().entrySet()){
+				output.writeNumber(attributeIndexes.get(attributeEntry.getKey()));
+				writeSimpleTypeInferencer(output, attributeEntry.getValue());
+			}
+		}
+		output.data.flush();
+		gzipStream.finish();
+	}
+	
+	/**
+	 * Writes the statistics.
+	 * @param output the output
+	 * @param elementIndexes the indexes of the elements
+	 * @param attributeIndexes the indexes of the attributes
+	 * @throws IOException if they cannot be written
+	 */
+	private void writeStatistics(Output output, Map<SchemaElement, Integer> elementIndexes, Map<SchemaAttribute, Integer> attributeIndexes) throws IOException {
+		Map<SchemaElement, Integer> rootElementOccurrences = statistics.getRootElementOccurrences();
+		output.writeNumber(rootElementOccurrences.size());
+		for(Map.Entry<SchemaElement, Integer> occurrencesEntry: rootElementOccurrences.entrySet()){
+			output.writeNumber(elementIndexes.get(occurrencesEntry.getKey()));
+			output.writeNumber(occurrencesEntry.getValue());
+		}
+		Map<ComplexType, ComplexTypeStatisticsEntry> complexTypeInfo = statistics.getComplexTypeInfo();
+		output.writeNumber(complexTypeInfo.size());
+		for(Map.Entry<ComplexType, ComplexTypeStatisticsEntry> complexTypeEntry: complexTypeInfo.entrySet()){
+			ComplexTypeStatisticsEntry entry = complexTypeEntry.getValue();
+			output.writeString(complexTypeEntry.getKey().getName());
+			output.writeNumber(entry.getInputDocumentsCount());
+			output.writeNumber(entry.getElementInfo().size());
+			for(Map.Entry<SchemaElement, BasicStatisticsEntry> elementEntry: entry.getElementInfo().entrySet()){
+				output.writeNumber(elementIndexes.get(elementEntry.getKey()));
+				output.writeEntry(elementEntry.getValue());
+			}
+			output.writeNumber(entry.getAttributeOccurrencesInfo().size());
+			for(Map.Entry<SchemaAttribute, BasicStatisticsEntry> attributeEntry: entry.getAttributeOccurrencesInfo().entrySet()){
+				output.writeNumber(attributeIndexes.get(attributeEntry.getKey()));
+				output.writeEntry(attributeEntry.getValue());
+			}
+			output.writeNumber(entry.getValuesInfo().size());
+			for(Table.Cell<String, SchemaNode, BasicStatisticsEntry> valueCell: entry.getValuesInfo().cellSet()){
+				output.writeString(valueCell.getRowKey());
+				SchemaNode node = valueCell.getColumnKey();
+				output.data.writeBoolean(node instanceof SchemaAttribute);
+				output.writeNumber(node instanceof SchemaAttribute?attributeIndexes.get(node):elementIndexes.get(node));
+				output.writeEntry(valueCell.getValue());
+			}
+			output.writeNumber(entry.getDistinctValuesSketches().size());
+			for(Map.Entry<SchemaNode, HyperLogLog> sketchEntry: entry.getDistinctValuesSketches().entrySet()){
+				SchemaNode node = sketchEntry.getKey();
+				output.data.writeBoolean(node instanceof SchemaAttribute);
+				output.writeNumber(node instanceof SchemaAttribute?attributeIndexes.get(node):elementIndexes.get(node));
+				output.data.writeBoolean(entry.getNodesWithDiscardedValues().contains(node));
+				output.data.write(sketchEntry.getValue().getRegisters());
+			}
+			output.writeNumber(entry.getSubpatternsInfo().size());
+			for(Map.Entry<List<SchemaElement>, Integer> subpatternEntry: entry.getSubpatternsInfo().entrySet()){
+				output.writeNumber(subpatternEntry.getKey().size());
+				for(SchemaElement element: subpatternEntry.getKey()){
+					output.writeNumber(elementIndexes.get(element));
+				}
+				output.writeNumber(subpatternEntry.getValue());
+			}
+		}
+		output.writeEntries(statistics.getElementAtPathInfo());
+		output.writeEntries(statistics.getAttributeAtPathInfo());
+		output.writeNumber(statistics.getValuesAtPathInfo().rowKeySet().size());
+		for(Map.Entry<String, Map<String, BasicStatisticsEntry>> pathEntry: statistics.getValuesAtPathInfo().rowMap().entrySet()){
+			output.writeString(pathEntry.getKey());
+			output.writeEntries(pathEntry.getValue());
+		}
+		output.writeNumber(statistics.getDistinctValuesAtPathSketches().size());
+		for(Map.Entry<String, HyperLogLog> sketchEntry: statistics.getDistinctValuesAtPathSketches().entrySet()){
+			output.writeString(sketchEntry.getKey());
+			output.data.writeBoolean(statistics.getPathsWithDiscardedValues().contains(sketchEntry.getKey()));
+			output.data.write(sketchEntry.getValue().getRegisters());
+		}
+		output.writeNumber(statistics.getTopValuesAtPath().size());
+		for(Map.Entry<String, SpaceSaving> topValuesEntry: statistics.getTopValuesAtPath().entrySet()){
+			output.writeString(topValuesEntry.getKey());
+			output.writeTopValues(topValuesEntry.getValue());
+		}
+		output.writeSizesTable(statistics.getDepthsInfo());
+		output.writeSizesTable(statistics.getWidthsInfo());
+	}
+	
+	/**
+	 * Writes the learned values of a simple type inferencer.
+	 * @param output the output
+	 * @param simpleTypeInferencer the inferencer
+	 * @throws IOException if they cannot be written
+	 * @throws IllegalStateException if the inferencer is not a {@link SimpleTypeInferencerImpl}
+	 */
+	private static void writeSimpleTypeInferencer(Output output, SimpleTypeInferencer simpleTypeInferencer) throws IOException {
+		checkState(simpleTypeInferencer instanceof SimpleTypeInferencerImpl, "Only the state of SimpleTypeInferencerImpl objects may be saved");
+		SimpleTypeInferencerImpl inferencer = (SimpleTypeInferencerImpl) simpleTypeInferencer;
+		//The empty value is counted apart
+		output.writeNumber(inferencer.getDistinctValuesCount());
+		for(String value: inferencer){
+			output.writeString(value);
+			output.writeNumber(inferencer.getValueOccurrences(value));
+		}
+		output.writeNumber(inferencer.getEmptyValuesLearned());
+		output.writeStrings(inferencer.getSourceNamespacesAndNames());
+		output.data.writeBoolean(inferencer.isEnumerationRuledOut());
+	}
+	
+	/**
+	 * @return all the elements referenced by the state, without duplicates (by identity)
+	 */
+	private List<SchemaElement> collectElements() {
+		Set<SchemaElement> result = newIdentitySet();
+		result.addAll(elements.values());
+		for(ExtendedAutomaton automaton: automatons.values()){
+			for(SchemaElement node: automaton.getNodesImmutable()){
+				if(node!=automaton.getInitialState() && node!=automaton.getFinalState())
+					result.add(node);
+			}
+		}
+		result.addAll(statistics.getRootElementOccurrences().keySet());
+		for(ComplexTypeStatisticsEntry entry: statistics.getComplexTypeInfo().values()){
+			result.addAll(entry.getElementInfo().keySet());
+			for(SchemaNode node: entry.getValuesInfo().columnKeySet()){
+				if(node instanceof SchemaElement)
+					result.add((SchemaElement) node);
+			}
+			for(List<SchemaElement> subpattern: entry.getSubpatternsInfo().keySet()){
+				result.addAll(subpattern);
+			}
+		}
+		return new ArrayList<>(result);
+	}
+	
+	/**
+	 * @return all the attributes referenced by the state, without duplicates (by identity)
+	 */
+	private List<SchemaAttribute> collectAttributes() {
+		Set<SchemaAttribute> result = newIdentitySet();
+		for(AttributeListInferencer inferencer: attributeListInferencers.values()){
+			if(inferencer instanceof AttributeListInferencerImpl)
+				result.addAll(((AttributeListInferencerImpl) inferencer).getKnownAttributes().keySet());
+		}
+		for(ComplexTypeStatisticsEntry entry: statistics.getComplexTypeInfo().values()){
+			result.addAll(entry.getAttributeOccurrencesInfo().keySet());
+			for(SchemaNode node: entry.getValuesInfo().columnKeySet()){
+				if(node instanceof SchemaAttribute)
+					result.add((SchemaAttribute) node);
+			}
+		}
+		return new ArrayList<>(result);
+	}
+	
+	/**
+	 * @return a new set which compares its elements by identity and keeps their insertion order
+	 */
+	private static <E> Set<E> newIdentitySet() {
+		final Map<E, Boolean> identities = new IdentityHashMap<>();
+		return new LinkedHashSet<E>() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public boolean add(E element) {
+				return identities.put(element, Boolean.TRUE)==null && super.add(element);
+			}
+			@Override
+			public boolean addAll(Collection<? extends E> elements) {
+				boolean changed = false;
+				for(E element: elements){
+					changed|=add(element);
+				}
+				return changed;
+			}
+		};
+	}
+	
+	/**
+	 * @param list a list of objects
+	 * @return a map between each object (by identity) and its index at the list
+	 */
+	private static <E> Map<E, Integer> indexesOf(List<E> list) {
+		Map<E, Integer> result = new IdentityHashMap<>(list.size());
+		for(int i=0;i<list.size();i++){
+			result.put(list.get(i), i);
+		}
+		return result;
+	}
+	
+	/**
+	 * @param automaton an automaton
+	 * @param node a node of the automaton
+	 * @param elementIndexes the indexes of the elements
+	 * @return the reference to the node at the binary form
+	 */
+	private static int getNodeReference(ExtendedAutomaton automaton, SchemaElement node, Map<SchemaElement, Integer> elementIndexes) {
+		if(node==automaton.getInitialState())
+			return NODE_REFERENCE_INITIAL_STATE;
+		if(node==automaton.getFinalState())
+			return NODE_REFERENCE_FINAL_STATE;
+		return NODE_REFERENCE_ELEMENTS_OFFSET+elementIndexes.get(node);
+	}
+	
+	/**
+	 * Reads a snapshot from its binary form. The documents of the state may be numbered after some other documents, 
+	 * so that the state of another set of documents can be merged with it.
+	 * @param inputStream the stream of the binary form (it is not closed)
+	 * @param configuration the current inference configuration, which must be compatible with the one used to learn the state
+	 * @param inferencersFactory the factory of the inferencers
+	 * @param documentIndexOffset the number of documents which precede the documents of the state
+	 * @return the snapshot
+	 * @throws IOException if the snapshot cannot be read or it is not a valid snapshot
+	 * @throws IllegalArgumentException if the type names, the learned values or the sketches of values depend on different settings 
+	 * than the ones of the current configuration
+	 */
+	static LearnerStateSnapshot read(InputStream inputStream, XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory, 
+			int documentIndexOffset) throws IOException {
+		checkArgument(documentIndexOffset>=0, "'documentIndexOffset' must not be negative");
+		Input input = new Input(new DataInputStream(new GZIPInputStream(inputStream, 64*1024)), documentIndexOffset);
+		if(input.data.readInt()!=MAGIC_NUMBER)
+			throw new IOException("The stream does not contain a saved learner state");
+		int formatVersion = input.data.readInt();
+		if(formatVersion!=FORMAT_VERSION)
+			throw new IOException("Unsupported version of the saved learner state: "+formatVersion);
+		String typeNaming = input.readString();
+		if(!typeNaming.equals(describeTypeNaming(configuration)))
+			throw new IllegalArgumentException("The learner state was saved with a different type name inferencer or type names separator");
+		if(input.data.readInt()!=configuration.getMaxNumberOfDistinctValuesToEnum())
+			throw new IllegalArgumentException("The learner state was saved with a different maximum number of distinct values of an enumeration");
+		int distinctValuesSketchPrecision = input.readInt();
+		if(distinctValuesSketchPrecision!=configuration.getDistinctValuesSketchPrecision())
+			throw new IllegalArgumentException("The learner state was saved with a different precision of the distinct values sketches");
+		int valuesTopK = input.readInt();
+		if(valuesTopK!=configuration.getValuesTopK())
+			throw new IllegalArgumentException("The learner state was saved with a different number of top values per path");
+		Statistics statistics = new Statistics(documentIndexOffset+input.readInt());
+		statistics.setDistinctValuesSketching(distinctValuesSketchPrecision, configuration.getMaxNumberOfDistinctValuesToEnum());
+		statistics.setValuesTopK(valuesTopK);
+		//Namespaces
+		NavigableMap<String, SortedSet<String>> prefixNamespaceMapping = new TreeMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String namespace = input.readString();
+			prefixNamespaceMapping.put(namespace, input.readStrings(new TreeSet<String>()));
+		}
+		NavigableMap<String, String> solvedNamespaceToPrefixMapping = new TreeMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String namespace = input.readString();
+			solvedNamespaceToPrefixMapping.put(namespace, input.readString());
+		}
+		//Complex types
+		Map<String, ComplexType> complexTypes = new HashMap<>();
+		for(int i=input.readInt();i>0;i--){
+			ComplexType complexType = new ComplexType(input.readString(), null, null, null);
+			complexType.addAllTheSourceNodeNamespaceAndNames(input.readStrings(new ArrayList<String>()));
+			input.readStrings(complexType.getComments());
+			complexType.setContentSkipped(input.data.readBoolean());
+			complexTypes.put(complexType.getName(), complexType);
+		}
+		//Elements and attributes
+		List<SchemaElement> elementsList = new ArrayList<>();
+		for(int i=input.readInt();i>0;i--){
+			String name = input.readString();
+			String namespace = input.readString();
+			ComplexType complexType = complexTypes.get(input.readString());
+			if(complexType==null)
+				throw new IOException("Corrupted learner state: unknown complex type of the element "+name);
+			SchemaElement element = new SchemaElement(name, namespace, complexType);
+			element.setValidRoot(input.data.readBoolean());
+			elementsList.add(element);
+		}
+		Table<String, String, SchemaElement> elements = HashBasedTable.create();
+		for(int i=input.readInt();i>0;i--){
+			String namespace = input.readString();
+			String key = input.readString();
+			elements.put(namespace, key, input.readReference(elementsList));
+		}
+		List<SchemaAttribute> attributesList = new ArrayList<>();
+		for(int i=input.readInt();i>0;i--){
+			String name = input.readString();
+			String namespace = input.readString();
+			attributesList.add(new SchemaAttribute(name, namespace, input.data.readBoolean(), new SimpleType("")));
+		}
+		//Automatons
+		Map<String, ExtendedAutomaton> automatons = new HashMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String complexTypeName = input.readString();
+			ExtendedAutomaton automaton = TypesExtractorImpl.createComplexTypeAutomaton();
+			for(int j=input.readInt();j>0;j--){
+				automaton.addNode(readNode(input, automaton, elementsList));
+			}
+			for(int j=input.readInt();j>0;j--){
+				SchemaElement source = readNode(input, automaton, elementsList);
+				SchemaElement destination = readNode(input, automaton, elementsList);
+				automaton.addEdge(source, destination, input.readLong());
+			}
+			Table<Integer, SchemaElement, Integer> sourceWordSymbolOccurrences = automaton.getSourceWordSymbolOccurrences();
+			for(int j=input.readInt();j>0;j--){
+				int wordIndex = input.readInt();
+				SchemaElement symbol = readNode(input, automaton, elementsList);
+				sourceWordSymbolOccurrences.put(wordIndex, symbol, input.readInt());
+			}
+			automatons.put(complexTypeName, automaton);
+		}
+		//Statistics
+		readStatistics(input, statistics, complexTypes, elementsList, attributesList);
+		//Inferencers
+		Map<String, SimpleTypeInferencer> simpleTypeInferencers = new HashMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String complexTypeName = input.readString();
+			SimpleTypeInferencer inferencer = inferencersFactory.getSimpleTypeInferencerInstance(complexTypeName, configuration);
+			readSimpleTypeInferencer(input, inferencer);
+			simpleTypeInferencers.put(complexTypeName, inferencer);
+		}
+		Map<String, AttributeListInferencer> attributeListInferencers = new HashMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String complexTypeName = input.readString();
+			AttributeListInferencer inferencer = inferencersFactory.getAttributeListInferencerInstance(complexTypeName, configuration, solvedNamespaceToPrefixMapping, statistics);
+			checkState(inferencer instanceof AttributeListInferencerImpl, "Only the state of AttributeListInferencerImpl objects may be restored");
+			boolean firstTime = input.data.readBoolean();
+			Map<SchemaAttribute, SimpleTypeInferencer> knownAttributes = new HashMap<>();
+			for(int j=input.readInt();j>0;j--){
+				SchemaAttribute attribute = input.readReference(attributesList);
+				SimpleTypeInferencer attributeInferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance(
+						attribute.getNamespace()+configuration.getTypeNamesAncestorsSeparator()+attribute.getName(), configuration);
+				readSimpleTypeInferencer(input, attributeInferencer);
+				knownAttributes.put(attribute, attributeInferencer);
+			}
+			((AttributeListInferencerImpl) inferencer).restoreState(knownAttributes, firstTime);
+			attributeListInferencers.put(complexTypeName, inferencer);
+		}
+		return new LearnerStateSnapshot(prefixNamespaceMapping, solvedNamespaceToPrefixMapping, complexTypes, elements, automatons, 
+				simpleTypeInferencers, attributeListInferencers, statistics);
+	}
+	
+	/**
+	 * Reads the statistics.
+	 * @param input the input
+	 * @param statistics the statistics to fill
+	 * @param complexTypes the complex types by name
+	 * @param elementsList the elements
+	 * @param attributesList the attributes
+	 * @throws IOException if they cannot be read
+	 */
+	private static void readStatistics(Input input, Statistics statistics, Map<String, ComplexType> complexTypes, 
+			List<SchemaElement> elementsList, List<SchemaAttribute> attributesList) throws IOException {
+		for(int i=input.readInt();i>0;i--){
+			SchemaElement element = input.readReference(elementsList);
+			statistics.getRootElementOccurrences().put(element, input.readInt());
+		}
+		for(int i=input.readInt();i>0;i--){
+			String complexTypeName = input.readString();
+			ComplexType complexType = complexTypes.get(complexTypeName);
+			if(complexType==null)
+				throw new IOException("Corrupted learner state: unknown complex type "+complexTypeName);
+			ComplexTypeStatisticsEntry entry = new ComplexTypeStatisticsEntry(input.documentIndexOffset+input.readInt(), 
+					statistics.getDistinctValuesSketchPrecision(), statistics.getExactValuesLimit());
+			for(int j=input.readInt();j>0;j--){
+				SchemaElement element = input.readReference(elementsList);
+				entry.getElementInfo().put(element, input.readEntry());
+			}
+			for(int j=input.readInt();j>0;j--){
+				SchemaAttribute attribute = input.readReference(attributesList);
+				entry.getAttributeOccurrencesInfo().put(attribute, input.readEntry());
+			}
+			for(int j=input.readInt();j>0;j--){
+				String value = input.readString();
+				SchemaNode node = input.data.readBoolean()?input.readReference(attributesList):input.readReference(elementsList);
+				entry.getValuesInfo().put(value, node, input.readEntry());
+			}
+			for(int j=input.readInt();j>0;j--){
+				SchemaNode node = input.data.readBoolean()?input.readReference(attributesList):input.readReference(elementsList);
+				if(input.data.readBoolean())
+					entry.getNodesWithDiscardedValues().add(node);
+				entry.getDistinctValuesSketches().put(node, input.readSketch(statistics.getDistinctValuesSketchPrecision()));
+			}
+			for(int j=input.readInt();j>0;j--){
+				int subpatternLength = input.readInt();
+				List<SchemaElement> subpattern = new ArrayList<>(subpatternLength);
+				for(int k=0;k<subpatternLength;k++){
+					subpattern.add(input.readReference(elementsList));
+				}
+				entry.getSubpatternsInfo().put(ImmutableList.copyOf(subpattern), input.readInt());
+			}
+			statistics.getComplexTypeInfo().put(complexType, entry);
+		}
+		input.readEntries(statistics.getElementAtPathInfo());
+		input.readEntries(statistics.getAttributeAtPathInfo());
+		for(int i=input.readInt();i>0;i--){
+			String path = input.readString();
+			input.readEntries(statistics.getValuesAtPathInfo().row(path));
+		}
+		for(int i=input.readInt();i>0;i--){
+			String path = input.readString();
+			if(input.data.readBoolean())
+				statistics.getPathsWithDiscardedValues().add(path);
+			statistics.getDistinctValuesAtPathSketches().put(path, input.readSketch(statistics.getDistinctValuesSketchPrecision()));
+		}
+		for(int i=input.readInt();i>0;i--){
+			String path = input.readString();
+			statistics.getTopValuesAtPath().put(path, input.readTopValues(statistics.getValuesTopK()));
+		}
+		input.readSizesTable(statistics.getDepthsInfo());
+		input.readSizesTable(statistics.getWidthsInfo());
+	}
+	
+	/**
+	 * Reads the learned values of a simple type inferencer.
+	 * @param input the input
+	 * @param simpleTypeInferencer the inferencer where they are restored
+	 * @throws IOException if they cannot be read
+	 * @throws IllegalStateException if the inferencer is not a {@link SimpleTypeInferencerImpl}
+	 */
+	private static void readSimpleTypeInferencer(Input input, SimpleTypeInferencer simpleTypeInferencer) throws IOException {
+		checkState(simpleTypeInferencer instanceof SimpleTypeInferencerImpl, "Only the state of SimpleTypeInferencerImpl objects may be restored");
+		Map<String, Integer> valueOccurrences = new HashMap<>();
+		for(int i=input.readInt();i>0;i--){
+			String value = input.readString();
+			valueOccurrences.put(value, input.readInt());
+		}
+		int emptyValuesLearned = input.readInt();
+		Set<String> sourceNamespacesAndNames = input.readStrings(new LinkedHashSet<String>());
+		boolean enumerationRuledOut = input.data.readBoolean();
+		((SimpleTypeInferencerImpl) simpleTypeInferencer).restoreState(valueOccurrences, emptyValuesLearned, sourceNamespacesAndNames, 
+				enumerationRuledOut);
+	}
+	
+	/**
+	 * Reads a reference to a node of an automaton.
+	 * @param input the input
+	 * @param automaton the automaton
+	 * @param elementsList the elements
+	 * @return the node
+	 * @throws IOException if it cannot be read
+	 */
+	private static SchemaElement readNode(Input input, ExtendedAutomaton automaton, List<SchemaElement> elementsList) throws IOException {
+		int reference = input.readInt();
+		if(reference==NODE_REFERENCE_INITIAL_STATE)
+			return automaton.getInitialState();
+		if(reference==NODE_REFERENCE_FINAL_STATE)
+			return automaton.getFinalState();
+		int index = reference-NODE_REFERENCE_ELEMENTS_OFFSET;
+		if(index>=elementsList.size())
+			throw new IOException("Corrupted learner state: reference to an unknown element");
+		return elementsList.get(index);
+	}
+	
+	/**
+	 * @return the map between namespace URIs and their known prefixes
+	 */
+	NavigableMap<String, SortedSet<String>> getPrefixNamespaceMapping() {
+		return prefixNamespaceMapping;
+	}
+
+	/**
+	 * @return the solved mappings between namespace URIs and prefixes
+	 */
+	NavigableMap<String, String> getSolvedNamespaceToPrefixMapping() {
+		return solvedNamespaceToPrefixMapping;
+	}
+
+	/**
+	 * @return the complex types by name
+	 */
+	Map<String, ComplexType> getComplexTypes() {
+		return complexTypes;
+	}
+
+	/**
+	 * @return the elements by namespace and key
+	 */
+	Table<String, String, SchemaElement> getElements() {
+		return elements;
+	}
+
+	/**
+	 * @return the automatons by complex type name
+	 */
+	Map<String, ExtendedAutomaton> getAutomatons() {
+		return automatons;
+	}
+
+	/**
+	 * @return the simple type inferencers of the texts by complex type name
+	 */
+	Map<String, SimpleTypeInferencer> getSimpleTypeInferencers() {
+		return simpleTypeInferencers;
+	}
+
+	/**
+	 * @return the attribute list inferencers by complex type name
+	 */
+	Map<String, AttributeListInferencer> getAttributeListInferencers() {
+		return attributeListInferencers;
+	}
+
+	/**
+	 * @return the statistics
+	 */
+	Statistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Writer of the primitive items of the binary form.
+	 */
+	private static class Output {
+		
+		/**
+		 * The underlying stream
+		 */
+		private final DataOutputStream data;
+		
+		/**
+		 * Index of each string already written
+		 */
+		private final Map<String, Integer> stringIndexes = new HashMap<>();
+		
+		/**
+		 * Default constructor
+		 * @param data the underlying stream
+		 */
+		Output(DataOutputStream data) {
+			this.data = data;
+		}
+		
+		/**
+		 * Writes a non negative number with a variable-length encoding (7 bits per byte).
+		 * @param number the number
+		 * @throws IOException if it cannot be written
+		 */
+		void writeNumber(long number) throws IOException {
+			checkState(number>=0, "Negative numbers are not expected at the learner state");
+			while(number>=0x80){
+				data.writeByte((int) (number&0x7F)|0x80);
+				number>>>=7;
+			}
+			data.writeByte((int) number);
+		}
+		
+		/**
+		 * Writes a string. The first time it is written as its UTF-8 bytes, then as a reference to the first occurrence.
+		 * @param string the string
+		 * @throws IOException if it cannot be written
+		 */
+		void writeString(String string) throws IOException {
+			Integer index = stringIndexes.get(string);
+			if(index!=null){
+				writeNumber(index+1);
+				return;
+			}
+			stringIndexes.put(string, stringIndexes.size());
+			byte[] bytes = string.getBytes(Charsets.UTF_8);
+			writeNumber(0);
+			writeNumber(bytes.length);
+			data.write(bytes);
+		}
+		
+		/**
+		 * Writes a collection of strings.
+		 * @param strings the strings
+		 * @throws IOException if they cannot be written
+		 */
+		void writeStrings(Collection<String> strings) throws IOException {
+			writeNumber(strings.size());
+			for(String string: strings){
+				writeString(string);
+			}
+		}
+		
+		/**
+		 * Writes a statistics entry: its size and its non zero values with their indexes.
+		 * @param entry the entry
+		 * @throws IOException if it cannot be written
+		 */
+		void writeEntry(BasicStatisticsEntry entry) throws IOException {
+			List<Double> values = entry.getValues();
+			int nonZeroValues = 0;
+			for(double value: values){
+				if(value!=0)
+					nonZeroValues++;
+			}
+			writeNumber(values.size());
+			writeNumber(nonZeroValues);
+			int previousIndex = 0;
+			for(int i=0;i<values.size();i++){
+				double value = values.get(i);
+				if(value==0)
+					continue;
+				writeNumber(i-previousIndex);
+				previousIndex = i;
+				if(value>0 && value==Math.rint(value) && value<Long.MAX_VALUE){
+					//Counts are the usual case
+					writeNumber(((long) value)<<1);
+				} else {
+					writeNumber(1);
+					data.writeDouble(value);
+				}
+			}
+		}
+		
+		/**
+		 * Writes a sketch of top values: its total count and the value, count and error of each counter.
+		 * @param topValues the sketch
+		 * @throws IOException if it cannot be written
+		 */
+		void writeTopValues(SpaceSaving topValues) throws IOException {
+			writeNumber(topValues.getTotalCount());
+			List<SpaceSaving.Counter> counters = topValues.getCounters();
+			writeNumber(counters.size());
+			for(SpaceSaving.Counter counter: counters){
+				writeString(counter.getValue());
+				writeNumber(counter.getCount());
+				writeNumber(counter.getError());
+			}
+		}
+		
+		/**
+		 * Writes the statistics entries of a map.
+		 * @param entries the entries by key
+		 * @throws IOException if they cannot be written
+		 */
+		void writeEntries(Map<String, BasicStatisticsEntry> entries) throws IOException {
+			writeNumber(entries.size());
+			for(Map.Entry<String, BasicStatisticsEntry> entry: entries.entrySet()){
+				writeString(entry.getKey());
+				writeEntry(entry.getValue());
+			}
+		}
+		
+		/**
+		 * Writes a table of depths or widths.
+		 * @param table the sizes of each element (column) of each document (row)
+		 * @throws IOException if it cannot be written
+		 */
+		void writeSizesTable(Table<Integer, Long, Long> table) throws IOException {
+			writeNumber(table.rowKeySet().size());
+			for(Map.Entry<Integer, Map<Long, Long>> row: table.rowMap().entrySet()){
+				writeNumber(row.getKey());
+				writeNumber(row.getValue().size());
+				for(Map.Entry<Long, Long> cell: row.getValue().entrySet()){
+					writeNumber(cell.getKey());
+					writeNumber(cell.getValue());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reader of the primitive items of the binary form.
+	 */
+	private static class Input {
+		
+		/**
+		 * The underlying stream
+		 */
+		private final DataInputStream data;
+		
+		/**
+		 * The strings already read
+		 */
+		private final List<String> strings = new ArrayList<>();
+		
+		/**
+		 * Number of documents which precede the documents of the state
+		 */
+		private final int documentIndexOffset;
+		
+		/**
+		 * Default constructor
+		 * @param data the underlying stream
+		 * @param documentIndexOffset number of documents which precede the documents of the state
+		 */
+		Input(DataInputStream data, int documentIndexOffset) {
+			this.data = data;
+			this.documentIndexOffset = documentIndexOffset;
+		}
+		
+		/**
+		 * @return the next variable-length encoded number
+		 * @throws IOException if it cannot be read or it is malformed
+		 */
+		long readLong() throws IOException {
+			long result = 0;
+			for(int shift=0;shift<64;shift+=7){
+				int b = data.readUnsignedByte();
+				result|=((long) (b&0x7F))<<shift;
+				if((b&0x80)==0)
+					return result;
+			}
+			throw new IOException("Corrupted learner state: malformed number");
+		}
+		
+		/**
+		 * @return the next variable-length encoded number, which must fit into an int
+		 * @throws IOException if it cannot be read or it is malformed
+		 */
+		int readInt() throws IOException {
+			long result = readLong();
+			if(result>Integer.MAX_VALUE)
+				throw new IOException("Corrupted learner state: number out of range");
+			return (int) result;
+		}
+		
+		/**
+		 * @return the next string
+		 * @throws IOException if it cannot be read
+		 */
+		String readString() throws IOException {
+			int reference = readInt();
+			if(reference>0){
+				if(reference>strings.size())
+					throw new IOException("Corrupted learner state: reference to an unknown string");
+				return strings.get(reference-1);
+			}
+			byte[] bytes = new byte[readInt()];
+			data.readFully(bytes);
+			String result = new String(bytes, Charsets.UTF_8);
+			strings.add(result);
+			return result;
+		}
+		
+		/**
+		 * Reads a collection of strings.
+		 * @param result the collection where the strings are added
+		 * @return the collection
+		 * @throws IOException if they cannot be read
+		 */
+		<C extends Collection<String>> C readStrings(C result) throws IOException {
+			for(int i=readInt();i>0;i--){
+				result.add(readString());
+			}
+			return result;
+		}
+		
+		/**
+		 * Reads a reference to an object of a list.
+		 * @param list the list
+		 * @return the referenced object
+		 * @throws IOException if it cannot be read or the reference is out of the list
+		 */
+		<E> E readReference(List<E> list) throws IOException {
+			int index = readInt();
+			if(index>=list.size())
+				throw new IOException("Corrupted learner state: reference to an unknown node");
+			return list.get(index);
+		}
+		
+		/**
+		 * @param precision the precision of the sketch
+		 * @return the next sketch of distinct values
+		 * @throws IOException if it cannot be read
+		 */
+		HyperLogLog readSketch(int precision) throws IOException {
+			if(precision==0)
+				throw new IOException("Corrupted learner state: sketches of distinct values without precision");
+			byte[] registers = new byte[1<<precision];
+			data.readFully(registers);
+			return new HyperLogLog(precision, registers);
+		}
+		
+		/**
+		 * @param capacity the capacity of the sketch
+		 * @return the next sketch of top values
+		 * @throws IOException if it cannot be read or its counters are not consistent
+		 */
+		SpaceSaving readTopValues(int capacity) throws IOException {
+			if(capacity==0)
+				throw new IOException("Corrupted learner state: top values without a number of them");
+			long totalCount = readLong();
+			List<SpaceSaving.Counter> counters = new ArrayList<>();
+			try{
+				for(int i=readInt();i>0;i--){
+					String value = readString();
+					long count = readLong();
+					counters.add(new SpaceSaving.Counter(value, count, readLong()));
+				}
+				return new SpaceSaving(capacity, totalCount, counters);
+			} catch(IllegalArgumentException e){
+				throw new IOException("Corrupted learner state: inconsistent top values", e);
+			}
+		}
+		
+		/**
+		 * @return the next statistics entry, whose values are moved after the preceding documents
+		 * @throws IOException if it cannot be read
+		 */
+		BasicStatisticsEntry readEntry() throws IOException {
+			int size = documentIndexOffset+readInt();
+			List<Double> values = new ArrayList<>(size);
+			for(int i=0;i<size;i++){
+				values.add(0.0);
+			}
+			int index = documentIndexOffset;
+			for(int i=readInt();i>0;i--){
+				index+=readInt();
+				if(index>=size)
+					throw new IOException("Corrupted learner state: statistics value out of range");
+				long encodedValue = readLong();
+				values.set(index, (encodedValue&1)==0?(double) (encodedValue>>>1):data.readDouble());
+			}
+			return new BasicStatisticsEntry(values);
+		}
+		
+		/**
+		 * Reads statistics entries into a map.
+		 * @param entries the map where the entries are put by key
+		 * @throws IOException if they cannot be read
+		 */
+		void readEntries(Map<String, BasicStatisticsEntry> entries) throws IOException {
+			for(int i=readInt();i>0;i--){
+				String key = readString();
+				entries.put(key, readEntry());
+			}
+		}
+		
+		/**
+		 * Reads a table of depths or widths.
+		 * @param table the table to fill
+		 * @throws IOException if it cannot be read
+		 */
+		void readSizesTable(Table<Integer, Long, Long> table) throws IOException {
+			for(int i=readInt();i>0;i--){
+				int row = documentIndexOffset+readInt();
+				for(int j=readInt();j>0;j--){
+					long column = readLong();
+					table.put(row, column, readLong());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.jdom2.Document;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+
+/**
+ * {@link TypesExtractor} implementation which extracts the input XML documents in parallel. 
+ * The documents are partitioned among the workers of a {@link ForkJoinPool}. Each worker extracts its documents 
+ * with its own {@link TypesExtractorImpl}, which builds a partial state (complex types, automatons, inferencers and 
+ * statistics), and partial states are combined pairwise via {@link TypesExtractorImpl#mergePartialState(TypesExtractorImpl)}. 
+ * As every partial state uses the global document indexes and the namespace URI to prefix mappings solved from all 
+ * the documents, the initial schema is the same one that the sequential extraction would generate.
+ * <br/>
+ * The extraction is done in two parallel phases: first, the known namespace URI to prefix mappings are gathered from 
+ * all the documents and solved; then, the documents are extracted.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class ParallelTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * How many tasks are created per thread (approximately), so that the load is balanced 
+	 * among the threads although some documents are bigger than others.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+	
+	/**
+	 * Input XML Documents
+	 */
+	private List<Document> xmlDocuments;
+	
+	/**
+	 * Current inference configuration
+	 */
+	private XSDInferenceConfiguration configuration;
+	
+	/**
+	 * InferencersFactory to be used by the partial extractors
+	 */
+	private InferencersFactory inferencersFactory;
+	
+	/**
+	 * Number of threads of the pool
+	 */
+	private int threads;
+	
+	/**
+	 * Maximum number of documents extracted by a single task
+	 */
+	private int documentsPerTask;
+	
+	/**
+	 * Default constructor. The number of threads is taken from the configuration.
+	 * 
+	 * @param xmlDocuments A list of all the input XML Documents, as JDOM2 {@link Document} objects.
+	 * @param configuration the inference configuration
+	 */
+	public ParallelTypesExtractorImpl(List<Document> xmlDocuments,
+			XSDInferenceConfiguration configuration) {
+		this(xmlDocuments,configuration,InferencersFactory.getInstance(),configuration.getExtractionThreads());
+	}
+	
+	/**
+	 * Constructor with custom inferencers factory and number of threads.
+	 * 
+	 * @param xmlDocuments A list of all the input XML Documents, as JDOM2 {@link Document} objects.
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 * @param threads number of threads used to extract the documents
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public ParallelTypesExtractorImpl(List<Document> xmlDocuments,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory, int threads) {
+		super();
+		checkArgument(threads>=1, "'threads' must be greater or equal to 1");
+		initializeData(xmlDocuments, configuration, inferencersFactory);
+		this.xmlDocuments=xmlDocuments;
+		this.configuration=configuration;
+		this.inferencersFactory=inferencersFactory;
+		this.threads=threads;
+		this.documentsPerTask=Math.max(1, xmlDocuments.size()/(threads*TASKS_PER_THREAD));
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try{
+			mergeKnownNamespaceToPrefixMappings(pool.invoke(new NamespacesTask(0, xmlDocuments.size())));
+			solveNamespaceToPrefixMappings();
+			mergePartialState(pool.invoke(new ExtractionTask(0, xmlDocuments.size())));
+		} finally {
+			pool.shutdown();
+		}
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Creates an extractor which will build a partial state from a subset of the input documents 
+	 * (with the same multiplicities of the input documents as this extractor).
+	 * @return the partial extractor
+	 */
+	protected TypesExtractorImpl createPartialExtractor(){
+		TypesExtractorImpl partialExtractor = new TypesExtractorImpl(xmlDocuments, configuration, inferencersFactory);
+		partialExtractor.adoptDocumentMultiplicities(this);
+		return partialExtractor;
+	}
+	
+	/**
+	 * Task that gathers the known namespace URI to prefix mappings of a range of documents into a partial extractor.
+	 * Big ranges are split into two halves whose results are merged.
+	 */
+	private class NamespacesTask extends RecursiveTask<TypesExtractorImpl>{
+		
+		private static final long serialVersionUID = 5418301658472311296L;
+
+		/**
+		 * Index of the first document (inclusive)
+		 */
+		private final int fromIndex;
+		
+		/**
+		 * Index of the last document (exclusive)
+		 */
+		private final int toIndex;
+		
+		/**
+		 * Default constructor
+		 * @param fromIndex index of the first document (inclusive)
+		 * @param toIndex index of the last document (exclusive)
+		 */
+		public NamespacesTask(int fromIndex, int toIndex) {
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		/**
+		 * @see RecursiveTask#compute()
+		 */
+		@Override
+		protected TypesExtractorImpl compute() {
+			if(toIndex-fromIndex<=documentsPerTask){
+				TypesExtractorImpl partialExtractor = createPartialExtractor();
+				partialExtractor.fillKnownNamespaceToPrefixMappings(fromIndex, toIndex);
+				return partialExtractor;
+			}
+			int middleIndex = (fromIndex+toIndex)>>>1;
+			NamespacesTask secondHalf = new NamespacesTask(middleIndex, toIndex);
+			secondHalf.fork();
+			TypesExtractorImpl result = new NamespacesTask(fromIndex, middleIndex).compute();
+			result.mergeKnownNamespaceToPrefixMappings(secondHalf.join());
+			return result;
+		}
+	}
+	
+	/**
+	 * Task that extracts a range of documents into a partial extractor, using the solved mappings of this extractor.
+	 * Big ranges are split into two halves whose partial states are merged (preserving the order of the documents).
+	 */
+	private class ExtractionTask extends RecursiveTask<TypesExtractorImpl>{
+
+		private static final long serialVersionUID = -2301562904361532748L;
+
+		/**
+		 * Index of the first document (inclusive)
+		 */
+		private final int fromIndex;
+		
+		/**
+		 * Index of the last document (exclusive)
+		 */
+		private final int toIndex;
+		
+		/**
+		 * Default constructor
+		 * @param fromIndex index of the first document (inclusive)
+		 * @param toIndex index of the last document (exclusive)
+		 */
+		public ExtractionTask(int fromIndex, int toIndex) {
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		/**
+		 * @see RecursiveTask#compute()
+		 */
+		@Override
+		protected TypesExtractorImpl compute() {
+			if(toIndex-fromIndex<=documentsPerTask){
+				TypesExtractorImpl partialExtractor = createPartialExtractor();
+				partialExtractor.setSolvedNamespaceToPrefixMapping(getSolvedNamespaceToPrefixMapping());
+				partialExtractor.setDocumentIndexOffset(getDocumentIndexOffset());
+				partialExtractor.extractDocuments(fromIndex, toIndex);
+				return partialExtractor;
+			}
+			int middleIndex = (fromIndex+toIndex)>>>1;
+			ExtractionTask secondHalf = new ExtractionTask(middleIndex, toIndex);
+			secondHalf.fork();
+			TypesExtractorImpl result = new ExtractionTask(fromIndex, middleIndex).compute();
+			result.mergePartialState(secondHalf.join());
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,373 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+
+/**
+ * {@link TypesExtractor} implementation which parses the input XML documents while the previous ones are extracted. 
+ * The extraction is a pipeline of three stages: a reader thread reads the content of each input document and 
+ * submits it to a pool of parser threads, which build its JDOM2 {@link Document}, and the calling thread extracts the 
+ * parsed documents in the same order than the input documents, as the parent {@link TypesExtractorImpl} does. 
+ * The reader waits whenever a given number of documents (the depth of the queue) have been read but not extracted yet, 
+ * so memory is bounded by the size of that many documents instead of by the size of all of them.
+ * <br/>
+ * The time spent by each stage is measured, so that it may be told whether reading, parsing or learning is the 
+ * bottleneck. The extractor waiting for parsed documents means that learning is faster than reading or parsing, 
+ * while the reader waiting for free space at the queue means that learning is the slowest stage.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class PipelinedTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * An input document which has been parsed, with its name and multiplicity
+	 */
+	private static class ParsedDocument {
+		
+		private final String name;
+		
+		private final Document document;
+		
+		private final int multiplicity;
+		
+		ParsedDocument(String name, Document document, int multiplicity) {
+			this.name = name;
+			this.document = document;
+			this.multiplicity = multiplicity;
+		}
+	}
+	
+	/**
+	 * Input XML documents
+	 */
+	private InputDocumentsSource xmlSource;
+	
+	/**
+	 * Number of parser threads
+	 */
+	private int parserThreads;
+	
+	/**
+	 * Maximum number of documents read but not extracted yet
+	 */
+	private int queueDepth;
+	
+	/**
+	 * Builder used by each parser thread (they are not thread-safe)
+	 */
+	private final ThreadLocal<SAXBuilder> saxBuilders = ThreadLocal.withInitial(SAXBuilder::new);
+	
+	/**
+	 * Number of documents which have gone through the pipeline
+	 */
+	private int pipelinedDocumentsCount = 0;
+	
+	/**
+	 * Time spent by the reader reading the input documents, in nanoseconds
+	 */
+	private final AtomicLong readingTime = new AtomicLong();
+	
+	/**
+	 * Time spent by the reader waiting for free space at the queue, in nanoseconds
+	 */
+	private final AtomicLong queueFullTime = new AtomicLong();
+	
+	/**
+	 * Time spent parsing the input documents, added up over all the parser threads, in nanoseconds
+	 */
+	private final AtomicLong parsingTime = new AtomicLong();
+	
+	/**
+	 * Time spent extracting the parsed documents, in nanoseconds
+	 */
+	private long extractionTime = 0;
+	
+	/**
+	 * Time spent by the extractor waiting for parsed documents, in nanoseconds
+	 */
+	private long extractionWaitTime = 0;
+	
+	/**
+	 * Default constructor. The number of parser threads and the depth of the queue are taken from the configuration.
+	 * 
+	 * @param xmlSource the source of all the input XML documents
+	 * @param configuration the inference configuration
+	 */
+	public PipelinedTypesExtractorImpl(InputDocumentsSource xmlSource,
+			XSDInferenceConfiguration configuration) {
+		this(xmlSource,configuration,InferencersFactory.getInstance(),Math.max(1, configuration.getParserThreads()),configuration.getParseQueueDepth());
+	}
+	
+	/**
+	 * Constructor with custom inferencers factory, number of parser threads and depth of the queue.
+	 * 
+	 * @param xmlSource the source of all the input XML documents
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 * @param parserThreads number of threads used to parse the documents
+	 * @param queueDepth maximum number of documents read but not extracted yet
+	 * @throws IllegalArgumentException if parserThreads or queueDepth are less than 1
+	 */
+	public PipelinedTypesExtractorImpl(InputDocumentsSource xmlSource,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory, int parserThreads, int queueDepth) {
+		super();
+		checkNotNull(xmlSource,"'xmlSource' must not be null");
+		checkArgument(parserThreads>=1, "'parserThreads' must be greater or equal to 1");
+		checkArgument(queueDepth>=1, "'queueDepth' must be greater or equal to 1");
+		this.xmlSource=xmlSource;
+		this.parserThreads=parserThreads;
+		this.queueDepth=queueDepth;
+		initializeData(Collections.<Document>emptyList(), configuration, inferencersFactory);
+	}
+	
+	/**
+	 * If the source does not know how many documents it has, their number is unknown before reading them, so the 
+	 * statistics are built for a single document and increased at the end of the extraction.
+	 * @see TypesExtractorImpl#getInputDocumentsCount()
+	 */
+	@Override
+	protected int getInputDocumentsCount() {
+		int documentsCount = xmlSource.getDocumentsCount();
+		return documentsCount>=0?documentsCount:1;
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 * @throws InputReadingException if any input document cannot be read or parsed
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		pipelinedDocumentsCount = 0;
+		readingTime.set(0);
+		queueFullTime.set(0);
+		parsingTime.set(0);
+		extractionTime = 0;
+		extractionWaitTime = 0;
+		if(getSolvedNamespaceToPrefixMapping()==null){
+			//Prefixes are solved while extracting, so each document is usually parsed only once
+			startSolvingNamespacesWhileExtracting();
+			int extractedDocumentsCount = runPipeline(true);
+			if(finishSolvingNamespacesWhileExtracting()){
+				registerExtractedDocumentsCount(extractedDocumentsCount);
+				return buildInitialSchema();
+			}
+			//A prefix used to build some paths has changed, so everything is extracted again with the mappings solved in advance
+			clearAll();
+		}
+		runPipeline(false);
+		solveNamespaceToPrefixMappings();
+		registerExtractedDocumentsCount(runPipeline(true));
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Reads and parses all the input documents in the background and, in the calling thread, either extracts them or 
+	 * only registers their namespace URI to prefix mappings. If the mappings are being solved while extracting, it stops 
+	 * as soon as a prefix used to build paths changes.
+	 * @param extract whether the documents are extracted (or only their namespace URI to prefix mappings are registered)
+	 * @return the number of extracted documents
+	 * @throws InputReadingException if any input document cannot be read or parsed
+	 */
+	private int runPipeline(boolean extract){
+		ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, 
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("document-parser-%d").build());
+		ExecutorService reader = Executors.newSingleThreadExecutor(
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("document-reader-%d").build());
+		BlockingQueue<Future<ParsedDocument>> queue = new ArrayBlockingQueue<>(queueDepth);
+		reader.submit(() -> {
+			readDocuments(parsers, queue);
+			return null;
+		});
+		int documentIndex = 0;
+		try{
+			while(!getUsedPrefixChanged()){
+				long waitStart = System.nanoTime();
+				ParsedDocument parsedDocument = takeParsedDocument(queue);
+				long extractionStart = System.nanoTime();
+				extractionWaitTime += extractionStart-waitStart;
+				if(parsedDocument==null)
+					break;
+				if(extract){
+					//A document which stands for several identical ones is copied after itself
+					setDocumentMultiplicity(parsedDocument.multiplicity);
+					extractDocument(documentIndex, parsedDocument.document);
+					documentIndex = registerDocumentCopies(documentIndex, documentIndex+1, documentIndex+1);
+				} else {
+					fillKnownNamespaceToPrefixMappings(parsedDocument.document);
+				}
+				extractionTime += System.nanoTime()-extractionStart;
+				pipelinedDocumentsCount++;
+			}
+		} finally {
+			reader.shutdownNow();
+			parsers.shutdownNow();
+		}
+		return documentIndex;
+	}
+	
+	/**
+	 * Reads the content of all the input documents, in order, and submits each one to the parser threads. The 
+	 * results of the parsing are put at the queue in the same order, followed by a null document which marks the 
+	 * end of the input (or by the error found while reading). It waits while the queue is full.
+	 * @param parsers the parser threads
+	 * @param queue the queue
+	 * @throws InterruptedException if the reader is interrupted because the pipeline has been stopped
+	 */
+	private void readDocuments(ExecutorService parsers, BlockingQueue<Future<ParsedDocument>> queue) throws InterruptedException {
+		Future<ParsedDocument> end = Futures.immediateFuture(null);
+		try(InputDocumentsReader documents = xmlSource.open()){
+			long readingStart = System.nanoTime();
+			while(documents.next()){
+				String name = documents.getName();
+				byte[] content = ByteStreams.toByteArray(documents.getInputStream());
+				int multiplicity = documents.getMultiplicity();
+				Future<ParsedDocument> parsedDocument = parsers.submit(() -> parseDocument(name, content, multiplicity));
+				long putStart = System.nanoTime();
+				readingTime.addAndGet(putStart-readingStart);
+				queue.put(parsedDocument);
+				readingStart = System.nanoTime();
+				queueFullTime.addAndGet(readingStart-putStart);
+			}
+		} catch (IOException e) {
+			end = Futures.immediateFailedFuture(new InputReadingException("Error while reading the input XML documents",e));
+		} catch (RuntimeException e) {
+			end = Futures.immediateFailedFuture(e);
+		}
+		queue.put(end);
+	}
+	
+	/**
+	 * Parses the content of an input document.
+	 * @param name the name of the document
+	 * @param content the content of the document
+	 * @param multiplicity the multiplicity of the document
+	 * @return the parsed document
+	 * @throws InputReadingException if the document cannot be parsed
+	 */
+	private ParsedDocument parseDocument(String name, byte[] content, int multiplicity) {
+		long parsingStart = System.nanoTime();
+		try {
+			return new ParsedDocument(name, saxBuilders.get().build(new ByteArrayInputStream(content)), multiplicity);
+		} catch (JDOMException | IOException e) {
+			throw new InputReadingException("Error parsing input file "+name+": "+e.getMessage(),e);
+		} finally {
+			parsingTime.addAndGet(System.nanoTime()-parsingStart);
+		}
+	}
+	
+	/**
+	 * Waits for the next input document to be parsed.
+	 * @param queue the queue
+	 * @return the parsed document or null if there are no more documents
+	 * @throws InputReadingException if the document could not be read or parsed
+	 */
+	private static ParsedDocument takeParsedDocument(BlockingQueue<Future<ParsedDocument>> queue) {
+		try {
+			return queue.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InputReadingException("Interrupted while waiting for an input document to be parsed", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new InputReadingException("Error while parsing the input XML documents", e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of documents which have gone through the pipeline during the last extraction (documents 
+	 * which have been parsed twice, because the namespace URI to prefix mappings had to be solved in advance, count twice)
+	 */
+	public int getPipelinedDocumentsCount() {
+		return pipelinedDocumentsCount;
+	}
+	
+	/**
+	 * @return the number of parser threads
+	 */
+	public int getParserThreads() {
+		return parserThreads;
+	}
+
+	/**
+	 * @return the time spent by the reader reading the input documents, in milliseconds
+	 */
+	public long getReadingTime() {
+		return TimeUnit.NANOSECONDS.toMillis(readingTime.get());
+	}
+
+	/**
+	 * @return the time spent by the reader waiting for free space at the queue, in milliseconds
+	 */
+	public long getQueueFullTime() {
+		return TimeUnit.NANOSECONDS.toMillis(queueFullTime.get());
+	}
+
+	/**
+	 * @return the time spent parsing the input documents, added up over all the parser threads, in milliseconds
+	 */
+	public long getParsingTime() {
+		return TimeUnit.NANOSECONDS.toMillis(parsingTime.get());
+	}
+
+	/**
+	 * @return the time spent extracting the parsed documents, in milliseconds
+	 */
+	public long getExtractionTime() {
+		return TimeUnit.NANOSECONDS.toMillis(extractionTime);
+	}
+
+	/**
+	 * @return the time spent by the extractor waiting for parsed documents, in milliseconds
+	 */
+	public long getExtractionWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(extractionWaitTime);
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdom2.Document;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+
+/**
+ * {@link TypesExtractor} implementation which does not extract any document, but combines the learner states saved 
+ * by other extractions (shards), which may have been run on different machines (via {@link TypesExtractorImpl#saveState(OutputStream)}). 
+ * The documents of each shard are considered to follow the documents of the previous ones, so the initial schema is the 
+ * same as if all the documents had been extracted at once, in the order of the shards.
+ * <br/>
+ * Combining is associative: the state of this extractor may be saved again and combined with other shards later, 
+ * so shards may be reduced in a tree. All the shards must have been extracted with the same inference configuration 
+ * and must not bind a namespace URI to different prefixes.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class ShardsCombinerTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * The saved states of the shards
+	 */
+	private List<ByteSource> shards;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param shards the saved states of the shards, in order
+	 * @param configuration the inference configuration
+	 */
+	public ShardsCombinerTypesExtractorImpl(List<ByteSource> shards, XSDInferenceConfiguration configuration) {
+		this(shards, configuration, InferencersFactory.getInstance());
+	}
+	
+	/**
+	 * Constructor with custom inferencers factory.
+	 * 
+	 * @param shards the saved states of the shards, in order
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 * @throws IllegalArgumentException if no shard is given
+	 */
+	public ShardsCombinerTypesExtractorImpl(List<ByteSource> shards, XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		super();
+		checkNotNull(shards, "'shards' must not be null");
+		checkArgument(!shards.isEmpty(), "At least one shard must be given");
+		initializeData(Collections.<Document>emptyList(), configuration, inferencersFactory);
+		this.shards = ImmutableList.copyOf(shards);
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		for(ByteSource shard: shards){
+			mergeSavedState(shard);
+		}
+		return buildInitialSchema();
+	}
+
+}
@@ -15,6 +15,7 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.extraction.extractorImpl;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.XSD_NAMESPACE_PREFIX;
 
@@ -27,21 +28,41 @@ import java.util.Set;
 import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
 import es.upm.dit.xsdinferencer.datastructures.SimpleType;
 import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier;
 
 /**
- * Default implementation for {@link SimpleTypeInferencer}
+ * Default implementation for {@link SimpleTypeInferencer}. 
+ * Each distinct value is classified when it is learned, so that the builtin type is decided from some running 
+ * flags (the kinds of values found, see {@link LexicalClassifier#classify(String)}) instead of by checking 
+ * all the known values again. Values are kept only while they may still become an enumeration: as soon as there are 
+ * more distinct values than {@link XSDInferenceConfiguration#getMaxNumberOfDistinctValuesToEnum()} (even after being 
+ * normalized in the most favourable way), only a bounded sample of them is kept. That sample has just enough values to 
+ * be too many for an enumeration and a value of each kind, so the simple types built from it (and from their merges) 
+ * have the same builtin type, the same enumeration decision and the same kinds of known values as if all the values 
+ * had been kept. 
+ * If {@link XSDInferenceConfiguration#getInferExtendedBuiltinTypes()} is true and the working format is XML, the 
+ * narrowest of some more builtin types (xs:byte, xs:short, xs:int, xs:long, xs:double, xs:date, xs:time, xs:dateTime, 
+ * xs:anyURI and xs:base64Binary) may be inferred from the same flags.
  * @author Pablo Alonso Rodriguez (Center for Open Middleware)
  *
  */
 public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 
-	//Regular expressions for builtin type inference
+	//Regular expressions for builtin type inference (they are checked by LexicalClassifier without using them)
 	protected static final String BUILTIN_REGEX_XSBOOLEAN = "^true|false|0|1$";
 	protected static final String BUILTIN_REGEX_XSINTEGER = "^(\\+|\\-)?[0-9]+$";
 	protected static final String BUILTIN_REGEX_XSDECIMAL = "^(\\+|\\-)?[0-9]+(\\.[0-9]+)?$";
 	
 	/**
-	 * It maps the learned Values to its occurrences numbers
+	 * Kinds of values of the builtin types which are only inferred if extended builtin types are enabled
+	 */
+	private static final int EXTENDED_BUILTIN_VALUE_KINDS = LexicalClassifier.BYTE|LexicalClassifier.SHORT|LexicalClassifier.INT|
+			LexicalClassifier.LONG|LexicalClassifier.DOUBLE|LexicalClassifier.DATE|LexicalClassifier.TIME|LexicalClassifier.DATE_TIME|
+			LexicalClassifier.ANY_URI|LexicalClassifier.BASE64_BINARY;
+	
+	/**
+	 * It maps the learned Values to its occurrences numbers. Once the values cannot be an enumeration, it only 
+	 * has the ones kept as a sample.
 	 */
 	private Map<String,Integer> valueOccurrences;
 	/**
@@ -49,6 +70,11 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	 */
 	private XSDInferenceConfiguration config;
 	
+	/**
+	 * Whether extended builtin types may be inferred (see {@link XSDInferenceConfiguration#getInferExtendedBuiltinTypes()})
+	 */
+	private boolean inferExtendedBuiltinTypes;
+	
 	/**
 	 * It stores a set of strings of the form <i>namespaceUri</i>:<i>name</i> of each element and attribute from where this inferencer has learned a value.
 	 */
@@ -60,6 +86,39 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	 */
 	private int emptyValuesLearned;
 	
+	/**
+	 * Kinds of values which all the learned non-empty values are
+	 */
+	private int commonValueKinds;
+	
+	/**
+	 * Kinds of values which any learned non-empty value is
+	 */
+	private int foundValueKinds;
+	
+	/**
+	 * Shortest equivalents of the learned non-empty values (see {@link SimpleTypeInferencerImpl#getEquivalentValue(String)}), 
+	 * while the values may still become an enumeration and the builtin type may still be other than xs:string. 
+	 * Null otherwise.
+	 */
+	private Set<String> equivalentValues;
+	
+	/**
+	 * Whether there are already too many distinct values for them to become an enumeration
+	 */
+	private boolean enumerationRuledOut;
+	
+	/**
+	 * Combinations of kinds of values of the values kept as a sample, once the values cannot be an enumeration. Null otherwise.
+	 */
+	private Set<Integer> sampledValueKinds;
+	
+	/**
+	 * Distinct values kept as a sample (see {@link SimpleTypeInferencerImpl#getDistinctValueKey(String)}), up to one more than 
+	 * the maximum allowed for an enumeration, once the values cannot be an enumeration. Null otherwise.
+	 */
+	private Set<String> distinctSampledValues;
+	
 	/**
 	 * Constructor
 	 * @param config Current inference configuration
@@ -67,9 +126,16 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	public SimpleTypeInferencerImpl(XSDInferenceConfiguration config) {
 		checkNotNull(config,"'config' must not be null");
 		this.config=config;
+		this.inferExtendedBuiltinTypes=config.getInferExtendedBuiltinTypes() && "xml".equals(config.getWorkingFormat());
 		this.valueOccurrences=new HashMap<String,Integer>();
 		this.emptyValuesLearned=0;
 		this.sourceNamespacesAndNames=new HashSet<>();
+		this.commonValueKinds=~0;
+		this.foundValueKinds=0;
+		this.equivalentValues=new HashSet<>();
+		this.enumerationRuledOut=false;
+		this.sampledValueKinds=null;
+		this.distinctSampledValues=null;
 	}
 	
 	/**
@@ -81,6 +147,12 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		copy.emptyValuesLearned=this.emptyValuesLearned;
 		copy.valueOccurrences=new HashMap<>(this.valueOccurrences);
 		copy.sourceNamespacesAndNames=new HashSet<>(this.sourceNamespacesAndNames);
+		copy.commonValueKinds=this.commonValueKinds;
+		copy.foundValueKinds=this.foundValueKinds;
+		copy.equivalentValues=this.equivalentValues!=null?new HashSet<>(this.equivalentValues):null;
+		copy.enumerationRuledOut=this.enumerationRuledOut;
+		copy.sampledValueKinds=this.sampledValueKinds!=null?new HashSet<>(this.sampledValueKinds):null;
+		copy.distinctSampledValues=this.distinctSampledValues!=null?new HashSet<>(this.distinctSampledValues):null;
 		return copy;
 	}
 	
@@ -89,21 +161,138 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	 */
 	@Override
 	public void learnValue(String value, String sourceNodeNamespaceURI, String sourceNodeName) {
+		learnValue(value, sourceNodeNamespaceURI, sourceNodeName, 1);
+	}
+	
+	/**
+	 * @see SimpleTypeInferencer#learnValue(String, String, String, int)
+	 */
+	@Override
+	public void learnValue(String value, String sourceNodeNamespaceURI, String sourceNodeName, int occurrences) {
 		checkNotNull(value,"'value' must not be null");
+		checkArgument(occurrences>0,"'occurrences' must be positive");
 		if(value.equals("")){
-			emptyValuesLearned++;
+			emptyValuesLearned+=occurrences;
+			checkEnumerationStillPossible();
 			return; 
 		}
-		if(!valueOccurrences.containsKey(value)){
-			valueOccurrences.put(value, 1);
-		} else {
-			int previousOccurrences=valueOccurrences.get(value);
-			valueOccurrences.put(value, previousOccurrences+1);
-		}
+		addValue(value, occurrences);
 		if(sourceNodeName!=null)
 			sourceNamespacesAndNames.add(sourceNodeNamespaceURI+":"+sourceNodeName);
 	}
 	
+	/**
+	 * Adds the occurrences of a non-empty value. If it is a new value, it is classified and, if the values cannot 
+	 * be an enumeration, it is only kept if no kept value is of the same kinds or if more distinct values are needed.
+	 * @param value the value
+	 * @param occurrences its number of occurrences
+	 */
+	private void addValue(String value, int occurrences){
+		Integer previousOccurrences=valueOccurrences.get(value);
+		if(previousOccurrences!=null){
+			valueOccurrences.put(value, previousOccurrences+occurrences);
+			return;
+		}
+		int valueKinds = LexicalClassifier.classify(value);
+		commonValueKinds&=valueKinds;
+		foundValueKinds|=valueKinds;
+		if(enumerationRuledOut){
+			boolean sampled = sampledValueKinds.add(valueKinds);
+			if(distinctSampledValues.size()<=config.getMaxNumberOfDistinctValuesToEnum())
+				sampled|=distinctSampledValues.add(getDistinctValueKey(value));
+			if(sampled)
+				valueOccurrences.put(value, occurrences);
+			return;
+		}
+		valueOccurrences.put(value, occurrences);
+		if(equivalentValues!=null)
+			equivalentValues.add(getEquivalentValue(value));
+		checkEnumerationStillPossible();
+	}
+	
+	/**
+	 * @return whether the builtin type may still be other than xs:string, that is, whether all the learned values are 
+	 * valid xs:boolean or xs:decimal values (or values of any extended builtin type, if they are enabled). The empty value is not.
+	 */
+	private boolean builtinTypeMayNotBeString(){
+		int nonStringValueKinds = LexicalClassifier.BOOLEAN|LexicalClassifier.DECIMAL;
+		if(inferExtendedBuiltinTypes)
+			nonStringValueKinds|=EXTENDED_BUILTIN_VALUE_KINDS;
+		return emptyValuesLearned==0 && (commonValueKinds&nonStringValueKinds)!=0;
+	}
+	
+	/**
+	 * Returns the key by which a value is told apart from the others when counting distinct values. While the builtin 
+	 * type may be other than xs:string, it is the shortest equivalent of the value, so that values which would be the 
+	 * same once normalized are counted once. Otherwise, it is the value as it is.
+	 * @param value a non-empty value
+	 * @return its key
+	 */
+	private String getDistinctValueKey(String value){
+		return builtinTypeMayNotBeString()?getEquivalentValue(value):value;
+	}
+	
+	/**
+	 * Rules out the enumeration if there are already more distinct values than the maximum allowed for an enumeration. 
+	 * While the builtin type may be other than xs:string, values are counted by their shortest equivalents, which are 
+	 * never more than the values of the simple type (whatever its builtin type is). Otherwise, they are counted as they 
+	 * are, plus the empty value if it has been learned.
+	 */
+	private void checkEnumerationStillPossible(){
+		if(enumerationRuledOut)
+			return;
+		int distinctValuesCount;
+		if(!builtinTypeMayNotBeString()){
+			equivalentValues=null;
+			distinctValuesCount=valueOccurrences.size()+(emptyValuesLearned>0?1:0);
+		} else {
+			distinctValuesCount=equivalentValues.size();
+		}
+		if(distinctValuesCount>config.getMaxNumberOfDistinctValuesToEnum())
+			ruleOutEnumeration();
+	}
+	
+	/**
+	 * Replaces the known values by a sample of them, which has one more distinct value (counted as in 
+	 * {@link SimpleTypeInferencerImpl#checkEnumerationStillPossible()}) than the maximum allowed for an enumeration 
+	 * and one value of each combination of kinds of values.
+	 */
+	private void ruleOutEnumeration(){
+		int maxNumberOfDistinctValuesToEnum = config.getMaxNumberOfDistinctValuesToEnum();
+		Map<String,Integer> sampledValueOccurrences = new HashMap<>();
+		distinctSampledValues = new HashSet<>();
+		sampledValueKinds = new HashSet<>();
+		for(Map.Entry<String, Integer> valueEntry: valueOccurrences.entrySet()){
+			String value = valueEntry.getKey();
+			boolean sampled = sampledValueKinds.add(LexicalClassifier.classify(value));
+			if(distinctSampledValues.size()<=maxNumberOfDistinctValuesToEnum)
+				sampled|=distinctSampledValues.add(getDistinctValueKey(value));
+			if(sampled)
+				sampledValueOccurrences.put(value, valueEntry.getValue());
+		}
+		valueOccurrences=sampledValueOccurrences;
+		equivalentValues=null;
+		enumerationRuledOut=true;
+	}
+	
+	/**
+	 * @see SimpleTypeInferencer#merge(SimpleTypeInferencer)
+	 */
+	@Override
+	public void merge(SimpleTypeInferencer other) {
+		checkNotNull(other,"'other' must not be null");
+		checkArgument(other instanceof SimpleTypeInferencerImpl, "Only SimpleTypeInferencerImpl objects may be merged into a SimpleTypeInferencerImpl");
+		SimpleTypeInferencerImpl otherImpl = (SimpleTypeInferencerImpl) other;
+		emptyValuesLearned+=otherImpl.emptyValuesLearned;
+		if(otherImpl.enumerationRuledOut&&!enumerationRuledOut)
+			ruleOutEnumeration();
+		checkEnumerationStillPossible();
+		for(Map.Entry<String, Integer> otherValueEntry: otherImpl.valueOccurrences.entrySet()){
+			addValue(otherValueEntry.getKey(), otherValueEntry.getValue());
+		}
+		sourceNamespacesAndNames.addAll(otherImpl.sourceNamespacesAndNames);
+	}
+	
 	/**
 	 * @see SimpleTypeInferencer#getSimpleType(String)
 	 */
@@ -116,17 +305,17 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		String actualName = name;
 		if(valueOccurrences.isEmpty()){
 			return new SimpleType(actualName,"",valueOccurrences.keySet(),false);
-		} else {
-			if(emptyValuesLearned>0)
-				valueOccurrences.put("", emptyValuesLearned); //If there are other values than the empty value, the empty value must be added and the simple type must be generated in a normal way
 		}
+		Set<String> valueSet = new HashSet<>(valueOccurrences.keySet());
+		if(emptyValuesLearned>0)
+			valueSet.add(""); //If there are other values than the empty value, the empty value must be added and the simple type must be generated in a normal way
 		String builtinType = inferBuiltInType();
-		Set<String> valueSet = valueOccurrences.keySet();
 		if(!builtinTypePreservesWhitespaces(builtinType))
 			valueSet=replaceAndTrimWhitespaces(valueSet, builtinTypeTrimsAndCollapsesWhitespaces(builtinType));
 		if(builtinTypeRequiresNumericEquivalenceFix(builtinType))
 			valueSet=fixEquivalentNumbers(valueSet);
 		boolean isEnum=config.getGenerateEnumerations();
+		isEnum=isEnum&&!enumerationRuledOut;
 		isEnum=isEnum&&config.getMinNumberOfDistinctValuesToEnum()<=valueSet.size();
         isEnum=isEnum&&valueSet.size()<=config.getMaxNumberOfDistinctValuesToEnum();
         isEnum=isEnum&&(!builtinType.equalsIgnoreCase(XSD_NAMESPACE_PREFIX+"boolean")); //Booleans are never inferred as enumerations
@@ -175,14 +364,18 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	 */
 	private boolean builtinTypeRequiresNumericEquivalenceFix(String builtinType){
 		checkNotNull(builtinType);
-		//It may be necessary to modify this method if new numeric types other than xs:decimal and xs:integer
-        //are inferred
+		//It may be necessary to modify this method if new numeric types are inferred
 		if(builtinType.equals(XSD_NAMESPACE_PREFIX+"integer")){
 			return true;
 		}
 		else if(builtinType.equals(XSD_NAMESPACE_PREFIX+"decimal")){
 			return true;
 		}
+		else if(inferExtendedBuiltinTypes && (builtinType.equals(XSD_NAMESPACE_PREFIX+"long") || builtinType.equals(XSD_NAMESPACE_PREFIX+"int") || 
+				builtinType.equals(XSD_NAMESPACE_PREFIX+"short") || builtinType.equals(XSD_NAMESPACE_PREFIX+"byte") || 
+				builtinType.equals(XSD_NAMESPACE_PREFIX+"double"))){
+			return true;
+		}
 		else{
 			return false;
 		}
@@ -198,11 +391,7 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		checkNotNull(originalSet);
 		Set<String> result = new HashSet<String>(originalSet.size());
 		for(String value: originalSet){
-			String newValue = value.replaceAll("[\t\n\r]", " ");
-			if(trimAndCollapse){
-				newValue=newValue.replaceAll("[ ]{2,}", " ").trim();
-			}
-			result.add(newValue.trim());
+			result.add(LexicalClassifier.replaceAndTrimWhitespaces(value, trimAndCollapse));
 		}
 		return result;
 	}
@@ -219,11 +408,7 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		checkNotNull(originalSet);
 		Set<String> result = new HashSet<String>(originalSet);
 		for(String value: originalSet){
-			String newValue=value;
-			if(value.startsWith("+"))
-				newValue=value.replaceAll("\\+", "");
-			if(value.matches("^.+\\.0+$"))
-				newValue=newValue.replaceAll("\\.0+", "");
+			String newValue=LexicalClassifier.getEquivalentNumber(value);
 			if(!value.equals(newValue)){
 				result.remove(value);
 				result.add(newValue);
@@ -232,6 +417,17 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		return result;
 	}
 	
+	/**
+	 * Returns the shortest equivalent of a value, that is, the value which it would become at a simple type of 
+	 * any builtin type which normalizes its values (whitespaces replaced and trimmed and, if it is a number, without 
+	 * + or 0 decimals). Values which are the same at a simple type have the same shortest equivalent.
+	 * @param value a value
+	 * @return its shortest equivalent
+	 */
+	private static String getEquivalentValue(String value){
+		return LexicalClassifier.getEquivalentNumber(LexicalClassifier.replaceAndTrimWhitespaces(value, false));
+	}
+	
 	/**
 	 * It infers a builtin type by performing some checks in a concrete order. If one check returns 
 	 * true, its associated type is returned.
@@ -240,13 +436,18 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	 * @see XSDInferenceConfiguration#XSD_NAMESPACE_PREFIX
 	 */
 	private String inferBuiltInType(){
-		if(checkXSBoolean()){
+		//The empty value, if there are other values, is not of any kind
+		int commonValueKinds = emptyValuesLearned>0?0:this.commonValueKinds;
+		if(checkXSBoolean(commonValueKinds)){
 			return XSD_NAMESPACE_PREFIX+"boolean";
 		}
-		else if(checkRegexp(BUILTIN_REGEX_XSINTEGER, true)){
+		else if(inferExtendedBuiltinTypes && (commonValueKinds&EXTENDED_BUILTIN_VALUE_KINDS)!=0){
+			return inferExtendedBuiltInType(commonValueKinds);
+		}
+		else if((commonValueKinds&LexicalClassifier.INTEGER)!=0){
 			return XSD_NAMESPACE_PREFIX+"integer";
 		}
-		else if(checkRegexp(BUILTIN_REGEX_XSDECIMAL, true)){
+		else if((commonValueKinds&LexicalClassifier.DECIMAL)!=0){
 			return XSD_NAMESPACE_PREFIX+"decimal";
 		}
 		else{
@@ -254,29 +455,66 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		}
 	}
 	
+	/**
+	 * Returns the narrowest extended builtin type which all the values are valid for. Numeric types are checked from 
+	 * the narrowest to the widest (xs:integer and xs:decimal values are always xs:double values, so xs:double is only 
+	 * returned for values with exponents or special values such as INF).
+	 * @param commonValueKinds the kinds of values which all the values are, some of them being of an extended builtin type
+	 * @return An string that represents the builtin type (including the XSD namespace prefix)
+	 */
+	private String inferExtendedBuiltInType(int commonValueKinds){
+		if((commonValueKinds&LexicalClassifier.BYTE)!=0){
+			return XSD_NAMESPACE_PREFIX+"byte";
+		}
+		else if((commonValueKinds&LexicalClassifier.SHORT)!=0){
+			return XSD_NAMESPACE_PREFIX+"short";
+		}
+		else if((commonValueKinds&LexicalClassifier.INT)!=0){
+			return XSD_NAMESPACE_PREFIX+"int";
+		}
+		else if((commonValueKinds&LexicalClassifier.LONG)!=0){
+			return XSD_NAMESPACE_PREFIX+"long";
+		}
+		else if((commonValueKinds&LexicalClassifier.INTEGER)!=0){
+			return XSD_NAMESPACE_PREFIX+"integer";
+		}
+		else if((commonValueKinds&LexicalClassifier.DECIMAL)!=0){
+			return XSD_NAMESPACE_PREFIX+"decimal";
+		}
+		else if((commonValueKinds&LexicalClassifier.DOUBLE)!=0){
+			return XSD_NAMESPACE_PREFIX+"double";
+		}
+		else if((commonValueKinds&LexicalClassifier.DATE_TIME)!=0){
+			return XSD_NAMESPACE_PREFIX+"dateTime";
+		}
+		else if((commonValueKinds&LexicalClassifier.DATE)!=0){
+			return XSD_NAMESPACE_PREFIX+"date";
+		}
+		else if((commonValueKinds&LexicalClassifier.TIME)!=0){
+			return XSD_NAMESPACE_PREFIX+"time";
+		}
+		else if((commonValueKinds&LexicalClassifier.ANY_URI)!=0){
+			return XSD_NAMESPACE_PREFIX+"anyURI";
+		}
+		else{
+			return XSD_NAMESPACE_PREFIX+"base64Binary";
+		}
+	}
+	
 	/**
 	 * Method to check whether the builtin type would be a xs:boolean or not.
-	 * This method should be used instead of {@linkplain SimpleTypeInferencerImpl#checkRegexp(String, boolean)} 
-	 * because it also checks that there is any "true" or "false" values so that simple types with only 
+	 * It also checks that there is any "true" or "false" values so that simple types with only 
 	 * "0" or "1" values do not become booleans.
+	 * @param commonValueKinds the kinds of values which all the values are
 	 * @return true if the type is a boolean, false if not
 	 */
-	private boolean checkXSBoolean(){
-		boolean noTrueFalseStringFound=true; // If there are only 0 or 1 values, it may be an xs:integer.
-		boolean zeroOrOneNumbersFound=false; // Although XSD allows them as boolean values, JSON Schema does not.
-		for(String value:valueOccurrences.keySet()){
-			if(valueOccurrences.get(value).equals(0))
-				continue;
-			if(!(value.trim().matches(BUILTIN_REGEX_XSBOOLEAN)))
-				return false;
-			if((value.trim().equals("true")||value.trim().equals("false"))){
-					noTrueFalseStringFound=false;
-			} else if (value.trim().equals("0") || value.trim().equals("1")) {
-				zeroOrOneNumbersFound=true;
-			}
-		}
-//		if(!noTrueFalseStringFound && !(config.getWorkingFormat().equals("json") && zeroOrOneNumbersFound)){
-		if(!noTrueFalseStringFound && !(config.getWorkingFormat().equals("json") && zeroOrOneNumbersFound)){
+	private boolean checkXSBoolean(int commonValueKinds){
+		boolean noTrueFalseStringFound=(foundValueKinds&LexicalClassifier.TRUE_FALSE)==0; // If there are only 0 or 1 values, it may be an xs:integer.
+		boolean zeroOrOneNumbersFound=(foundValueKinds&LexicalClassifier.ZERO_OR_ONE)!=0; // Although XSD allows them as boolean values, JSON Schema does not.
+		if((commonValueKinds&LexicalClassifier.BOOLEAN)==0)
+			return false;
+		boolean jsonWorkingFormat = config.getWorkingFormat().equals("json") || config.getWorkingFormat().equals("jsonl");
+		if(!noTrueFalseStringFound && !(jsonWorkingFormat && zeroOrOneNumbersFound)){
 			return true;
 		}
 		else{ 
@@ -284,30 +522,9 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 		}
 	}
 	
-	/**
-	 * Checks that all the known values match a given regular expression in order to determine its simple 
-	 * type.
-	 * @param regex the regular expression to which every known value must match
-	 * @param trimValues if each value should be trimmed before it is checked against the regular expression
-	 * @return true if all the known values match the given regular expression, false if not
-	 */
-	private boolean checkRegexp(String regex, boolean trimValues){
-		checkNotNull(regex);
-		for(String value: valueOccurrences.keySet()){
-			if(valueOccurrences.get(value).equals(0))
-				continue;
-			String effectiveValue = value;
-			if(trimValues)
-				effectiveValue=value.replaceAll("[\t\n\r]", " ").replaceAll("[ ]{2,}", " ").trim();
-			if(!effectiveValue.matches(regex))
-				return false;
-		}
-		return true;
-	}
-	
 		
 	/**
-	 * Returns an iterator over the distinct values
+	 * Returns an iterator over the distinct values (only over the sampled ones if they cannot be an enumeration)
 	 */
 	@Override
 	public Iterator<String> iterator() {
@@ -317,7 +534,8 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	
 	@Override
 	public int getValueOccurrences(String value) {
-		return valueOccurrences.get(value);
+		Integer occurrences = valueOccurrences.get(value);
+		return occurrences!=null?occurrences:0;
 	}
 	
 	
@@ -325,4 +543,53 @@ public class SimpleTypeInferencerImpl implements SimpleTypeInferencer {
 	public int getDistinctValuesCount() {
 		return valueOccurrences.size();
 	}
+	
+	/**
+	 * @return whether there are already too many distinct values for them to become an enumeration, so only a 
+	 * sample of them is kept
+	 */
+	public boolean isEnumerationRuledOut() {
+		return enumerationRuledOut;
+	}
+	
+	/**
+	 * @return how many times the empty value has been learned
+	 */
+	int getEmptyValuesLearned() {
+		return emptyValuesLearned;
+	}
+	
+	/**
+	 * @return the strings of the form <i>namespaceUri</i>:<i>name</i> of the nodes from where values have been learned
+	 */
+	Set<String> getSourceNamespacesAndNames() {
+		return sourceNamespacesAndNames;
+	}
+	
+	/**
+	 * Replaces all the learned information by a previously saved one, as if the values had been learned again.
+	 * @param valueOccurrences the occurrences of each learned value (the empty value is not included)
+	 * @param emptyValuesLearned how many times the empty value has been learned
+	 * @param sourceNamespacesAndNames the strings of the form <i>namespaceUri</i>:<i>name</i> of the source nodes
+	 * @param enumerationRuledOut whether the values had been found to be too many for an enumeration (so the 
+	 * given ones are just a sample)
+	 */
+	void restoreState(Map<String,Integer> valueOccurrences, int emptyValuesLearned, Set<String> sourceNamespacesAndNames, 
+			boolean enumerationRuledOut) {
+		this.valueOccurrences=new HashMap<>();
+		this.emptyValuesLearned=emptyValuesLearned;
+		this.sourceNamespacesAndNames=new HashSet<>(sourceNamespacesAndNames);
+		this.commonValueKinds=~0;
+		this.foundValueKinds=0;
+		this.equivalentValues=new HashSet<>();
+		this.enumerationRuledOut=false;
+		this.sampledValueKinds=null;
+		this.distinctSampledValues=null;
+		if(enumerationRuledOut)
+			ruleOutEnumeration();
+		checkEnumerationStillPossible();
+		for(Map.Entry<String, Integer> valueEntry: valueOccurrences.entrySet()){
+			addValue(valueEntry.getKey(), valueEntry.getValue());
+		}
+	}
 }
@@ -17,15 +17,25 @@ package es.upm.dit.xsdinferencer.extraction.extractorImpl;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.XSI_NAMESPACE_URI;
 import static es.upm.dit.xsdinferencer.datastructures.Automaton.DEFAULT_PSEUDOELEMENTS_NAMESPACE;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -40,8 +50,11 @@ import org.jdom2.Namespace;
 import org.jdom2.filter.Filter;
 import org.jdom2.filter.Filters;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Table;
+import com.google.common.io.ByteSource;
 
 import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
 import es.upm.dit.xsdinferencer.datastructures.ComplexType;
@@ -50,10 +63,13 @@ import es.upm.dit.xsdinferencer.datastructures.Schema;
 import es.upm.dit.xsdinferencer.datastructures.SchemaAttribute;
 import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
 import es.upm.dit.xsdinferencer.datastructures.SimpleType;
+import es.upm.dit.xsdinferencer.datastructures.SymbolTable;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
 import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
 import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
 import es.upm.dit.xsdinferencer.extraction.TypeNameInferencer;
 import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.AttributeListInferencerImpl.AttributeListShape;
 import es.upm.dit.xsdinferencer.statistics.ComplexTypeStatisticsEntry;
 import es.upm.dit.xsdinferencer.statistics.Statistics;
 /**
@@ -63,6 +79,26 @@ import es.upm.dit.xsdinferencer.statistics.Statistics;
  */
 public class TypesExtractorImpl implements TypesExtractor {
 	
+	/**
+	 * Maximum count of symbols of the pending child words before they are learned
+	 */
+	private static final int MAX_PENDING_CHILD_WORDS_SYMBOLS = 1<<20;
+	
+	/**
+	 * Maximum count of symbols of the keys of the subtree shapes kept at the path trie before they are discarded
+	 */
+	private static final int MAX_SHAPES_SYMBOLS = 1<<20;
+	
+	/**
+	 * Compares subtree shapes by their creation order
+	 */
+	private static final Comparator<Shape> SHAPE_CREATION_COMPARATOR = new Comparator<Shape>() {
+		@Override
+		public int compare(Shape o1, Shape o2) {
+			return Integer.compare(o1.id, o2.id);
+		}
+	};
+	
 	/**
 	 * Input XML Documents
 	 */
@@ -85,6 +121,24 @@ public class TypesExtractorImpl implements TypesExtractor {
 	 */
 	private NavigableMap<String,String> solvedNamespaceToPrefixMapping;
 	
+	/**
+	 * Whether the namespace URI to prefix mappings are being solved while the documents are extracted, 
+	 * instead of being solved before the extraction.
+	 */
+	private boolean solvingNamespacesWhileExtracting = false;
+	
+	/**
+	 * Namespace URIs whose solved prefixes have already been used to build paths and type names 
+	 * while solving the mappings during the extraction.
+	 */
+	private Set<String> usedNamespaceURIs = new HashSet<>();
+	
+	/**
+	 * Whether the solved prefix of a namespace URI has changed after being used to build paths 
+	 * while solving the mappings during the extraction.
+	 */
+	private boolean usedPrefixChanged = false;
+	
 	/**
 	 * Mapping between complex type names and ComplexType objects.
 	 */
@@ -104,6 +158,30 @@ public class TypesExtractorImpl implements TypesExtractor {
 	 * Mapping between complex type names and their automatons
 	 */
 	private Map<String,ExtendedAutomaton> automatons;
+	
+	/**
+	 * Child words (children sequences with the initial and final states) of the elements of each complex type which 
+	 * have not been learned yet by its automaton and its statistics, mapped to the number of times they have been found. 
+	 * As most elements of a type usually have the same children, each distinct word is learned once with its multiplicity.
+	 */
+	private final Map<String,Map<List<SchemaElement>,int[]>> pendingChildWords = new HashMap<>();
+	
+	/**
+	 * Total count of symbols of the pending child words
+	 */
+	private int pendingChildWordsSymbols = 0;
+	
+	/**
+	 * Steps of the paths whose elements have their content skipped
+	 * @see XSDInferenceConfiguration#getExcludePaths()
+	 */
+	private List<List<String>> excludedPathsSteps = Collections.emptyList();
+	
+	/**
+	 * Steps of the included paths (if there are not any, every path is included)
+	 * @see XSDInferenceConfiguration#getIncludePaths()
+	 */
+	private List<List<String>> includedPathsSteps = Collections.emptyList();
 
 	/**
 	 * Elements table of the extracted Schema, it will be properly filled during extraction.
@@ -130,6 +208,97 @@ public class TypesExtractorImpl implements TypesExtractor {
 	 */
 	private InferencersFactory inferencersFactory = InferencersFactory.getInstance();
 	
+	/**
+	 * Learner state saved by a previous extraction from which this extraction resumes (null if it starts from scratch)
+	 */
+	private ByteSource resumedState = null;
+	
+	/**
+	 * Number of documents which precede the ones extracted by this extractor (the ones of the resumed state, if any). 
+	 * It is added to the document indexes at the statistics.
+	 */
+	private int documentIndexOffset = 0;
+	
+	/**
+	 * How many identical input documents each in-memory input document stands for (null if each one stands for itself only)
+	 */
+	private int[] documentMultiplicities = null;
+	
+	/**
+	 * Index of the first copy of each in-memory input document which stands for several identical ones. 
+	 * Copies follow all the input documents.
+	 */
+	private int[] firstCopyIndexes = null;
+	
+	/**
+	 * Number of copies of in-memory input documents
+	 */
+	private int documentCopiesCount = 0;
+	
+	/**
+	 * How many identical input documents the document being extracted stands for
+	 */
+	private int documentMultiplicity = 1;
+	
+	/**
+	 * Ranges of documents whose information must be copied at the statistics once all of it has been registered, 
+	 * as {first document, last document (exclusive), first copy, copies}
+	 */
+	private final List<int[]> pendingDocumentCopies = new ArrayList<>();
+	
+	/**
+	 * Symbols found by the current extraction. Names are interned and given ids here, so it is replaced at each extraction 
+	 * and it does not keep the names of previous ones.
+	 */
+	private SymbolTable symbolTable = new SymbolTable();
+	
+	/**
+	 * Root of the trie of the paths of the extracted elements, whose nodes keep everything which only depends on the path
+	 */
+	private PathNode pathTrieRoot = new PathNode(null, "", "", "");
+	
+	/**
+	 * Frames of the elements being extracted, indexed by depth. As only one element of each depth may be open at a time, 
+	 * they are reused instead of creating a new frame for each element.
+	 */
+	private final List<ElementFrame> elementFramesByDepth = new ArrayList<>();
+	
+	/**
+	 * Stack of the open elements of the document being traversed
+	 */
+	private final List<Element> traversalOpenElements = new ArrayList<>();
+	
+	/**
+	 * Stack of the frames of the open elements of the document being traversed
+	 */
+	private final List<ElementFrame> traversalOpenFrames = new ArrayList<>();
+	
+	/**
+	 * Stack of the indexes of the next content to visit of each open element of the document being traversed
+	 */
+	private int[] traversalNextContentIndexes = new int[16];
+	
+	/**
+	 * Whether the document being traversed is extracted by sharing the shapes of its subtrees
+	 * @see XSDInferenceConfiguration#getShapeSharing()
+	 */
+	private boolean sharingShapes = false;
+	
+	/**
+	 * Shapes of the subtrees of the document being traversed, whose structure has not been learned yet
+	 */
+	private final List<Shape> documentShapes = new ArrayList<>();
+	
+	/**
+	 * Count of shapes created since the shapes were discarded last time
+	 */
+	private int createdShapesCount = 0;
+	
+	/**
+	 * Total count of symbols of the keys of the shapes kept at the path trie
+	 */
+	private int shapesSymbols = 0;
+	
 	/**
 	 * Returns a path of the element made of the name of the elements and their prefixes (or namespace URIs). 
 	 * Prefixes (or URIs) are separated from element names by :, so THEY MUST BE REPLACED BY _ if they are 
@@ -268,6 +437,8 @@ public class TypesExtractorImpl implements TypesExtractor {
 		this.attributeListInferencers=new HashMap<String, AttributeListInferencer>();
 		this.automatons=new HashMap<String, ExtendedAutomaton>();
 		this.statistics = new Statistics(xmlDocuments.size());
+		this.statistics.setDistinctValuesSketching(configuration.getDistinctValuesSketchPrecision(), configuration.getMaxNumberOfDistinctValuesToEnum());
+		this.statistics.setValuesTopK(configuration.getValuesTopK());
 		this.elements=HashBasedTable.create();
 		this.complexTypes=new HashMap<>();
 		this.simpleTypes=new HashMap<String, SimpleType>();
@@ -275,6 +446,21 @@ public class TypesExtractorImpl implements TypesExtractor {
 		this.attributes=HashBasedTable.create();
 		this.prefixNamespaceMapping=new TreeMap<String, SortedSet<String>>();
 		this.inferencersFactory=inferencersFactory;
+		this.excludedPathsSteps=splitPaths(configuration.getExcludePaths());
+		this.includedPathsSteps=splitPaths(configuration.getIncludePaths());
+	}
+	
+	/**
+	 * Splits some absolute paths into their steps.
+	 * @param paths the paths
+	 * @return the steps of each path
+	 */
+	private static List<List<String>> splitPaths(List<String> paths){
+		List<List<String>> pathsSteps = new ArrayList<>(paths.size());
+		for(String path: paths){
+			pathsSteps.add(Splitter.on('/').omitEmptyStrings().splitToList(path));
+		}
+		return pathsSteps;
 	}
 	
 //	
@@ -287,14 +473,26 @@ public class TypesExtractorImpl implements TypesExtractor {
 //		
 //	}
 	
+	/**
+	 * Returns the number of input documents that will be traversed by {@link TypesExtractorImpl#getInitalSchema()}. 
+	 * Subclasses which do not work with in-memory {@link Document} objects must override it.
+	 * @return the number of input documents
+	 */
+	protected int getInputDocumentsCount(){
+		return xmlDocuments.size()+documentCopiesCount;
+	}
+	
 	/**
 	 * Method that clears all the data structures prior to the extraction of an initial schema. 
 	 */
-	private void clearAll(){
+	protected void clearAll(){
 		this.simpleTypeInferencersOfComplexTypes.clear();
 		this.attributeListInferencers.clear();
 		this.automatons.clear();
-		this.statistics = new Statistics(xmlDocuments.size());
+		this.symbolTable = new SymbolTable();
+		this.statistics = new Statistics(getInputDocumentsCount());
+		this.statistics.setDistinctValuesSketching(configuration.getDistinctValuesSketchPrecision(), configuration.getMaxNumberOfDistinctValuesToEnum());
+		this.statistics.setValuesTopK(configuration.getValuesTopK());
 		
 		this.simpleTypes.clear();
 		this.complexTypes.clear();
@@ -303,6 +501,242 @@ public class TypesExtractorImpl implements TypesExtractor {
 		this.prefixNamespaceMapping.clear();
 		this.automatons.clear();
 		this.solvedNamespaceToPrefixMapping=null;
+		this.pendingChildWords.clear();
+		this.pendingChildWordsSymbols=0;
+		this.pendingDocumentCopies.clear();
+		this.documentMultiplicity=1;
+		this.solvingNamespacesWhileExtracting=false;
+		this.usedNamespaceURIs.clear();
+		this.usedPrefixChanged=false;
+		this.documentIndexOffset=0;
+		if(resumedState!=null)
+			restoreState();
+		clearPathTrie();
+	}
+	
+	/**
+	 * Loads the resumed learner state into the (already cleared) data structures, so that the input documents are 
+	 * extracted after the documents of that state.
+	 * @throws InputReadingException if the state cannot be read
+	 */
+	private void restoreState(){
+		adoptState(readState(resumedState, 0));
+	}
+	
+	/**
+	 * Reads a saved learner state.
+	 * @param savedState the saved learner state
+	 * @param stateDocumentIndexOffset the number of documents which precede the documents of the state
+	 * @return the snapshot of the state
+	 * @throws InputReadingException if the state cannot be read
+	 */
+	private LearnerStateSnapshot readState(ByteSource savedState, int stateDocumentIndexOffset){
+		try(InputStream stateStream = savedState.openBufferedStream()){
+			return LearnerStateSnapshot.read(stateStream, configuration, inferencersFactory, stateDocumentIndexOffset);
+		} catch (IOException e) {
+			throw new InputReadingException("Error while reading the saved learner state",e);
+		}
+	}
+	
+	/**
+	 * Loads a learner state into the (already cleared) data structures, so that the input documents are 
+	 * extracted after the documents of that state.
+	 * @param snapshot the snapshot of the state
+	 */
+	private void adoptState(LearnerStateSnapshot snapshot){
+		this.statistics = snapshot.getStatistics();
+		this.documentIndexOffset = statistics.getInputDocumentsCount();
+		this.statistics.increaseInputDocumentsCount(documentIndexOffset+getInputDocumentsCount());
+		this.prefixNamespaceMapping.putAll(snapshot.getPrefixNamespaceMapping());
+		this.solvedNamespaceToPrefixMapping = snapshot.getSolvedNamespaceToPrefixMapping();
+		this.complexTypes.putAll(snapshot.getComplexTypes());
+		this.elements.putAll(snapshot.getElements());
+		this.automatons.putAll(snapshot.getAutomatons());
+		this.simpleTypeInferencersOfComplexTypes.putAll(snapshot.getSimpleTypeInferencers());
+		this.attributeListInferencers.putAll(snapshot.getAttributeListInferencers());
+	}
+	
+	/**
+	 * Sets a learner state saved by a previous extraction (via {@link TypesExtractorImpl#saveState(OutputStream)}), 
+	 * so that {@link TypesExtractorImpl#getInitalSchema()} continues learning from it instead of starting from scratch. 
+	 * The input documents of this extractor are considered to follow the documents of the previous extraction, so the 
+	 * initial schema is the same as if all of them had been extracted at once. The inference configuration must be 
+	 * the same used by the previous extraction.
+	 * @param resumedState the saved learner state or null to start from scratch
+	 */
+	public void setResumedState(ByteSource resumedState) {
+		this.resumedState = resumedState;
+	}
+	
+	/**
+	 * Writes a compact binary snapshot of the state learned from the input documents (and the resumed state, if any), 
+	 * so that a later extraction may resume from it via {@link TypesExtractorImpl#setResumedState(ByteSource)}. 
+	 * It must be called after {@link TypesExtractorImpl#getInitalSchema()} and before the initial schema is merged, 
+	 * because the following inference steps modify the structures shared with the schema.
+	 * @param outputStream the stream where the state is written (it is not closed)
+	 * @throws IOException if the state cannot be written
+	 * @throws IllegalStateException if nothing has been extracted yet or the inferencers are not the default implementations
+	 */
+	public void saveState(OutputStream outputStream) throws IOException {
+		checkNotNull(outputStream,"'outputStream' must not be null");
+		checkState(solvedNamespaceToPrefixMapping!=null,"The state cannot be saved before the extraction");
+		learnPendingChildWords();
+		registerPendingDocumentCopies();
+		LearnerStateSnapshot snapshot = new LearnerStateSnapshot(prefixNamespaceMapping, solvedNamespaceToPrefixMapping, complexTypes, 
+				elements, automatons, simpleTypeInferencersOfComplexTypes, attributeListInferencers, statistics);
+		snapshot.write(outputStream, configuration);
+	}
+	
+	/**
+	 * Merges a learner state saved by another extraction (via {@link TypesExtractorImpl#saveState(OutputStream)}) into the 
+	 * state of this extractor, so that the result is the same as if this extractor had also extracted the documents of 
+	 * the saved state after its own ones. Merging states is associative, so many saved states may be combined in any grouping. 
+	 * The prefixes of the namespace URIs must not conflict, because type names and paths have already been built with them.
+	 * @param savedState the saved learner state
+	 * @throws InputReadingException if the state cannot be read
+	 * @throws IllegalArgumentException if a namespace URI is bound to different prefixes or a prefix to different namespace URIs
+	 */
+	protected void mergeSavedState(ByteSource savedState){
+		checkNotNull(savedState,"'savedState' must not be null");
+		int previousDocumentsCount = statistics.getInputDocumentsCount();
+		TypesExtractorImpl other = new TypesExtractorImpl(Collections.<Document>emptyList(), configuration, inferencersFactory);
+		other.adoptState(readState(savedState, previousDocumentsCount));
+		mergeKnownNamespaceToPrefixMappings(other);
+		if(solvedNamespaceToPrefixMapping==null){
+			solvedNamespaceToPrefixMapping=new TreeMap<>(other.solvedNamespaceToPrefixMapping);
+		} else {
+			for(Map.Entry<String, String> otherMapping: other.solvedNamespaceToPrefixMapping.entrySet()){
+				String prefix = solvedNamespaceToPrefixMapping.get(otherMapping.getKey());
+				if(prefix==null && !solvedNamespaceToPrefixMapping.containsValue(otherMapping.getValue())){
+					solvedNamespaceToPrefixMapping.put(otherMapping.getKey(), otherMapping.getValue());
+				} else {
+					checkArgument(otherMapping.getValue().equals(prefix), 
+							"The saved states bind the namespace URI '%s' or the prefix '%s' differently", otherMapping.getKey(), otherMapping.getValue());
+				}
+			}
+		}
+		statistics.increaseInputDocumentsCount(other.statistics.getInputDocumentsCount());
+		mergePartialState(other);
+		//Entries of the previous documents are not as long as the merged ones yet
+		statistics.ensureEntriesSize();
+	}
+	
+	/**
+	 * @return the number of documents which precede the ones extracted by this extractor
+	 */
+	protected int getDocumentIndexOffset() {
+		return documentIndexOffset;
+	}
+	
+	/**
+	 * Sets the number of documents which precede the ones extracted by this extractor, so that a partial extractor 
+	 * numbers its documents as the extractor which combines the partial states. It must be called before any element 
+	 * is extracted.
+	 * @param documentIndexOffset the number of preceding documents
+	 */
+	protected void setDocumentIndexOffset(int documentIndexOffset) {
+		checkArgument(documentIndexOffset>=0,"'documentIndexOffset' must not be negative");
+		this.documentIndexOffset = documentIndexOffset;
+	}
+	
+	/**
+	 * Sets how many identical input documents each in-memory input document stands for, when the identical documents 
+	 * have been removed from the input documents. Each document is extracted once, but its values and children sequences 
+	 * are learned as many times as its multiplicity and its information kept per document at the statistics is copied 
+	 * to the following document indexes (after all the input documents), so the result is the same as if the identical 
+	 * documents had been extracted too, except for the order of the documents at the statistics. 
+	 * It must be called before the extraction.
+	 * @param documentMultiplicities the multiplicity of each input document (in the same order)
+	 * @throws IllegalArgumentException if there is not a multiplicity per input document or any of them is not positive
+	 */
+	public void setDocumentMultiplicities(List<Integer> documentMultiplicities){
+		checkNotNull(documentMultiplicities,"'documentMultiplicities' must not be null");
+		checkArgument(documentMultiplicities.size()==xmlDocuments.size(),"There must be a multiplicity per input document");
+		this.documentMultiplicities = new int[documentMultiplicities.size()];
+		this.firstCopyIndexes = new int[documentMultiplicities.size()];
+		int nextCopyIndex = xmlDocuments.size();
+		for(int i=0;i<this.documentMultiplicities.length;i++){
+			int multiplicity = documentMultiplicities.get(i);
+			checkArgument(multiplicity>0,"Multiplicities must be positive");
+			this.documentMultiplicities[i] = multiplicity;
+			this.firstCopyIndexes[i] = nextCopyIndex;
+			nextCopyIndex+=multiplicity-1;
+		}
+		this.documentCopiesCount = nextCopyIndex-xmlDocuments.size();
+		if(statistics.getInputDocumentsCount()<documentIndexOffset+getInputDocumentsCount())
+			statistics.increaseInputDocumentsCount(documentIndexOffset+getInputDocumentsCount());
+	}
+	
+	/**
+	 * Uses the same multiplicities of the in-memory input documents as another extractor of the same documents 
+	 * (see {@link TypesExtractorImpl#setDocumentMultiplicities(List)}).
+	 * @param other the other extractor
+	 */
+	protected void adoptDocumentMultiplicities(TypesExtractorImpl other){
+		if(other.documentMultiplicities==null)
+			return;
+		checkArgument(other.xmlDocuments.size()==xmlDocuments.size(),"Both extractors must have the same input documents");
+		this.documentMultiplicities = other.documentMultiplicities;
+		this.firstCopyIndexes = other.firstCopyIndexes;
+		this.documentCopiesCount = other.documentCopiesCount;
+		if(statistics.getInputDocumentsCount()<documentIndexOffset+getInputDocumentsCount())
+			statistics.increaseInputDocumentsCount(documentIndexOffset+getInputDocumentsCount());
+	}
+	
+	/**
+	 * Sets how many identical input documents the documents extracted from now on stand for, until their copies are 
+	 * registered via {@link TypesExtractorImpl#registerDocumentCopies(int, int, int)}. Their values and children sequences 
+	 * are learned that many times.
+	 * @param documentMultiplicity the multiplicity of the documents
+	 * @throws IllegalArgumentException if the multiplicity is not positive
+	 */
+	protected void setDocumentMultiplicity(int documentMultiplicity){
+		checkArgument(documentMultiplicity>0,"'documentMultiplicity' must be positive");
+		this.documentMultiplicity = documentMultiplicity;
+	}
+	
+	/**
+	 * Registers that a range of extracted documents stands for as many identical ranges as the current document 
+	 * multiplicity, which is then reset to 1. The information of the range kept per document at the statistics will 
+	 * be copied to the documents which follow the given index, once all of it has been registered.
+	 * @param fromIndex the index of the first document of the range (inclusive)
+	 * @param toIndex the index of the last document of the range (exclusive)
+	 * @param firstCopyIndex the index of the first document of the first copy (it must not be less than toIndex)
+	 * @return the index of the document which follows the copies
+	 */
+	protected int registerDocumentCopies(int fromIndex, int toIndex, int firstCopyIndex){
+		checkArgument(0<=fromIndex && fromIndex<=toIndex,"Invalid range of documents to copy");
+		checkArgument(firstCopyIndex>=toIndex,"'firstCopyIndex' must not be less than 'toIndex'");
+		int copies = documentMultiplicity-1;
+		documentMultiplicity = 1;
+		if(copies>0 && toIndex>fromIndex){
+			pendingDocumentCopies.add(new int[]{documentIndexOffset+fromIndex, documentIndexOffset+toIndex, 
+					documentIndexOffset+firstCopyIndex, copies});
+		}
+		return firstCopyIndex+copies*(toIndex-fromIndex);
+	}
+	
+	/**
+	 * Copies the information of the documents which stand for several identical ones at the statistics. 
+	 * It must be called once all the information of those documents has been registered.
+	 */
+	private void registerPendingDocumentCopies(){
+		for(int[] documentCopies: pendingDocumentCopies){
+			statistics.copyDocuments(documentCopies[0], documentCopies[1], documentCopies[2], documentCopies[3]);
+		}
+		pendingDocumentCopies.clear();
+	}
+	
+	/**
+	 * Registers how many documents have been extracted when their number was not known before the extraction, 
+	 * so that the statistics have information for all of them.
+	 * @param extractedDocumentsCount the number of documents extracted by this extractor
+	 */
+	protected void registerExtractedDocumentsCount(int extractedDocumentsCount){
+		int inputDocumentsCount = documentIndexOffset+extractedDocumentsCount;
+		if(inputDocumentsCount>statistics.getInputDocumentsCount()){
+			statistics.increaseInputDocumentsCount(inputDocumentsCount);
+		}
 	}
 	
 	/**
@@ -311,36 +745,223 @@ public class TypesExtractorImpl implements TypesExtractor {
 	 * to each namespace URI.
 	 */
 	private void fillKnownNamespaceToPrefixMappings(){
+		fillKnownNamespaceToPrefixMappings(0, xmlDocuments.size());
+	}
+	
+	/**
+	 * This method does the same as {@link TypesExtractorImpl#fillKnownNamespaceToPrefixMappings()}, but only with 
+	 * the input documents within a range of indexes.
+	 * @param fromIndex the index of the first document (inclusive)
+	 * @param toIndex the index of the last document (exclusive)
+	 */
+	protected void fillKnownNamespaceToPrefixMappings(int fromIndex, int toIndex){
+		for(int i=fromIndex;i<toIndex;i++){
+			fillKnownNamespaceToPrefixMappings(xmlDocuments.get(i));
+		}
+	}
+	
+	/**
+	 * This method does the same as {@link TypesExtractorImpl#fillKnownNamespaceToPrefixMappings()}, but only with 
+	 * a single document, which does not need to be at the list of input documents.
+	 * @param document the document
+	 */
+	protected void fillKnownNamespaceToPrefixMappings(Document document){
 		Filter<Element> elementFilter = Filters.element();
-		for(int i=0;i<xmlDocuments.size();i++){
-			for(Element element:xmlDocuments.get(i).getDescendants(elementFilter)){
-				for(Namespace namespace:element.getNamespacesInScope()){
-					//We do not add XSI to the known namespaces 
-					if(namespace.getURI().equalsIgnoreCase(XSI_NAMESPACE_URI))
-						continue;
-					String uri=namespace.getURI();
-					String prefix=namespace.getPrefix();
-					SortedSet<String> currentPrefixes = prefixNamespaceMapping.get(uri);
-					if(currentPrefixes==null){
-						currentPrefixes=new TreeSet<String>();
-						prefixNamespaceMapping.put(uri, currentPrefixes);
-					}
-					currentPrefixes.add(prefix);
-				}
-				//If the element belongs to the empty namespace (empty string) with no prefix, we must add 
-				//this to the prefix-namespace mapping explicitly
-				if(element.getNamespacePrefix().equals("") && element.getNamespaceURI().equals("")){
-					String uri="";
-					String prefix="";
-					SortedSet<String> currentPrefixes = prefixNamespaceMapping.get(uri);
-					if(currentPrefixes==null){
-						currentPrefixes=new TreeSet<>();
-						prefixNamespaceMapping.put(uri, currentPrefixes);
-					}
-					currentPrefixes.add(prefix);
-				}
+		for(Element element:document.getDescendants(elementFilter)){
+			registerKnownNamespaceToPrefixMappings(element);
+		}
+	}
+	
+	/**
+	 * Registers the namespace URI to prefix bindings introduced by an element. They are the same bindings that 
+	 * {@link Element#getNamespacesInScope()} returns but those inherited from its ancestors, which are registered 
+	 * when the ancestors are. This way, no list is built for each element and the bindings may be registered while the 
+	 * element is traversed.
+	 * @param element the element
+	 */
+	protected void registerKnownNamespaceToPrefixMappings(Element element){
+		String elementPrefix = element.getNamespacePrefix();
+		registerKnownNamespaceToPrefixMapping(element.getNamespaceURI(), elementPrefix);
+		boolean unprefixedNamespaceFound = elementPrefix.isEmpty();
+		List<Namespace> additionalNamespaces = element.getAdditionalNamespaces();
+		for(int i=0;i<additionalNamespaces.size();i++){
+			Namespace namespace = additionalNamespaces.get(i);
+			if(namespace.getPrefix().equals(elementPrefix))
+				continue;
+			registerKnownNamespaceToPrefixMapping(namespace.getURI(), namespace.getPrefix());
+			unprefixedNamespaceFound|=namespace.getPrefix().isEmpty();
+		}
+		if(element.hasAttributes()){
+			//Like JDOM does, the namespace of an attribute is in scope if its prefix is not bound by the element 
+			//(so an unprefixed attribute of a prefixed element brings the empty namespace into scope)
+			List<Attribute> attributes = element.getAttributes();
+			for(int i=0;i<attributes.size();i++){
+				String prefix = attributes.get(i).getNamespacePrefix();
+				if(prefix.equals(elementPrefix)||isPrefixDeclared(additionalNamespaces, prefix))
+					continue;
+				registerKnownNamespaceToPrefixMapping(attributes.get(i).getNamespaceURI(), prefix);
+				unprefixedNamespaceFound|=prefix.isEmpty();
 			}
 		}
+		if(element.getParentElement()==null){
+			registerKnownNamespaceToPrefixMapping(Namespace.XML_NAMESPACE.getURI(), Namespace.XML_NAMESPACE.getPrefix());
+			//The empty namespace is in scope at the root unless the unprefixed namespace is bound to another URI
+			if(!unprefixedNamespaceFound)
+				registerKnownNamespaceToPrefixMapping("", "");
+		}
+	}
+	
+	/**
+	 * Checks whether a prefix is declared by any of the given namespaces.
+	 * @param namespaces the namespaces
+	 * @param prefix the prefix
+	 * @return true if any namespace has that prefix
+	 */
+	private static boolean isPrefixDeclared(List<Namespace> namespaces, String prefix){
+		for(int i=0;i<namespaces.size();i++){
+			if(namespaces.get(i).getPrefix().equals(prefix))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds a namespace URI to prefix binding found at the input documents to the map between namespace URIs and 
+	 * their known prefixes. Bindings of the XSI namespace are ignored.
+	 * @param uri the namespace URI
+	 * @param prefix the prefix bound to it
+	 */
+	protected void registerKnownNamespaceToPrefixMapping(String uri, String prefix){
+		//We do not add XSI to the known namespaces 
+		if(uri.equalsIgnoreCase(XSI_NAMESPACE_URI))
+			return;
+		SortedSet<String> currentPrefixes = prefixNamespaceMapping.get(uri);
+		if(currentPrefixes==null){
+			currentPrefixes=new TreeSet<String>();
+			prefixNamespaceMapping.put(uri, currentPrefixes);
+		}
+		if(currentPrefixes.add(prefix) && solvingNamespacesWhileExtracting){
+			solveNamespaceToPrefixMappingsWhileExtracting();
+		}
+	}
+	
+	/**
+	 * Starts solving the namespace URI to prefix mappings while the documents are extracted, so that they do not need 
+	 * to be traversed once to find the mappings and again to extract them. The mappings are solved again whenever a new 
+	 * binding is found. If that changes the prefix of a namespace URI which has already been used to build paths, 
+	 * {@link TypesExtractorImpl#getUsedPrefixChanged()} becomes true and the extraction must be done again 
+	 * with the mappings solved in advance.<br/>
+	 * It must be called after {@link TypesExtractorImpl#clearAll()} and before any element is extracted, and only if no 
+	 * solved mappings have been restored.
+	 */
+	protected void startSolvingNamespacesWhileExtracting(){
+		checkState(solvedNamespaceToPrefixMapping==null,"The namespace URI to prefix mappings have already been solved");
+		solvedNamespaceToPrefixMapping=new TreeMap<>();
+		usedNamespaceURIs.clear();
+		usedPrefixChanged=false;
+		solvingNamespacesWhileExtracting=true;
+		clearPathTrie();
+	}
+	
+	/**
+	 * Stops solving the namespace URI to prefix mappings while the documents are extracted.
+	 * @return true if the extracted information is valid (no prefix used to build paths has changed), false if the 
+	 * extraction must be done again
+	 */
+	protected boolean finishSolvingNamespacesWhileExtracting(){
+		checkState(solvingNamespacesWhileExtracting,"The namespace URI to prefix mappings are not being solved while extracting");
+		solvingNamespacesWhileExtracting=false;
+		usedNamespaceURIs.clear();
+		return !usedPrefixChanged;
+	}
+	
+	/**
+	 * Solves again the known namespace URI to prefix mappings while the documents are extracted. The solved mappings 
+	 * map is updated in place because the attribute list inferencers already created share it. Prefixes of namespace 
+	 * URIs already used to build paths are kept, so the extraction may go on until it finishes or is restarted.
+	 */
+	private void solveNamespaceToPrefixMappingsWhileExtracting(){
+		NavigableMap<String,String> newSolvedNamespaceToPrefixMapping = Schema.solveMappings(prefixNamespaceMapping);
+		for(Map.Entry<String, String> newMapping: newSolvedNamespaceToPrefixMapping.entrySet()){
+			String uri = newMapping.getKey();
+			if(usedNamespaceURIs.contains(uri) && !newMapping.getValue().equals(solvedNamespaceToPrefixMapping.get(uri))){
+				usedPrefixChanged=true;
+				continue;
+			}
+			solvedNamespaceToPrefixMapping.put(uri, newMapping.getValue());
+		}
+	}
+	
+	/**
+	 * @return whether the solved prefix of a namespace URI has changed after being used to build paths while solving 
+	 * the mappings during the extraction, so that the extraction must be done again
+	 */
+	protected boolean getUsedPrefixChanged(){
+		return usedPrefixChanged;
+	}
+	
+	/**
+	 * @return whether the namespace URI to prefix mappings are being solved while the documents are extracted
+	 */
+	protected boolean getSolvingNamespacesWhileExtracting(){
+		return solvingNamespacesWhileExtracting;
+	}
+	
+	/**
+	 * Adds all the namespace URI to prefix bindings known by another extractor to the ones known by this extractor.
+	 * @param other the other extractor
+	 */
+	protected void mergeKnownNamespaceToPrefixMappings(TypesExtractorImpl other){
+		for(String uri: other.prefixNamespaceMapping.keySet()){
+			for(String prefix: other.prefixNamespaceMapping.get(uri)){
+				registerKnownNamespaceToPrefixMapping(uri, prefix);
+			}
+		}
+	}
+	
+	/**
+	 * Solves the known namespace URI to prefix mappings, so that the prefix of each namespace URI at the 
+	 * generated XSDs is known. It must be called once all the mappings have been registered and before any 
+	 * element is extracted.
+	 */
+	protected void solveNamespaceToPrefixMappings(){
+		addSolvedNamespaceToPrefixMappings(Schema.solveMappings(prefixNamespaceMapping));
+	}
+	
+	/**
+	 * Sets the solved namespace URI to prefix mappings or, if the extraction has resumed from a saved state, adds 
+	 * the mappings of the namespace URIs which were not known yet. The mappings of the saved state are kept because 
+	 * type names and paths depend on them, so a new namespace URI whose prefix is already bound gets a numbered one.
+	 * @param newSolvedNamespaceToPrefixMapping the solved mappings
+	 */
+	private void addSolvedNamespaceToPrefixMappings(NavigableMap<String, String> newSolvedNamespaceToPrefixMapping){
+		clearPathTrie();
+		if(solvedNamespaceToPrefixMapping==null){
+			solvedNamespaceToPrefixMapping=newSolvedNamespaceToPrefixMapping;
+			return;
+		}
+		//The same map object is kept, because the restored attribute list inferencers share it
+		for(Map.Entry<String, String> newMapping: newSolvedNamespaceToPrefixMapping.entrySet()){
+			if(solvedNamespaceToPrefixMapping.containsKey(newMapping.getKey()))
+				continue;
+			String prefix = newMapping.getValue();
+			if(solvedNamespaceToPrefixMapping.containsValue(prefix)){
+				int i;
+				for(i=1;solvedNamespaceToPrefixMapping.containsValue(prefix+i)||newSolvedNamespaceToPrefixMapping.containsValue(prefix+i);i++);
+				prefix=prefix+i;
+			}
+			solvedNamespaceToPrefixMapping.put(newMapping.getKey(), prefix);
+		}
+	}
+	
+	/**
+	 * Sets the solved namespace URI to prefix mappings, so that an extractor which only extracts some of the input 
+	 * documents uses the mappings solved from all of them. It must be called before any element is extracted.
+	 * @param solvedNamespaceToPrefixMapping the solved mappings
+	 */
+	protected void setSolvedNamespaceToPrefixMapping(NavigableMap<String, String> solvedNamespaceToPrefixMapping){
+		checkNotNull(solvedNamespaceToPrefixMapping,"'solvedNamespaceToPrefixMapping' must not be null");
+		addSolvedNamespaceToPrefixMappings(solvedNamespaceToPrefixMapping);
 	}
 	
 	/**
@@ -349,150 +970,726 @@ public class TypesExtractorImpl implements TypesExtractor {
 	@Override
 	public Schema getInitalSchema() {
 		clearAll();
+		if(solvedNamespaceToPrefixMapping==null){
+			//Prefixes are solved while extracting, so each document is usually traversed only once
+			startSolvingNamespacesWhileExtracting();
+			for(int i=0;i<xmlDocuments.size()&&!usedPrefixChanged;i++){
+				extractDocuments(i, i+1);
+			}
+			if(finishSolvingNamespacesWhileExtracting())
+				return buildInitialSchema();
+			//A prefix used to build some paths has changed, so everything is extracted again with the mappings solved in advance
+			clearAll();
+		}
 		fillKnownNamespaceToPrefixMappings();
-		solvedNamespaceToPrefixMapping=Schema.solveMappings(prefixNamespaceMapping);
-		for(int i=0;i<xmlDocuments.size();i++){
-			traverseElement(i,xmlDocuments.get(i).getRootElement(), "");
+		solveNamespaceToPrefixMappings();
+		extractDocuments(0, xmlDocuments.size());
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Extracts the input documents within a range of indexes. Namespace URI to prefix mappings must have been solved 
+	 * previously.
+	 * @param fromIndex the index of the first document (inclusive)
+	 * @param toIndex the index of the last document (exclusive)
+	 */
+	protected void extractDocuments(int fromIndex, int toIndex){
+		for(int i=fromIndex;i<toIndex;i++){
+			if(documentMultiplicities!=null)
+				setDocumentMultiplicity(documentMultiplicities[i]);
+			traverseDocument(i,xmlDocuments.get(i).getRootElement());
+			if(documentMultiplicities!=null)
+				registerDocumentCopies(i, i+1, firstCopyIndexes[i]);
+		}
+	}
+	
+	/**
+	 * Extracts a single document which does not need to be at the list of input documents (i.e. because it has been 
+	 * parsed while the previous documents were extracted). Namespace URI to prefix mappings must have been solved 
+	 * previously or they must be being solved while extracting.
+	 * @param documentIndex index of the document
+	 * @param document the document
+	 */
+	protected void extractDocument(int documentIndex, Document document){
+		traverseDocument(documentIndex, document.getRootElement());
+	}
+	
+	/**
+	 * Merges the information extracted by another extractor into this one, so that the result is the same as if 
+	 * this extractor had also extracted the documents extracted by the other one (assuming that all the documents extracted 
+	 * by this extractor precede the ones extracted by the other extractor).<br/>
+	 * Both extractors must have extracted disjoint sets of documents, using the same document indexes numbering and the same 
+	 * solved namespace URI to prefix mappings. Complex types, elements and attributes of the other extractor are replaced by 
+	 * the equivalent ones of this extractor, or adopted by this extractor if they were not known, so the other extractor 
+	 * must not be used after calling this method.
+	 * @param other the other extractor
+	 */
+	protected void mergePartialState(TypesExtractorImpl other){
+		checkNotNull(other,"'other' must not be null");
+		learnPendingChildWords();
+		other.learnPendingChildWords();
+		registerPendingDocumentCopies();
+		other.registerPendingDocumentCopies();
+		//Complex types (they are equal if they have the same name)
+		Map<ComplexType,ComplexType> complexTypeMapping = new HashMap<>(other.complexTypes.size());
+		for(ComplexType otherComplexType: other.complexTypes.values()){
+			ComplexType complexType = complexTypes.get(otherComplexType.getName());
+			if(complexType==null){
+				complexType=otherComplexType;
+				complexTypes.put(complexType.getName(), complexType);
+			}
+			else{
+				complexType.addAllTheSourceNodeNamespaceAndNames(otherComplexType);
+				complexType.getComments().addAll(otherComplexType.getComments());
+				complexType.setContentSkipped(complexType.isContentSkipped()||otherComplexType.isContentSkipped());
+			}
+			complexTypeMapping.put(complexType, complexType);
+		}
+		//Elements
+		for(Table.Cell<String, String, SchemaElement> otherCell: other.elements.cellSet()){
+			SchemaElement otherSchemaElement = otherCell.getValue();
+			SchemaElement schemaElement = elements.get(otherCell.getRowKey(), otherCell.getColumnKey());
+			if(schemaElement==null){
+				otherSchemaElement.setType(complexTypes.get(otherSchemaElement.getType().getName()));
+				elements.put(otherCell.getRowKey(), otherCell.getColumnKey(), otherSchemaElement);
+			}
+			else{
+				schemaElement.setValidRoot(schemaElement.isValidRoot()||otherSchemaElement.isValidRoot());
+			}
+		}
+		//SchemaElement objects of both extractors are equal if they have the same name, namespace and complex type name
+		Map<SchemaElement,SchemaElement> elementMapping = new HashMap<>(elements.size());
+		for(SchemaElement schemaElement: elements.values()){
+			if(!elementMapping.containsKey(schemaElement))
+				elementMapping.put(schemaElement, schemaElement);
+		}
+		statistics.addAll(other.statistics, complexTypeMapping, elementMapping);
+		//Automatons
+		for(String complexTypeName: other.automatons.keySet()){
+			getOrCreateAutomaton(complexTypeName).addAll(other.automatons.get(complexTypeName), elementMapping);
 		}
+		//Inferencers
+		for(String complexTypeName: other.simpleTypeInferencersOfComplexTypes.keySet()){
+			SimpleTypeInferencer simpleTypeInferencer = simpleTypeInferencersOfComplexTypes.get(complexTypeName);
+			if(simpleTypeInferencer==null){
+				simpleTypeInferencer=inferencersFactory.getSimpleTypeInferencerInstance(complexTypeName, configuration);
+				simpleTypeInferencersOfComplexTypes.put(complexTypeName, simpleTypeInferencer);
+			}
+			simpleTypeInferencer.merge(other.simpleTypeInferencersOfComplexTypes.get(complexTypeName));
+		}
+		for(String complexTypeName: other.attributeListInferencers.keySet()){
+			AttributeListInferencer attributeListInferencer = attributeListInferencers.get(complexTypeName);
+			if(attributeListInferencer==null){
+				attributeListInferencer=inferencersFactory.getAttributeListInferencerInstance(complexTypeName, configuration, solvedNamespaceToPrefixMapping, statistics);
+				attributeListInferencers.put(complexTypeName, attributeListInferencer);
+			}
+			attributeListInferencer.merge(other.attributeListInferencers.get(complexTypeName));
+		}
+		clearPathTrie();
+	}
+	
+	/**
+	 * Builds the initial schema from all the information gathered during the extraction.
+	 * @return the initial schema
+	 */
+	protected Schema buildInitialSchema(){
+		if(documentIndexOffset>0){
+			//Entries learned by partial extractors after resuming may not cover all the documents yet
+			statistics.ensureEntriesSize();
+		}
+		learnPendingChildWords();
+		registerPendingDocumentCopies();
 		fillSchemaStructures();
 		return new Schema(new TreeMap<>(prefixNamespaceMapping),elements,attributes,complexTypes,simpleTypes,statistics);
 	}
 	
 	/**
-	 * Recursive method that traverses an element to extract all the possible information from it.
-	 * It is recursive because it calls itself for each child of the element (obviously, infinite recursion 
-	 * is not possible as there are not, or there should not be, parent-child loops).  
+	 * Traverses all the elements of a document to extract all the possible information from them.
+	 * The traversal is iterative: an explicit stack of the open elements is kept instead of recursing into each child, 
+	 * so the depth of the documents is not limited by the size of the call stack. The stack is reused for all the documents. 
 	 * The index of the current document is necessary in order to add well some information to 
 	 * the statistics.
+	 * <br/>
+	 * If shape sharing is enabled, the structure of each subtree is hash-consed at its path (see {@link Shape}), so the 
+	 * structure of each distinct subtree is learned once per document, with its number of occurrences, after the 
+	 * traversal. The values of the elements and attributes are learned while traversing, as usual.
 	 * @param documentIndex index of current document
-	 * @param element the element to traverse (as a JDOM2 {@link Element})
-	 * @param enclosingComplexType the complex type which will contain the current element
+	 * @param rootElement the root element of the document (as a JDOM2 {@link Element})
 	 */
-	private void traverseElement(int documentIndex, Element element, String enclosingComplexType){
+	private void traverseDocument(int documentIndex, Element rootElement){
+		List<Element> openElements = traversalOpenElements;
+		List<ElementFrame> openFrames = traversalOpenFrames;
+		sharingShapes = configuration.getShapeSharing();
+		ElementFrame rootFrame = startTraversedElement(documentIndex, rootElement, null);
+		if(rootFrame==null){
+			sharingShapes = false;
+			return;
+		}
+		if(rootFrame.isContentSkipped()){
+			endTraversedElement(rootFrame, rootElement, "");
+			learnDocumentShapes(documentIndex, rootFrame.shape);
+			return;
+		}
+		openElements.add(rootElement);
+		openFrames.add(rootFrame);
+		traversalNextContentIndexes[0]=0;
+		int depth = 1;
+		while(depth>0){
+			Element element = openElements.get(depth-1);
+			ElementFrame frame = openFrames.get(depth-1);
+			List<Content> contents = element.getContent();
+			int contentIndex = traversalNextContentIndexes[depth-1];
+			//Comments are processed until the next child is found (only the comments which are direct children of the element)
+			Element child = null;
+			while(child==null && contentIndex<contents.size()){
+				Content content = contents.get(contentIndex++);
+				if(content instanceof Element)
+					child = (Element) content;
+				else if(content instanceof Comment)
+					registerComment(frame, ((Comment) content).getText());
+			}
+			traversalNextContentIndexes[depth-1]=contentIndex;
+			if(child!=null){
+				ElementFrame childFrame = startTraversedElement(documentIndex, child, frame);
+				if(childFrame==null){
+					registerChild(frame, null);
+					continue;
+				}
+				if(childFrame.isContentSkipped()){
+					endTraversedElement(childFrame, child, "");
+					registerTraversedChild(frame, childFrame);
+					continue;
+				}
+				openElements.add(child);
+				openFrames.add(childFrame);
+				if(depth==traversalNextContentIndexes.length)
+					traversalNextContentIndexes=Arrays.copyOf(traversalNextContentIndexes, depth*2);
+				traversalNextContentIndexes[depth]=0;
+				depth++;
+			} else {
+				depth--;
+				openElements.remove(depth);
+				openFrames.remove(depth);
+				endTraversedElement(frame, element, element.getText());
+				if(depth>0)
+					registerTraversedChild(openFrames.get(depth-1), frame);
+			}
+		}
+		learnDocumentShapes(documentIndex, rootFrame.shape);
+	}
+	
+	/**
+	 * Starts the extraction of an element found while traversing a document, registering its namespaces if they are 
+	 * being solved while extracting.
+	 * @param documentIndex index of current document
+	 * @param element the element
+	 * @param parentFrame the state of the extraction of the parent element (null if the element is the root)
+	 * @return the state of the extraction of the element or null if it has been ignored
+	 */
+	private ElementFrame startTraversedElement(int documentIndex, Element element, ElementFrame parentFrame){
+		if(solvingNamespacesWhileExtracting)
+			registerKnownNamespaceToPrefixMappings(element);
+		ElementFrame frame = startElement(documentIndex, element, parentFrame);
+		//The namespaces of ignored elements are known anyway, as if they had been found before the extraction
+		if(frame==null && solvingNamespacesWhileExtracting){
+			for(Element descendant: element.getDescendants(Filters.element())){
+				registerKnownNamespaceToPrefixMappings(descendant);
+			}
+		}
+		//The attribute names (and prefixes, which are used at their paths) start the key of the shape
+		if(frame!=null && sharingShapes && !frame.isContentSkipped()){
+			for(Attribute attribute: element.getAttributes()){
+				if(attribute.getNamespaceURI().equals(XSI_NAMESPACE_URI))
+					continue;
+				frame.shapeKey.add(symbolTable.getQualifiedNameId(attribute.getNamespaceURI(), attribute.getName()));
+				frame.shapeKey.add(attribute.getNamespacePrefix());
+			}
+		}
+		return frame;
+	}
+	
+	/**
+	 * Finishes the extraction of an element found while traversing a document. If shapes are being shared, 
+	 * the shape of its subtree is found (or created) and kept at its frame.
+	 * @param frame the state of the extraction of the element
+	 * @param element the element
+	 * @param text the text of the element
+	 */
+	private void endTraversedElement(ElementFrame frame, Element element, String text){
+		endElement(frame, text);
+		if(!sharingShapes)
+			return;
+		PathNode pathNode = frame.pathNode;
+		List<Object> key = frame.shapeKey;
+		Shape shape = pathNode.shapes.get(key);
+		if(shape==null){
+			AttributeListShape attributes = null;
+			if(!pathNode.contentSkipped)
+				attributes = ((AttributeListInferencerImpl) pathNode.attributeListInferencer).describeAttributeList(element.getAttributes());
+			shape = new Shape(createdShapesCount++, pathNode, attributes, frame.word, key);
+			pathNode.shapes.put(ImmutableList.copyOf(key), shape);
+			shapesSymbols+=key.size()+1;
+		}
+		if(!shape.pending){
+			shape.pending=true;
+			documentShapes.add(shape);
+		}
+		frame.shape = shape;
+	}
+	
+	/**
+	 * Registers a child of an element found while traversing a document, once the child has finished. If shapes are 
+	 * being shared, the shape of the child is added to the key of the shape of the parent instead of learning the child.
+	 * @param frame the state of the extraction of the parent element
+	 * @param childFrame the state of the extraction of the child
+	 */
+	private void registerTraversedChild(ElementFrame frame, ElementFrame childFrame){
+		if(!sharingShapes){
+			registerChild(frame, childFrame.getSchemaElement());
+			return;
+		}
+		frame.width++;
+		frame.word.add(childFrame.getSchemaElement());
+		frame.shapeKey.add(childFrame.shape);
+	}
+	
+	/**
+	 * Learns the structure of the subtrees of the document which has just been traversed if shapes are being shared: 
+	 * the number of occurrences of each shape is calculated from the root down and then each shape is learned 
+	 * once with that number of occurrences, in creation order. Shapes are discarded after the document if their keys 
+	 * use too much memory.
+	 * @param documentIndex index of the document
+	 * @param rootShape shape of the root element of the document
+	 */
+	private void learnDocumentShapes(int documentIndex, Shape rootShape){
+		if(!sharingShapes)
+			return;
+		sharingShapes = false;
+		int statisticsDocumentIndex = documentIndexOffset+documentIndex;
+		List<Shape> shapes = documentShapes;
+		Collections.sort(shapes, SHAPE_CREATION_COMPARATOR);
+		//Children shapes are always created before their parents
+		rootShape.count = 1;
+		for(int i=shapes.size()-1;i>=0;i--){
+			Shape shape = shapes.get(i);
+			for(int j=0;j<shape.childShapes.length;j++){
+				shape.childShapes[j].count+=shape.count*shape.childShapeCounts[j];
+			}
+		}
+		for(Shape shape: shapes){
+			PathNode pathNode = shape.pathNode;
+			int count = shape.count;
+			statistics.registerElementAtPathCount(pathNode.realPathFiltered, statisticsDocumentIndex, count);
+			for(int j=0;j<shape.children.length;j++){
+				pathNode.complexTypeStatisticsEntry.registerElementCount(shape.children[j], statisticsDocumentIndex, count*shape.childrenCounts[j]);
+			}
+			if(shape.attributes!=null)
+				((AttributeListInferencerImpl) pathNode.attributeListInferencer).learnAttributeListOccurrences(shape.attributes, statisticsDocumentIndex, count);
+			addPendingChildWord(pathNode.childWords, shape.word, count*documentMultiplicity);
+			shape.count = 0;
+			shape.pending = false;
+		}
+		shapes.clear();
+		if(shapesSymbols>=MAX_SHAPES_SYMBOLS)
+			discardShapes(pathTrieRoot);
+	}
+	
+	/**
+	 * Discards the shapes kept at the path trie, so that they do not use too much memory if most of them are different.
+	 * @param rootNode the root of the path trie
+	 */
+	private void discardShapes(PathNode rootNode){
+		List<PathNode> nodes = new ArrayList<>();
+		nodes.add(rootNode);
+		while(!nodes.isEmpty()){
+			PathNode node = nodes.remove(nodes.size()-1);
+			node.shapes.clear();
+			nodes.addAll(node.children.values());
+		}
+		shapesSymbols = 0;
+		createdShapesCount = 0;
+	}
+	
+	/**
+	 * Starts the extraction of an element: it registers its depth, finds (or creates) its complex type and 
+	 * {@link SchemaElement} and learns its attributes. Its children must be registered via 
+	 * {@link TypesExtractorImpl#registerChild(ElementFrame, SchemaElement)} and, after all of them have been 
+	 * extracted, {@link TypesExtractorImpl#endElement(ElementFrame, String)} must be called.
+	 * <br/>
+	 * The path of the element is not calculated again: it is found at the path trie, as a child of the path of its 
+	 * parent, so everything that only depends on the path is calculated once per distinct path. The element only needs 
+	 * to know its ancestors (for the paths of its attributes) and its attributes. Neither its content nor its siblings 
+	 * are needed, which allows to use this method while streaming.
+	 * <br/>
+	 * Frames are reused: once the element has ended, its frame is used for the next element started at the same depth, 
+	 * so it must not be kept after calling {@link TypesExtractorImpl#endElement(ElementFrame, String)}.
+	 * <br/>
+	 * If the content of the element must be skipped (see {@link ElementFrame#isContentSkipped()}), its attributes are not 
+	 * learned and {@link TypesExtractorImpl#endElement(ElementFrame, String)} must be called without registering any children, 
+	 * so its descendants do not need to be read at all.
+	 * @param documentIndex index of current document
+	 * @param element the element whose extraction starts (with its attributes and attached to its ancestors)
+	 * @param parentFrame the state of the extraction of the parent element (null if the element is the root of its document)
+	 * @return an {@link ElementFrame} with the state of the extraction of the element or null if the element must be ignored 
+	 */
+	protected ElementFrame startElement(int documentIndex, Element element, ElementFrame parentFrame){
 		//Elements in the XSI namespace should be ignored
 		if(element.getNamespaceURI().equalsIgnoreCase(XSI_NAMESPACE_URI))
-			return;
-		List<String> realPathUnfiltered=getRealPathOfElementUnfiltered(element, configuration, false, solvedNamespaceToPrefixMapping);
-		String realPathFiltered=filterAndJoinRealPath(realPathUnfiltered);//Path for the statistics
-		List<String> typePathUnfiltered=getRealPathOfElementUnfiltered(element, configuration, false, solvedNamespaceToPrefixMapping);
-		List<String> suitablePath=getSuitablePath(typePathUnfiltered);//Path for type name inferencing
-		//First, we will register the information of width and depth
+			return null;
+		boolean isRoot = parentFrame==null;
+		PathNode pathNode = getPathNode(isRoot?pathTrieRoot:parentFrame.pathNode, element);
+		//First, we will register the information of depth (width is registered when the element ends)
 		//The root is in a level whose width is 1, if we did not do the following, that width would be never registered
-		if(element.isRootElement()){
-			statistics.registerWidth(documentIndex, 1);
+		int statisticsDocumentIndex = documentIndexOffset+documentIndex;
+		if(isRoot){
+			statistics.registerWidth(statisticsDocumentIndex, 1);
 		}
-		statistics.registerDepth(documentIndex, realPathUnfiltered.size());
-		int width = element.getChildren().size();
-		if(width>0){
-			statistics.registerWidth(documentIndex, width);
+		statistics.registerDepth(statisticsDocumentIndex, pathNode.depth);
+		if(pathNode.contentSkipped){
+			//Attributes of skipped content are not learned
+		} else if(sharingShapes){
+			//Their occurrences are learned along with the shape of the element
+			((AttributeListInferencerImpl) pathNode.attributeListInferencer).learnAttributeValues(element.getAttributes(), statisticsDocumentIndex, documentMultiplicity);
+		} else {
+			pathNode.attributeListInferencer.learnAttributeList(element.getAttributes(), statisticsDocumentIndex, documentMultiplicity);
 		}
+		while(elementFramesByDepth.size()<=pathNode.depth){
+			elementFramesByDepth.add(new ElementFrame());
+		}
+		ElementFrame frame = elementFramesByDepth.get(pathNode.depth);
+		frame.reset(documentIndex, pathNode, isRoot);
+		return frame;
+	}
+	
+	/**
+	 * Returns the node of the path trie which is the child of a node for an element, which is created if the path 
+	 * had not been found yet. When a node is created, its complex type, its {@link SchemaElement}, its automaton and its 
+	 * inferencers are found (or created), as they only depend on the path.
+	 * @param parentNode the node of the path of the parent element (the root of the trie for root elements)
+	 * @param element the element
+	 * @return the node of the path of the element
+	 */
+	private PathNode getPathNode(PathNode parentNode, Element element){
+		String namespaceURI = element.getNamespaceURI();
+		String name = element.getName();
+		int qualifiedNameId = symbolTable.getQualifiedNameId(namespaceURI, name);
+		PathNode existingNode = parentNode.children.get(qualifiedNameId);
+		if(existingNode!=null)
+			return existingNode;
+		namespaceURI = symbolTable.intern(namespaceURI);
+		name = symbolTable.intern(name);
+		String prefix=solvedNamespaceToPrefixMapping!=null?solvedNamespaceToPrefixMapping.get(namespaceURI):element.getNamespacePrefix();
+		if(solvingNamespacesWhileExtracting)
+			usedNamespaceURIs.add(namespaceURI);
+		PathNode pathNode = new PathNode(parentNode, namespaceURI, name, prefix+":"+name);
+		pathNode.documentPrefix = element.getNamespacePrefix();
+		parentNode.children.put(qualifiedNameId, pathNode);
+		
+		List<String> suitablePath = new ArrayList<>(pathNode.depth);
+		for(PathNode node=pathNode;node.parent!=null;node=node.parent){
+			suitablePath.add(node.unfilteredStep);
+		}
+		Collections.reverse(suitablePath);
+		suitablePath=getSuitablePath(suitablePath);//Path for type name inferencing
 		TypeNameInferencer typeNameInferencer = configuration.getTypeNameInferencer();
-		String complexTypeName = typeNameInferencer.inferTypeName(suitablePath, configuration);//Complex type of this element
-//		//Little workaround that ensures that the same complex type is used 
-//		//when the elements on its path are the same (same name and namespace) but some of them 
-//		//use different namespace prefixes
-//		List<String> realPathUnfilteredKey=getRealPathOfElementUnfiltered(element, configuration, false, solvedNamespaceToPrefixMapping);
-//		List<String> suitablePathKey=getSuitablePath(realPathUnfilteredKey);//Path for type name inferencing
-//		String complexTypeNameKey = typeNameInferencer.inferTypeName(suitablePathKey, configuration);//Complex type of this element
-		String complexTypeNameKey = complexTypeName;
+		String complexTypeName = symbolTable.intern(typeNameInferencer.inferTypeName(suitablePath, configuration));//Complex type of this element
+		pathNode.complexTypeName = complexTypeName;
 		//The complex type object of this element.
-		ComplexType complexType = complexTypes.get(complexTypeNameKey);
+		ComplexType complexType = complexTypes.get(complexTypeName);
 		if(complexType==null){
 			complexType = new ComplexType(complexTypeName, null, null, null);
-			complexTypes.put(complexTypeNameKey, complexType); //New complex type
-		}
-		complexType.addSourceNodeNamespaceAndName(element.getNamespaceURI(), element.getName());
-		//Comment processing
-		for(Comment comment: element.getDescendants(Filters.comment())){
-			if(comment.getParentElement().equals(element))
-				complexType.getComments().add(comment.getText());
+			complexTypes.put(complexTypeName, complexType); //New complex type
 		}
+		complexType.addSourceNodeNamespaceAndName(namespaceURI, name);
+		pathNode.complexType = complexType;
+		filterPath(pathNode);
 		
 		//Key to find the corresponding SchemaElement
 		//This key is: if the SchemaElement has an enclosing complex type (i.e., it is not a valid root), its name will be:
 		//enclosingComplexType+typeNamesSeparator+elementName
 		//If the element is a suitable root, the key is the name of the element.
-		String schemaElementKey=(!enclosingComplexType.equals(""))?enclosingComplexType+configuration.getTypeNamesAncestorsSeparator()+element.getName():element.getName();
-		if(configuration.getTypeNameInferencer() instanceof NameTypeNameInferencer){
-			schemaElementKey=element.getName(); //If we use a name-based type inferencer, the key is the name and we avoid problems.
+		String enclosingComplexType = parentNode.complexTypeName;
+		String schemaElementKey=(!enclosingComplexType.equals(""))?enclosingComplexType+configuration.getTypeNamesAncestorsSeparator()+name:name;
+		if(typeNameInferencer instanceof NameTypeNameInferencer){
+			schemaElementKey=name; //If we use a name-based type inferencer, the key is the name and we avoid problems.
 		}
-		SchemaElement schemaElement = elements.get(element.getNamespaceURI(), schemaElementKey);
+		SchemaElement schemaElement = elements.get(namespaceURI, schemaElementKey);
 		if(schemaElement==null){
-			schemaElement=new SchemaElement(element.getName(), element.getNamespaceURI(), complexType);//Complex type already not known.
-			elements.put(element.getNamespaceURI(), schemaElementKey, schemaElement);
+			schemaElement=new SchemaElement(name, namespaceURI, complexType);//Complex type already not known.
+			elements.put(namespaceURI, schemaElementKey, schemaElement);
 		}
-		boolean wasAlreadyValidRoot=schemaElement.isValidRoot();
-		schemaElement.setValidRoot(wasAlreadyValidRoot||element.isRootElement());
+		//Only the elements at the first level of the trie are roots
+		schemaElement.setValidRoot(schemaElement.isValidRoot()||parentNode==pathTrieRoot);
+		pathNode.schemaElement = schemaElement;
 		
 		ComplexTypeStatisticsEntry complexTypeStatisticsEntry = statistics.getComplexTypeInfo().get(complexType);
 		if(complexTypeStatisticsEntry==null){
-			complexTypeStatisticsEntry=new ComplexTypeStatisticsEntry(xmlDocuments.size());
+			complexTypeStatisticsEntry=statistics.newComplexTypeStatisticsEntry();
 			statistics.getComplexTypeInfo().put(complexType, complexTypeStatisticsEntry);
 		}
+		pathNode.complexTypeStatisticsEntry = complexTypeStatisticsEntry;
 		
 		AttributeListInferencer attributeListInferencer = attributeListInferencers.get(complexTypeName);
-		
 		if(attributeListInferencer==null){
 			attributeListInferencer=inferencersFactory.getAttributeListInferencerInstance(complexTypeName, configuration, solvedNamespaceToPrefixMapping, statistics);
 			attributeListInferencers.put(complexTypeName, attributeListInferencer);
 		}
-		attributeListInferencer.learnAttributeList(element.getAttributes(), documentIndex);
+		pathNode.attributeListInferencer = attributeListInferencer;
 		
 		SimpleTypeInferencer simpleTypeInferencer = simpleTypeInferencersOfComplexTypes.get(complexTypeName);
 		if(simpleTypeInferencer==null){
 			simpleTypeInferencer=inferencersFactory.getSimpleTypeInferencerInstance(complexTypeName, configuration);
 			simpleTypeInferencersOfComplexTypes.put(complexTypeName, simpleTypeInferencer);
 		}
-		simpleTypeInferencer.learnValue(element.getText(), element.getNamespaceURI(), element.getName());
+		pathNode.simpleTypeInferencer = simpleTypeInferencer;
+		pathNode.automaton = getOrCreateAutomaton(complexTypeName);
+		Map<List<SchemaElement>,int[]> childWords = pendingChildWords.get(complexTypeName);
+		if(childWords==null){
+			childWords = new LinkedHashMap<>();
+			pendingChildWords.put(complexTypeName, childWords);
+		}
+		pathNode.childWords = childWords;
+		return pathNode;
+	}
+	
+	/**
+	 * Decides whether the content of the elements at a new path of the trie is skipped, because the path is excluded or 
+	 * because there are include paths and it is neither at, above or under any of them. The complex type of a path whose 
+	 * content is skipped is marked, so any content is allowed for its elements.
+	 * @param pathNode the node of the path (with its complex type)
+	 */
+	private void filterPath(PathNode pathNode){
+		pathNode.included = includedPathsSteps.isEmpty() || pathNode.parent.included;
+		boolean aboveIncludedPath = false;
+		for(int i=0;i<includedPathsSteps.size()&&!pathNode.included;i++){
+			List<String> steps = includedPathsSteps.get(i);
+			if(matchesPathSteps(pathNode, steps)){
+				pathNode.included = steps.size()==pathNode.depth;
+				aboveIncludedPath = steps.size()>pathNode.depth;
+			}
+		}
+		boolean contentSkipped = !pathNode.included && !aboveIncludedPath;
+		for(int i=0;i<excludedPathsSteps.size()&&!contentSkipped;i++){
+			List<String> steps = excludedPathsSteps.get(i);
+			contentSkipped = steps.size()==pathNode.depth && matchesPathSteps(pathNode, steps);
+		}
+		pathNode.contentSkipped = contentSkipped;
+		if(contentSkipped)
+			pathNode.complexType.setContentSkipped(true);
+	}
+	
+	/**
+	 * Returns whether the path of a node of the trie matches the first steps of a path. A step matches an element 
+	 * if it is equal to its local name or to its prefixed name (as written at the document where the path was found first).
+	 * @param pathNode the node of the trie
+	 * @param steps the steps of the path
+	 * @return true if the path has at least as many steps as the depth of the node and the first ones match
+	 */
+	private static boolean matchesPathSteps(PathNode pathNode, List<String> steps){
+		if(steps.size()<pathNode.depth)
+			return false;
+		for(PathNode node=pathNode;node.parent!=null;node=node.parent){
+			String step = steps.get(node.depth-1);
+			if(!step.equals(node.name) && !(!node.documentPrefix.isEmpty() && step.equals(node.documentPrefix+":"+node.name)))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Discards the path trie, so that the information of the paths is found again in the data structures. 
+	 * It must be called whenever those structures are replaced.
+	 */
+	private void clearPathTrie(){
+		this.pathTrieRoot = new PathNode(null, "", "", "");
+		//Frames keep references to the nodes of the trie
+		this.elementFramesByDepth.clear();
+		this.shapesSymbols = 0;
+		this.createdShapesCount = 0;
+	}
+	
+	/**
+	 * Registers a comment found directly under an element which is being extracted.
+	 * @param frame the state of the extraction of the element
+	 * @param commentText the text of the comment
+	 */
+	protected void registerComment(ElementFrame frame, String commentText){
+		frame.getComplexType().getComments().add(commentText);
+	}
+	
+	/**
+	 * Registers a child of an element which is being extracted, once the extraction of the child has finished. 
+	 * Children must be registered in document order.
+	 * @param frame the state of the extraction of the parent element
+	 * @param childSchemaElement the {@link SchemaElement} of the child, or null if the child has been ignored 
+	 * (it still counts for the width of the parent).
+	 */
+	protected void registerChild(ElementFrame frame, SchemaElement childSchemaElement){
+		frame.width++;
+		if(childSchemaElement==null)
+			return;
+		frame.getComplexTypeStatisticsEntry().registerElementCount(childSchemaElement, documentIndexOffset+frame.getDocumentIndex());
+		frame.word.add(childSchemaElement);
+	}
+	
+	/**
+	 * Registers a child of an element whose children may belong to different documents, as it happens with the 
+	 * ancestors of the records when the input documents are split into records. The occurrence of the child is 
+	 * counted at the document of the child. Besides, the children sequence is run-length encoded, so that a long run of 
+	 * equal records is kept in memory as a single symbol and its length, and learned with the weights it would have 
+	 * if the whole sequence had been kept.
+	 * @param frame the state of the extraction of the parent element
+	 * @param childSchemaElement the {@link SchemaElement} of the child, or null if the child has been ignored 
+	 * (it still counts for the width of the parent).
+	 * @param childDocumentIndex index of the document of the child
+	 */
+	protected void registerRecordChild(ElementFrame frame, SchemaElement childSchemaElement, int childDocumentIndex){
+		frame.width++;
+		if(childSchemaElement==null)
+			return;
+		frame.getComplexTypeStatisticsEntry().registerElementCount(childSchemaElement, documentIndexOffset+childDocumentIndex);
+		List<SchemaElement> word = frame.word;
+		List<Integer> runLengths = frame.runLengths;
+		//Children registered before without runs (and the initial state) are runs of one symbol
+		while(runLengths.size()<word.size())
+			runLengths.add(1);
+		int last = word.size()-1;
+		if(last>0 && word.get(last).equals(childSchemaElement)){
+			runLengths.set(last, runLengths.get(last)+1);
+		} else {
+			word.add(childSchemaElement);
+			runLengths.add(1);
+		}
+	}
+	
+	/**
+	 * Finishes the extraction of an element: its width, its text value and its children sequence are learned. 
+	 * If its content is skipped, only its occurrence is registered (with an empty children sequence). 
+	 * If shapes are being shared, its occurrence and its children sequence are learned later with its shape.
+	 * @param frame the state of the extraction of the element
+	 * @param text the text of the element (only the text directly under the element, as returned by {@link Element#getText()})
+	 * @return the {@link SchemaElement} of the element
+	 */
+	protected SchemaElement endElement(ElementFrame frame, String text){
+		int documentIndex = documentIndexOffset+frame.getDocumentIndex();
+		String complexTypeName = frame.getComplexTypeName();
+		SchemaElement schemaElement = frame.getSchemaElement();
+		ComplexTypeStatisticsEntry complexTypeStatisticsEntry = frame.getComplexTypeStatisticsEntry();
+		boolean contentSkipped = frame.pathNode.contentSkipped;
+		if(frame.width>0){
+			statistics.registerWidth(documentIndex, frame.width);
+		}
 		
+		if(!contentSkipped)
+			frame.pathNode.simpleTypeInferencer.learnValue(text, schemaElement.getNamespace(), schemaElement.getName(), documentMultiplicity);
 		
-//		SchemaElement previousChildSchemaElement=null; //We need to store the previous child in order to add the edge between it and the current child.
-		List<SchemaElement> schemaElementChildren = new ArrayList<>(element.getChildren().size());
-		for(int i=0;i<element.getChildren().size();i++){
-			Element child = element.getChildren().get(i);
-			traverseElement(documentIndex, child, complexTypeName);
-			String childSchemaElementKey=complexTypeName+configuration.getTypeNamesAncestorsSeparator()+child.getName();
-			if(configuration.getTypeNameInferencer() instanceof NameTypeNameInferencer){
-				childSchemaElementKey=child.getName(); // If we use the name-based type name inferencer, the name is the key
-			}
-			SchemaElement childSchemaElement=elements.get(child.getNamespaceURI(), childSchemaElementKey);//The SchemaElement object does exist because the method traverseElement is called before this.
-//			if(i==0){
-//				automaton.addEdge(automaton.getInitialState(), childSchemaElement);
-//			}
-//			else {
-//				automaton.addEdge(previousChildSchemaElement, childSchemaElement);
-//				if(i==(element.getChildren().size()-1)){
-//					automaton.addEdge(childSchemaElement, automaton.getFinalState());
-//				}
-//			}
-			complexTypeStatisticsEntry.registerElementCount(childSchemaElement, documentIndex);
-			schemaElementChildren.add(childSchemaElement);
-//			previousChildSchemaElement=childSchemaElement;
+		ExtendedAutomaton automaton = frame.pathNode.automaton;
+		
+		//The word already starts with the initial state, so it is learned without copying the children
+		List<SchemaElement> word = frame.word;
+		word.add(automaton.getFinalState());
+		if(sharingShapes){
+			//The word is learned with the shape of the element
+		} else if(frame.runLengths.isEmpty()){
+			addPendingChildWord(frame.pathNode.childWords, word, documentMultiplicity);
+		} else {
+			//Run-length encoded words are learned at once (after the pending ones, to keep the order of the words)
+			List<Integer> runLengths = frame.runLengths;
+			while(runLengths.size()<word.size())
+				runLengths.add(1);
+			learnPendingChildWords();
+			automaton.learnRuns(word, runLengths, documentMultiplicity);
+			complexTypeStatisticsEntry.registerSubpatternsFromRuns(word.subList(1, word.size()-1), 
+					runLengths.subList(1, runLengths.size()-1), documentMultiplicity);
 		}
 		
+		if(!contentSkipped)
+			complexTypeStatisticsEntry.registerValueOfNodeCount(text, schemaElement, documentIndex);
+		
+		if(!sharingShapes)
+			statistics.registerElementAtPathCount(frame.getRealPathFiltered(), documentIndex);
+		if(!contentSkipped)
+			statistics.registerValueAtPathCount(frame.getRealPathFiltered(), text, documentIndex);
+		if(frame.isRoot()){
+			statistics.registerRootElementOccurrence(schemaElement, documentMultiplicity);
+		}
+		return schemaElement;
+	}
+	
+	/**
+	 * Counts an occurrence of a child word of a complex type, which will be learned later by its automaton and its 
+	 * statistics. The word is only copied the first time it is found.
+	 * @param childWords the pending child words of the complex type
+	 * @param word the child word (with the initial and final states)
+	 * @param occurrences the number of occurrences of the word
+	 */
+	private void addPendingChildWord(Map<List<SchemaElement>,int[]> childWords, List<SchemaElement> word, int occurrences){
+		int[] count = childWords.get(word);
+		if(count!=null && count[0]>Integer.MAX_VALUE-occurrences){
+			learnPendingChildWords();
+			count = null;
+		}
+		if(count==null){
+			count = new int[]{0};
+			childWords.put(ImmutableList.copyOf(word), count);
+			pendingChildWordsSymbols+=word.size();
+		}
+		count[0]+=occurrences;
+		//Distinct words are not kept forever, so that they do not use too much memory if most of them are different
+		if(pendingChildWordsSymbols>=MAX_PENDING_CHILD_WORDS_SYMBOLS || count[0]==Integer.MAX_VALUE)
+			learnPendingChildWords();
+	}
+	
+	/**
+	 * Learns the pending child words of each complex type (in the order in which they were first found), so that 
+	 * the automatons and the subpatterns statistics are the same as if each word had been learned when it was found.
+	 * It must be called before those structures are read.
+	 */
+	protected void learnPendingChildWords(){
+		if(pendingChildWordsSymbols==0)
+			return;
+		for(Map.Entry<String, Map<List<SchemaElement>,int[]>> typeChildWords: pendingChildWords.entrySet()){
+			Map<List<SchemaElement>,int[]> childWords = typeChildWords.getValue();
+			if(childWords.isEmpty())
+				continue;
+			String complexTypeName = typeChildWords.getKey();
+			ExtendedAutomaton automaton = automatons.get(complexTypeName);
+			ComplexTypeStatisticsEntry complexTypeStatisticsEntry = statistics.getComplexTypeInfo().get(complexTypes.get(complexTypeName));
+			for(Map.Entry<List<SchemaElement>,int[]> childWord: childWords.entrySet()){
+				List<SchemaElement> word = childWord.getKey();
+				int count = childWord.getValue()[0];
+				automaton.learn(word, count);
+				complexTypeStatisticsEntry.registerSubpatternsFromList(word.subList(1, word.size()-1), count);
+			}
+			childWords.clear();
+		}
+		pendingChildWordsSymbols=0;
+	}
+	
+	/**
+	 * Returns the automaton of a complex type, which is created (with its initial and final states) if it did not exist.
+	 * @param complexTypeName the name of the complex type
+	 * @return the automaton of the complex type
+	 */
+	private ExtendedAutomaton getOrCreateAutomaton(String complexTypeName){
 		ExtendedAutomaton automaton = automatons.get(complexTypeName);
 		if(automaton==null){
-			automaton = new ExtendedAutomaton();
-			SchemaElement initialState = new SchemaElement("initial", DEFAULT_PSEUDOELEMENTS_NAMESPACE, null);
-			automaton.setInitialState(initialState);
-			SchemaElement finalState = new SchemaElement("final", DEFAULT_PSEUDOELEMENTS_NAMESPACE, null);
-			automaton.setFinalState(finalState);
+			automaton = createComplexTypeAutomaton();
 			automatons.put(complexTypeName, automaton);
 		}
-		
-		List<SchemaElement> schemaElementChildrenWithInitialAndFinal = new ArrayList<>(schemaElementChildren);
-		schemaElementChildrenWithInitialAndFinal.add(0, automaton.getInitialState());
-		schemaElementChildrenWithInitialAndFinal.add(automaton.getFinalState());
-		automaton.learn(schemaElementChildrenWithInitialAndFinal);
-		
-		complexTypeStatisticsEntry.registerSubpatternsFromList(schemaElementChildren);
-		complexTypeStatisticsEntry.registerValueOfNodeCount(element.getText(), schemaElement, documentIndex);
-		
-		statistics.registerElementAtPathCount(realPathFiltered, documentIndex);
-		statistics.registerValueAtPathCount(realPathFiltered, element.getText(), documentIndex);
-		if(enclosingComplexType.equals("")){
-			statistics.registerRootElementOccurrence(schemaElement);
-		}
+		return automaton;
+	}
+	
+	/**
+	 * @return a new automaton for a complex type, with its initial and final states
+	 */
+	static ExtendedAutomaton createComplexTypeAutomaton(){
+		ExtendedAutomaton automaton = new ExtendedAutomaton();
+		SchemaElement initialState = new SchemaElement("initial", DEFAULT_PSEUDOELEMENTS_NAMESPACE, null);
+		automaton.setInitialState(initialState);
+		SchemaElement finalState = new SchemaElement("final", DEFAULT_PSEUDOELEMENTS_NAMESPACE, null);
+		automaton.setFinalState(finalState);
+		return automaton;
 	}
 	
 	/**
@@ -529,4 +1726,393 @@ public class TypesExtractorImpl implements TypesExtractor {
 	}
 	
 
+	/**
+	 * @return the current inference configuration
+	 */
+	protected XSDInferenceConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * @return the statistics object which is being filled during the extraction
+	 */
+	protected Statistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * State of the extraction of an element which has been started via 
+	 * {@link TypesExtractorImpl#startElement(int, Element, ElementFrame)} but not finished yet.
+	 * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+	 *
+	 */
+	protected static class ElementFrame {
+		
+		/**
+		 * Index of the document of the element
+		 */
+		private int documentIndex;
+		
+		/**
+		 * Node of the path of the element, with the information shared by all the elements at that path
+		 */
+		private PathNode pathNode;
+		
+		/**
+		 * Whether the element is the root of its document
+		 */
+		private boolean root;
+		
+		/**
+		 * Word which will be learned by the automaton of the complex type: its initial state followed by the 
+		 * SchemaElement objects of the children registered so far, in document order. The buffer is reused by 
+		 * all the elements which use this frame.
+		 */
+		private final List<SchemaElement> word = new ArrayList<>();
+		
+		/**
+		 * Length of the run of each symbol of the word, if the word is run-length encoded (children registered via 
+		 * {@link TypesExtractorImpl#registerRecordChild(ElementFrame, SchemaElement, int)}). Empty otherwise.
+		 */
+		private final List<Integer> runLengths = new ArrayList<>();
+		
+		/**
+		 * Key of the shape of the element, if shapes are being shared: the id and the prefix of each attribute name, 
+		 * followed by the shapes of the children registered so far. Empty otherwise.
+		 */
+		private final List<Object> shapeKey = new ArrayList<>();
+		
+		/**
+		 * Shape of the element, once it has ended (if shapes are being shared)
+		 */
+		private Shape shape = null;
+		
+		/**
+		 * Count of children registered so far (including the ignored ones)
+		 */
+		private int width = 0;
+
+		/**
+		 * Default constructor
+		 */
+		private ElementFrame() {
+			
+		}
+		
+		/**
+		 * Prepares the frame for the extraction of a new element
+		 * @param documentIndex index of the document of the element
+		 * @param pathNode node of the path of the element
+		 * @param root whether the element is a root
+		 */
+		private void reset(int documentIndex, PathNode pathNode, boolean root) {
+			this.documentIndex = documentIndex;
+			this.pathNode = pathNode;
+			this.root = root;
+			this.width = 0;
+			this.word.clear();
+			this.word.add(pathNode.automaton.getInitialState());
+			this.runLengths.clear();
+			this.shapeKey.clear();
+			this.shape = null;
+		}
+
+		/**
+		 * @return the documentIndex
+		 */
+		public int getDocumentIndex() {
+			return documentIndex;
+		}
+
+		/**
+		 * @return the complexTypeName
+		 */
+		public String getComplexTypeName() {
+			return pathNode.complexTypeName;
+		}
+
+		/**
+		 * @return the complexType
+		 */
+		public ComplexType getComplexType() {
+			return pathNode.complexType;
+		}
+
+		/**
+		 * @return the schemaElement
+		 */
+		public SchemaElement getSchemaElement() {
+			return pathNode.schemaElement;
+		}
+
+		/**
+		 * @return the complexTypeStatisticsEntry
+		 */
+		public ComplexTypeStatisticsEntry getComplexTypeStatisticsEntry() {
+			return pathNode.complexTypeStatisticsEntry;
+		}
+
+		/**
+		 * @return the realPathFiltered
+		 */
+		public String getRealPathFiltered() {
+			return pathNode.realPathFiltered;
+		}
+
+		/**
+		 * @return whether the element is a root
+		 */
+		public boolean isRoot() {
+			return root;
+		}
+		
+		/**
+		 * @return whether the content of the element (its attributes, text and descendants) must be skipped, because 
+		 * its path is excluded or not included
+		 */
+		public boolean isContentSkipped() {
+			return pathNode.contentSkipped;
+		}
+		
+		/**
+		 * Sorts the children registered so far. It allows extractors whose input has no meaningful children order 
+		 * (i.e. members of JSON objects) to learn the children sequences in a canonical order.
+		 * @param comparator the comparator used to sort the children (the sort is stable)
+		 */
+		public void sortChildren(Comparator<? super SchemaElement> comparator) {
+			Collections.sort(word.subList(1, word.size()), comparator);
+		}
+	}
+	
+	/**
+	 * Node of the trie of the paths of the extracted elements. Each node represents a distinct path and keeps the 
+	 * filtered path, the type name and the objects found (or created) for it, so that they are not calculated for 
+	 * each element. Children are indexed by the id of their qualified name at the {@link SymbolTable} of the extraction.
+	 * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+	 *
+	 */
+	private static final class PathNode {
+		
+		/**
+		 * Node of the path of the parent (null at the root of the trie)
+		 */
+		private final PathNode parent;
+		
+		/**
+		 * Namespace URI of the element
+		 */
+		private final String namespaceURI;
+		
+		/**
+		 * Name of the element
+		 */
+		private final String name;
+		
+		/**
+		 * Prefix of the element, as written at the document where the path was found first (empty at the root of the trie)
+		 */
+		private String documentPrefix = "";
+		
+		/**
+		 * Whether the path is at or under an include path (or there are not any include paths)
+		 */
+		private boolean included = false;
+		
+		/**
+		 * Whether the content of the elements at the path is skipped
+		 */
+		private boolean contentSkipped = false;
+		
+		/**
+		 * Step of the path of this node, as a token of {@link TypesExtractorImpl#getRealPathOfElementUnfiltered(Element, XSDInferenceConfiguration, boolean, Map)}
+		 */
+		private final String unfilteredStep;
+		
+		/**
+		 * Number of elements at the path
+		 */
+		private final int depth;
+		
+		/**
+		 * Filtered path, used at statistics
+		 */
+		private final String realPathFiltered;
+		
+		/**
+		 * Children nodes by id of the qualified name of their elements
+		 */
+		private final Map<Integer, PathNode> children = new HashMap<>();
+		
+		/**
+		 * Name of the complex type (empty at the root of the trie)
+		 */
+		private String complexTypeName = "";
+		
+		/**
+		 * Complex type
+		 */
+		private ComplexType complexType;
+		
+		/**
+		 * SchemaElement of the elements at the path
+		 */
+		private SchemaElement schemaElement;
+		
+		/**
+		 * Statistics entry of the complex type
+		 */
+		private ComplexTypeStatisticsEntry complexTypeStatisticsEntry;
+		
+		/**
+		 * Attribute list inferencer of the complex type
+		 */
+		private AttributeListInferencer attributeListInferencer;
+		
+		/**
+		 * Simple type inferencer of the texts of the complex type
+		 */
+		private SimpleTypeInferencer simpleTypeInferencer;
+		
+		/**
+		 * Automaton of the complex type
+		 */
+		private ExtendedAutomaton automaton;
+		
+		/**
+		 * Pending child words of the complex type
+		 */
+		private Map<List<SchemaElement>,int[]> childWords;
+		
+		/**
+		 * Shapes of the subtrees whose root is at the path, by their keys (see {@link ElementFrame#shapeKey})
+		 */
+		private final Map<List<Object>, Shape> shapes = new HashMap<>();
+		
+		/**
+		 * Default constructor
+		 * @param parent node of the path of the parent (null at the root of the trie)
+		 * @param namespaceURI namespace URI of the element
+		 * @param name name of the element
+		 * @param unfilteredStep step of the path, made of the prefix and the name of the element separated by :
+		 */
+		private PathNode(PathNode parent, String namespaceURI, String name, String unfilteredStep) {
+			this.parent = parent;
+			this.namespaceURI = namespaceURI;
+			this.name = name;
+			this.unfilteredStep = unfilteredStep;
+			if(parent==null){
+				this.depth = 0;
+				this.realPathFiltered = "";
+			} else {
+				this.depth = parent.depth+1;
+				String filteredStep = unfilteredStep.startsWith(":")?unfilteredStep.replace(":", ""):unfilteredStep;
+				this.realPathFiltered = parent.realPathFiltered+"/"+filteredStep;
+			}
+		}
+	}
+	
+	/**
+	 * Shape of a subtree: the path of its root element, the names of its attributes and the shapes of its children, 
+	 * in order. Shapes are hash-consed at the node of their path, so all the subtrees with the same structure share 
+	 * one shape, whatever their values are. The structure of a shape (its children sequence and its children and 
+	 * attributes occurrences) is learned once per document with the number of occurrences of the shape.
+	 * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+	 *
+	 */
+	private static final class Shape {
+		
+		/**
+		 * Creation order of the shape (children shapes are created before their parents)
+		 */
+		private final int id;
+		
+		/**
+		 * Node of the path of the root element
+		 */
+		private final PathNode pathNode;
+		
+		/**
+		 * Attribute list of the root element (null if its content is skipped)
+		 */
+		private final AttributeListShape attributes;
+		
+		/**
+		 * Children sequence of the root element, with the initial and final states
+		 */
+		private final List<SchemaElement> word;
+		
+		/**
+		 * Distinct children of the root element
+		 */
+		private final SchemaElement[] children;
+		
+		/**
+		 * Occurrences of each distinct child
+		 */
+		private final int[] childrenCounts;
+		
+		/**
+		 * Distinct shapes of the children
+		 */
+		private final Shape[] childShapes;
+		
+		/**
+		 * Occurrences of each distinct shape of the children
+		 */
+		private final int[] childShapeCounts;
+		
+		/**
+		 * Whether the shape has been found at the document being traversed
+		 */
+		private boolean pending = false;
+		
+		/**
+		 * Occurrences of the shape at the document being traversed, once they have been calculated
+		 */
+		private int count = 0;
+		
+		/**
+		 * Default constructor
+		 * @param id creation order of the shape
+		 * @param pathNode node of the path of the root element
+		 * @param attributes attribute list of the root element (null if its content is skipped)
+		 * @param word children sequence of the root element, with the initial and final states
+		 * @param key key of the shape, which contains the shapes of the children in order
+		 */
+		private Shape(int id, PathNode pathNode, AttributeListShape attributes, List<SchemaElement> word, List<Object> key) {
+			this.id = id;
+			this.pathNode = pathNode;
+			this.attributes = attributes;
+			this.word = ImmutableList.copyOf(word);
+			Map<SchemaElement, int[]> childrenCountsMap = new LinkedHashMap<>();
+			for(SchemaElement child: word.subList(1, word.size()-1)){
+				int[] childCount = childrenCountsMap.get(child);
+				if(childCount==null){
+					childCount = new int[]{0};
+					childrenCountsMap.put(child, childCount);
+				}
+				childCount[0]++;
+			}
+			this.children = childrenCountsMap.keySet().toArray(new SchemaElement[childrenCountsMap.size()]);
+			this.childrenCounts = new int[children.length];
+			for(int i=0;i<children.length;i++)
+				this.childrenCounts[i] = childrenCountsMap.get(children[i])[0];
+			Map<Shape, int[]> childShapesCountsMap = new LinkedHashMap<>();
+			for(Object keyPart: key){
+				if(!(keyPart instanceof Shape))
+					continue;
+				int[] childShapeCount = childShapesCountsMap.get(keyPart);
+				if(childShapeCount==null){
+					childShapeCount = new int[]{0};
+					childShapesCountsMap.put((Shape) keyPart, childShapeCount);
+				}
+				childShapeCount[0]++;
+			}
+			this.childShapes = childShapesCountsMap.keySet().toArray(new Shape[childShapesCountsMap.size()]);
+			this.childShapeCounts = new int[childShapes.length];
+			for(int i=0;i<childShapes.length;i++)
+				this.childShapeCounts[i] = childShapesCountsMap.get(childShapes[i])[0];
+		}
+	}
+
 }
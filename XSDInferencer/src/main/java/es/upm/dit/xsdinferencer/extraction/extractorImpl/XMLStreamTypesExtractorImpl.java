@@ -0,0 +1,435 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.extraction.extractorImpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static es.upm.dit.xsdinferencer.XSDInferenceConfiguration.XML_NAMESPACE_URI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom2.Attribute;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+import es.upm.dit.xsdinferencer.extraction.AttributeListInferencer;
+import es.upm.dit.xsdinferencer.extraction.SimpleTypeInferencer;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * {@link TypesExtractor} implementation which reads the input XML documents by means of a StAX {@link XMLStreamReader} 
+ * instead of working with JDOM2 {@link Document} objects. 
+ * Types, attributes, automatons and statistics are learned event by event, as the parent {@link TypesExtractorImpl} 
+ * does when it traverses an element, so no document is ever loaded into memory. Only the currently open elements 
+ * (with their attributes, but without any content) are kept as detached JDOM2 {@link Element} objects, so that 
+ * paths may be calculated in the same way than the parent does. 
+ * Each input document is read twice: once to discover the namespace URI to prefix mappings and once to extract 
+ * the types, so the input documents are provided as an {@link InputDocumentsSource} (or {@link ByteSource} objects), 
+ * which may be opened many times. 
+ * <br/>
+ * If a record path is configured (see {@link XSDInferenceConfiguration#getRecordPath()}), each input document is 
+ * split into records: every element at that path is extracted as an independent document, with its own document 
+ * index at the {@link Statistics}. The ancestors of the records (and any other element out of the records) 
+ * belong to the document of the first record of the file and the children sequences of the ancestors are learned 
+ * from the synthesised sequence of records, where long runs of equal records are shortened (so the weights of their 
+ * automatons do not count every record). Only the first whitespace text found between records is kept, so that 
+ * memory is bounded by the largest record. 
+ * <br/>
+ * The descendants of the elements whose content is skipped (see {@link XSDInferenceConfiguration#getExcludePaths()}) 
+ * are read from the stream without building any element. 
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class XMLStreamTypesExtractorImpl extends TypesExtractorImpl {
+	
+	/**
+	 * Input XML documents
+	 */
+	private InputDocumentsSource xmlSource;
+	
+	/**
+	 * Factory used to create the {@link XMLStreamReader} objects
+	 */
+	private XMLInputFactory xmlInputFactory;
+	
+	/**
+	 * Steps of the configured record path or null if the input documents are not split into records
+	 */
+	private List<String> recordPathSteps;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param xmlSources A list of all the input XML documents, as {@link ByteSource} objects.
+	 * @param configuration the inference configuration
+	 */
+	public XMLStreamTypesExtractorImpl(List<ByteSource> xmlSources,
+			XSDInferenceConfiguration configuration) {
+		this(xmlSources,configuration,InferencersFactory.getInstance());
+	}
+	
+	/**
+	 * Default constructor with custom inferencers factory.
+	 * 
+	 * @param xmlSources A list of all the input XML documents, as {@link ByteSource} objects.
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public XMLStreamTypesExtractorImpl(List<ByteSource> xmlSources,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		this(InputDocumentsSources.fromByteSources(xmlSources),configuration,inferencersFactory);
+	}
+	
+	/**
+	 * Constructor which reads the input documents from an {@link InputDocumentsSource} (i.e. the entries of an archive).
+	 * 
+	 * @param xmlSource the source of all the input XML documents
+	 * @param configuration the inference configuration
+	 */
+	public XMLStreamTypesExtractorImpl(InputDocumentsSource xmlSource,
+			XSDInferenceConfiguration configuration) {
+		this(xmlSource,configuration,InferencersFactory.getInstance());
+	}
+	
+	/**
+	 * Constructor which reads the input documents from an {@link InputDocumentsSource} (i.e. the entries of an archive), 
+	 * with custom inferencers factory.
+	 * 
+	 * @param xmlSource the source of all the input XML documents
+	 * @param configuration the inference configuration
+	 * @param inferencersFactory {@link InferencersFactory} used to build {@link AttributeListInferencer} and {@link SimpleTypeInferencer} objects used.
+	 */
+	public XMLStreamTypesExtractorImpl(InputDocumentsSource xmlSource,
+			XSDInferenceConfiguration configuration, InferencersFactory inferencersFactory) {
+		super();
+		checkNotNull(xmlSource,"'xmlSource' must not be null");
+		this.xmlSource=xmlSource;
+		this.xmlInputFactory=XMLInputFactory.newInstance();
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		initializeData(Collections.<Document>emptyList(), configuration, inferencersFactory);
+		String recordPath = configuration.getRecordPath();
+		this.recordPathSteps = recordPath!=null?Splitter.on('/').omitEmptyStrings().splitToList(recordPath):null;
+	}
+	
+	/**
+	 * If the input documents are split into records or the source does not know how many documents it has, 
+	 * their number is unknown before reading them, so the statistics are built for a single document and 
+	 * increased at the end of the extraction.
+	 * @see TypesExtractorImpl#getInputDocumentsCount()
+	 */
+	@Override
+	protected int getInputDocumentsCount() {
+		int documentsCount = xmlSource.getDocumentsCount();
+		return recordPathSteps==null && documentsCount>=0?documentsCount:1;
+	}
+	
+	/**
+	 * @see TypesExtractor#getInitalSchema()
+	 * @throws InputReadingException if any input document cannot be read or parsed
+	 */
+	@Override
+	public Schema getInitalSchema() {
+		clearAll();
+		if(getSolvedNamespaceToPrefixMapping()==null){
+			//Prefixes are solved while extracting, so each document is usually read only once
+			startSolvingNamespacesWhileExtracting();
+			int extractedDocumentsCount = extractInputDocuments();
+			if(finishSolvingNamespacesWhileExtracting()){
+				registerExtractedDocumentsCount(extractedDocumentsCount);
+				return buildInitialSchema();
+			}
+			//A prefix used to build some paths has changed, so everything is extracted again with the mappings solved in advance
+			clearAll();
+		}
+		try(InputDocumentsReader documents = xmlSource.open()){
+			while(documents.next()){
+				XMLStreamReader reader = createXMLStreamReader(documents);
+				try{
+					fillKnownNamespaceToPrefixMappings(reader);
+				} catch (XMLStreamException e) {
+					throw new InputReadingException("Error while reading the input XML document "+documents.getName(),e);
+				} finally {
+					reader.close();
+				}
+			}
+		} catch (IOException | XMLStreamException e) {
+			throw new InputReadingException("Error while reading the input XML documents",e);
+		}
+		solveNamespaceToPrefixMappings();
+		registerExtractedDocumentsCount(extractInputDocuments());
+		return buildInitialSchema();
+	}
+	
+	/**
+	 * Reads and extracts all the input documents. If the namespace URI to prefix mappings are being solved while 
+	 * extracting, it stops as soon as a prefix used to build paths changes.
+	 * @return the number of extracted documents (records count as documents)
+	 * @throws InputReadingException if any input document cannot be read or parsed
+	 */
+	private int extractInputDocuments(){
+		int documentIndex = 0;
+		try(InputDocumentsReader documents = xmlSource.open()){
+			while(!getUsedPrefixChanged() && documents.next()){
+				XMLStreamReader reader = createXMLStreamReader(documents);
+				try{
+					//A document which stands for several identical ones is copied (with all its records) after itself
+					setDocumentMultiplicity(documents.getMultiplicity());
+					int firstDocumentIndex = documentIndex;
+					documentIndex = extractDocument(firstDocumentIndex, reader);
+					documentIndex = registerDocumentCopies(firstDocumentIndex, documentIndex, documentIndex);
+				} catch (XMLStreamException e) {
+					throw new InputReadingException("Error while reading the input XML document "+documents.getName(),e);
+				} finally {
+					reader.close();
+				}
+			}
+		} catch (IOException | XMLStreamException e) {
+			throw new InputReadingException("Error while reading the input XML documents",e);
+		}
+		return documentIndex;
+	}
+	
+	/**
+	 * Creates a {@link XMLStreamReader} for the current document of a documents reader
+	 * @param documents the documents reader
+	 * @return the XML stream reader
+	 * @throws IOException if the document cannot be read
+	 * @throws XMLStreamException if the XML stream reader cannot be created
+	 */
+	private XMLStreamReader createXMLStreamReader(InputDocumentsReader documents) throws IOException, XMLStreamException {
+		return xmlInputFactory.createXMLStreamReader(documents.getInputStream());
+	}
+	
+	/**
+	 * Reads a whole document in order to find all the namespace URI to prefix mappings present at it. 
+	 * It registers the same mappings that {@link Element#getNamespacesInScope()} would return for each element 
+	 * of the document. 
+	 * @param reader a reader positioned at the start of the document
+	 * @throws XMLStreamException if there is a parsing error
+	 */
+	protected void fillKnownNamespaceToPrefixMappings(XMLStreamReader reader) throws XMLStreamException{
+		int depth = 0;
+		while(reader.hasNext()){
+			int event = reader.next();
+			if(event==XMLStreamConstants.END_ELEMENT){
+				depth--;
+				continue;
+			}
+			if(event!=XMLStreamConstants.START_ELEMENT)
+				continue;
+			registerKnownNamespaceToPrefixMappings(reader, depth==0);
+			depth++;
+		}
+	}
+	
+	/**
+	 * Registers the namespace URI to prefix mappings introduced by the element at the current START_ELEMENT event.
+	 * @param reader the reader, positioned at a START_ELEMENT event
+	 * @param root whether the element is the root of the document
+	 */
+	private void registerKnownNamespaceToPrefixMappings(XMLStreamReader reader, boolean root){
+		boolean defaultNamespaceFound = false;
+		String elementPrefix = Strings.nullToEmpty(reader.getPrefix());
+		registerKnownNamespaceToPrefixMapping(Strings.nullToEmpty(reader.getNamespaceURI()), elementPrefix);
+		defaultNamespaceFound = elementPrefix.isEmpty();
+		for(int i=0;i<reader.getNamespaceCount();i++){
+			String prefix = Strings.nullToEmpty(reader.getNamespacePrefix(i));
+			registerKnownNamespaceToPrefixMapping(Strings.nullToEmpty(reader.getNamespaceURI(i)), prefix);
+			defaultNamespaceFound = defaultNamespaceFound || prefix.isEmpty();
+		}
+		for(int i=0;i<reader.getAttributeCount();i++){
+			String uri = Strings.nullToEmpty(reader.getAttributeNamespace(i));
+			if(!uri.isEmpty()){
+				registerKnownNamespaceToPrefixMapping(uri, Strings.nullToEmpty(reader.getAttributePrefix(i)));
+			}
+		}
+		if(root){
+			//The XML namespace is always in scope and the empty namespace is in scope at the root 
+			//if no default namespace is declared there
+			registerKnownNamespaceToPrefixMapping(XML_NAMESPACE_URI, Namespace.XML_NAMESPACE.getPrefix());
+			if(!defaultNamespaceFound){
+				registerKnownNamespaceToPrefixMapping("", "");
+			}
+		}
+	}
+	
+	/**
+	 * Reads a whole document and extracts all the information from its elements. Only the open elements are kept 
+	 * in memory (without their contents), the children of an element are learned once the end of each one is read. 
+	 * If a record path is configured, each record is extracted as a different document.
+	 * @param firstDocumentIndex index of the document (or of its first record)
+	 * @param reader a reader positioned at the start of the document
+	 * @return the index of the next document, it means, firstDocumentIndex plus the number of documents extracted 
+	 * (one if the document is not split into records or if there are not any records)
+	 * @throws XMLStreamException if there is a parsing error
+	 */
+	protected int extractDocument(int firstDocumentIndex, XMLStreamReader reader) throws XMLStreamException{
+		//Open elements, their extraction frames (null if they are ignored) and their texts, indexed by depth
+		List<Element> openElements = new ArrayList<>();
+		List<ElementFrame> openFrames = new ArrayList<>();
+		List<StringBuilder> openTexts = new ArrayList<>();
+		int depth = 0;
+		//Count of open elements which are ancestors of the records (they are always the outermost ones)
+		int recordAncestorsDepth = 0;
+		int recordsCount = 0;
+		//Nesting depth inside the element whose content is being skipped (0 if no content is being skipped)
+		int skippedDepth = 0;
+		while(reader.hasNext()){
+			int event = reader.next();
+			//The content of skipped elements is read without building anything, until the end of the skipped element
+			if(skippedDepth>0){
+				if(event==XMLStreamConstants.START_ELEMENT){
+					skippedDepth++;
+					continue;
+				} else if(event!=XMLStreamConstants.END_ELEMENT || --skippedDepth>0){
+					continue;
+				}
+			}
+			switch(event){
+			case XMLStreamConstants.START_ELEMENT:
+				if(getSolvingNamespacesWhileExtracting())
+					registerKnownNamespaceToPrefixMappings(reader, depth==0);
+				Element element = createElement(reader);
+				ElementFrame frame;
+				int documentIndex = depth==0?firstDocumentIndex:-1;
+				if(recordPathSteps!=null && depth==recordAncestorsDepth && depth<recordPathSteps.size() 
+						&& matchesRecordPathStep(reader, recordPathSteps.get(depth))){
+					if(depth<recordPathSteps.size()-1){
+						recordAncestorsDepth++;
+					} else {
+						documentIndex = firstDocumentIndex+recordsCount;
+						recordsCount++;
+					}
+				}
+				if(depth==0){
+					frame = startElement(documentIndex, element, null);
+				} else {
+					openElements.get(depth-1).addContent(element);
+					ElementFrame parentFrame = openFrames.get(depth-1);
+					//Descendants of ignored elements are ignored too
+					if(parentFrame!=null){
+						documentIndex = documentIndex>=0?documentIndex:parentFrame.getDocumentIndex();
+						frame = startElement(documentIndex, element, parentFrame);
+					} else {
+						frame = null;
+					}
+				}
+				openElements.add(element);
+				openFrames.add(frame);
+				if(openTexts.size()<=depth){
+					openTexts.add(new StringBuilder());
+				}
+				depth++;
+				if(frame!=null && frame.isContentSkipped()){
+					skippedDepth = 1;
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				//Whitespace between records is only kept until the text of the ancestor is not empty
+				if(depth>0 && !(depth<=recordAncestorsDepth && reader.isWhiteSpace() && openTexts.get(depth-1).length()>0)){
+					openTexts.get(depth-1).append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				}
+				break;
+			case XMLStreamConstants.COMMENT:
+				if(depth>0 && openFrames.get(depth-1)!=null){
+					registerComment(openFrames.get(depth-1), reader.getText());
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				Element closedElement = openElements.remove(depth);
+				ElementFrame closedFrame = openFrames.remove(depth);
+				StringBuilder text = openTexts.get(depth);
+				SchemaElement schemaElement = closedFrame!=null?endElement(closedFrame, text.toString()):null;
+				text.setLength(0);
+				if(depth<recordAncestorsDepth){
+					recordAncestorsDepth--;
+				}
+				if(depth>0){
+					openElements.get(depth-1).removeContent(closedElement);
+					ElementFrame parentFrame = openFrames.get(depth-1);
+					if(parentFrame!=null && depth<=recordAncestorsDepth){
+						int childDocumentIndex = closedFrame!=null?closedFrame.getDocumentIndex():parentFrame.getDocumentIndex();
+						registerRecordChild(parentFrame, schemaElement, childDocumentIndex);
+					} else if(parentFrame!=null){
+						registerChild(parentFrame, schemaElement);
+					}
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		return firstDocumentIndex+Math.max(recordsCount, 1);
+	}
+	
+	/**
+	 * Returns whether the element at the current position of the reader matches a step of the record path. 
+	 * A step matches if it is equal to the local name of the element or to its prefixed name (as written at the document).
+	 * @param reader the reader, positioned at a START_ELEMENT event
+	 * @param step the step of the record path
+	 * @return true if the element matches the step
+	 */
+	private static boolean matchesRecordPathStep(XMLStreamReader reader, String step){
+		String localName = reader.getLocalName();
+		if(step.equals(localName))
+			return true;
+		String prefix = Strings.nullToEmpty(reader.getPrefix());
+		return !prefix.isEmpty() && step.equals(prefix+":"+localName);
+	}
+	
+	/**
+	 * Creates a JDOM2 {@link Element} with the name, namespace and attributes of the element at the current 
+	 * position of the reader. The element does not have any content.
+	 * @param reader the reader, positioned at a START_ELEMENT event
+	 * @return the element
+	 */
+	private Element createElement(XMLStreamReader reader){
+		Namespace namespace = Namespace.getNamespace(Strings.nullToEmpty(reader.getPrefix()), Strings.nullToEmpty(reader.getNamespaceURI()));
+		Element element = new Element(reader.getLocalName(), namespace);
+		for(int i=0;i<reader.getAttributeCount();i++){
+			String attributeNamespaceURI = Strings.nullToEmpty(reader.getAttributeNamespace(i));
+			Namespace attributeNamespace = attributeNamespaceURI.isEmpty()?Namespace.NO_NAMESPACE:
+				Namespace.getNamespace(Strings.nullToEmpty(reader.getAttributePrefix(i)), attributeNamespaceURI);
+			element.setAttribute(new Attribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i), attributeNamespace));
+		}
+		return element;
+	}
+
+}
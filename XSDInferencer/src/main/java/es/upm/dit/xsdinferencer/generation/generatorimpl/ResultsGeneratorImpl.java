@@ -161,7 +161,7 @@ public class ResultsGeneratorImpl implements ResultsGenerator {
 			results = new Results(xsdDocuments, statisticDocuments);
 		
 		}
-		else if(configuration.getWorkingFormat().equals("json")){
+		else if(configuration.getWorkingFormat().equals("json")||configuration.getWorkingFormat().equals("jsonl")){
 			Map<String,JSONObject> jsonSchemaDocuments = generateJSONSchemaDocuments(schema, configuration,schemaDocumentGeneratorFactory);
 			results = new Results(null,jsonSchemaDocuments ,ImmutableMap.of());
 		}
@@ -162,7 +162,9 @@ class JSONSchemaDocumentGenerator implements
 	 */
 	private JSONObject getLocalTypeRestrictionSubschema(ComplexType complexType) {
 		JSONObject result = new JSONObject();
-		if (!(complexType.getRegularExpression() instanceof EmptyRegularExpression)) {
+		if (complexType.isContentSkipped()) {
+			return result; //The content has not been extracted, so the empty subschema allows any value.
+		} else if (!(complexType.getRegularExpression() instanceof EmptyRegularExpression)) {
 			result.put("$ref", "#/definitions/" + complexType.getName());
 		} else if (!complexType.getTextSimpleType().isEmpty()) {
 			SimpleType simpleType = complexType.getTextSimpleType();
@@ -213,7 +213,7 @@ class XMLSchemaDocumentGenerator implements SchemaDocumentGenerator<Document> {
 					boolean hasNoComments = complexType.getComments().size() == 0;
 //					boolean simpleTypeIsNotEmpty = !complexType.getTextSimpleType().isEmpty();
 					boolean simpleTypeIsWhiteSpaceOnlyOrEmpty = !(complexType.getTextSimpleType().isEmpty() || complexType.getTextSimpleType().consistOnlyOfWhitespaceCharacters());
-					if(hasNoChildren&&hasNoAttributes&&simpleTypeIsWhiteSpaceOnlyOrEmpty&&hasNoComments)
+					if(hasNoChildren&&hasNoAttributes&&simpleTypeIsWhiteSpaceOnlyOrEmpty&&hasNoComments&&!complexType.isContentSkipped())
 						continue; //Because the elements which are linked to this ComplexType at our internal model 
                					  //will be linked to an XSD simple type elsewhere, either a builtin or a custom one.
 					Element complexTypeElement = generateComplexType(
@@ -338,6 +338,23 @@ class XMLSchemaDocumentGenerator implements SchemaDocumentGenerator<Document> {
 			complexTypeNameAttr.setValue(complexType.getName());
 			complexTypeElement.setAttribute(complexTypeNameAttr);
 		}
+		//The content of the elements has not been extracted, so any content is allowed without validating it
+		if(complexType.isContentSkipped()){
+			Attribute mixedAttr = new Attribute("mixed","");
+			mixedAttr.setValue("true");
+			complexTypeElement.setAttribute(mixedAttr);
+			Element sequenceElement = new Element("sequence",xsdNamespace);
+			Element anyElement = new Element("any",xsdNamespace);
+			anyElement.setAttribute(new Attribute("processContents","skip"));
+			anyElement.setAttribute(new Attribute("minOccurs","0"));
+			anyElement.setAttribute(new Attribute("maxOccurs","unbounded"));
+			sequenceElement.addContent(anyElement);
+			complexTypeElement.addContent(sequenceElement);
+			Element anyAttributeElement = new Element("anyAttribute",xsdNamespace);
+			anyAttributeElement.setAttribute(new Attribute("processContents","skip"));
+			complexTypeElement.addContent(anyAttributeElement);
+			return complexTypeElement;
+		}
 		SimpleType simpleType = complexType.getTextSimpleType();
 		boolean hasChildren = !complexType.getRegularExpression().equals(new EmptyRegularExpression());
 		boolean hasNonWhitespaceSimpleContent = !simpleType.isEmpty() && !simpleType.consistOnlyOfWhitespaceCharacters();
@@ -707,6 +724,7 @@ class XMLSchemaDocumentGenerator implements SchemaDocumentGenerator<Document> {
 				boolean isSimpleElement = (schemaElement.getType().getRegularExpression() instanceof EmptyRegularExpression);
 				isSimpleElement = isSimpleElement && schemaElement.getType().getAttributeList().isEmpty();
 				isSimpleElement = isSimpleElement && !schemaElement.getType().getTextSimpleType().isEmpty();
+				isSimpleElement = isSimpleElement && !schemaElement.getType().isContentSkipped();
 				if(isSimpleElement){
 					if(configuration.getSimpleTypesGlobal()||!schemaElement.getType().getTextSimpleType().isEnum()){
 						Attribute elementTypeAttr = new Attribute("type","");
@@ -18,6 +18,8 @@ package es.upm.dit.xsdinferencer.generation.generatorimpl.statisticsgeneration;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
@@ -32,13 +34,18 @@ import org.jdom2.Namespace;
 import com.google.common.collect.Table;
 
 import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.SchemaAttribute;
 import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
 import es.upm.dit.xsdinferencer.datastructures.SchemaNode;
+import es.upm.dit.xsdinferencer.datastructures.SimpleType;
 import es.upm.dit.xsdinferencer.generation.StatisticResultsDocGenerator;
 import es.upm.dit.xsdinferencer.statistics.BasicStatisticsEntry;
 import es.upm.dit.xsdinferencer.statistics.ComplexTypeStatisticsEntry;
 import es.upm.dit.xsdinferencer.statistics.Statistics;
 import es.upm.dit.xsdinferencer.statistics.ValueAndFrequency;
+import es.upm.dit.xsdinferencer.util.comparators.SchemaElementComparator;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
+import es.upm.dit.xsdinferencer.util.sketches.SpaceSaving;
 
 /**
  * Current implementation of {@link StatisticResultsDocGenerator}.
@@ -136,6 +143,20 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 		widthElement.addContent(widthAvgElement);
 		
 		generalStatisticsElement.addContent(widthElement);
+		
+		if(statistics.getSampled()){
+			Element samplingElement = new Element("sampling",STATISTICS_NAMESPACE);
+			samplingElement.setAttribute("strategy", statistics.getSamplingStrategy());
+			samplingElement.setAttribute("sampledDocuments", Integer.toString(statistics.getInputDocumentsCount()));
+			samplingElement.setAttribute("candidateDocuments", Integer.toString(statistics.getCandidateDocumentsCount()));
+			generalStatisticsElement.addContent(samplingElement);
+		}
+		if(statistics.getDeduplicated()){
+			Element deduplicationElement = new Element("deduplication",STATISTICS_NAMESPACE);
+			deduplicationElement.setAttribute("uniqueDocuments", Integer.toString(statistics.getUniqueDocumentsCount()));
+			deduplicationElement.setAttribute("collapsedDocuments", Integer.toString(statistics.getCollapsedDocumentsCount()));
+			generalStatisticsElement.addContent(deduplicationElement);
+		}
 		return generalStatisticsElement;
 	}
 	
@@ -356,6 +377,30 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 	 */
 	protected Element generateNodesAtPathElements(String elementName,String subElementName,Map<String,BasicStatisticsEntry> sourceMap,String valuesElementName, 
 			String valuesSubElementName, Table<String,String,BasicStatisticsEntry> valuesTable, Map<String, BasicStatisticsEntry> numericValuesInfo, String numericValuesStatisticsElementName){
+		return generateNodesAtPathElements(elementName, subElementName, sourceMap, valuesElementName, valuesSubElementName, valuesTable, numericValuesInfo, 
+				numericValuesStatisticsElementName, Collections.<String, HyperLogLog>emptyMap(), Collections.<String>emptySet(), Collections.<String, SpaceSaving>emptyMap());
+	}
+	
+	/**
+	 * Like {@link StatisticResultsDocGeneratorImpl#generateNodesAtPathElements(String, String, Map, String, String, Table, Map, String)}, but it also generates 
+	 * the estimate of the distinct values of each path which has a sketch of them (see {@link StatisticResultsDocGeneratorImpl#generateDistinctValuesElement(HyperLogLog, boolean)}) 
+	 * and the most frequent values of each path which has a sketch of them (see {@link StatisticResultsDocGeneratorImpl#generateTopValuesElement(SpaceSaving)}).
+	 * @param elementName The name of the generated element.
+	 * @param subElementName The name of each the element which contains the info of the node at a path.
+	 * @param sourceMap The map that contains the info of the nodes at a path
+	 * @param valuesElementName The name of the child element with the values info
+	 * @param valuesSubElementName The name of each child of the valuesElementName child, with the info of a concrete value
+	 * @param valuesTable the table that contains the info of each value at each path
+	 * @param numericValuesInfo The info of numeric values
+	 * @param numericValuesStatisticsElementName The element of the child which will contain the numeric statistics info
+	 * @param distinctValuesSketches The sketches of the distinct values at each path
+	 * @param pathsWithDiscardedValues The paths whose values have been discarded because they had too many distinct values
+	 * @param topValuesSketches The sketches of the most frequent values at each path
+	 * @return An element with all the information described
+	 */
+	protected Element generateNodesAtPathElements(String elementName,String subElementName,Map<String,BasicStatisticsEntry> sourceMap,String valuesElementName, 
+			String valuesSubElementName, Table<String,String,BasicStatisticsEntry> valuesTable, Map<String, BasicStatisticsEntry> numericValuesInfo, String numericValuesStatisticsElementName, 
+			Map<String, HyperLogLog> distinctValuesSketches, Set<String> pathsWithDiscardedValues, Map<String, SpaceSaving> topValuesSketches){
 		Element element = new Element(elementName,STATISTICS_NAMESPACE);
 		for(String path: sourceMap.keySet()){
 			Element currentElement = generateBasicStatisticsEntryBasedElement(subElementName, path, sourceMap.get(path),true, true);
@@ -374,11 +419,47 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 				Element numericValuesInfoOfPathElement = generateBasicStatisticsEntryBasedElement(numericValuesStatisticsElementName, numericValuesInfoOfPath,false, false);
 				currentElement.addContent(numericValuesInfoOfPathElement);
 			}
+			HyperLogLog distinctValuesSketch = distinctValuesSketches.get(path);
+			if(distinctValuesSketch!=null){
+				currentElement.addContent(generateDistinctValuesElement(distinctValuesSketch, pathsWithDiscardedValues.contains(path)));
+			}
+			SpaceSaving topValuesSketch = topValuesSketches.get(path);
+			if(topValuesSketch!=null){
+				currentElement.addContent(generateTopValuesElement(topValuesSketch));
+			}
 		}
 		element.sortChildren(BASIC_ENTRY_ELEMENT_COMPARATOR);
 		return element;
 	}
 	
+	/**
+	 * This method generates an element with the most frequent values of a path, ordered by decreasing estimated frequency. 
+	 * For each value, it generates its estimated count (never lower than the real one), the maximum error of that count, the guaranteed count 
+	 * (never greater than the real one) and the estimated relative frequency. The element also tells the total number of values, 
+	 * the number of values which were monitored and the maximum count that any value which is not present may have.
+	 * @param sketch the sketch of the most frequent values
+	 * @return An element with all the information described
+	 */
+	protected Element generateTopValuesElement(SpaceSaving sketch){
+		Element topValuesElement = new Element("topValues",STATISTICS_NAMESPACE);
+		topValuesElement.setAttribute("capacity", Integer.toString(sketch.getCapacity()));
+		topValuesElement.setAttribute("totalCount", Long.toString(sketch.getTotalCount()));
+		topValuesElement.setAttribute("maxUnmonitoredCount", Long.toString(sketch.getMaxUnmonitoredCount()));
+		for(SpaceSaving.Counter counter: sketch.getCounters()){
+			Element topValueElement = new Element("topValue",STATISTICS_NAMESPACE);
+			topValueElement.setAttribute("count", Long.toString(counter.getCount()));
+			topValueElement.setAttribute("error", Long.toString(counter.getError()));
+			topValueElement.setAttribute("guaranteedCount", Long.toString(counter.getGuaranteedCount()));
+			topValueElement.setAttribute("relativeFrequency", roundingFormat.format(((double) counter.getCount())/sketch.getTotalCount()));
+			Element valueElement = new Element("value", STATISTICS_NAMESPACE);
+			valueElement.setText(counter.getValue());
+			valueElement.setAttribute(new Attribute("space", "preserve", Namespace.XML_NAMESPACE));
+			topValueElement.addContent(valueElement);
+			topValuesElement.addContent(topValueElement);
+		}
+		return topValuesElement;
+	}
+	
 	/**
 	 * This method generates an element with info of the nodes under a complex type (either elements of the complex type or attributes of elements of a concrete complex type).
 	 * For each node, a child element is generated with all the info of its occurrences, a child with the info of its values (if there is any info about them) which will contain one child per value 
@@ -395,6 +476,28 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 	 */
 	protected <T extends SchemaNode> Element generateNodesOfComplexTypesInfoElements(String elementName,String subElementName,Map<T,BasicStatisticsEntry> sourceMap,String valuesElementName, 
 			String valuesSubElementName, Table<String,SchemaNode,BasicStatisticsEntry> valuesTable, Map<SchemaNode, BasicStatisticsEntry> numericValuesInfo, String numericValuesStatisticsElementName){
+		return generateNodesOfComplexTypesInfoElements(elementName, subElementName, sourceMap, valuesElementName, valuesSubElementName, valuesTable, numericValuesInfo, 
+				numericValuesStatisticsElementName, Collections.<SchemaNode, HyperLogLog>emptyMap(), Collections.<SchemaNode>emptySet());
+	}
+	
+	/**
+	 * Like {@link StatisticResultsDocGeneratorImpl#generateNodesOfComplexTypesInfoElements(String, String, Map, String, String, Table, Map, String)}, but it also generates 
+	 * the estimate of the distinct values of each node which has a sketch of them (see {@link StatisticResultsDocGeneratorImpl#generateDistinctValuesElement(HyperLogLog, boolean)}).
+	 * @param elementName The name of the generated element.
+	 * @param subElementName The name of each the element which contains the info of the node at a path.
+	 * @param sourceMap The map that contains the info of the nodes of the complex type
+	 * @param valuesElementName The name of the child element with the values info
+	 * @param valuesSubElementName The name of each child of the valuesElementName child, with the info of a concrete value
+	 * @param valuesTable the table that contains the info of each value of each node
+	 * @param numericValuesInfo The info of numeric values
+	 * @param numericValuesStatisticsElementName The element of the child which will contain the numeric statistics info
+	 * @param distinctValuesSketches The sketches of the distinct values of each node
+	 * @param nodesWithDiscardedValues The nodes whose values have been discarded because they had too many distinct values
+	 * @return An element with all the information described
+	 */
+	protected <T extends SchemaNode> Element generateNodesOfComplexTypesInfoElements(String elementName,String subElementName,Map<T,BasicStatisticsEntry> sourceMap,String valuesElementName, 
+			String valuesSubElementName, Table<String,SchemaNode,BasicStatisticsEntry> valuesTable, Map<SchemaNode, BasicStatisticsEntry> numericValuesInfo, String numericValuesStatisticsElementName, 
+			Map<SchemaNode, HyperLogLog> distinctValuesSketches, Set<SchemaNode> nodesWithDiscardedValues){
 		Element element = new Element(elementName,STATISTICS_NAMESPACE);
 		for(T node: sourceMap.keySet()){
 			String nodeName=node.getName();
@@ -415,11 +518,35 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 				Element numericValuesInfoOfNodeElement = generateBasicStatisticsEntryBasedElement("numericValuesStatistics", numericValuesInfoOfNode,false, false);
 				currentElement.addContent(numericValuesInfoOfNodeElement);
 			}
+			HyperLogLog distinctValuesSketch = distinctValuesSketches.get(node);
+			if(distinctValuesSketch!=null){
+				currentElement.addContent(generateDistinctValuesElement(distinctValuesSketch, nodesWithDiscardedValues.contains(node)));
+			}
 		}
 		element.sortChildren(BASIC_ENTRY_ELEMENT_COMPARATOR);
 		return element;
 	}
 	
+	/**
+	 * This method generates an element with the estimated number of distinct values of a path or node and its error bounds 
+	 * (two relative standard errors around the estimate, which contain the actual number about 95% of the times). 
+	 * It also tells whether the concrete values were discarded because there were too many of them.
+	 * @param sketch the sketch of the distinct values
+	 * @param valuesDiscarded whether the values were discarded
+	 * @return An element with all the information described
+	 */
+	protected Element generateDistinctValuesElement(HyperLogLog sketch, boolean valuesDiscarded){
+		Element distinctValuesElement = new Element("distinctValues",STATISTICS_NAMESPACE);
+		long estimate = sketch.estimate();
+		double relativeStandardError = sketch.getRelativeStandardError();
+		distinctValuesElement.setAttribute("estimate", Long.toString(estimate));
+		distinctValuesElement.setAttribute("relativeStandardError", roundingFormat.format(relativeStandardError));
+		distinctValuesElement.setAttribute("lowerBound", Long.toString((long) Math.floor(estimate*Math.max(0.0, 1-2*relativeStandardError))));
+		distinctValuesElement.setAttribute("upperBound", Long.toString((long) Math.ceil(estimate*(1+2*relativeStandardError))));
+		distinctValuesElement.setAttribute("valuesDiscarded", Boolean.toString(valuesDiscarded));
+		return distinctValuesElement;
+	}
+	
 	/**
 	 * This method generates an element with the info of subpatterns.
 	 * @param elementName the element name
@@ -463,24 +590,101 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 	protected Element generateComplexTypeEntry(String elementName,ComplexType complexType, ComplexTypeStatisticsEntry complexTypeStatisticsEntry, String elementInfoElementName, String elementInfoSubElementName, String attributeInfoElementName, String attributeInfoSubElementName, String valuesInfoElementName, String valuesInfoSubElementName, String subpatternsInfoElementName){
 		Element complexTypeStatisticsEntryElement = new Element("complexType",STATISTICS_NAMESPACE);
 		complexTypeStatisticsEntryElement.setAttribute("name", complexType.getName());
-		Element elementsAtComplexTypeElement = generateNodesOfComplexTypesInfoElements(elementInfoElementName, elementInfoSubElementName, complexTypeStatisticsEntry.getElementInfo(), valuesInfoElementName, valuesInfoSubElementName, complexTypeStatisticsEntry.getValuesInfo(), complexTypeStatisticsEntry.getStatisticsOfNumericValuesOfNodes(), "numericValuesStatistics");
+		Element elementsAtComplexTypeElement = generateNodesOfComplexTypesInfoElements(elementInfoElementName, elementInfoSubElementName, complexTypeStatisticsEntry.getElementInfo(), valuesInfoElementName, valuesInfoSubElementName, complexTypeStatisticsEntry.getValuesInfo(), complexTypeStatisticsEntry.getStatisticsOfNumericValuesOfNodes(), "numericValuesStatistics", complexTypeStatisticsEntry.getDistinctValuesSketches(), complexTypeStatisticsEntry.getNodesWithDiscardedValues());
 		complexTypeStatisticsEntryElement.addContent(elementsAtComplexTypeElement);
-		Element attributesAtComplexTypeElement = generateNodesOfComplexTypesInfoElements(attributeInfoElementName, attributeInfoSubElementName, complexTypeStatisticsEntry.getAttributeOccurrencesInfo(), valuesInfoElementName, valuesInfoSubElementName, complexTypeStatisticsEntry.getValuesInfo(), complexTypeStatisticsEntry.getStatisticsOfNumericValuesOfNodes(), "numericValuesStatistics");
+		Element attributesAtComplexTypeElement = generateNodesOfComplexTypesInfoElements(attributeInfoElementName, attributeInfoSubElementName, complexTypeStatisticsEntry.getAttributeOccurrencesInfo(), valuesInfoElementName, valuesInfoSubElementName, complexTypeStatisticsEntry.getValuesInfo(), complexTypeStatisticsEntry.getStatisticsOfNumericValuesOfNodes(), "numericValuesStatistics", complexTypeStatisticsEntry.getDistinctValuesSketches(), complexTypeStatisticsEntry.getNodesWithDiscardedValues());
 		complexTypeStatisticsEntryElement.addContent(attributesAtComplexTypeElement);
 		Element subpatternsInfoElement = generateSubpatternsInfoElement(subpatternsInfoElementName, complexTypeStatisticsEntry.getSubpatternsInfo());
 		complexTypeStatisticsEntryElement.addContent(subpatternsInfoElement);
 		return complexTypeStatisticsEntryElement;
 	}
 	
+	/**
+	 * This method generates an element which tells how many occurrences back each edge of the automaton of a complex type 
+	 * and each value of its enumerations (if any), so that it may be known whether a sample of the input documents 
+	 * was too small to trust the inferred type. It also tells the minimum of all of them.
+	 * @param elementName the name of the generated element
+	 * @param complexType the complex type
+	 * @param complexTypeStatisticsEntry the statistics of the complex type
+	 * @return An element with all the information described
+	 */
+	protected Element generateSupportInfoElement(String elementName, ComplexType complexType, ComplexTypeStatisticsEntry complexTypeStatisticsEntry){
+		Element element = new Element(elementName,STATISTICS_NAMESPACE);
+		long minSupport = Long.MAX_VALUE;
+		List<Table.Cell<SchemaElement, SchemaElement, Long>> edges = new ArrayList<>(complexType.getAutomaton().getEdgeCellSet());
+		final SchemaElementComparator schemaElementComparator = new SchemaElementComparator();
+		Collections.sort(edges, new Comparator<Table.Cell<SchemaElement, SchemaElement, Long>>() {
+			
+			@Override
+			public int compare(Table.Cell<SchemaElement, SchemaElement, Long> o1, Table.Cell<SchemaElement, SchemaElement, Long> o2) {
+				int result = schemaElementComparator.compare(o1.getRowKey(), o2.getRowKey());
+				return result!=0?result:schemaElementComparator.compare(o1.getColumnKey(), o2.getColumnKey());
+			}
+		});
+		for(Table.Cell<SchemaElement, SchemaElement, Long> edge: edges){
+			Element edgeElement = new Element("edgeSupport",STATISTICS_NAMESPACE);
+			edgeElement.setAttribute("fromName", edge.getRowKey().getName());
+			edgeElement.setAttribute("fromNamespace", edge.getRowKey().getNamespace());
+			edgeElement.setAttribute("toName", edge.getColumnKey().getName());
+			edgeElement.setAttribute("toNamespace", edge.getColumnKey().getNamespace());
+			edgeElement.setAttribute("support", edge.getValue().toString());
+			element.addContent(edgeElement);
+			minSupport = Math.min(minSupport, edge.getValue());
+		}
+		SimpleType textSimpleType = complexType.getTextSimpleType();
+		if(textSimpleType!=null && textSimpleType.isEnum()){
+			for(String value: textSimpleType){
+				long support = complexTypeStatisticsEntry.getTextValueOccurrences(value);
+				Element valueElement = new Element("enumerationValueSupport",STATISTICS_NAMESPACE);
+				valueElement.setAttribute("value", value);
+				valueElement.setAttribute("support", Long.toString(support));
+				element.addContent(valueElement);
+				minSupport = Math.min(minSupport, support);
+			}
+		}
+		for(SchemaAttribute attribute: complexType.getAttributeList()){
+			SimpleType attributeSimpleType = attribute.getSimpleType();
+			if(attributeSimpleType==null || !attributeSimpleType.isEnum())
+				continue;
+			for(String value: attributeSimpleType){
+				long support = complexTypeStatisticsEntry.getAttributeValueOccurrences(value, attribute.getNamespace(), attribute.getName());
+				Element valueElement = new Element("enumerationValueSupport",STATISTICS_NAMESPACE);
+				valueElement.setAttribute("attributeName", attribute.getName());
+				valueElement.setAttribute("attributeNamespace", attribute.getNamespace());
+				valueElement.setAttribute("value", value);
+				valueElement.setAttribute("support", Long.toString(support));
+				element.addContent(valueElement);
+				minSupport = Math.min(minSupport, support);
+			}
+		}
+		if(minSupport!=Long.MAX_VALUE)
+			element.setAttribute("minSupport", Long.toString(minSupport));
+		return element;
+	}
+	
 	/**
 	 * This method generates an element with the info about all the complex types.
 	 * @param complexTypesInfo The complex types info of the statistics
 	 * @return An element with all the information described
 	 */
 	protected Element generateComplexTypesInfo(Map<ComplexType,ComplexTypeStatisticsEntry> complexTypesInfo){
+		return generateComplexTypesInfo(complexTypesInfo, false);
+	}
+	
+	/**
+	 * This method generates an element with the info about all the complex types.
+	 * @param complexTypesInfo The complex types info of the statistics
+	 * @param generateSupportInfo whether the support info of each complex type should be generated (it is intended for sampled input documents)
+	 * @return An element with all the information described
+	 * @see StatisticResultsDocGeneratorImpl#generateSupportInfoElement(String, ComplexType, ComplexTypeStatisticsEntry)
+	 */
+	protected Element generateComplexTypesInfo(Map<ComplexType,ComplexTypeStatisticsEntry> complexTypesInfo, boolean generateSupportInfo){
 		Element complexTypesInfoElement = new Element("complexTypesInfo",STATISTICS_NAMESPACE);
 		for(ComplexType complexType: complexTypesInfo.keySet()){
 			Element complexTypeStatisticsEntryElement = generateComplexTypeEntry("complexType", complexType, complexTypesInfo.get(complexType), "elements", "element", "attributes", "attribute", "values", "value", "subpatternsInfo");
+			if(generateSupportInfo){
+				complexTypeStatisticsEntryElement.addContent(generateSupportInfoElement("supportInfo", complexType, complexTypesInfo.get(complexType)));
+			}
 			complexTypesInfoElement.addContent(complexTypeStatisticsEntryElement);
 		}
 		return complexTypesInfoElement;
@@ -519,13 +723,13 @@ class StatisticResultsDocGeneratorImpl implements StatisticResultsDocGenerator {
 		Element rootElementsOccurrencesElement = generateRootElementsOccurrencesElement(statistics.getRootElementOccurrences());
 		statisticsElement.addContent(rootElementsOccurrencesElement);
 		
-		Element elementsAtPathElement = generateNodesAtPathElements("elementsAtPathOccurrences", "element", statistics.getElementAtPathInfo(), "valuesAtPath", "valueAtPath", statistics.getValuesAtPathInfo(), statistics.getStatisticsOfNumericValuesAtPath(), "numericValuesStatistics");
+		Element elementsAtPathElement = generateNodesAtPathElements("elementsAtPathOccurrences", "element", statistics.getElementAtPathInfo(), "valuesAtPath", "valueAtPath", statistics.getValuesAtPathInfo(), statistics.getStatisticsOfNumericValuesAtPath(), "numericValuesStatistics", statistics.getDistinctValuesAtPathSketches(), statistics.getPathsWithDiscardedValues(), statistics.getTopValuesAtPath());
 		statisticsElement.addContent(elementsAtPathElement);
 
-		Element attributesAtPathElement = generateNodesAtPathElements("attributesAtPathOccurrences", "attribute", statistics.getAttributeAtPathInfo(), "valuesAtPath", "valueAtPath", statistics.getValuesAtPathInfo(), statistics.getStatisticsOfNumericValuesAtPath(), "numericValuesStatistics");
+		Element attributesAtPathElement = generateNodesAtPathElements("attributesAtPathOccurrences", "attribute", statistics.getAttributeAtPathInfo(), "valuesAtPath", "valueAtPath", statistics.getValuesAtPathInfo(), statistics.getStatisticsOfNumericValuesAtPath(), "numericValuesStatistics", statistics.getDistinctValuesAtPathSketches(), statistics.getPathsWithDiscardedValues(), statistics.getTopValuesAtPath());
 		statisticsElement.addContent(attributesAtPathElement);
 		
-		Element complexTypesInfoElement = generateComplexTypesInfo(statistics.getComplexTypeInfo());
+		Element complexTypesInfoElement = generateComplexTypesInfo(statistics.getComplexTypeInfo(), statistics.getSampled());
 		statisticsElement.addContent(complexTypesInfoElement);
 		
 		Document resultingDocument = new Document(statisticsElement);
@@ -189,7 +189,9 @@ public class TypeMergerImpl implements TypeMerger {
 						boolean simpleTypeCondition = snEnumComparator!=null?snEnumComparator.compare(simpleTypeOf1, simpleTypeOf2):false;//1
 						simpleTypeCondition = simpleTypeCondition|| ((!simpleTypeOf1.isEnum() && !simpleTypeOf2.isEnum()) && simpleTypeOf1.getBuiltinType().equals(simpleTypeOf2.getBuiltinType()));//2
 						simpleTypeCondition = simpleTypeCondition|| ((simpleTypeOf1.isEmpty()||simpleTypeOf1.isEmpty()) && (simpleTypeOf2.isEmpty()||simpleTypeOf2.isEmpty()));//3
-						if((attributesCondition&&automatonCondition&&simpleTypeCondition)||needsSameNameForcedMerge){
+						//Types whose content has been skipped are only merged with other skipped ones (unless it is forced)
+						boolean contentSkippedCondition = complexType1.isContentSkipped()==complexType2.isContentSkipped();
+						if((attributesCondition&&automatonCondition&&simpleTypeCondition&&contentSkippedCondition)||needsSameNameForcedMerge){
 							if(!(attributesCondition&&automatonCondition)&&!forcedComplexTypeMergedAlreadyWarned){
 								//System.err.println("It has been necessary to merge complex types because they appear on elements with the same name at a namespace.");
 								forcedComplexTypeMergedAlreadyWarned=true;
@@ -256,7 +258,8 @@ public class TypeMergerImpl implements TypeMerger {
 						boolean simpleTypeCondition = enumComparator!=null?enumComparator.compare(simpleTypeOf1, simpleTypeOf2):false;//1
 						simpleTypeCondition = simpleTypeCondition|| ((!simpleTypeOf1.isEnum() && !simpleTypeOf2.isEnum()) && simpleTypeOf1.getBuiltinType().equals(simpleTypeOf2.getBuiltinType()));
 						simpleTypeCondition = simpleTypeCondition|| ((simpleTypeOf1.isEmpty()||simpleTypeOf1.isEmpty()) && (simpleTypeOf2.isEmpty()||simpleTypeOf2.isEmpty()));
-						if(attributesCondition&&automatonCondition&&simpleTypeCondition){
+						boolean contentSkippedCondition = complexType1.isContentSkipped()==complexType2.isContentSkipped();
+						if(attributesCondition&&automatonCondition&&simpleTypeCondition&&contentSkippedCondition){
 							mergeComplexTypes(schema, configuration,
 									attributeListComparator,
 									childrenPatternComparator,
@@ -448,6 +451,8 @@ public class TypeMergerImpl implements TypeMerger {
 		complexTypeMergedComments.addAll(complexType1Comments);
 		complexTypeMergedComments.addAll(complexType2Comments);
 		
+		complexTypeMerged.setContentSkipped(complexType1.isContentSkipped()||complexType2.isContentSkipped());
+		
 		SimpleType simpleType1=complexType1.getTextSimpleType();
 		SimpleType simpleType2=complexType2.getTextSimpleType();
 		
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -67,6 +68,13 @@ public class BasicStatisticsEntry {
 		values = new ArrayList<>(other.values);
 	}
 	
+	/**
+	 * @return an unmodifiable view of the values (one per document)
+	 */
+	public List<Double> getValues() {
+		return Collections.unmodifiableList(values);
+	}
+	
 	/**
 	 * @return The variance of the values
 	 */
@@ -237,6 +245,16 @@ public class BasicStatisticsEntry {
 	 * @param index the index whose value will be incremented.
 	 */
 	public void registerCount(int index){
+		registerCount(index, 1);
+	}
+	
+	/**
+	 * This method increments the value at the given index by several occurrences at once, as if 
+	 * {@link BasicStatisticsEntry#registerCount(int)} had been called that number of times.
+	 * @param index the index whose value will be incremented.
+	 * @param count the number of occurrences
+	 */
+	public void registerCount(int index, int count){
 		double previousCount;
 		if(index<values.size()){
 			previousCount=values.get(index);
@@ -246,7 +264,7 @@ public class BasicStatisticsEntry {
 			for(int i=values.size();i<=index;i++)
 				values.add(0.0);
 		}
-		values.set(index,previousCount+1);
+		values.set(index,previousCount+count);
 	}
 
 	/**
@@ -262,6 +280,40 @@ public class BasicStatisticsEntry {
 		}
 		values.set(index,value);
 	}
+	
+	/**
+	 * This method fills the values list with zeros until it reaches the given size. If it is already 
+	 * that long, nothing is done.
+	 * @param size the minimum size of the values list
+	 */
+	public void ensureSize(int size){
+		for(int i=values.size();i<size;i++)
+			values.add(0.0);
+	}
+	
+	/**
+	 * This method copies the values of a range of documents to the following positions, as many times as requested, 
+	 * so that the copies look like identical documents. The values list is filled with zeros as needed.
+	 * @param fromIndex the index of the first copied document (inclusive)
+	 * @param toIndex the index of the last copied document (exclusive)
+	 * @param firstCopyIndex the index of the first document of the first copy (it must not be less than toIndex)
+	 * @param copies the number of copies
+	 */
+	public void copyValues(int fromIndex, int toIndex, int firstCopyIndex, int copies){
+		checkArgument(0<=fromIndex && fromIndex<=toIndex,"Invalid range of documents to copy");
+		checkArgument(firstCopyIndex>=toIndex,"'firstCopyIndex' must not be less than 'toIndex'");
+		checkArgument(copies>=0,"'copies' must not be negative");
+		int length = toIndex-fromIndex;
+		ensureSize(firstCopyIndex+copies*length);
+		for(int i=0;i<length;i++){
+			double value = fromIndex+i<values.size()?values.get(fromIndex+i):0.0;
+			if(value==0.0)
+				continue;
+			for(int copy=0;copy<copies;copy++){
+				values.set(firstCopyIndex+copy*length+i, value);
+			}
+		}
+	}
 
 	/**
 	 * Hash code generated from the source list
@@ -348,4 +400,25 @@ public class BasicStatisticsEntry {
 		return entryNew;
 	}
 	
+	/**
+	 * Adds an entry to the entry associated to a key at a map. If the map does not contain the key, 
+	 * a copy of the entry is put, if it does, the previous entry is replaced by a merged one (via 
+	 * {@link BasicStatisticsEntry#mergeBasicStatisticsEntries(BasicStatisticsEntry, BasicStatisticsEntry)}).
+	 * If the key was already present, the key object of the map is kept.
+	 * @param map the map
+	 * @param key the key
+	 * @param entry the entry to add
+	 */
+	public static <K> void mergeBasicStatisticsEntryIntoMap(Map<K, BasicStatisticsEntry> map, K key, BasicStatisticsEntry entry){
+		checkNotNull(map);
+		checkNotNull(entry);
+		BasicStatisticsEntry previousEntry = map.get(key);
+		if(previousEntry==null){
+			map.put(key, new BasicStatisticsEntry(entry));
+		}
+		else{
+			map.put(key, mergeBasicStatisticsEntries(previousEntry, entry));
+		}
+	}
+	
 }
@@ -15,6 +15,8 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.statistics;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,6 +36,7 @@ import es.upm.dit.xsdinferencer.datastructures.ComplexType;
 import es.upm.dit.xsdinferencer.datastructures.SchemaAttribute;
 import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
 import es.upm.dit.xsdinferencer.datastructures.SchemaNode;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
 
 /**
  * This object contains all the statistics related to a particular {@link ComplexType}.
@@ -84,17 +87,57 @@ public class ComplexTypeStatisticsEntry {
 	private int lastAllValuesTablesHash;
 	//private int totalOccurrences;
 	
+	/**
+	 * Precision of the sketches which estimate the distinct values of each node (0 if no sketches are used)
+	 */
+	private int distinctValuesSketchPrecision;
+	
+	/**
+	 * Maximum estimated number of distinct values of a node whose values are still kept (only used with sketches)
+	 */
+	private int exactValuesLimit;
+	
+	/**
+	 * Sketches of the distinct values of each node (only if they are used)
+	 */
+	private Map<SchemaNode, HyperLogLog> distinctValuesSketches;
+	
+	/**
+	 * Nodes whose values are not kept at valuesInfo because their estimated number of distinct values 
+	 * has been greater than exactValuesLimit
+	 */
+	private Set<SchemaNode> nodesWithDiscardedValues;
+	
 	/**
 	 * Default constructor
 	 * @param inputDocumentsCount how many input documents are there
 	 */
 	public ComplexTypeStatisticsEntry(int inputDocumentsCount){
+		this(inputDocumentsCount, 0, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Constructor of an entry which estimates the distinct values of each node with {@link HyperLogLog} sketches, 
+	 * so that the concrete values of the nodes with more estimated distinct values than a limit are discarded 
+	 * and not kept anymore.
+	 * @param inputDocumentsCount how many input documents are there
+	 * @param distinctValuesSketchPrecision the precision of the sketches (0 means that no sketches are used and all the values are kept)
+	 * @param exactValuesLimit the maximum estimated number of distinct values of a node whose values are kept
+	 */
+	public ComplexTypeStatisticsEntry(int inputDocumentsCount, int distinctValuesSketchPrecision, int exactValuesLimit){
+		checkArgument(distinctValuesSketchPrecision==0 || (distinctValuesSketchPrecision>=HyperLogLog.MIN_PRECISION && distinctValuesSketchPrecision<=HyperLogLog.MAX_PRECISION),
+				"Invalid precision of the distinct values sketches");
+		checkArgument(exactValuesLimit>=0,"'exactValuesLimit' must not be negative");
 		this.inputDocumentsCount=inputDocumentsCount;
 		this.elementInfo=new HashMap<SchemaElement, BasicStatisticsEntry>();
 		this.subpatternsInfo=new HashMap<List<SchemaElement>, Integer>();
 		this.attributeOccurrencesInfo=new HashMap<SchemaAttribute, BasicStatisticsEntry>();
 		this.valuesInfo=HashBasedTable.create();
 		this.lastAllValuesTablesHash=valuesInfo.hashCode();
+		this.distinctValuesSketchPrecision=distinctValuesSketchPrecision;
+		this.exactValuesLimit=exactValuesLimit;
+		this.distinctValuesSketches=new HashMap<SchemaNode, HyperLogLog>();
+		this.nodesWithDiscardedValues=new HashSet<SchemaNode>();
 	}
 	
 	
@@ -112,6 +155,10 @@ public class ComplexTypeStatisticsEntry {
 		this.attributeOccurrencesInfo=new HashMap<SchemaAttribute, BasicStatisticsEntry>(complexTypeStatisticsEntryScenario2CB.attributeOccurrencesInfo);
 		this.valuesInfo=HashBasedTable.create(complexTypeStatisticsEntryScenario2CB.valuesInfo);
 		this.lastAllValuesTablesHash=complexTypeStatisticsEntryScenario2CB.lastAllValuesTablesHash;
+		this.distinctValuesSketchPrecision=complexTypeStatisticsEntryScenario2CB.distinctValuesSketchPrecision;
+		this.exactValuesLimit=complexTypeStatisticsEntryScenario2CB.exactValuesLimit;
+		this.distinctValuesSketches=new HashMap<SchemaNode, HyperLogLog>(complexTypeStatisticsEntryScenario2CB.distinctValuesSketches);
+		this.nodesWithDiscardedValues=new HashSet<SchemaNode>(complexTypeStatisticsEntryScenario2CB.nodesWithDiscardedValues);
 	}
 
 	/**
@@ -142,25 +189,113 @@ public class ComplexTypeStatisticsEntry {
 		return valuesInfo;
 	}
 	
+	/**
+	 * @return the sketches of the distinct values of each node (empty if they are not used)
+	 */
+	public Map<SchemaNode, HyperLogLog> getDistinctValuesSketches() {
+		return distinctValuesSketches;
+	}
+	
+	/**
+	 * @return the nodes whose values have been discarded because they had too many distinct values
+	 */
+	public Set<SchemaNode> getNodesWithDiscardedValues() {
+		return nodesWithDiscardedValues;
+	}
+	
+	/**
+	 * @return the precision of the sketches of distinct values (0 if they are not used)
+	 */
+	public int getDistinctValuesSketchPrecision() {
+		return distinctValuesSketchPrecision;
+	}
+	
 	/**
 	 * It takes a list of elements and registers all the subpatterns present.
 	 * @param list a list of elements (the children of another element in the same order).
 	 */
 	public void registerSubpatternsFromList(List<SchemaElement>list){
+		registerSubpatternsFromList(list, 1);
+	}
+	
+	/**
+	 * It takes a list of elements which has been found several times and registers all the subpatterns present, 
+	 * as if {@link ComplexTypeStatisticsEntry#registerSubpatternsFromList(List)} had been called that number of times.
+	 * @param list a list of elements (the children of another element in the same order).
+	 * @param count how many times the list has been found
+	 */
+	public void registerSubpatternsFromList(List<SchemaElement>list, int count){
 		for(int i=0;i<list.size();i++){
 			for(int j=i;j<list.size();j++){
-				List<SchemaElement> subpattern = ImmutableList.copyOf(list.subList(i, j+1));//toIndex del metodo subList NO esta incluido
+				List<SchemaElement> subpattern = list.subList(i, j+1);//toIndex del metodo subList NO esta incluido
 				Integer previousCount=subpatternsInfo.get(subpattern);
 				if(previousCount==null){
-					subpatternsInfo.put(subpattern, 1);
+					//Only new subpatterns are copied (the list may be a buffer which is reused later)
+					subpatternsInfo.put(ImmutableList.copyOf(subpattern), count);
 				}
 				else{
-					subpatternsInfo.put(subpattern, previousCount+1);
+					subpatternsInfo.put(subpattern, previousCount+count);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * It takes a run-length encoded list of elements which has been found several times and registers the subpatterns 
+	 * which take at most two elements of each run, with the same counts that 
+	 * {@link ComplexTypeStatisticsEntry#registerSubpatternsFromList(List, int)} would register for them with the expanded list. 
+	 * Longer repetitions are not registered, so that a long run does not register a subpattern for each of its lengths.
+	 * @param list the elements of the runs of the list (the children of another element in the same order)
+	 * @param runLengths the length of the run of each element of the list
+	 * @param count how many times the list has been found
+	 */
+	public void registerSubpatternsFromRuns(List<SchemaElement> list, List<Integer> runLengths, int count){
+		checkArgument(runLengths.size()==list.size(), "there must be a run length for each element of 'list'");
+		List<SchemaElement> subpattern = new ArrayList<>();
+		for(int i=0;i<list.size();i++){
+			SchemaElement first = list.get(i);
+			int firstRunLength = runLengths.get(i);
+			//Subpatterns inside the run: a repetition of k elements is found (runLength-k+1) times
+			subpattern.clear();
+			for(int k=1;k<=Math.min(firstRunLength, 2);k++){
+				subpattern.add(first);
+				registerSubpattern(subpattern, (firstRunLength-k+1)*count);
+			}
+			//Subpatterns which begin with a suffix of this run and end with a prefix of a later one. 
+			//Runs in the middle are taken whole, so a run longer than two elements stops them.
+			for(int firstLength=1;firstLength<=Math.min(firstRunLength, 2);firstLength++){
+				subpattern.clear();
+				for(int l=0;l<firstLength;l++)
+					subpattern.add(first);
+				for(int j=i+1;j<list.size();j++){
+					SchemaElement last = list.get(j);
+					int lastRunLength = runLengths.get(j);
+					for(int lastLength=1;lastLength<=Math.min(lastRunLength, 2);lastLength++){
+						subpattern.add(last);
+						registerSubpattern(subpattern, count);
+					}
+					if(lastRunLength>2)
+						break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds some occurrences of a subpattern.
+	 * @param subpattern the subpattern (it is copied if it is new, so it may be a buffer which is reused later)
+	 * @param count how many times the subpattern has been found
+	 */
+	private void registerSubpattern(List<SchemaElement> subpattern, int count){
+		Integer previousCount=subpatternsInfo.get(subpattern);
+		if(previousCount==null){
+			subpatternsInfo.put(ImmutableList.copyOf(subpattern), count);
+		}
+		else{
+			subpatternsInfo.put(subpattern, previousCount+count);
+		}
+	}
+	
 	/**
 	 * It registers an occurrence of a child element on an element of this 
 	 * complex type at a document.
@@ -169,9 +304,23 @@ public class ComplexTypeStatisticsEntry {
 	 * @param documentIndex the index of the document
 	 */
 	public void registerElementCount(SchemaElement element, int documentIndex){
-		if(!elementInfo.containsKey(element))
-			elementInfo.put(element, new BasicStatisticsEntry(inputDocumentsCount));
-		elementInfo.get(element).registerCount(documentIndex);
+		registerElementCount(element, documentIndex, 1);
+	}
+	
+	/**
+	 * It registers several occurrences of a child element on elements of this complex type at a document.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * @param element the element
+	 * @param documentIndex the index of the document
+	 * @param count the number of occurrences
+	 */
+	public void registerElementCount(SchemaElement element, int documentIndex, int count){
+		BasicStatisticsEntry entry = elementInfo.get(element);
+		if(entry==null){
+			entry = new BasicStatisticsEntry(inputDocumentsCount);
+			elementInfo.put(element, entry);
+		}
+		entry.registerCount(documentIndex, count);
 		updateInputDocumentsCount(documentIndex+1);
 	}
 	
@@ -183,9 +332,23 @@ public class ComplexTypeStatisticsEntry {
 	 * @param documentIndex the index of the document
 	 */
 	public void registerAttributeOccurrenceInfoCount(SchemaAttribute attribute, int documentIndex){
-		if(!attributeOccurrencesInfo.containsKey(attribute))
-			attributeOccurrencesInfo.put(attribute, new BasicStatisticsEntry(inputDocumentsCount));
-		attributeOccurrencesInfo.get(attribute).registerCount(documentIndex);
+		registerAttributeOccurrenceInfoCount(attribute, documentIndex, 1);
+	}
+	
+	/**
+	 * It registers several occurrences of an attribute on elements of this complex type at a document.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * @param attribute the attribute
+	 * @param documentIndex the index of the document
+	 * @param count the number of occurrences
+	 */
+	public void registerAttributeOccurrenceInfoCount(SchemaAttribute attribute, int documentIndex, int count){
+		BasicStatisticsEntry entry = attributeOccurrencesInfo.get(attribute);
+		if(entry==null){
+			entry = new BasicStatisticsEntry(inputDocumentsCount);
+			attributeOccurrencesInfo.put(attribute, entry);
+		}
+		entry.registerCount(documentIndex, count);
 		updateInputDocumentsCount(documentIndex+1);
 	}
 	
@@ -197,12 +360,91 @@ public class ComplexTypeStatisticsEntry {
 	 * @param documentIndex the index of the document
 	 */
 	public void registerValueOfNodeCount(String value, SchemaNode sourceElement, int documentIndex) {
+		if(distinctValuesSketchPrecision>0){
+			HyperLogLog sketch = distinctValuesSketches.get(sourceElement);
+			if(sketch==null){
+				sketch = new HyperLogLog(distinctValuesSketchPrecision);
+				distinctValuesSketches.put(sourceElement, sketch);
+			}
+			sketch.add(value);
+			if(nodesWithDiscardedValues.contains(sourceElement) || discardValuesOfNodeIfTooMany(sourceElement)){
+				updateInputDocumentsCount(documentIndex+1);
+				return;
+			}
+		}
 		if(!valuesInfo.contains(value, sourceElement)){
 			valuesInfo.put(value, sourceElement, new BasicStatisticsEntry(inputDocumentsCount));
 		}
 		valuesInfo.get(value, sourceElement).registerCount(documentIndex);
 		updateInputDocumentsCount(documentIndex+1);
 	}
+	
+	/**
+	 * Discards the values of a node (and stops keeping them) if the estimate of its distinct values is 
+	 * greater than the limit.
+	 * @param node the node
+	 * @return whether the values have been discarded
+	 */
+	private boolean discardValuesOfNodeIfTooMany(SchemaNode node){
+		HyperLogLog sketch = distinctValuesSketches.get(node);
+		if(sketch==null || sketch.estimate()<=exactValuesLimit)
+			return false;
+		valuesInfo.column(node).clear();
+		nodesWithDiscardedValues.add(node);
+		return true;
+	}
+	
+	/**
+	 * Adds the sketch of the distinct values of a node of another entry to the sketch of a node of this one, 
+	 * discarding the values of the node if it has too many distinct values.
+	 * @param node the node of this entry
+	 * @param otherSketch the sketch of the other entry
+	 * @param otherValuesDiscarded whether the other entry has discarded the values of its node
+	 */
+	private void mergeDistinctValuesSketch(SchemaNode node, HyperLogLog otherSketch, boolean otherValuesDiscarded){
+		HyperLogLog sketch = distinctValuesSketches.get(node);
+		if(sketch==null){
+			distinctValuesSketches.put(node, new HyperLogLog(otherSketch));
+		} else {
+			sketch.merge(otherSketch);
+		}
+		if(otherValuesDiscarded && nodesWithDiscardedValues.add(node)){
+			valuesInfo.column(node).clear();
+		} else if(!nodesWithDiscardedValues.contains(node)){
+			discardValuesOfNodeIfTooMany(node);
+		}
+	}
+	
+	/**
+	 * It returns how many times a value has occurred as the text of the elements of this complex type.
+	 * @param value the value
+	 * @return the number of occurrences of the value on elements
+	 */
+	public long getTextValueOccurrences(String value) {
+		long result = 0;
+		for(Map.Entry<SchemaNode, BasicStatisticsEntry> nodeEntry: valuesInfo.row(value).entrySet()){
+			if(nodeEntry.getKey() instanceof SchemaElement)
+				result+=nodeEntry.getValue().getTotal();
+		}
+		return result;
+	}
+	
+	/**
+	 * It returns how many times a value has occurred on an attribute of the elements of this complex type.
+	 * @param value the value
+	 * @param attributeNamespace the namespace of the attribute
+	 * @param attributeName the name of the attribute
+	 * @return the number of occurrences of the value on the attribute
+	 */
+	public long getAttributeValueOccurrences(String value, String attributeNamespace, String attributeName) {
+		long result = 0;
+		for(Map.Entry<SchemaNode, BasicStatisticsEntry> nodeEntry: valuesInfo.row(value).entrySet()){
+			SchemaNode node = nodeEntry.getKey();
+			if(node instanceof SchemaAttribute && Objects.equals(node.getNamespace(), attributeNamespace) && node.getName().equals(attributeName))
+				result+=nodeEntry.getValue().getTotal();
+		}
+		return result;
+	}
 
 	/**
 	 * @return the inputDocumentsCount
@@ -221,6 +463,98 @@ public class ComplexTypeStatisticsEntry {
 			this.inputDocumentsCount=countCandidate;
 	}
 	
+	/**
+	 * It increases the count of input documents (if the given one is greater than the current one) and fills with zeros 
+	 * the information of the documents which were not known yet, so that all the {@link BasicStatisticsEntry} objects 
+	 * of this entry have a value per document.
+	 * @param inputDocumentsCount the new count of input documents
+	 */
+	public void increaseInputDocumentsCount(int inputDocumentsCount){
+		updateInputDocumentsCount(inputDocumentsCount);
+		for(BasicStatisticsEntry entry: elementInfo.values()){
+			entry.ensureSize(this.inputDocumentsCount);
+		}
+		for(BasicStatisticsEntry entry: attributeOccurrencesInfo.values()){
+			entry.ensureSize(this.inputDocumentsCount);
+		}
+		for(BasicStatisticsEntry entry: valuesInfo.values()){
+			entry.ensureSize(this.inputDocumentsCount);
+		}
+	}
+	
+	/**
+	 * It copies the information of a range of documents to the following document indexes, as many times as requested, 
+	 * so that the copies count as identical documents. Subpatterns are not registered per document, so they are not copied.
+	 * @param fromIndex the index of the first copied document (inclusive)
+	 * @param toIndex the index of the last copied document (exclusive)
+	 * @param firstCopyIndex the index of the first document of the first copy (it must not be less than toIndex)
+	 * @param copies the number of copies
+	 */
+	public void copyDocuments(int fromIndex, int toIndex, int firstCopyIndex, int copies){
+		for(BasicStatisticsEntry entry: elementInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(BasicStatisticsEntry entry: attributeOccurrencesInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(BasicStatisticsEntry entry: valuesInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		updateInputDocumentsCount(firstCopyIndex+copies*(toIndex-fromIndex));
+	}
+	
+	/**
+	 * Adds all the information of another entry of the same complex type, gathered from different documents 
+	 * (with the same document indexes numbering), to this one. The other entry is not modified.
+	 * Unlike {@link ComplexTypeStatisticsEntry#mergeEntries(ComplexTypeStatisticsEntry, ComplexTypeStatisticsEntry, Set, Set, Set)}, 
+	 * this is intended to combine partial entries of the same complex type, not entries of different complex types.
+	 * @param other the other entry
+	 * @param elementMapping mapping between {@link SchemaElement} objects of the other entry and the equivalent ones to use at this entry. 
+	 *                       Elements which are not mapped are used as they are.
+	 */
+	public void addAll(ComplexTypeStatisticsEntry other, Map<SchemaElement, SchemaElement> elementMapping){
+		for(Map.Entry<SchemaElement, BasicStatisticsEntry> otherEntry: other.elementInfo.entrySet()){
+			SchemaElement element = getMappedNode(otherEntry.getKey(), elementMapping);
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(elementInfo, element, otherEntry.getValue());
+		}
+		for(Map.Entry<SchemaAttribute, BasicStatisticsEntry> otherEntry: other.attributeOccurrencesInfo.entrySet()){
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(attributeOccurrencesInfo, otherEntry.getKey(), otherEntry.getValue());
+		}
+		for(Table.Cell<String, SchemaNode, BasicStatisticsEntry> otherCell: other.valuesInfo.cellSet()){
+			SchemaNode node = getMappedNode(otherCell.getColumnKey(), elementMapping);
+			if(nodesWithDiscardedValues.contains(node))
+				continue;
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(valuesInfo.row(otherCell.getRowKey()), node, otherCell.getValue());
+		}
+		for(Map.Entry<SchemaNode, HyperLogLog> otherSketchEntry: other.distinctValuesSketches.entrySet()){
+			SchemaNode otherNode = otherSketchEntry.getKey();
+			mergeDistinctValuesSketch(getMappedNode(otherNode, elementMapping), otherSketchEntry.getValue(), other.nodesWithDiscardedValues.contains(otherNode));
+		}
+		for(Map.Entry<List<SchemaElement>, Integer> otherEntry: other.subpatternsInfo.entrySet()){
+			List<SchemaElement> subpattern = new ArrayList<>(otherEntry.getKey().size());
+			for(SchemaElement element: otherEntry.getKey()){
+				subpattern.add(getMappedNode(element, elementMapping));
+			}
+			subpattern = ImmutableList.copyOf(subpattern);
+			Integer previousCount = subpatternsInfo.get(subpattern);
+			subpatternsInfo.put(subpattern, otherEntry.getValue()+(previousCount!=null?previousCount:0));
+		}
+		updateInputDocumentsCount(other.inputDocumentsCount);
+	}
+	
+	/**
+	 * Returns the node that must be used at this entry instead of a node of another entry, 
+	 * according to the given mapping.
+	 * @param otherNode the node of the other entry
+	 * @param elementMapping mapping between elements of the other entry and elements of this one
+	 * @return the mapped node, or the original node if it is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	private static <F extends SchemaNode> F getMappedNode(F otherNode, Map<SchemaElement, SchemaElement> elementMapping){
+		SchemaElement mappedNode = elementMapping.get(otherNode);
+		return mappedNode!=null?(F) mappedNode:otherNode;
+	}
+	
 	/**
 	 * Method that generates merged {@link ComplexTypeStatisticsEntry} from 
 	 * two original ones.
@@ -235,13 +569,34 @@ public class ComplexTypeStatisticsEntry {
 			Set<SchemaElement> mergedSchemaElements, Set<SchemaAttribute> mergedSchemaAttributes, Set<SchemaNode> mergedNodesWithValues){
 
 		int sizeNew=Math.max(entry1.getInputDocumentsCount(), entry2.getInputDocumentsCount());
-		ComplexTypeStatisticsEntry entryMerged = new ComplexTypeStatisticsEntry(sizeNew);
+		ComplexTypeStatisticsEntry entryMerged = new ComplexTypeStatisticsEntry(sizeNew, entry1.distinctValuesSketchPrecision, entry1.exactValuesLimit);
 		fillMergedMap(entry1.elementInfo, entry2.elementInfo, entryMerged.elementInfo, mergedSchemaElements);
 		fillMergedMap(entry1.attributeOccurrencesInfo,entry2.attributeOccurrencesInfo,entryMerged.attributeOccurrencesInfo, mergedSchemaAttributes);
 		fillMergedTable(entry1.valuesInfo, entry2.valuesInfo, entryMerged.valuesInfo, mergedNodesWithValues);
 		fillMergedPatternsMap(entry1.subpatternsInfo, entry2.subpatternsInfo, entryMerged.subpatternsInfo, mergedSchemaElements);
+		fillMergedSketches(entry1, entryMerged, mergedNodesWithValues);
+		fillMergedSketches(entry2, entryMerged, mergedNodesWithValues);
 		return entryMerged;
 	}
+	
+	/**
+	 * It adds the sketches of distinct values of an original entry to the merged one, so that the sketch of each merged 
+	 * node has the values of the original nodes with the same name and namespace.
+	 * @param originalEntry the original entry
+	 * @param entryMerged the merged entry
+	 * @param mergedNodesWithValues the nodes whose information about values will be present at the merged entry
+	 */
+	private static void fillMergedSketches(ComplexTypeStatisticsEntry originalEntry, ComplexTypeStatisticsEntry entryMerged, Set<SchemaNode> mergedNodesWithValues){
+		for(Map.Entry<SchemaNode, HyperLogLog> sketchEntry: originalEntry.distinctValuesSketches.entrySet()){
+			SchemaNode originalNode = sketchEntry.getKey();
+			for(SchemaNode mergedNode: mergedNodesWithValues){
+				if(originalNode.equalsIgnoreType(mergedNode)){
+					entryMerged.mergeDistinctValuesSketch(mergedNode, sketchEntry.getValue(), originalEntry.nodesWithDiscardedValues.contains(originalNode));
+					break;
+				}
+			}
+		}
+	}
 
 	/**
 	 * It fills an already created Map between anything and BasicStatisticsEntry which is intended to 
@@ -421,6 +776,8 @@ public class ComplexTypeStatisticsEntry {
 		attributeOccurrencesInfo=new HashMap<>(attributeOccurrencesInfo);
 		valuesInfo=HashBasedTable.create(valuesInfo);
 		subpatternsInfo=new HashMap<>(subpatternsInfo);
+		distinctValuesSketches=new HashMap<>(distinctValuesSketches);
+		nodesWithDiscardedValues=new HashSet<>(nodesWithDiscardedValues);
 		if(statisticsOfNumericValuesAtPath!=null){
 			statisticsOfNumericValuesAtPath=new HashMap<>(statisticsOfNumericValuesAtPath);
 		} 
@@ -15,6 +15,7 @@ limitations under the License.
 */
 package es.upm.dit.xsdinferencer.statistics;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
@@ -24,7 +25,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import com.google.common.collect.RowSortedTable;
 import com.google.common.collect.Table;
@@ -34,6 +37,8 @@ import es.upm.dit.xsdinferencer.datastructures.ComplexType;
 import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
 import es.upm.dit.xsdinferencer.util.comparators.ComplexTypeComparator;
 import es.upm.dit.xsdinferencer.util.comparators.SchemaElementComparator;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
+import es.upm.dit.xsdinferencer.util.sketches.SpaceSaving;
 
 /**
  * It contains all the statistics obtained during the inference an Schema 
@@ -68,7 +73,7 @@ public class Statistics {
 	 * and values are depths.
 	 * They are used to calculate the desired statistic parameters.
 	 */
-	private RowSortedTable<Integer,Long,Long> depthsInfo;
+	private TreeBasedTable<Integer,Long,Long> depthsInfo;
 	
 	/**
 	 * It stores the information of the width of the nodes. 
@@ -76,12 +81,32 @@ public class Statistics {
 	 * and values are widths.
 	 * They are used to calculate the desired statistic parameters.
 	 */
-	private RowSortedTable<Integer,Long,Long> widthsInfo;
+	private TreeBasedTable<Integer,Long,Long> widthsInfo;
 	
 	/**
 	 * Number of input documents
 	 */
-	private final int inputDocumentsCount;
+	private int inputDocumentsCount;
+	
+	/**
+	 * Name of the sampling strategy used to choose the input documents (null if the input documents were not sampled)
+	 */
+	private String samplingStrategy = null;
+	
+	/**
+	 * Number of candidate documents from which the input documents were sampled (only meaningful if they were sampled)
+	 */
+	private int candidateDocumentsCount = 0;
+	
+	/**
+	 * Whether identical input documents were extracted only once
+	 */
+	private boolean deduplicated = false;
+	
+	/**
+	 * Number of input documents whose information was copied from an identical document instead of being extracted
+	 */
+	private int collapsedDocumentsCount = 0;
 	
 	/**
 	 * Statistics over numeric values at paths.
@@ -94,6 +119,39 @@ public class Statistics {
 	 */
 	private int valuesAtPathInfoLastHash;
 	
+	/**
+	 * Precision of the sketches which estimate the distinct values of each path and of each node of each complex 
+	 * type (0 if no sketches are used)
+	 */
+	private int distinctValuesSketchPrecision = 0;
+	
+	/**
+	 * Maximum estimated number of distinct values of a path or node whose values are still kept (only used with sketches)
+	 */
+	private int exactValuesLimit = Integer.MAX_VALUE;
+	
+	/**
+	 * Sketches of the distinct values at each path (only if they are used)
+	 */
+	private SortedMap<String, HyperLogLog> distinctValuesAtPathSketches;
+	
+	/**
+	 * Paths whose values are not kept at valuesAtPathInfo because their estimated number of distinct values 
+	 * has been greater than exactValuesLimit
+	 */
+	private SortedSet<String> pathsWithDiscardedValues;
+	
+	/**
+	 * Number of most frequent values kept at each path (0 if all the values are kept at valuesAtPathInfo)
+	 */
+	private int valuesTopK = 0;
+	
+	/**
+	 * Sketches of the most frequent values at each path (only if valuesTopK is greater than 0, 
+	 * in which case valuesAtPathInfo is not filled)
+	 */
+	private SortedMap<String, SpaceSaving> topValuesAtPath;
+	
 	/**
 	 * Method that sums all the numbers from a collection
 	 * @param collection a collection of numbers
@@ -131,6 +189,9 @@ public class Statistics {
 		widthsInfo=TreeBasedTable.create();
 		statisticsOfNumericValuesAtPath=null;
 		valuesAtPathInfoLastHash=valuesAtPathInfo.hashCode();
+		distinctValuesAtPathSketches=new TreeMap<String, HyperLogLog>();
+		pathsWithDiscardedValues=new TreeSet<String>();
+		topValuesAtPath=new TreeMap<String, SpaceSaving>();
 	}
 	
 	/**
@@ -140,6 +201,10 @@ public class Statistics {
 	 */
 	public Statistics(Statistics statistics) {
 		this.inputDocumentsCount=statistics.inputDocumentsCount;
+		this.samplingStrategy=statistics.samplingStrategy;
+		this.candidateDocumentsCount=statistics.candidateDocumentsCount;
+		this.deduplicated=statistics.deduplicated;
+		this.collapsedDocumentsCount=statistics.collapsedDocumentsCount;
 		rootElementOccurrences=new TreeMap<SchemaElement, Integer>(new SchemaElementComparator());
 		rootElementOccurrences.putAll(statistics.rootElementOccurrences);
 		elementAtPathInfo=new TreeMap<String, BasicStatisticsEntry>(statistics.elementAtPathInfo);
@@ -154,6 +219,18 @@ public class Statistics {
 		widthsInfo.putAll(statistics.widthsInfo);
 		statisticsOfNumericValuesAtPath=statistics.statisticsOfNumericValuesAtPath;
 		valuesAtPathInfoLastHash=statistics.valuesAtPathInfoLastHash;
+		distinctValuesSketchPrecision=statistics.distinctValuesSketchPrecision;
+		exactValuesLimit=statistics.exactValuesLimit;
+		distinctValuesAtPathSketches=new TreeMap<String, HyperLogLog>();
+		for(Map.Entry<String, HyperLogLog> sketchEntry: statistics.distinctValuesAtPathSketches.entrySet()){
+			distinctValuesAtPathSketches.put(sketchEntry.getKey(), new HyperLogLog(sketchEntry.getValue()));
+		}
+		pathsWithDiscardedValues=new TreeSet<String>(statistics.pathsWithDiscardedValues);
+		valuesTopK=statistics.valuesTopK;
+		topValuesAtPath=new TreeMap<String, SpaceSaving>();
+		for(Map.Entry<String, SpaceSaving> topValuesEntry: statistics.topValuesAtPath.entrySet()){
+			topValuesAtPath.put(topValuesEntry.getKey(), new SpaceSaving(topValuesEntry.getValue()));
+		}
 	}
 
 	/**
@@ -223,6 +300,20 @@ public class Statistics {
 		return valuesAtPathInfo;
 	}
 	
+	/**
+	 * @return the depth of each element (column key, numbered from 1 in document order) of each document (row key)
+	 */
+	public Table<Integer, Long, Long> getDepthsInfo() {
+		return depthsInfo;
+	}
+	
+	/**
+	 * @return the width of each element (column key, numbered from 1 in closing order) of each document (row key)
+	 */
+	public Table<Integer, Long, Long> getWidthsInfo() {
+		return widthsInfo;
+	}
+	
 	/**
 	 * 
 	 * @return The maximum possible depth for an element in any document.
@@ -289,12 +380,18 @@ public class Statistics {
 	 * @param element the root element to register
 	 */
 	public void registerRootElementOccurrence(SchemaElement element){
-		if(rootElementOccurrences.containsKey(element)){
-			rootElementOccurrences.put(element, rootElementOccurrences.get(element)+1);
-		}
-		else {
-			rootElementOccurrences.put(element, 1);
-		}
+		registerRootElementOccurrence(element, 1);
+	}
+	
+	/**
+	 * It registers several occurrences of a root element.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * @param element the root element to register
+	 * @param count the number of occurrences
+	 */
+	public void registerRootElementOccurrence(SchemaElement element, int count){
+		Integer previousCount = rootElementOccurrences.get(element);
+		rootElementOccurrences.put(element, previousCount!=null?previousCount+count:count);
 	}
 	
 	/**
@@ -304,9 +401,23 @@ public class Statistics {
 	 * @param documentIndex the index of the document
 	 */
 	public void registerElementAtPathCount(String path, int documentIndex){
-		if(!elementAtPathInfo.containsKey(path))
-			elementAtPathInfo.put(path, new BasicStatisticsEntry(inputDocumentsCount));
-		elementAtPathInfo.get(path).registerCount(documentIndex);
+		registerElementAtPathCount(path, documentIndex, 1);
+	}
+	
+	/**
+	 * It registers several occurrences of an element at a path.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * @param path the path of the element
+	 * @param documentIndex the index of the document
+	 * @param count the number of occurrences
+	 */
+	public void registerElementAtPathCount(String path, int documentIndex, int count){
+		BasicStatisticsEntry entry = elementAtPathInfo.get(path);
+		if(entry==null){
+			entry = new BasicStatisticsEntry(inputDocumentsCount);
+			elementAtPathInfo.put(path, entry);
+		}
+		entry.registerCount(documentIndex, count);
 	}
 	
 	/**
@@ -316,34 +427,200 @@ public class Statistics {
 	 * @param documentIndex the index of the document
 	 */
 	public void registerAttributeOccurrenceAtPathCount(String path, int documentIndex){
-		if(!attributeOccurrencesAtPathInfo.containsKey(path))
-			attributeOccurrencesAtPathInfo.put(path, new BasicStatisticsEntry(inputDocumentsCount));
-		attributeOccurrencesAtPathInfo.get(path).registerCount(documentIndex);
+		registerAttributeOccurrenceAtPathCount(path, documentIndex, 1);
+	}
+	
+	/**
+	 * It registers several occurrences of an attribute at a path.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * @param path the path of the attribute
+	 * @param documentIndex the index of the document
+	 * @param count the number of occurrences
+	 */
+	public void registerAttributeOccurrenceAtPathCount(String path, int documentIndex, int count){
+		BasicStatisticsEntry entry = attributeOccurrencesAtPathInfo.get(path);
+		if(entry==null){
+			entry = new BasicStatisticsEntry(inputDocumentsCount);
+			attributeOccurrencesAtPathInfo.put(path, entry);
+		}
+		entry.registerCount(documentIndex, count);
 	}
 
 	/**
 	 * It registers the occurrence of a value on an element or attribute at a path.
-	 * If the corresponding statistic entry did not exist previously, it is automatically created.
+	 * If the corresponding statistic entry did not exist previously, it is automatically created. 
+	 * If only the top values are kept (see {@link Statistics#setValuesTopK(int)}), the value is just added to the 
+	 * top values sketch of the path.
 	 * @param path the path of the attribute
 	 * @param value the value
 	 * @param documentIndex the index of the document
 	 */
 	public void registerValueAtPathCount(String path, String value, int documentIndex){
+		if(distinctValuesSketchPrecision>0){
+			HyperLogLog sketch = distinctValuesAtPathSketches.get(path);
+			if(sketch==null){
+				sketch = new HyperLogLog(distinctValuesSketchPrecision);
+				distinctValuesAtPathSketches.put(path, sketch);
+			}
+			sketch.add(value);
+		}
+		if(valuesTopK>0){
+			SpaceSaving topValues = topValuesAtPath.get(path);
+			if(topValues==null){
+				topValues = new SpaceSaving(valuesTopK);
+				topValuesAtPath.put(path, topValues);
+			}
+			topValues.add(value);
+			return;
+		}
+		if(distinctValuesSketchPrecision>0 && (pathsWithDiscardedValues.contains(path) || discardValuesAtPathIfTooMany(path))){
+			return;
+		}
 		if(!valuesAtPathInfo.contains(path, value))
 			valuesAtPathInfo.put(path, value, new BasicStatisticsEntry(inputDocumentsCount));
 		valuesAtPathInfo.get(path,value).registerCount(documentIndex);
 	}
 	
+	/**
+	 * Discards the values at a path (and stops keeping them) if the estimate of its distinct values is 
+	 * greater than the limit.
+	 * @param path the path
+	 * @return whether the values have been discarded
+	 */
+	private boolean discardValuesAtPathIfTooMany(String path){
+		HyperLogLog sketch = distinctValuesAtPathSketches.get(path);
+		if(sketch==null || sketch.estimate()<=exactValuesLimit)
+			return false;
+		valuesAtPathInfo.row(path).clear();
+		pathsWithDiscardedValues.add(path);
+		return true;
+	}
+	
+	/**
+	 * It makes these statistics estimate the distinct values of each path and of each node of each complex type with 
+	 * {@link HyperLogLog} sketches, so that the concrete values of the paths and nodes with more estimated distinct values 
+	 * than a limit are discarded and not kept anymore. It must be called before registering any value.
+	 * @param distinctValuesSketchPrecision the precision of the sketches (0 means that no sketches are used and all the values are kept)
+	 * @param exactValuesLimit the maximum estimated number of distinct values of a path or node whose values are kept
+	 * @see es.upm.dit.xsdinferencer.XSDInferenceConfiguration#getDistinctValuesSketchPrecision()
+	 */
+	public void setDistinctValuesSketching(int distinctValuesSketchPrecision, int exactValuesLimit){
+		checkArgument(distinctValuesSketchPrecision==0 || (distinctValuesSketchPrecision>=HyperLogLog.MIN_PRECISION && distinctValuesSketchPrecision<=HyperLogLog.MAX_PRECISION),
+				"Invalid precision of the distinct values sketches");
+		checkArgument(exactValuesLimit>=0,"'exactValuesLimit' must not be negative");
+		this.distinctValuesSketchPrecision=distinctValuesSketchPrecision;
+		this.exactValuesLimit=exactValuesLimit;
+	}
+	
+	/**
+	 * @return the precision of the sketches of distinct values (0 if they are not used)
+	 */
+	public int getDistinctValuesSketchPrecision() {
+		return distinctValuesSketchPrecision;
+	}
+	
+	/**
+	 * @return the maximum estimated number of distinct values of a path or node whose values are kept (only used with sketches)
+	 */
+	public int getExactValuesLimit() {
+		return exactValuesLimit;
+	}
+	
+	/**
+	 * @return the sketches of the distinct values at each path (empty if they are not used)
+	 */
+	public Map<String, HyperLogLog> getDistinctValuesAtPathSketches() {
+		return distinctValuesAtPathSketches;
+	}
+	
+	/**
+	 * @return the paths whose values have been discarded because they had too many distinct values
+	 */
+	public Set<String> getPathsWithDiscardedValues() {
+		return pathsWithDiscardedValues;
+	}
+	
+	/**
+	 * It makes these statistics keep only the approximate frequencies of the most frequent values of each path with 
+	 * {@link SpaceSaving} sketches, instead of the full statistics of every value at valuesAtPathInfo. So, the memory used 
+	 * by the values at paths is proportional to the number of paths multiplied by valuesTopK. It must be called before registering any value.
+	 * @param valuesTopK the number of most frequent values kept at each path (0 means that all the values are kept)
+	 * @see es.upm.dit.xsdinferencer.XSDInferenceConfiguration#getValuesTopK()
+	 */
+	public void setValuesTopK(int valuesTopK){
+		checkArgument(valuesTopK>=0,"'valuesTopK' must not be negative");
+		this.valuesTopK=valuesTopK;
+	}
+	
+	/**
+	 * @return the number of most frequent values kept at each path (0 if all the values are kept)
+	 */
+	public int getValuesTopK() {
+		return valuesTopK;
+	}
+	
+	/**
+	 * @return the sketches of the most frequent values at each path (empty if all the values are kept)
+	 */
+	public Map<String, SpaceSaving> getTopValuesAtPath() {
+		return topValuesAtPath;
+	}
+	
+	/**
+	 * Creates an empty {@link ComplexTypeStatisticsEntry} which estimates its distinct values as these statistics do.
+	 * @return the new entry
+	 */
+	public ComplexTypeStatisticsEntry newComplexTypeStatisticsEntry(){
+		return new ComplexTypeStatisticsEntry(inputDocumentsCount, distinctValuesSketchPrecision, exactValuesLimit);
+	}
+	
+	/**
+	 * It copies the information of a range of documents to the following document indexes, as many times as requested, 
+	 * so that the copies count as identical documents which have not been extracted again. The information which is 
+	 * not kept per document (i.e. root element occurrences) is not copied.
+	 * @param fromIndex the index of the first copied document (inclusive)
+	 * @param toIndex the index of the last copied document (exclusive)
+	 * @param firstCopyIndex the index of the first document of the first copy (it must not be less than toIndex)
+	 * @param copies the number of copies
+	 */
+	public void copyDocuments(int fromIndex, int toIndex, int firstCopyIndex, int copies){
+		checkArgument(0<=fromIndex && fromIndex<=toIndex,"Invalid range of documents to copy");
+		checkArgument(firstCopyIndex>=toIndex,"'firstCopyIndex' must not be less than 'toIndex'");
+		checkArgument(copies>=0,"'copies' must not be negative");
+		int length = toIndex-fromIndex;
+		if(firstCopyIndex+copies*length>inputDocumentsCount){
+			increaseInputDocumentsCount(firstCopyIndex+copies*length);
+		}
+		for(BasicStatisticsEntry entry: elementAtPathInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(BasicStatisticsEntry entry: attributeOccurrencesAtPathInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(BasicStatisticsEntry entry: valuesAtPathInfo.values()){
+			entry.copyValues(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(ComplexTypeStatisticsEntry entry: complexTypeInfo.values()){
+			entry.copyDocuments(fromIndex, toIndex, firstCopyIndex, copies);
+		}
+		for(int documentIndex=fromIndex;documentIndex<toIndex;documentIndex++){
+			for(int copy=0;copy<copies;copy++){
+				int copyIndex = firstCopyIndex+copy*length+documentIndex-fromIndex;
+				depthsInfo.row(copyIndex).putAll(depthsInfo.row(documentIndex));
+				widthsInfo.row(copyIndex).putAll(widthsInfo.row(documentIndex));
+			}
+		}
+		collapsedDocumentsCount+=copies*length;
+	}
+	
 	/**
 	 * Registers the depth of an element of the specified document
 	 * @param documentIndex the index of the document 
 	 * @param depth the depth to register
 	 */
 	public void registerDepth(int documentIndex, long depth){
-		long elementNumber=1;
-		Set<Long> elementIndexes = depthsInfo.row(documentIndex).keySet();
-		if(elementIndexes.size()>0)
-			elementNumber+=Collections.max(elementIndexes);
+		SortedMap<Long,Long> documentDepths = depthsInfo.row(documentIndex);
+		long elementNumber = documentDepths.isEmpty() ? 1 : documentDepths.lastKey()+1;
 		depthsInfo.put(documentIndex,elementNumber,depth);
 	}
 	
@@ -353,13 +630,79 @@ public class Statistics {
 	 * @param width the width to register
 	 */
 	public void registerWidth(int documentIndex, long width){
-		long elementNumber=1;
-		Set<Long> elementIndexes = widthsInfo.row(documentIndex).keySet();
-		if(elementIndexes.size()>0)
-			elementNumber+=Collections.max(elementIndexes);
+		SortedMap<Long,Long> documentWidths = widthsInfo.row(documentIndex);
+		long elementNumber = documentWidths.isEmpty() ? 1 : documentWidths.lastKey()+1;
 		widthsInfo.put(documentIndex,elementNumber,width);
 	}
 	
+	/**
+	 * Adds all the statistics of another Statistics object to this one. The other statistics must have been gathered 
+	 * from different documents than these ones, using the same document indexes numbering (so that depths and widths 
+	 * info of each document comes only from one of the objects). The other object is not modified.
+	 * This allows to gather statistics at several partial objects (i.e. at different threads) and combine them at the end. 
+	 * @param other the other statistics
+	 * @param complexTypeMapping mapping between the complex types of the other statistics and the equivalent complex types to use at 
+	 *                           this object. Complex types which are not mapped are used as they are.
+	 * @param elementMapping mapping between the elements of the other statistics and the equivalent elements to use at this object. 
+	 *                       Elements which are not mapped are used as they are.
+	 */
+	public void addAll(Statistics other, Map<ComplexType, ComplexType> complexTypeMapping, Map<SchemaElement, SchemaElement> elementMapping){
+		checkNotNull(other, "'other' must not be null");
+		checkNotNull(complexTypeMapping, "'complexTypeMapping' must not be null");
+		checkNotNull(elementMapping, "'elementMapping' must not be null");
+		for(Map.Entry<SchemaElement, Integer> otherEntry: other.rootElementOccurrences.entrySet()){
+			SchemaElement element = elementMapping.containsKey(otherEntry.getKey())?elementMapping.get(otherEntry.getKey()):otherEntry.getKey();
+			Integer previousOccurrences = rootElementOccurrences.get(element);
+			rootElementOccurrences.put(element, otherEntry.getValue()+(previousOccurrences!=null?previousOccurrences:0));
+		}
+		for(Map.Entry<ComplexType, ComplexTypeStatisticsEntry> otherEntry: other.complexTypeInfo.entrySet()){
+			ComplexType complexType = complexTypeMapping.containsKey(otherEntry.getKey())?complexTypeMapping.get(otherEntry.getKey()):otherEntry.getKey();
+			ComplexTypeStatisticsEntry complexTypeStatisticsEntry = complexTypeInfo.get(complexType);
+			if(complexTypeStatisticsEntry==null){
+				complexTypeStatisticsEntry=newComplexTypeStatisticsEntry();
+				complexTypeInfo.put(complexType, complexTypeStatisticsEntry);
+			}
+			complexTypeStatisticsEntry.addAll(otherEntry.getValue(), elementMapping);
+		}
+		for(Map.Entry<String, BasicStatisticsEntry> otherEntry: other.elementAtPathInfo.entrySet()){
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(elementAtPathInfo, otherEntry.getKey(), otherEntry.getValue());
+		}
+		for(Map.Entry<String, BasicStatisticsEntry> otherEntry: other.attributeOccurrencesAtPathInfo.entrySet()){
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(attributeOccurrencesAtPathInfo, otherEntry.getKey(), otherEntry.getValue());
+		}
+		pathsWithDiscardedValues.addAll(other.pathsWithDiscardedValues);
+		for(String path: pathsWithDiscardedValues){
+			valuesAtPathInfo.row(path).clear();
+		}
+		for(Table.Cell<String, String, BasicStatisticsEntry> otherCell: other.valuesAtPathInfo.cellSet()){
+			if(pathsWithDiscardedValues.contains(otherCell.getRowKey()))
+				continue;
+			BasicStatisticsEntry.mergeBasicStatisticsEntryIntoMap(valuesAtPathInfo.row(otherCell.getRowKey()), otherCell.getColumnKey(), otherCell.getValue());
+		}
+		for(Map.Entry<String, HyperLogLog> otherSketchEntry: other.distinctValuesAtPathSketches.entrySet()){
+			String path = otherSketchEntry.getKey();
+			HyperLogLog sketch = distinctValuesAtPathSketches.get(path);
+			if(sketch==null){
+				distinctValuesAtPathSketches.put(path, new HyperLogLog(otherSketchEntry.getValue()));
+			} else {
+				sketch.merge(otherSketchEntry.getValue());
+			}
+			if(!pathsWithDiscardedValues.contains(path))
+				discardValuesAtPathIfTooMany(path);
+		}
+		for(Map.Entry<String, SpaceSaving> otherTopValuesEntry: other.topValuesAtPath.entrySet()){
+			SpaceSaving topValues = topValuesAtPath.get(otherTopValuesEntry.getKey());
+			if(topValues==null){
+				topValues = new SpaceSaving(valuesTopK>0?valuesTopK:otherTopValuesEntry.getValue().getCapacity());
+				topValuesAtPath.put(otherTopValuesEntry.getKey(), topValues);
+			}
+			topValues.merge(otherTopValuesEntry.getValue());
+		}
+		depthsInfo.putAll(other.depthsInfo);
+		widthsInfo.putAll(other.widthsInfo);
+		collapsedDocumentsCount+=other.collapsedDocumentsCount;
+	}
+	
 	/**
 	 * Looks for the ComplexTypeStatisticsEntry related to a concrete ComplexType, given its name.
 	 * @param name the name of the complex type
@@ -438,4 +781,100 @@ public class Statistics {
 		return inputDocumentsCount;
 	}
 	
+	/**
+	 * It increases the number of input documents. It is intended to be used when the count of documents is not 
+	 * known until all of them have been read: all the occurrences and values information is filled with zeros 
+	 * for the documents which were not known yet.
+	 * @param inputDocumentsCount the new number of input documents
+	 * @throws IllegalArgumentException if the new count is lower than the current one
+	 */
+	public void increaseInputDocumentsCount(int inputDocumentsCount) {
+		checkArgument(inputDocumentsCount>=this.inputDocumentsCount,"The input documents count cannot decrease");
+		this.inputDocumentsCount=inputDocumentsCount;
+		ensureEntriesSize();
+	}
+	
+	/**
+	 * It fills with zeros the occurrences and values information of every entry which does not have a value for each 
+	 * input document yet. Entries added from other statistics (i.e. when they are merged via 
+	 * {@link Statistics#addAll(Statistics, Map, Map)}) keep the length they had, so this method must be called once 
+	 * all of them have been added.
+	 */
+	public void ensureEntriesSize() {
+		for(BasicStatisticsEntry entry: elementAtPathInfo.values()){
+			entry.ensureSize(inputDocumentsCount);
+		}
+		for(BasicStatisticsEntry entry: attributeOccurrencesAtPathInfo.values()){
+			entry.ensureSize(inputDocumentsCount);
+		}
+		for(BasicStatisticsEntry entry: valuesAtPathInfo.values()){
+			entry.ensureSize(inputDocumentsCount);
+		}
+		for(ComplexTypeStatisticsEntry entry: complexTypeInfo.values()){
+			entry.increaseInputDocumentsCount(inputDocumentsCount);
+		}
+	}
+	
+	/**
+	 * It records that the input documents are a sample of a bigger set of candidate documents.
+	 * @param samplingStrategy the name of the sampling strategy
+	 * @param candidateDocumentsCount the number of candidate documents (it may be a lower bound if the sampling stopped before going through all of them)
+	 */
+	public void setSamplingInfo(String samplingStrategy, int candidateDocumentsCount) {
+		checkNotNull(samplingStrategy,"'samplingStrategy' must not be null");
+		this.samplingStrategy = samplingStrategy;
+		this.candidateDocumentsCount = candidateDocumentsCount;
+	}
+	
+	/**
+	 * @return whether the input documents are a sample of a bigger set of documents
+	 */
+	public boolean getSampled() {
+		return samplingStrategy!=null;
+	}
+	
+	/**
+	 * @return the name of the sampling strategy (null if the input documents were not sampled)
+	 */
+	public String getSamplingStrategy() {
+		return samplingStrategy;
+	}
+	
+	/**
+	 * @return the number of candidate documents from which the input documents were sampled
+	 */
+	public int getCandidateDocumentsCount() {
+		return candidateDocumentsCount;
+	}
+	
+	/**
+	 * It records whether identical input documents were extracted only once, so that the input documents count 
+	 * includes documents which were collapsed into a previous identical one (see {@link Statistics#copyDocuments(int, int, int, int)}).
+	 * @param deduplicated whether identical input documents were extracted only once
+	 */
+	public void setDeduplicated(boolean deduplicated) {
+		this.deduplicated = deduplicated;
+	}
+	
+	/**
+	 * @return whether identical input documents were extracted only once
+	 */
+	public boolean getDeduplicated() {
+		return deduplicated;
+	}
+	
+	/**
+	 * @return the number of input documents whose information was copied from an identical document
+	 */
+	public int getCollapsedDocumentsCount() {
+		return collapsedDocumentsCount;
+	}
+	
+	/**
+	 * @return the number of input documents which were actually extracted
+	 */
+	public int getUniqueDocumentsCount() {
+		return inputDocumentsCount-collapsedDocumentsCount;
+	}
+	
 }
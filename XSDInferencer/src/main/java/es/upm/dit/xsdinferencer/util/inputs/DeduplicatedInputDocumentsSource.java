@@ -0,0 +1,262 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Source which only provides one of each group of identical documents of another source, along with how many 
+ * documents of the group it stands for (see {@link InputDocumentsReader#getMultiplicity()}), so that corpora 
+ * with many repeated documents (i.e. generated by templates or exported several times) are extracted only once 
+ * per distinct document. The first document of each group is the one provided. 
+ * <br/>
+ * Before the first reading, the content of all the documents of the other source is read once and fingerprinted with 
+ * a 128 bits Murmur3 hash. Documents are considered identical if their fingerprints are equal (a collision is 
+ * extremely unlikely), so their contents are not compared byte by byte. The same documents are provided each time 
+ * the source is opened.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class DeduplicatedInputDocumentsSource implements InputDocumentsSource {
+	
+	/**
+	 * Hash function used to fingerprint the documents
+	 */
+	private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+	
+	/**
+	 * Size of the buffer used to fingerprint documents which are only provided as characters
+	 */
+	private static final int CHARS_BUFFER_SIZE = 8192;
+	
+	/**
+	 * The deduplicated source
+	 */
+	private final InputDocumentsSource source;
+	
+	/**
+	 * Whether the source has already been opened
+	 */
+	private boolean opened = false;
+	
+	/**
+	 * Documents of the deduplicated source which are identical to a previous one, by index
+	 */
+	private BitSet duplicatedDocuments = new BitSet();
+	
+	/**
+	 * Number of identical documents of each distinct document, in the order of the first one of each group
+	 */
+	private int[] multiplicities = new int[16];
+	
+	/**
+	 * Number of documents of the deduplicated source
+	 */
+	private int inputDocumentsCount = 0;
+	
+	/**
+	 * Number of distinct documents of the deduplicated source
+	 */
+	private int uniqueDocumentsCount = 0;
+	
+	/**
+	 * Constructor.
+	 * @param source the deduplicated source
+	 */
+	public DeduplicatedInputDocumentsSource(InputDocumentsSource source) {
+		checkNotNull(source,"'source' must not be null");
+		this.source = source;
+	}
+	
+	/**
+	 * @return the deduplicated source
+	 */
+	public InputDocumentsSource getSource() {
+		return source;
+	}
+	
+	/**
+	 * Reads the content of all the documents of the deduplicated source in order to group the identical ones.
+	 * @throws IOException if the source cannot be read
+	 */
+	private void prepare() throws IOException {
+		Map<HashCode,Integer> uniqueIndexesByFingerprint = new HashMap<>();
+		try(InputDocumentsReader reader = source.open()){
+			while(reader.next()){
+				HashCode fingerprint = fingerprint(reader);
+				Integer uniqueIndex = uniqueIndexesByFingerprint.get(fingerprint);
+				if(uniqueIndex==null){
+					if(uniqueDocumentsCount==multiplicities.length)
+						multiplicities = Arrays.copyOf(multiplicities, 2*multiplicities.length);
+					multiplicities[uniqueDocumentsCount] = 1;
+					uniqueIndexesByFingerprint.put(fingerprint, uniqueDocumentsCount);
+					uniqueDocumentsCount++;
+				} else {
+					multiplicities[uniqueIndex]++;
+					duplicatedDocuments.set(inputDocumentsCount);
+				}
+				inputDocumentsCount++;
+			}
+		}
+	}
+	
+	/**
+	 * Fingerprints the content of the current document of a reader. It is read as bytes if possible and as characters otherwise.
+	 * @param reader the reader
+	 * @return the fingerprint
+	 * @throws IOException if the document cannot be read
+	 */
+	private static HashCode fingerprint(InputDocumentsReader reader) throws IOException {
+		Hasher hasher = FINGERPRINT_FUNCTION.newHasher();
+		InputStream inputStream;
+		try{
+			inputStream = reader.getInputStream();
+		} catch(UnsupportedOperationException e){
+			Reader charsReader = reader.getReader(StandardCharsets.UTF_8);
+			char[] buffer = new char[CHARS_BUFFER_SIZE];
+			for(int read=charsReader.read(buffer);read>=0;read=charsReader.read(buffer)){
+				for(int i=0;i<read;i++){
+					hasher.putChar(buffer[i]);
+				}
+			}
+			return hasher.hash();
+		}
+		OutputStream hasherStream = Funnels.asOutputStream(hasher);
+		ByteStreams.copy(inputStream, hasherStream);
+		return hasher.hash();
+	}
+	
+	/**
+	 * @see InputDocumentsSource#open()
+	 */
+	@Override
+	public InputDocumentsReader open() throws IOException {
+		if(!opened){
+			prepare();
+			opened = true;
+		}
+		return new DeduplicatedReader(source.open());
+	}
+	
+	/**
+	 * The count is the one of the deduplicated source, as each provided document stands for all its identical documents.
+	 * @see InputDocumentsSource#getDocumentsCount()
+	 */
+	@Override
+	public int getDocumentsCount() {
+		return opened?inputDocumentsCount:source.getDocumentsCount();
+	}
+	
+	/**
+	 * @return how many documents the deduplicated source has
+	 * @throws IllegalStateException if the source has not been opened yet
+	 */
+	public int getInputDocumentsCount() {
+		checkState(opened,"The documents are not known until the source is opened");
+		return inputDocumentsCount;
+	}
+	
+	/**
+	 * @return how many distinct documents the deduplicated source has (that is, how many documents are provided)
+	 * @throws IllegalStateException if the source has not been opened yet
+	 */
+	public int getUniqueDocumentsCount() {
+		checkState(opened,"The documents are not known until the source is opened");
+		return uniqueDocumentsCount;
+	}
+	
+	/**
+	 * @return how many documents of the deduplicated source are not provided because they are identical to a previous one
+	 * @throws IllegalStateException if the source has not been opened yet
+	 */
+	public int getCollapsedDocumentsCount() {
+		return getInputDocumentsCount()-getUniqueDocumentsCount();
+	}
+	
+	/**
+	 * Reader which skips the documents which are identical to a previous one
+	 */
+	private class DeduplicatedReader implements InputDocumentsReader {
+		
+		private final InputDocumentsReader reader;
+		
+		private int index = -1;
+		
+		private int uniqueIndex = -1;
+		
+		DeduplicatedReader(InputDocumentsReader reader) {
+			this.reader = reader;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			while(reader.next()){
+				index++;
+				if(!duplicatedDocuments.get(index)){
+					uniqueIndex++;
+					checkState(uniqueIndex<uniqueDocumentsCount,"The deduplicated source has changed since it was first read");
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public String getName() {
+			return reader.getName();
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return reader.getInputStream();
+		}
+		
+		@Override
+		public Reader getReader(Charset charset) throws IOException {
+			return reader.getReader(charset);
+		}
+		
+		@Override
+		public int getMultiplicity() {
+			return multiplicities[uniqueIndex];
+		}
+		
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
+}
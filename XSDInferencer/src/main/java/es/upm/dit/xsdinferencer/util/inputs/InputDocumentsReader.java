@@ -0,0 +1,74 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A reader which goes through the documents of an {@link InputDocumentsSource}, in a similar way than 
+ * {@link java.util.zip.ZipInputStream} goes through the entries of a ZIP archive: {@link InputDocumentsReader#next()} 
+ * moves to the next document, whose content may then be read until the next call. 
+ * Closing the stream or the reader of a document does not close this reader, which must be closed by its user.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public interface InputDocumentsReader extends Closeable {
+	
+	/**
+	 * Moves to the next document. Any unread content of the current document is skipped.
+	 * @return true if there is a next document, false if all the documents have been read
+	 * @throws IOException if there is any problem while reading the source
+	 */
+	public boolean next() throws IOException;
+	
+	/**
+	 * @return a name which identifies the current document at its source (i.e. its path)
+	 */
+	public String getName();
+	
+	/**
+	 * Returns the content of the current document as a byte stream.
+	 * @return an input stream with the content of the current document
+	 * @throws IOException if there is any problem while reading the source
+	 * @throws UnsupportedOperationException if the source only provides characters
+	 */
+	public InputStream getInputStream() throws IOException;
+	
+	/**
+	 * Returns the content of the current document as characters. By default, the input stream is decoded with the given charset.
+	 * @param charset the charset of the document (ignored if the source already provides characters)
+	 * @return a reader with the content of the current document
+	 * @throws IOException if there is any problem while reading the source
+	 */
+	public default Reader getReader(Charset charset) throws IOException {
+		return new InputStreamReader(getInputStream(), charset);
+	}
+	
+	/**
+	 * Returns how many input documents the current document stands for. It is greater than 1 if the reader only 
+	 * provides one of a group of identical documents (see {@link DeduplicatedInputDocumentsSource}). By default, it is 1.
+	 * @return the multiplicity of the current document
+	 */
+	public default int getMultiplicity() {
+		return 1;
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import java.io.IOException;
+
+/**
+ * A source of input documents which are read sequentially, one after another, by means of an {@link InputDocumentsReader}. 
+ * Sources may be opened as many times as needed, each time the documents are read from the beginning 
+ * and in the same order. 
+ * Unlike a list of documents, a source does not require random access to its documents, 
+ * so that documents may be read directly from streams like compressed archives.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ * @see InputDocumentsSources
+ */
+public interface InputDocumentsSource {
+	
+	/**
+	 * Opens a new reader positioned before the first document of this source.
+	 * @return the reader
+	 * @throws IOException if the source cannot be opened
+	 */
+	public InputDocumentsReader open() throws IOException;
+	
+	/**
+	 * Returns how many documents are provided by this source, if it is known before reading them.
+	 * @return the count of documents or -1 if it is unknown
+	 */
+	public int getDocumentsCount();
+
+}
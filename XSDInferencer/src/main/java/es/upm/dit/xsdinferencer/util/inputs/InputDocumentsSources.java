@@ -0,0 +1,542 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
+
+/**
+ * Static methods to build {@link InputDocumentsSource} objects from lists of {@link ByteSource} or {@link CharSource} 
+ * objects and from files, which may be compressed archives. Archives are read as streams, entry by entry, and they are 
+ * never extracted to disk:
+ * <ul>
+ * <li>.zip, .tar, .tar.gz and .tgz files are archives: each of their entries accepted by a filter is a document.</li>
+ * <li>Other .gz files are a single compressed document.</li>
+ * <li>Any other file is a single plain document.</li>
+ * </ul>
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public final class InputDocumentsSources {
+	
+	/**
+	 * Extension of gzip compressed files
+	 */
+	private static final String GZIP_EXTENSION = ".gz";
+	
+	/**
+	 * Private constructor, this class should not be instantiated.
+	 */
+	private InputDocumentsSources() {
+	}
+	
+	/**
+	 * Returns whether a file name is the name of an archive with many documents (.zip, .tar, .tar.gz or .tgz, case insensitive).
+	 * @param fileName the file name
+	 * @return true if it is the name of an archive
+	 */
+	public static boolean isArchive(String fileName) {
+		String fileNameLC = fileName.toLowerCase();
+		return fileNameLC.endsWith(".zip") || fileNameLC.endsWith(".tar") || fileNameLC.endsWith(".tar.gz") || fileNameLC.endsWith(".tgz");
+	}
+	
+	/**
+	 * Returns the name of a file once it is decompressed, it means, without the .gz extension (if any).
+	 * @param fileName the file name
+	 * @return the name of the decompressed file
+	 */
+	public static String getUncompressedName(String fileName) {
+		if(fileName.toLowerCase().endsWith(GZIP_EXTENSION) && !isArchive(fileName))
+			return fileName.substring(0, fileName.length()-GZIP_EXTENSION.length());
+		return fileName;
+	}
+	
+	/**
+	 * Returns a {@link FilenameFilter} which accepts the same files than a given one, their gzip compressed versions 
+	 * and any archive.
+	 * @param documentsFilter the filter of the documents
+	 * @return a filter which also accepts compressed documents and archives
+	 */
+	public static FilenameFilter withCompressedFiles(final FilenameFilter documentsFilter) {
+		checkNotNull(documentsFilter,"'documentsFilter' must not be null");
+		return new FilenameFilter() {
+			
+			@Override
+			public boolean accept(File dir, String name) {
+				return isArchive(name) || documentsFilter.accept(dir, getUncompressedName(name));
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source of documents from a list of {@link ByteSource} objects, each one being a document.
+	 * @param byteSources the byte sources
+	 * @return the source of documents
+	 */
+	public static InputDocumentsSource fromByteSources(List<ByteSource> byteSources) {
+		checkNotNull(byteSources,"'byteSources' must not be null");
+		List<String> names = new ArrayList<>(byteSources.size());
+		for(ByteSource byteSource: byteSources){
+			names.add(byteSource.toString());
+		}
+		return fromByteSources(byteSources, names);
+	}
+	
+	/**
+	 * Builds a source of documents from a list of {@link ByteSource} objects, each one being a document.
+	 * @param byteSources the byte sources
+	 * @param names the name of each document
+	 * @return the source of documents
+	 */
+	private static InputDocumentsSource fromByteSources(final List<ByteSource> byteSources, final List<String> names) {
+		return new InputDocumentsSource() {
+			
+			@Override
+			public InputDocumentsReader open() {
+				return new ByteSourcesReader(byteSources, names);
+			}
+			
+			@Override
+			public int getDocumentsCount() {
+				return byteSources.size();
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source of documents from a list of {@link CharSource} objects, each one being a document. 
+	 * The readers of its documents only provide characters, so {@link InputDocumentsReader#getInputStream()} is not supported.
+	 * @param charSources the char sources
+	 * @return the source of documents
+	 */
+	public static InputDocumentsSource fromCharSources(final List<CharSource> charSources) {
+		checkNotNull(charSources,"'charSources' must not be null");
+		return new InputDocumentsSource() {
+			
+			@Override
+			public InputDocumentsReader open() {
+				return new CharSourcesReader(charSources);
+			}
+			
+			@Override
+			public int getDocumentsCount() {
+				return charSources.size();
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source of documents from a file, which may be a compressed file or an archive.
+	 * @param file the file
+	 * @param entriesFilter filter of the entries of the archives (it receives the archive file and the full name of each entry). 
+	 * It is ignored if the file is not an archive.
+	 * @return the source of documents
+	 */
+	public static InputDocumentsSource fromFile(final File file, final FilenameFilter entriesFilter) {
+		checkNotNull(file,"'file' must not be null");
+		checkNotNull(entriesFilter,"'entriesFilter' must not be null");
+		final ByteSource fileSource = Files.asByteSource(file);
+		String fileNameLC = file.getName().toLowerCase();
+		if(fileNameLC.endsWith(".zip")){
+			return new UnknownCountInputDocumentsSource() {
+				
+				@Override
+				public InputDocumentsReader open() throws IOException {
+					return new ZipReader(new ZipInputStream(fileSource.openBufferedStream()), file, entriesFilter);
+				}
+			};
+		} else if(fileNameLC.endsWith(".tar.gz") || fileNameLC.endsWith(".tgz")){
+			return new UnknownCountInputDocumentsSource() {
+				
+				@Override
+				public InputDocumentsReader open() throws IOException {
+					return new TarInputDocumentsReader(new GZIPInputStream(fileSource.openBufferedStream()), file, entriesFilter);
+				}
+			};
+		} else if(fileNameLC.endsWith(".tar")){
+			return new UnknownCountInputDocumentsSource() {
+				
+				@Override
+				public InputDocumentsReader open() throws IOException {
+					return new TarInputDocumentsReader(fileSource.openBufferedStream(), file, entriesFilter);
+				}
+			};
+		} else if(fileNameLC.endsWith(GZIP_EXTENSION)){
+			ByteSource uncompressedSource = new ByteSource() {
+				
+				@Override
+				public InputStream openStream() throws IOException {
+					return new GZIPInputStream(fileSource.openBufferedStream());
+				}
+			};
+			return fromByteSources(Collections.singletonList(uncompressedSource), Collections.singletonList(file.getPath()));
+		} else {
+			return fromByteSources(Collections.singletonList(fileSource), Collections.singletonList(file.getPath()));
+		}
+	}
+	
+	/**
+	 * Builds a source of documents from many files, which may be compressed files or archives. 
+	 * The documents of each file are read in the order of the list.
+	 * @param files the files
+	 * @param entriesFilter filter of the entries of the archives
+	 * @return the source of documents
+	 * @see InputDocumentsSources#fromFile(File, FilenameFilter)
+	 */
+	public static InputDocumentsSource fromFiles(List<File> files, FilenameFilter entriesFilter) {
+		checkNotNull(files,"'files' must not be null");
+		List<InputDocumentsSource> sources = new ArrayList<>(files.size());
+		for(File file: files){
+			sources.add(fromFile(file, entriesFilter));
+		}
+		return concat(sources);
+	}
+	
+	/**
+	 * Builds a source of documents from many files, which may be compressed files or archives. 
+	 * The documents of each file are read in the order of the list, while the next files are read ahead on background threads.
+	 * @param files the files
+	 * @param entriesFilter filter of the entries of the archives
+	 * @param prefetchFiles how many files may be read ahead (0 to read each file only when its turn comes)
+	 * @return the source of documents
+	 * @see InputDocumentsSources#prefetching(List, int)
+	 */
+	public static InputDocumentsSource fromFiles(List<File> files, FilenameFilter entriesFilter, int prefetchFiles) {
+		checkNotNull(files,"'files' must not be null");
+		List<InputDocumentsSource> sources = new ArrayList<>(files.size());
+		for(File file: files){
+			sources.add(fromFile(file, entriesFilter));
+		}
+		return prefetching(sources, prefetchFiles);
+	}
+	
+	/**
+	 * Builds a source of documents which provides all the documents of some sources, one source after another.
+	 * @param sources the sources
+	 * @return the concatenated source
+	 */
+	public static InputDocumentsSource concat(final List<InputDocumentsSource> sources) {
+		checkNotNull(sources,"'sources' must not be null");
+		return new InputDocumentsSource() {
+			
+			@Override
+			public InputDocumentsReader open() {
+				return new ConcatenatedReader(sources);
+			}
+			
+			@Override
+			public int getDocumentsCount() {
+				int count = 0;
+				for(InputDocumentsSource source: sources){
+					int sourceCount = source.getDocumentsCount();
+					if(sourceCount<0)
+						return -1;
+					count+=sourceCount;
+				}
+				return count;
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source of documents which provides all the documents of some sources, one source after another, 
+	 * while up to a given number of the next sources are read and decompressed into memory by background I/O threads. 
+	 * It is intended to hide the latency of the storage when there are many small input files. 
+	 * Sources whose documents count is unknown (archives) are not read ahead.
+	 * @param sources the sources
+	 * @param prefetchCount maximum number of sources read ahead (if it is 0, no source is read ahead)
+	 * @return the concatenated source
+	 */
+	public static InputDocumentsSource prefetching(final List<InputDocumentsSource> sources, final int prefetchCount) {
+		checkNotNull(sources,"'sources' must not be null");
+		checkArgument(prefetchCount>=0,"'prefetchCount' must not be negative");
+		final InputDocumentsSource concatenatedSource = concat(sources);
+		if(prefetchCount==0)
+			return concatenatedSource;
+		return new InputDocumentsSource() {
+			
+			@Override
+			public InputDocumentsReader open() {
+				return new PrefetchingInputDocumentsReader(sources, prefetchCount);
+			}
+			
+			@Override
+			public int getDocumentsCount() {
+				return concatenatedSource.getDocumentsCount();
+			}
+		};
+	}
+	
+	/**
+	 * Source whose documents count is unknown.
+	 */
+	private static abstract class UnknownCountInputDocumentsSource implements InputDocumentsSource {
+		
+		@Override
+		public int getDocumentsCount() {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Stream that does not close the underlying stream when it is closed
+	 */
+	private static class NonClosingInputStream extends FilterInputStream {
+		
+		NonClosingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public void close() {
+			//The underlying stream is closed by its reader
+		}
+	}
+	
+	/**
+	 * Reader that does not close the underlying reader when it is closed
+	 */
+	private static class NonClosingReader extends FilterReader {
+		
+		NonClosingReader(Reader in) {
+			super(in);
+		}
+		
+		@Override
+		public void close() {
+			//The underlying reader is closed by its documents reader
+		}
+	}
+	
+	/**
+	 * Reader of the documents of a list of {@link ByteSource} objects
+	 */
+	private static class ByteSourcesReader implements InputDocumentsReader {
+		
+		private final List<ByteSource> byteSources;
+		
+		private final List<String> names;
+		
+		private int index = -1;
+		
+		private InputStream currentStream = null;
+		
+		ByteSourcesReader(List<ByteSource> byteSources, List<String> names) {
+			this.byteSources = byteSources;
+			this.names = names;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			close();
+			if(index>=byteSources.size()-1){
+				index = byteSources.size();
+				return false;
+			}
+			index++;
+			return true;
+		}
+		
+		@Override
+		public String getName() {
+			return names.get(index);
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException {
+			//Opened lazily, so that skipping documents (i.e. while sampling) does not open them
+			if(currentStream==null)
+				currentStream = byteSources.get(index).openBufferedStream();
+			return new NonClosingInputStream(currentStream);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if(currentStream!=null){
+				currentStream.close();
+				currentStream = null;
+			}
+		}
+	}
+	
+	/**
+	 * Reader of the documents of a list of {@link CharSource} objects
+	 */
+	private static class CharSourcesReader implements InputDocumentsReader {
+		
+		private final List<CharSource> charSources;
+		
+		private int index = -1;
+		
+		private Reader currentReader = null;
+		
+		CharSourcesReader(List<CharSource> charSources) {
+			this.charSources = charSources;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			close();
+			if(index>=charSources.size()-1){
+				index = charSources.size();
+				return false;
+			}
+			index++;
+			return true;
+		}
+		
+		@Override
+		public String getName() {
+			return charSources.get(index).toString();
+		}
+		
+		@Override
+		public InputStream getInputStream() {
+			throw new UnsupportedOperationException("Character sources do not provide byte streams");
+		}
+		
+		@Override
+		public Reader getReader(Charset charset) throws IOException {
+			if(currentReader==null)
+				currentReader = charSources.get(index).openBufferedStream();
+			return new NonClosingReader(currentReader);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if(currentReader!=null){
+				currentReader.close();
+				currentReader = null;
+			}
+		}
+	}
+	
+	/**
+	 * Reader of the file entries of a ZIP archive accepted by a filter
+	 */
+	private static class ZipReader implements InputDocumentsReader {
+		
+		private final ZipInputStream zipStream;
+		
+		private final File archiveFile;
+		
+		private final FilenameFilter entriesFilter;
+		
+		private ZipEntry currentEntry = null;
+		
+		ZipReader(ZipInputStream zipStream, File archiveFile, FilenameFilter entriesFilter) {
+			this.zipStream = zipStream;
+			this.archiveFile = archiveFile;
+			this.entriesFilter = entriesFilter;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			do {
+				currentEntry = zipStream.getNextEntry();
+			} while(currentEntry!=null && (currentEntry.isDirectory() || !entriesFilter.accept(archiveFile, currentEntry.getName())));
+			return currentEntry!=null;
+		}
+		
+		@Override
+		public String getName() {
+			return archiveFile.getPath()+"!/"+currentEntry.getName();
+		}
+		
+		@Override
+		public InputStream getInputStream() {
+			return new NonClosingInputStream(zipStream);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			zipStream.close();
+		}
+	}
+	
+	/**
+	 * Reader of all the documents of many sources, one source after another
+	 */
+	private static class ConcatenatedReader implements InputDocumentsReader {
+		
+		private final List<InputDocumentsSource> sources;
+		
+		private int index = -1;
+		
+		private InputDocumentsReader currentReader = null;
+		
+		ConcatenatedReader(List<InputDocumentsSource> sources) {
+			this.sources = sources;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			while(currentReader==null || !currentReader.next()){
+				close();
+				if(index>=sources.size()-1){
+					index = sources.size();
+					return false;
+				}
+				index++;
+				currentReader = sources.get(index).open();
+			}
+			return true;
+		}
+		
+		@Override
+		public String getName() {
+			return currentReader.getName();
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return currentReader.getInputStream();
+		}
+		
+		@Override
+		public Reader getReader(Charset charset) throws IOException {
+			return currentReader.getReader(charset);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if(currentReader!=null){
+				currentReader.close();
+				currentReader = null;
+			}
+		}
+	}
+
+}
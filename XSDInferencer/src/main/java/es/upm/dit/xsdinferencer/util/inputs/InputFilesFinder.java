@@ -0,0 +1,173 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Static methods to discover input files: by walking (maybe recursively) an input directory, filtering its files 
+ * with include and exclude globs, or by reading a manifest file which lists them.
+ * 
+ * Globs follow the syntax of {@link java.nio.file.FileSystem#getPathMatcher(String)} and they are matched both 
+ * against the path of each file relative to the input directory and against its name, so that *.xml matches the 
+ * XML files of any subdirectory while data/**.xml only matches those under the data subdirectory. 
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public final class InputFilesFinder {
+	
+	/**
+	 * Start of the comment lines of manifest files
+	 */
+	private static final String MANIFEST_COMMENT_START = "#";
+	
+	/**
+	 * Not instantiable.
+	 */
+	private InputFilesFinder() {
+	}
+	
+	/**
+	 * Builds the matchers of a list of globs
+	 * @param globs the globs
+	 * @return their matchers
+	 */
+	private static List<PathMatcher> getMatchers(List<String> globs) {
+		List<PathMatcher> result = new ArrayList<>(globs.size());
+		for(String glob: globs){
+			result.add(FileSystems.getDefault().getPathMatcher("glob:"+glob));
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns whether any of some matchers matches a relative path or its last element
+	 * @param matchers the matchers
+	 * @param relativePath the relative path
+	 * @return true if any matcher matches the path or its last element
+	 */
+	private static boolean matchesAny(List<PathMatcher> matchers, Path relativePath) {
+		Path fileName = relativePath.getFileName();
+		for(PathMatcher matcher: matchers){
+			if(matcher.matches(relativePath) || (fileName!=null && matcher.matches(fileName)))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Finds the input files of a directory. 
+	 * If no include glob is given, a file is selected if it is accepted by a filter. Otherwise, it is selected if it matches 
+	 * any include glob. In both cases, files matching any exclude glob are discarded, and directories matching any exclude 
+	 * glob are not walked. 
+	 * @param directory the directory
+	 * @param recursive whether subdirectories should be walked
+	 * @param filenameFilter filter of the files used if no include glob is given
+	 * @param includeGlobs globs of the files to select (maybe empty)
+	 * @param excludeGlobs globs of the files and directories to discard (maybe empty)
+	 * @return the selected files, sorted by their paths so that the order does not depend on the file system
+	 * @throws FileNotFoundException if the directory does not exist
+	 * @throws IOException if the directory cannot be walked
+	 */
+	public static List<File> findFiles(File directory, boolean recursive, final FilenameFilter filenameFilter, List<String> includeGlobs, List<String> excludeGlobs) throws IOException {
+		checkNotNull(directory,"'directory' must not be null");
+		checkNotNull(filenameFilter,"'filenameFilter' must not be null");
+		checkNotNull(includeGlobs,"'includeGlobs' must not be null");
+		checkNotNull(excludeGlobs,"'excludeGlobs' must not be null");
+		if(!directory.exists())
+			throw new FileNotFoundException("Input files directory not found: "+directory.getPath());
+		final Path root = directory.toPath();
+		final List<PathMatcher> includeMatchers = getMatchers(includeGlobs);
+		final List<PathMatcher> excludeMatchers = getMatchers(excludeGlobs);
+		final List<File> result = new ArrayList<>();
+		int maxDepth = recursive?Integer.MAX_VALUE:1;
+		java.nio.file.Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>(){
+			
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if(!dir.equals(root) && matchesAny(excludeMatchers, root.relativize(dir)))
+					return FileVisitResult.SKIP_SUBTREE;
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if(!attrs.isRegularFile())
+					return FileVisitResult.CONTINUE;
+				Path relativePath = root.relativize(file);
+				boolean selected;
+				if(includeMatchers.isEmpty()){
+					selected = filenameFilter.accept(file.getParent().toFile(), file.getFileName().toString());
+				} else {
+					selected = matchesAny(includeMatchers, relativePath);
+				}
+				if(selected && !matchesAny(excludeMatchers, relativePath))
+					result.add(file.toFile());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(result);
+		return result;
+	}
+	
+	/**
+	 * Reads a manifest file, which lists input files one per line. Blank lines and lines starting with # are ignored. 
+	 * Relative paths are resolved against the directory of the manifest file.
+	 * @param manifest the manifest file (encoded in UTF-8)
+	 * @return the listed files, in the same order
+	 * @throws FileNotFoundException if the manifest or any listed file does not exist
+	 * @throws IOException if the manifest cannot be read
+	 */
+	public static List<File> readManifest(File manifest) throws IOException {
+		checkNotNull(manifest,"'manifest' must not be null");
+		if(!manifest.exists())
+			throw new FileNotFoundException("Input files manifest not found: "+manifest.getPath());
+		File baseDirectory = manifest.getAbsoluteFile().getParentFile();
+		List<File> result = new ArrayList<>();
+		for(String line: Files.readLines(manifest, Charsets.UTF_8)){
+			String path = line.trim();
+			if(path.isEmpty() || path.startsWith(MANIFEST_COMMENT_START))
+				continue;
+			File file = new File(path);
+			if(!file.isAbsolute())
+				file = new File(baseDirectory, path);
+			if(!file.exists())
+				throw new FileNotFoundException("Input file listed at "+manifest.getPath()+" not found: "+path);
+			result.add(file);
+		}
+		return result;
+	}
+
+}
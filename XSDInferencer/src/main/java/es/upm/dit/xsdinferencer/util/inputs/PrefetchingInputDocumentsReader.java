@@ -0,0 +1,258 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reader of all the documents of many sources, one source after another (like a concatenation of them), which reads 
+ * and decompresses the next sources on background I/O threads while the current one is being consumed. 
+ * At most a given number of sources are read ahead and kept in memory, so memory usage is bounded by the size 
+ * of that many sources. 
+ * Only sources whose documents count is known (i.e. plain or gzip compressed files) are read ahead. Archives may be 
+ * arbitrarily big, so they are still read directly from their streams when their turn comes.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+class PrefetchingInputDocumentsReader implements InputDocumentsReader {
+	
+	/**
+	 * A document which has already been read into memory
+	 */
+	private static class ReadDocument {
+		
+		private final String name;
+		
+		private final byte[] content;
+		
+		ReadDocument(String name, byte[] content) {
+			this.name = name;
+			this.content = content;
+		}
+	}
+	
+	/**
+	 * Task which reads all the documents of a source into memory
+	 */
+	private static class ReadSourceTask implements Callable<List<ReadDocument>> {
+		
+		private final InputDocumentsSource source;
+		
+		ReadSourceTask(InputDocumentsSource source) {
+			this.source = source;
+		}
+		
+		@Override
+		public List<ReadDocument> call() throws IOException {
+			List<ReadDocument> result = new ArrayList<>(source.getDocumentsCount());
+			try(InputDocumentsReader reader = source.open()){
+				while(reader.next()){
+					result.add(new ReadDocument(reader.getName(), ByteStreams.toByteArray(reader.getInputStream())));
+				}
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * The sources, in order
+	 */
+	private final List<InputDocumentsSource> sources;
+	
+	/**
+	 * Maximum number of sources read ahead
+	 */
+	private final int prefetchCount;
+	
+	/**
+	 * The threads which read ahead the sources
+	 */
+	private final ExecutorService executor;
+	
+	/**
+	 * Results of the sources which are being read ahead, in order. A null value means that the source 
+	 * is not read ahead but directly when it is its turn.
+	 */
+	private final Deque<Future<List<ReadDocument>>> pendingSources;
+	
+	/**
+	 * Index of the next source to schedule
+	 */
+	private int nextSourceToSchedule = 0;
+	
+	/**
+	 * Index of the current source
+	 */
+	private int currentSource = -1;
+	
+	/**
+	 * Documents of the current source, if it has been read ahead
+	 */
+	private List<ReadDocument> currentDocuments = Collections.emptyList();
+	
+	/**
+	 * Index of the current document at currentDocuments
+	 */
+	private int currentDocument = -1;
+	
+	/**
+	 * Reader of the current source, if it has not been read ahead
+	 */
+	private InputDocumentsReader currentReader = null;
+	
+	/**
+	 * Constructor.
+	 * @param sources the sources
+	 * @param prefetchCount maximum number of sources read ahead, which is also the number of I/O threads
+	 */
+	PrefetchingInputDocumentsReader(List<InputDocumentsSource> sources, int prefetchCount) {
+		this.sources = sources;
+		this.prefetchCount = prefetchCount;
+		this.executor = Executors.newFixedThreadPool(prefetchCount, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("input-prefetch-%d").build());
+		this.pendingSources = new LinkedList<>();
+		schedulePendingSources();
+	}
+	
+	/**
+	 * Schedules the reading of the next sources, until prefetchCount sources are pending or there are no more sources.
+	 */
+	private void schedulePendingSources() {
+		while(pendingSources.size()<prefetchCount && nextSourceToSchedule<sources.size()){
+			InputDocumentsSource source = sources.get(nextSourceToSchedule);
+			if(source.getDocumentsCount()>=0){
+				pendingSources.addLast(executor.submit(new ReadSourceTask(source)));
+			} else {
+				pendingSources.addLast(null);
+			}
+			nextSourceToSchedule++;
+		}
+	}
+	
+	/**
+	 * @see InputDocumentsReader#next()
+	 */
+	@Override
+	public boolean next() throws IOException {
+		while(true){
+			if(currentReader!=null){
+				if(currentReader.next())
+					return true;
+				currentReader.close();
+				currentReader = null;
+			} else if(currentDocument<currentDocuments.size()-1){
+				currentDocument++;
+				return true;
+			}
+			if(currentSource>=sources.size()-1){
+				currentSource = sources.size();
+				currentDocuments = Collections.emptyList();
+				return false;
+			}
+			currentSource++;
+			Future<List<ReadDocument>> pendingSource = pendingSources.removeFirst();
+			schedulePendingSources();
+			currentDocument = -1;
+			if(pendingSource==null){
+				currentDocuments = Collections.emptyList();
+				currentReader = sources.get(currentSource).open();
+			} else {
+				currentDocuments = getReadDocuments(pendingSource);
+			}
+		}
+	}
+	
+	/**
+	 * Waits for a source to be read ahead.
+	 * @param pendingSource the result of the source reading
+	 * @return the documents of the source
+	 * @throws IOException if the source could not be read
+	 */
+	private List<ReadDocument> getReadDocuments(Future<List<ReadDocument>> pendingSource) throws IOException {
+		try {
+			return pendingSource.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for an input document to be read", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * @see InputDocumentsReader#getName()
+	 */
+	@Override
+	public String getName() {
+		if(currentReader!=null)
+			return currentReader.getName();
+		return currentDocuments.get(currentDocument).name;
+	}
+	
+	/**
+	 * @see InputDocumentsReader#getInputStream()
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException {
+		if(currentReader!=null)
+			return currentReader.getInputStream();
+		return new ByteArrayInputStream(currentDocuments.get(currentDocument).content);
+	}
+	
+	/**
+	 * @see InputDocumentsReader#getReader(Charset)
+	 */
+	@Override
+	public Reader getReader(Charset charset) throws IOException {
+		if(currentReader!=null)
+			return currentReader.getReader(charset);
+		return InputDocumentsReader.super.getReader(charset);
+	}
+	
+	/**
+	 * Closes the current source and stops reading ahead the next ones.
+	 * @see InputDocumentsReader#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		pendingSources.clear();
+		currentDocuments = Collections.emptyList();
+		if(currentReader!=null){
+			currentReader.close();
+			currentReader = null;
+		}
+	}
+
+}
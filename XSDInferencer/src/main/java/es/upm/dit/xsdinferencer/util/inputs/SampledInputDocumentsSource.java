@@ -0,0 +1,471 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Source which only provides a sample of the documents of another source, so that a schema may be quickly inferred 
+ * from huge corpora. The following sampling strategies are available:
+ * <ul>
+ * <li>Reservoir: a uniform random sample of a fixed size.</li>
+ * <li>Stratified by directory: a uniform random sample of a fixed size, where each directory (or archive directory) 
+ * contributes proportionally to its number of documents and at least one document.</li>
+ * <li>First N then every k: the first N documents and then one of each k documents, up to a maximum size.</li>
+ * </ul>
+ * Random strategies need to go through the names of all the documents once before the first reading, but the content of 
+ * the documents which are not chosen is never read (unless they are archive entries). The same documents are provided 
+ * each time the source is opened. 
+ * 
+ * A time budget may also be given: once it is exhausted while the documents are read for the first time, no more 
+ * documents are provided, and the following readings provide the same documents than the first one.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public abstract class SampledInputDocumentsSource implements InputDocumentsSource {
+	
+	/**
+	 * Name of the reservoir sampling strategy
+	 */
+	public static final String STRATEGY_RESERVOIR = "reservoir";
+	
+	/**
+	 * Name of the stratified by directory sampling strategy
+	 */
+	public static final String STRATEGY_STRATIFIED_BY_DIRECTORY = "stratifiedByDirectory";
+	
+	/**
+	 * Name of the first N then every k sampling strategy
+	 */
+	public static final String STRATEGY_FIRST_THEN_EVERY = "firstThenEvery";
+	
+	/**
+	 * Seed of the random strategies, fixed so that the same sample is chosen on each run
+	 */
+	private static final long RANDOM_SEED = 1L;
+	
+	/**
+	 * The sampled source
+	 */
+	private final InputDocumentsSource source;
+	
+	/**
+	 * Maximum number of documents of the sample
+	 */
+	private final int maxDocuments;
+	
+	/**
+	 * Time budget in milliseconds (0 means no time budget)
+	 */
+	private final long timeBudget;
+	
+	/**
+	 * Whether the source has already been opened
+	 */
+	private boolean opened = false;
+	
+	/**
+	 * Time of the first opening
+	 */
+	private long firstOpeningTime;
+	
+	/**
+	 * Documents provided before the time budget was exhausted (-1 if it has not been exhausted)
+	 */
+	private int timeBudgetDocumentsLimit = -1;
+	
+	/**
+	 * Number of documents of the sampled source which have been seen
+	 */
+	private int candidateDocumentsCount = 0;
+	
+	/**
+	 * Number of documents provided by the last completed reading
+	 */
+	private int sampledDocumentsCount = 0;
+	
+	/**
+	 * Constructor.
+	 * @param source the sampled source
+	 * @param maxDocuments maximum number of documents of the sample
+	 * @param timeBudget time budget in milliseconds (0 means no time budget)
+	 */
+	protected SampledInputDocumentsSource(InputDocumentsSource source, int maxDocuments, long timeBudget) {
+		checkNotNull(source,"'source' must not be null");
+		checkArgument(maxDocuments>0,"'maxDocuments' must be positive");
+		checkArgument(timeBudget>=0,"'timeBudget' must not be negative");
+		this.source = source;
+		this.maxDocuments = maxDocuments;
+		this.timeBudget = timeBudget;
+	}
+	
+	/**
+	 * Builds a source which provides a uniform random sample of the documents of another source.
+	 * @param source the sampled source
+	 * @param sampleSize the size of the sample
+	 * @param timeBudget time budget in milliseconds (0 means no time budget)
+	 * @return the sampled source
+	 */
+	public static SampledInputDocumentsSource reservoir(InputDocumentsSource source, int sampleSize, long timeBudget) {
+		return new ChosenDocumentsSampledSource(source, sampleSize, timeBudget) {
+			
+			@Override
+			protected BitSet chooseDocuments(InputDocumentsReader reader, Random random) throws IOException {
+				DocumentsReservoir reservoir = new DocumentsReservoir(getMaxDocuments());
+				int index = 0;
+				while(reader.next()){
+					reservoir.offer(index, random);
+					index++;
+				}
+				registerCandidateDocuments(index);
+				BitSet result = new BitSet(index);
+				reservoir.chooseInto(result, reservoir.size(), random);
+				return result;
+			}
+			
+			@Override
+			public String getStrategyName() {
+				return STRATEGY_RESERVOIR;
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source which provides a uniform random sample of the documents of another source, stratified by 
+	 * the directory of the documents (the part of its name before the last separator).
+	 * @param source the sampled source
+	 * @param sampleSize the size of the sample (it may be exceeded, because each directory contributes with at least a document)
+	 * @param timeBudget time budget in milliseconds (0 means no time budget)
+	 * @return the sampled source
+	 */
+	public static SampledInputDocumentsSource stratifiedByDirectory(InputDocumentsSource source, int sampleSize, long timeBudget) {
+		return new ChosenDocumentsSampledSource(source, Integer.MAX_VALUE, timeBudget) {
+			
+			@Override
+			protected BitSet chooseDocuments(InputDocumentsReader reader, Random random) throws IOException {
+				Map<String, DocumentsReservoir> reservoirs = new LinkedHashMap<>();
+				int index = 0;
+				while(reader.next()){
+					String directory = getDirectory(reader.getName());
+					DocumentsReservoir reservoir = reservoirs.get(directory);
+					if(reservoir==null){
+						reservoir = new DocumentsReservoir(sampleSize);
+						reservoirs.put(directory, reservoir);
+					}
+					reservoir.offer(index, random);
+					index++;
+				}
+				registerCandidateDocuments(index);
+				BitSet result = new BitSet(index);
+				for(DocumentsReservoir reservoir: reservoirs.values()){
+					int quota = (int) Math.max(1, Math.round(((double) sampleSize)*reservoir.getOfferedCount()/index));
+					reservoir.chooseInto(result, quota, random);
+				}
+				return result;
+			}
+			
+			@Override
+			public String getStrategyName() {
+				return STRATEGY_STRATIFIED_BY_DIRECTORY;
+			}
+		};
+	}
+	
+	/**
+	 * Builds a source which provides the first documents of another source and then one of each k documents.
+	 * @param source the sampled source
+	 * @param firstDocuments how many documents are provided before starting to skip documents
+	 * @param every after the first documents, one of each 'every' documents is provided
+	 * @param maxDocuments maximum number of documents of the sample
+	 * @param timeBudget time budget in milliseconds (0 means no time budget)
+	 * @return the sampled source
+	 */
+	public static SampledInputDocumentsSource firstThenEvery(InputDocumentsSource source, final int firstDocuments, final int every, int maxDocuments, long timeBudget) {
+		checkArgument(firstDocuments>=0,"'firstDocuments' must not be negative");
+		checkArgument(every>0,"'every' must be positive");
+		return new SampledInputDocumentsSource(source, maxDocuments, timeBudget) {
+			
+			@Override
+			protected boolean isChosen(int index) {
+				return index<firstDocuments || (index-firstDocuments+1)%every==0;
+			}
+			
+			@Override
+			public String getStrategyName() {
+				return STRATEGY_FIRST_THEN_EVERY;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the directory of a document name, it means, the part before the last '/' or '\' (or an empty string if there is none).
+	 * @param name the document name
+	 * @return the directory
+	 */
+	static String getDirectory(String name) {
+		int lastSeparator = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+		return lastSeparator<0?"":name.substring(0, lastSeparator);
+	}
+	
+	/**
+	 * Prepares the sample before the first reading. By default, it does nothing.
+	 * @param source the sampled source
+	 * @throws IOException if the source cannot be read
+	 */
+	protected void prepare(InputDocumentsSource source) throws IOException {
+	}
+	
+	/**
+	 * Returns whether a document of the sampled source belongs to the sample
+	 * @param index the position of the document at the sampled source
+	 * @return true if it belongs to the sample
+	 */
+	protected abstract boolean isChosen(int index);
+	
+	/**
+	 * @return the name of the sampling strategy
+	 */
+	public abstract String getStrategyName();
+	
+	/**
+	 * @return the maximum number of documents of the sample
+	 */
+	protected int getMaxDocuments() {
+		return maxDocuments;
+	}
+	
+	/**
+	 * Records that some documents of the sampled source have been seen
+	 * @param count how many documents have been seen (from the beginning)
+	 */
+	protected void registerCandidateDocuments(int count) {
+		candidateDocumentsCount = Math.max(candidateDocumentsCount, count);
+	}
+	
+	/**
+	 * @return how many documents of the sampled source have been seen. It is a lower bound of the size of the sampled 
+	 * source if a reading has been stopped by the size or time budget.
+	 */
+	public int getCandidateDocumentsCount() {
+		return candidateDocumentsCount;
+	}
+	
+	/**
+	 * @return how many documents were provided by the last completed reading
+	 */
+	public int getSampledDocumentsCount() {
+		return sampledDocumentsCount;
+	}
+	
+	/**
+	 * @see InputDocumentsSource#open()
+	 */
+	@Override
+	public InputDocumentsReader open() throws IOException {
+		boolean firstReading = !opened;
+		if(firstReading){
+			prepare(source);
+			opened = true;
+			firstOpeningTime = System.currentTimeMillis();
+		}
+		return new SampledReader(source.open(), firstReading);
+	}
+	
+	/**
+	 * The size of the sample is not known until it has been read.
+	 * @see InputDocumentsSource#getDocumentsCount()
+	 */
+	@Override
+	public int getDocumentsCount() {
+		return -1;
+	}
+	
+	/**
+	 * Reader which skips the documents which do not belong to the sample
+	 */
+	private class SampledReader implements InputDocumentsReader {
+		
+		private final InputDocumentsReader reader;
+		
+		private final boolean firstReading;
+		
+		private int index = -1;
+		
+		private int providedDocuments = 0;
+		
+		SampledReader(InputDocumentsReader reader, boolean firstReading) {
+			this.reader = reader;
+			this.firstReading = firstReading;
+		}
+		
+		/**
+		 * @return true if the size or time budget has been exhausted
+		 */
+		private boolean isBudgetExhausted() {
+			if(providedDocuments>=maxDocuments)
+				return true;
+			if(firstReading){
+				if(timeBudget>0 && System.currentTimeMillis()-firstOpeningTime>=timeBudget){
+					timeBudgetDocumentsLimit = providedDocuments;
+					return true;
+				}
+				return false;
+			}
+			return timeBudgetDocumentsLimit>=0 && providedDocuments>=timeBudgetDocumentsLimit;
+		}
+		
+		@Override
+		public boolean next() throws IOException {
+			if(!isBudgetExhausted()){
+				while(reader.next()){
+					index++;
+					if(isChosen(index)){
+						providedDocuments++;
+						return true;
+					}
+				}
+			}
+			registerCandidateDocuments(index+1);
+			sampledDocumentsCount = providedDocuments;
+			return false;
+		}
+		
+		@Override
+		public String getName() {
+			return reader.getName();
+		}
+		
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return reader.getInputStream();
+		}
+		
+		@Override
+		public Reader getReader(Charset charset) throws IOException {
+			return reader.getReader(charset);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Sampled source whose documents are randomly chosen by going through the names of all the documents once, 
+	 * before the first reading.
+	 */
+	private static abstract class ChosenDocumentsSampledSource extends SampledInputDocumentsSource {
+		
+		/**
+		 * Chosen documents, by index
+		 */
+		private BitSet chosenDocuments = new BitSet();
+		
+		ChosenDocumentsSampledSource(InputDocumentsSource source, int maxDocuments, long timeBudget) {
+			super(source, maxDocuments, timeBudget);
+		}
+		
+		/**
+		 * Chooses the documents of the sample
+		 * @param reader a reader of the sampled source, positioned before its first document
+		 * @param random the random numbers generator
+		 * @return the indexes of the chosen documents
+		 * @throws IOException if the source cannot be read
+		 */
+		protected abstract BitSet chooseDocuments(InputDocumentsReader reader, Random random) throws IOException;
+		
+		@Override
+		protected void prepare(InputDocumentsSource source) throws IOException {
+			try(InputDocumentsReader reader = source.open()){
+				chosenDocuments = chooseDocuments(reader, new Random(RANDOM_SEED));
+			}
+		}
+		
+		@Override
+		protected boolean isChosen(int index) {
+			return chosenDocuments.get(index);
+		}
+	}
+	
+	/**
+	 * A reservoir of document indexes (Algorithm R), which keeps a uniform random sample of the offered indexes. 
+	 * Its storage grows as indexes are offered, so that small strata do not take the memory of a full reservoir.
+	 */
+	private static class DocumentsReservoir {
+		
+		private final int capacity;
+		
+		private int[] indexes = new int[16];
+		
+		private int offeredCount = 0;
+		
+		DocumentsReservoir(int capacity) {
+			this.capacity = capacity;
+		}
+		
+		void offer(int index, Random random) {
+			if(offeredCount<capacity){
+				if(offeredCount==indexes.length)
+					indexes = Arrays.copyOf(indexes, (int) Math.min(capacity, 2L*indexes.length));
+				indexes[offeredCount] = index;
+			} else {
+				int position = random.nextInt(offeredCount+1);
+				if(position<capacity)
+					indexes[position] = index;
+			}
+			offeredCount++;
+		}
+		
+		int getOfferedCount() {
+			return offeredCount;
+		}
+		
+		int size() {
+			return Math.min(offeredCount, capacity);
+		}
+		
+		/**
+		 * Chooses a uniform random subset of the reservoir (by a partial Fisher-Yates shuffle) and sets its indexes
+		 * @param chosen where the chosen indexes are set
+		 * @param count how many indexes should be chosen (at most, the size of the reservoir)
+		 * @param random the random numbers generator
+		 */
+		void chooseInto(BitSet chosen, int count, Random random) {
+			int size = size();
+			int toChoose = Math.min(count, size);
+			for(int i=0;i<toChoose;i++){
+				int j = i+random.nextInt(size-i);
+				int swapped = indexes[i];
+				indexes[i] = indexes[j];
+				indexes[j] = swapped;
+				chosen.set(indexes[i]);
+			}
+		}
+	}
+
+}
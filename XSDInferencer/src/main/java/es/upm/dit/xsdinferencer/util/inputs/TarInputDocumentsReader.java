@@ -0,0 +1,321 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.inputs;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Charsets;
+
+/**
+ * {@link InputDocumentsReader} which reads the regular file entries of a TAR archive (POSIX ustar, including 
+ * GNU long names and PAX extended paths) directly from a stream, so that the archive (maybe decompressed on the fly) 
+ * is read only once and nothing is extracted to disk. Only the entries accepted by a {@link FilenameFilter} are provided.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+class TarInputDocumentsReader implements InputDocumentsReader {
+	
+	/**
+	 * Size of the blocks of a TAR archive
+	 */
+	private static final int BLOCK_SIZE = 512;
+	
+	/**
+	 * Maximum size of the entries which contain metadata (long names or PAX headers)
+	 */
+	private static final int MAX_METADATA_ENTRY_SIZE = 1024*1024;
+	
+	/**
+	 * The stream of the whole archive
+	 */
+	private final InputStream tarStream;
+	
+	/**
+	 * The archive file, passed to the filter of the entries
+	 */
+	private final File archiveFile;
+	
+	/**
+	 * The filter of the entries
+	 */
+	private final FilenameFilter entriesFilter;
+	
+	/**
+	 * Buffer of the header of the entries
+	 */
+	private final byte[] header = new byte[BLOCK_SIZE];
+	
+	/**
+	 * Bytes of the current entry which have not been read yet
+	 */
+	private long entryRemaining = 0;
+	
+	/**
+	 * Padding bytes after the current entry
+	 */
+	private long entryPadding = 0;
+	
+	/**
+	 * Name of the current entry
+	 */
+	private String entryName = null;
+	
+	/**
+	 * Stream with the content of the current entry (closing it does nothing)
+	 */
+	private final InputStream entryStream = new InputStream() {
+		
+		@Override
+		public int read() throws IOException {
+			if(entryRemaining<=0)
+				return -1;
+			int result = tarStream.read();
+			if(result<0)
+				throw new EOFException("Truncated TAR archive: "+archiveFile);
+			entryRemaining--;
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(entryRemaining<=0)
+				return -1;
+			int readCount = tarStream.read(b, off, (int) Math.min(len, entryRemaining));
+			if(readCount<0)
+				throw new EOFException("Truncated TAR archive: "+archiveFile);
+			entryRemaining-=readCount;
+			return readCount;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(tarStream.available(), entryRemaining);
+		}
+		
+		@Override
+		public void close() {
+			//The entry stream must not close the archive stream
+		}
+	};
+	
+	/**
+	 * Default constructor.
+	 * @param tarStream the stream of the whole archive (already decompressed)
+	 * @param archiveFile the archive file
+	 * @param entriesFilter filter of the entries (it receives the archive file and the full name of each entry)
+	 */
+	TarInputDocumentsReader(InputStream tarStream, File archiveFile, FilenameFilter entriesFilter) {
+		this.tarStream = tarStream;
+		this.archiveFile = archiveFile;
+		this.entriesFilter = entriesFilter;
+	}
+	
+	/**
+	 * @see InputDocumentsReader#next()
+	 */
+	@Override
+	public boolean next() throws IOException {
+		skipCurrentEntry();
+		entryName = null;
+		String nextEntryName = null;
+		while(readHeader()){
+			String name = nextEntryName!=null?nextEntryName:parseName();
+			nextEntryName = null;
+			long size = parseSize();
+			byte type = header[156];
+			entryRemaining = size;
+			entryPadding = (BLOCK_SIZE - size%BLOCK_SIZE)%BLOCK_SIZE;
+			if(type=='L'){
+				//GNU long name of the next entry
+				nextEntryName = parseNullTerminated(readMetadataEntry(), 0, (int) size);
+			} else if(type=='x'){
+				//PAX extended header of the next entry
+				nextEntryName = parsePaxPath(readMetadataEntry());
+			} else if((type=='0' || type==0 || type=='7') && entriesFilter.accept(archiveFile, name)){
+				entryName = name;
+				return true;
+			} else {
+				skipCurrentEntry();
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Reads the header of the next entry.
+	 * @return false if the end of the archive has been reached
+	 * @throws IOException if the archive cannot be read or it is truncated
+	 */
+	private boolean readHeader() throws IOException {
+		int readCount = 0;
+		while(readCount<BLOCK_SIZE){
+			int result = tarStream.read(header, readCount, BLOCK_SIZE-readCount);
+			if(result<0){
+				if(readCount==0)
+					return false;
+				throw new EOFException("Truncated TAR archive: "+archiveFile);
+			}
+			readCount+=result;
+		}
+		for(int i=0;i<BLOCK_SIZE;i++){
+			if(header[i]!=0)
+				return true;
+		}
+		//An empty block marks the end of the archive
+		return false;
+	}
+	
+	/**
+	 * Skips the rest of the current entry and its padding.
+	 * @throws IOException if the archive cannot be read
+	 */
+	private void skipCurrentEntry() throws IOException {
+		long toSkip = entryRemaining+entryPadding;
+		while(toSkip>0){
+			long skipped = tarStream.skip(toSkip);
+			if(skipped<=0){
+				if(tarStream.read()<0)
+					throw new EOFException("Truncated TAR archive: "+archiveFile);
+				skipped = 1;
+			}
+			toSkip-=skipped;
+		}
+		entryRemaining = 0;
+		entryPadding = 0;
+	}
+	
+	/**
+	 * Reads the whole content of the current entry, which contains metadata.
+	 * @return the content
+	 * @throws IOException if the archive cannot be read or the entry is too big
+	 */
+	private byte[] readMetadataEntry() throws IOException {
+		if(entryRemaining>MAX_METADATA_ENTRY_SIZE)
+			throw new IOException("Too big metadata entry at the TAR archive: "+archiveFile);
+		byte[] content = new byte[(int) entryRemaining];
+		int readCount = 0;
+		while(readCount<content.length){
+			int result = entryStream.read(content, readCount, content.length-readCount);
+			readCount+=result;
+		}
+		skipCurrentEntry();
+		return content;
+	}
+	
+	/**
+	 * @return the full name of the current header (with the ustar prefix, if any)
+	 */
+	private String parseName() {
+		String name = parseNullTerminated(header, 0, 100);
+		boolean ustar = header[257]=='u' && header[258]=='s' && header[259]=='t' && header[260]=='a' && header[261]=='r';
+		String prefix = ustar?parseNullTerminated(header, 345, 155):"";
+		return prefix.isEmpty()?name:prefix+"/"+name;
+	}
+	
+	/**
+	 * @return the size of the entry of the current header
+	 * @throws IOException if the size field is malformed
+	 */
+	private long parseSize() throws IOException {
+		long size = 0;
+		if((header[124]&0x80)!=0){
+			//Base-256 encoding
+			size = header[124]&0x7F;
+			for(int i=125;i<136;i++){
+				size = (size<<8)|(header[i]&0xFF);
+			}
+			return size;
+		}
+		for(int i=124;i<136;i++){
+			byte b = header[i];
+			if(b==0 || b==' ')
+				continue;
+			if(b<'0' || b>'7')
+				throw new IOException("Malformed entry size at the TAR archive: "+archiveFile);
+			size = (size<<3)+(b-'0');
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the UTF-8 string stored at a field, which ends at its first null byte.
+	 * @param bytes the bytes
+	 * @param offset start of the field
+	 * @param length maximum length of the field
+	 * @return the string
+	 */
+	private static String parseNullTerminated(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while(end<offset+length && end<bytes.length && bytes[end]!=0){
+			end++;
+		}
+		return new String(bytes, offset, end-offset, Charsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the path stored at the records of a PAX extended header, whose format is "length key=value\n".
+	 * @param records the content of the PAX header
+	 * @return the path or null if there is no path record
+	 */
+	private static String parsePaxPath(byte[] records) {
+		int position = 0;
+		while(position<records.length){
+			int space = position;
+			int length = 0;
+			while(space<records.length && records[space]>='0' && records[space]<='9'){
+				length = length*10+(records[space]-'0');
+				space++;
+			}
+			if(length<=0 || space>=records.length || records[space]!=' ' || position+length>records.length)
+				return null;
+			String record = new String(records, space+1, position+length-space-2, Charsets.UTF_8);
+			if(record.startsWith("path=")){
+				return record.substring("path=".length());
+			}
+			position+=length;
+		}
+		return null;
+	}
+	
+	/**
+	 * @see InputDocumentsReader#getName()
+	 */
+	@Override
+	public String getName() {
+		return archiveFile.getPath()+"!/"+entryName;
+	}
+	
+	/**
+	 * @see InputDocumentsReader#getInputStream()
+	 */
+	@Override
+	public InputStream getInputStream() {
+		return entryStream;
+	}
+	
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		tarStream.close();
+	}
+
+}
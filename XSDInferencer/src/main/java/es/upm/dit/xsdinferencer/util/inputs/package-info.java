@@ -0,0 +1,22 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+/**
+ * It provides sequential sources of input documents, which may be read from plain files, ByteSource objects or 
+ * compressed archives (.zip, .tar, .tar.gz and .gz) without extracting them to disk, optionally reading the next files ahead on 
+ * background threads. It also provides the discovery of input files from directories (with globs) and manifest files. 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+package es.upm.dit.xsdinferencer.util.inputs;
\ No newline at end of file
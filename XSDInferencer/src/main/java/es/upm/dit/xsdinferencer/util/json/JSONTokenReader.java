@@ -0,0 +1,498 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.json;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming (pull) reader of JSON tokens. Each call to {@link JSONTokenReader#next()} reads the next token from 
+ * the underlying {@link Reader}, so no tree is ever built and only the text of the current token is kept in memory. 
+ * The syntax of the input is checked while it is read.
+ * <br/>
+ * Several consecutive top-level values (separated by whitespaces) may be read, which allows reading 
+ * streams of JSON documents, like JSON Lines files. {@link Token#END_DOCUMENT} is returned when the input ends.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class JSONTokenReader implements Closeable {
+	
+	/**
+	 * Kinds of JSON tokens
+	 */
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, KEY, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+	}
+	
+	//Contexts of the parser
+	private static final int CONTEXT_DOCUMENT = 0;
+	private static final int CONTEXT_EMPTY_OBJECT = 1;
+	private static final int CONTEXT_DANGLING_KEY = 2;
+	private static final int CONTEXT_NONEMPTY_OBJECT = 3;
+	private static final int CONTEXT_EMPTY_ARRAY = 4;
+	private static final int CONTEXT_NONEMPTY_ARRAY = 5;
+	
+	/**
+	 * Value returned by {@link JSONTokenReader#read()} when the input ends
+	 */
+	private static final int EOF = -1;
+	
+	/**
+	 * Underlying reader
+	 */
+	private final Reader reader;
+	
+	/**
+	 * Input buffer
+	 */
+	private final char[] buffer = new char[8192];
+	
+	/**
+	 * Position of the next character to read from the buffer
+	 */
+	private int position = 0;
+	
+	/**
+	 * Number of valid characters at the buffer
+	 */
+	private int limit = 0;
+	
+	/**
+	 * Number of characters read before the ones currently at the buffer. Used at error messages. 
+	 */
+	private long offset = 0;
+	
+	/**
+	 * Number of the line being read, starting at 1. Only line feeds are counted, which can only appear as whitespace.
+	 */
+	private int line = 1;
+	
+	/**
+	 * Line where the current top-level value began
+	 */
+	private int valueStartLine = 0;
+	
+	/**
+	 * Stack of parser contexts
+	 */
+	private int[] contexts = new int[32];
+	
+	/**
+	 * Size of the stack of contexts
+	 */
+	private int contextsSize = 0;
+	
+	/**
+	 * Builder used to read the text of strings and numbers
+	 */
+	private final StringBuilder textBuilder = new StringBuilder();
+	
+	/**
+	 * Text of the current token (only for keys, strings and numbers)
+	 */
+	private String text = null;
+	
+	/**
+	 * Default constructor.
+	 * @param reader the reader to read the JSON from. It is not buffered by this object.
+	 */
+	public JSONTokenReader(Reader reader) {
+		checkNotNull(reader,"'reader' must not be null");
+		this.reader=reader;
+		pushContext(CONTEXT_DOCUMENT);
+	}
+	
+	/**
+	 * Reads the next token.
+	 * @return the kind of the token read
+	 * @throws IOException if the underlying reader fails or the input is not well-formed JSON
+	 */
+	public Token next() throws IOException {
+		text=null;
+		int c;
+		switch(contexts[contextsSize-1]){
+		case CONTEXT_DOCUMENT:
+			c=readNonWhitespace();
+			if(c==EOF)
+				return Token.END_DOCUMENT;
+			valueStartLine=line;
+			return readValue(c);
+		case CONTEXT_EMPTY_OBJECT:
+			c=readNonWhitespace();
+			if(c=='}'){
+				contextsSize--;
+				return Token.END_OBJECT;
+			}
+			return readKey(c);
+		case CONTEXT_NONEMPTY_OBJECT:
+			c=readNonWhitespace();
+			if(c=='}'){
+				contextsSize--;
+				return Token.END_OBJECT;
+			}
+			if(c!=',')
+				throw syntaxError("',' or '}' expected");
+			return readKey(readNonWhitespace());
+		case CONTEXT_DANGLING_KEY:
+			if(readNonWhitespace()!=':')
+				throw syntaxError("':' expected");
+			contexts[contextsSize-1]=CONTEXT_NONEMPTY_OBJECT;
+			return readValue(readNonWhitespace());
+		case CONTEXT_EMPTY_ARRAY:
+			c=readNonWhitespace();
+			if(c==']'){
+				contextsSize--;
+				return Token.END_ARRAY;
+			}
+			contexts[contextsSize-1]=CONTEXT_NONEMPTY_ARRAY;
+			return readValue(c);
+		case CONTEXT_NONEMPTY_ARRAY:
+			c=readNonWhitespace();
+			if(c==']'){
+				contextsSize--;
+				return Token.END_ARRAY;
+			}
+			if(c!=',')
+				throw syntaxError("',' or ']' expected");
+			return readValue(readNonWhitespace());
+		default:
+			throw new IllegalStateException("Unknown context");
+		}
+	}
+	
+	/**
+	 * Returns the text of the current token: the name of a key, the (unescaped) value of a string or 
+	 * the literal of a number. 
+	 * @return the text of the current token or null if the current token has no text
+	 */
+	public String getText() {
+		return text;
+	}
+	
+	/**
+	 * Returns how many objects and arrays are currently open.
+	 * @return the nesting depth of the current token
+	 */
+	public int getDepth() {
+		return contextsSize-1;
+	}
+	
+	/**
+	 * Returns the number of the line where the current token ends, starting at 1.
+	 * @return the current line number
+	 */
+	public int getLine() {
+		return line;
+	}
+	
+	/**
+	 * Returns the number of the line where the current top-level value began, starting at 1.
+	 * @return the line where the current top-level value began or 0 if no value has been read yet
+	 */
+	public int getValueStartLine() {
+		return valueStartLine;
+	}
+	
+	/**
+	 * @see Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+	
+	/**
+	 * Reads a key, whose first character has already been read.
+	 * @param c the first character
+	 * @return {@link Token#KEY}
+	 * @throws IOException if the key is not well-formed
+	 */
+	private Token readKey(int c) throws IOException {
+		if(c!='"')
+			throw syntaxError("Key expected");
+		text=readString();
+		contexts[contextsSize-1]=CONTEXT_DANGLING_KEY;
+		return Token.KEY;
+	}
+	
+	/**
+	 * Reads a value, whose first character has already been read.
+	 * @param c the first character
+	 * @return the token that begins the value
+	 * @throws IOException if the value is not well-formed
+	 */
+	private Token readValue(int c) throws IOException {
+		switch(c){
+		case '{':
+			pushContext(CONTEXT_EMPTY_OBJECT);
+			return Token.BEGIN_OBJECT;
+		case '[':
+			pushContext(CONTEXT_EMPTY_ARRAY);
+			return Token.BEGIN_ARRAY;
+		case '"':
+			text=readString();
+			return Token.STRING;
+		case 't':
+			readLiteralRest("rue");
+			return Token.TRUE;
+		case 'f':
+			readLiteralRest("alse");
+			return Token.FALSE;
+		case 'n':
+			readLiteralRest("ull");
+			return Token.NULL;
+		case EOF:
+			throw syntaxError("Unexpected end of input");
+		default:
+			if(c=='-'||(c>='0'&&c<='9')){
+				text=readNumber(c);
+				return Token.NUMBER;
+			}
+			throw syntaxError("Unexpected character '"+(char)c+"'");
+		}
+	}
+	
+	/**
+	 * Reads the rest of a literal (true, false or null) whose first character has already been read.
+	 * @param rest the expected characters
+	 * @throws IOException if the literal is not the expected one
+	 */
+	private void readLiteralRest(String rest) throws IOException {
+		for(int i=0;i<rest.length();i++){
+			if(read()!=rest.charAt(i))
+				throw syntaxError("Invalid literal");
+		}
+		if(isLiteralPart(peek()))
+			throw syntaxError("Invalid literal");
+	}
+	
+	/**
+	 * Reads a string whose opening quote has already been read, unescaping it.
+	 * @return the string
+	 * @throws IOException if the string is not well-formed
+	 */
+	private String readString() throws IOException {
+		textBuilder.setLength(0);
+		while(true){
+			int start=position;
+			while(position<limit){
+				char c = buffer[position++];
+				if(c=='"'){
+					//Fast path: a string which lies completely at the buffer without escape sequences
+					if(textBuilder.length()==0)
+						return new String(buffer, start, position-1-start);
+					textBuilder.append(buffer, start, position-1-start);
+					return textBuilder.toString();
+				}
+				else if(c=='\\'){
+					textBuilder.append(buffer, start, position-1-start);
+					textBuilder.append(readEscapedCharacter());
+					start=position;
+				}
+				else if(c<0x20){
+					throw syntaxError("Unescaped control character at string");
+				}
+			}
+			textBuilder.append(buffer, start, position-start);
+			if(!fill())
+				throw syntaxError("Unterminated string");
+		}
+	}
+	
+	/**
+	 * Reads an escape sequence whose backslash has already been read.
+	 * @return the escaped character
+	 * @throws IOException if the escape sequence is not valid
+	 */
+	private char readEscapedCharacter() throws IOException {
+		int c = read();
+		switch(c){
+		case '"': return '"';
+		case '\\': return '\\';
+		case '/': return '/';
+		case 'b': return '\b';
+		case 'f': return '\f';
+		case 'n': return '\n';
+		case 'r': return '\r';
+		case 't': return '\t';
+		case 'u':
+			int value=0;
+			for(int i=0;i<4;i++){
+				int digit = Character.digit(read(), 16);
+				if(digit<0)
+					throw syntaxError("Invalid unicode escape sequence");
+				value=(value<<4)|digit;
+			}
+			return (char) value;
+		default:
+			throw syntaxError("Invalid escape sequence");
+		}
+	}
+	
+	/**
+	 * Reads a number whose first character has already been read and checks that it follows the JSON grammar.
+	 * @param first the first character
+	 * @return the literal of the number
+	 * @throws IOException if the number is not well-formed
+	 */
+	private String readNumber(int first) throws IOException {
+		textBuilder.setLength(0);
+		int c = first;
+		if(c=='-'){
+			textBuilder.append('-');
+			c=read();
+		}
+		if(c=='0'){
+			textBuilder.append('0');
+			c=peek();
+			if(c>='0'&&c<='9')
+				throw syntaxError("Leading zeros are not allowed at numbers");
+		}
+		else if(c>='1'&&c<='9'){
+			textBuilder.append((char)c);
+			c=readDigits();
+		}
+		else{
+			throw syntaxError("Invalid number");
+		}
+		if(c=='.'){
+			textBuilder.append((char)read());
+			if(!isDigit(peek()))
+				throw syntaxError("Digit expected at number");
+			c=readDigits();
+		}
+		if(c=='e'||c=='E'){
+			textBuilder.append((char)read());
+			c=peek();
+			if(c=='+'||c=='-')
+				textBuilder.append((char)read());
+			if(!isDigit(peek()))
+				throw syntaxError("Digit expected at number");
+			c=readDigits();
+		}
+		if(isLiteralPart(c))
+			throw syntaxError("Invalid number");
+		return textBuilder.toString();
+	}
+	
+	/**
+	 * Appends all the following digits to the text builder.
+	 * @return the first character after the digits, which is not consumed
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int readDigits() throws IOException {
+		int c;
+		while(isDigit(c=peek())){
+			textBuilder.append((char)read());
+		}
+		return c;
+	}
+	
+	/**
+	 * @param c a character
+	 * @return true if the character is a decimal digit
+	 */
+	private static boolean isDigit(int c){
+		return c>='0'&&c<='9';
+	}
+	
+	/**
+	 * @param c a character
+	 * @return true if the character may not follow a literal or number
+	 */
+	private static boolean isLiteralPart(int c){
+		return (c>='a'&&c<='z')||(c>='A'&&c<='Z')||isDigit(c)||c=='.'||c=='-'||c=='+'||c=='_';
+	}
+	
+	/**
+	 * Reads characters until a non-whitespace one is found.
+	 * @return the first non-whitespace character, or {@link JSONTokenReader#EOF} if the input ends
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int readNonWhitespace() throws IOException {
+		while(true){
+			int c = read();
+			if(c=='\n')
+				line++;
+			else if(c!=' '&&c!='\r'&&c!='\t')
+				return c;
+		}
+	}
+	
+	/**
+	 * Reads a character
+	 * @return the character or {@link JSONTokenReader#EOF} if the input ends
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int read() throws IOException {
+		if(position==limit && !fill())
+			return EOF;
+		return buffer[position++];
+	}
+	
+	/**
+	 * Returns the next character without consuming it
+	 * @return the character or {@link JSONTokenReader#EOF} if the input ends
+	 * @throws IOException if the underlying reader fails
+	 */
+	private int peek() throws IOException {
+		if(position==limit && !fill())
+			return EOF;
+		return buffer[position];
+	}
+	
+	/**
+	 * Fills the buffer with new characters from the underlying reader.
+	 * @return false if the input has ended
+	 * @throws IOException if the underlying reader fails
+	 */
+	private boolean fill() throws IOException {
+		offset+=limit;
+		position=0;
+		limit=0;
+		int read;
+		while((read=reader.read(buffer, 0, buffer.length))==0);
+		if(read<0)
+			return false;
+		limit=read;
+		return true;
+	}
+	
+	/**
+	 * Pushes a context onto the stack of contexts
+	 * @param context the context
+	 */
+	private void pushContext(int context){
+		if(contextsSize==contexts.length)
+			contexts=Arrays.copyOf(contexts, contexts.length*2);
+		contexts[contextsSize++]=context;
+	}
+	
+	/**
+	 * Builds an exception which reports a syntax error at the current position
+	 * @param message the description of the error
+	 * @return the exception
+	 */
+	private IOException syntaxError(String message){
+		return new IOException("Malformed JSON: "+message+" (at line "+line+", character "+(offset+position)+")");
+	}
+
+}
@@ -0,0 +1,648 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.lexical;
+
+/**
+ * Hand-written classifier of simple values. It tells which lexical spaces of the inferable builtin types a value 
+ * belongs to in a single pass over its characters, and normalizes whitespaces and numbers without building 
+ * intermediate strings (the value itself is returned if it does not change). Its results are exactly the same than 
+ * those of the regular expressions previously used by the simple type inference:
+ * <ul>
+ * <li>xs:boolean: <code>^true|false|0|1$</code> on the trimmed value.</li>
+ * <li>xs:integer: <code>^(\+|\-)?[0-9]+$</code> on the trimmed value.</li>
+ * <li>xs:decimal: <code>^(\+|\-)?[0-9]+(\.[0-9]+)?$</code> on the trimmed value.</li>
+ * </ul>
+ * It also tells whether a value is a valid xs:byte, xs:short, xs:int, xs:long, xs:double, xs:date, xs:time, 
+ * xs:dateTime, xs:anyURI or xs:base64Binary value, so that those types may be inferred from the same flags. 
+ * Those checks are conservative (for example, only absolute URIs with an authority, URNs and mailto URIs are 
+ * taken as xs:anyURI values), as any false negative just leads to a more general type, while codes or labels 
+ * taken as URIs or base64 data would lead to types which reject the next values. 
+ * Values are trimmed as {@link String#trim()} does. As none of those lexical spaces allows whitespaces between other 
+ * characters, replacing or collapsing whitespaces before checking them would not change the result.
+ * 
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public final class LexicalClassifier {
+	
+	/**
+	 * Once trimmed, the value is a valid xs:boolean value
+	 */
+	public static final int BOOLEAN = 1;
+	
+	/**
+	 * Once trimmed, the value is true or false
+	 */
+	public static final int TRUE_FALSE = 1<<1;
+	
+	/**
+	 * Once trimmed, the value is 0 or 1
+	 */
+	public static final int ZERO_OR_ONE = 1<<2;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:integer value
+	 */
+	public static final int INTEGER = 1<<3;
+	
+	/**
+	 * The value is a valid xs:integer value as it is (without being trimmed)
+	 */
+	public static final int UNTRIMMED_INTEGER = 1<<4;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:decimal value
+	 */
+	public static final int DECIMAL = 1<<5;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:decimal value without decimals other than zeros, so its 
+	 * shortest equivalent (see {@link LexicalClassifier#getEquivalentNumber(String)}) is a valid xs:integer value
+	 */
+	public static final int INTEGRAL_DECIMAL = 1<<6;
+	
+	/**
+	 * The value is the JSON null
+	 */
+	public static final int JSON_NULL = 1<<7;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:byte value
+	 */
+	public static final int BYTE = 1<<8;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:short value
+	 */
+	public static final int SHORT = 1<<9;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:int value
+	 */
+	public static final int INT = 1<<10;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:long value
+	 */
+	public static final int LONG = 1<<11;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:double value
+	 */
+	public static final int DOUBLE = 1<<12;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:date value
+	 */
+	public static final int DATE = 1<<13;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:time value
+	 */
+	public static final int TIME = 1<<14;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:dateTime value
+	 */
+	public static final int DATE_TIME = 1<<15;
+	
+	/**
+	 * Once trimmed, the value is an absolute URI with an authority, a URN or a mailto URI (so a valid xs:anyURI value)
+	 */
+	public static final int ANY_URI = 1<<16;
+	
+	/**
+	 * Once trimmed, the value is a valid xs:base64Binary value which looks like encoded data rather than like a word or a code
+	 */
+	public static final int BASE64_BINARY = 1<<17;
+	
+	/**
+	 * Minimum length of the xs:base64Binary values without padding, <code>+</code> nor <code>/</code> which are taken 
+	 * as such (shorter ones are usually codes or identifiers)
+	 */
+	private static final int MIN_UNMARKED_BASE64_LENGTH = 16;
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private LexicalClassifier() {
+	}
+	
+	/**
+	 * Tells which lexical spaces a value belongs to.
+	 * @param value the value
+	 * @return a combination of the flags of this class
+	 */
+	public static int classify(String value) {
+		int length = value.length();
+		int start = 0;
+		int end = length;
+		while(start<end && value.charAt(start)<=' ')
+			start++;
+		while(end>start && value.charAt(end-1)<=' ')
+			end--;
+		int lexicalSpaces = 0;
+		int trimmedLength = end-start;
+		if(trimmedLength==1 && (value.charAt(start)=='0' || value.charAt(start)=='1')){
+			lexicalSpaces|=BOOLEAN|ZERO_OR_ONE;
+		} else if((trimmedLength==4 && value.startsWith("true", start)) || (trimmedLength==5 && value.startsWith("false", start))){
+			lexicalSpaces|=BOOLEAN|TRUE_FALSE;
+		} else if(length==4 && value.equals("null")){
+			lexicalSpaces|=JSON_NULL;
+		}
+		if(trimmedLength==0)
+			return lexicalSpaces;
+		lexicalSpaces|=classifyDecimal(value, start, end, trimmedLength==length);
+		if((lexicalSpaces&INTEGER)!=0)
+			lexicalSpaces|=classifyIntegerRange(value, start, end);
+		if((lexicalSpaces&DECIMAL)!=0 || isDouble(value, start, end))
+			lexicalSpaces|=DOUBLE;
+		char first = value.charAt(start);
+		if(isDigit(first) || first=='-')
+			lexicalSpaces|=classifyDateTime(value, start, end);
+		if(isLetter(first) && isAbsoluteURI(value, start, end))
+			lexicalSpaces|=ANY_URI;
+		if(isBase64Binary(value, start, end))
+			lexicalSpaces|=BASE64_BINARY;
+		return lexicalSpaces;
+	}
+	
+	/**
+	 * Tells whether a trimmed value is a valid xs:integer or xs:decimal value.
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @param untrimmed whether the value had no whitespaces to trim
+	 * @return a combination of {@link LexicalClassifier#INTEGER}, {@link LexicalClassifier#UNTRIMMED_INTEGER}, 
+	 * {@link LexicalClassifier#DECIMAL} and {@link LexicalClassifier#INTEGRAL_DECIMAL}
+	 */
+	private static int classifyDecimal(String value, int start, int end, boolean untrimmed) {
+		int i = start;
+		if(i<end && (value.charAt(i)=='+' || value.charAt(i)=='-'))
+			i++;
+		int integerPartStart = i;
+		while(i<end && isDigit(value.charAt(i)))
+			i++;
+		if(i==integerPartStart)
+			return 0;
+		if(i==end)
+			return untrimmed?INTEGER|UNTRIMMED_INTEGER|DECIMAL|INTEGRAL_DECIMAL:INTEGER|DECIMAL|INTEGRAL_DECIMAL;
+		if(value.charAt(i)!='.')
+			return 0;
+		int fractionalPartStart = ++i;
+		boolean onlyZeros = true;
+		while(i<end && isDigit(value.charAt(i))){
+			onlyZeros&=value.charAt(i)=='0';
+			i++;
+		}
+		if(i<end || i==fractionalPartStart)
+			return 0;
+		return onlyZeros?DECIMAL|INTEGRAL_DECIMAL:DECIMAL;
+	}
+	
+	/**
+	 * Tells which of the bounded integer types a trimmed xs:integer value fits in.
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @return a combination of {@link LexicalClassifier#BYTE}, {@link LexicalClassifier#SHORT}, 
+	 * {@link LexicalClassifier#INT} and {@link LexicalClassifier#LONG}
+	 */
+	private static int classifyIntegerRange(String value, int start, int end) {
+		boolean negative = value.charAt(start)=='-';
+		int i = start;
+		if(negative || value.charAt(start)=='+')
+			i++;
+		while(i<end-1 && value.charAt(i)=='0')
+			i++;
+		int digits = end-i;
+		if(digits>19)
+			return 0;
+		if(digits==19){
+			String limit = negative?"9223372036854775808":"9223372036854775807";
+			for(int j=0;j<digits;j++){
+				char c = value.charAt(i+j);
+				if(c!=limit.charAt(j)){
+					if(c>limit.charAt(j))
+						return 0;
+					break;
+				}
+			}
+			return LONG;
+		}
+		long number = 0;
+		for(;i<end;i++)
+			number=number*10+(value.charAt(i)-'0');
+		if(negative)
+			number=-number;
+		int lexicalSpaces = LONG;
+		if(number>=Integer.MIN_VALUE && number<=Integer.MAX_VALUE)
+			lexicalSpaces|=INT;
+		if(number>=Short.MIN_VALUE && number<=Short.MAX_VALUE)
+			lexicalSpaces|=SHORT;
+		if(number>=Byte.MIN_VALUE && number<=Byte.MAX_VALUE)
+			lexicalSpaces|=BYTE;
+		return lexicalSpaces;
+	}
+	
+	/**
+	 * Checks whether a trimmed value matches <code>^(\+|-)?([0-9]+(\.[0-9]*)?|\.[0-9]+)([Ee](\+|-)?[0-9]+)?|-?INF|NaN$</code>, 
+	 * that is, whether it is a valid xs:double value.
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @return true if it matches
+	 */
+	private static boolean isDouble(String value, int start, int end) {
+		int length = end-start;
+		if((length==3 && (value.startsWith("INF", start) || value.startsWith("NaN", start))) || (length==4 && value.startsWith("-INF", start)))
+			return true;
+		int i = start;
+		if(value.charAt(i)=='+' || value.charAt(i)=='-')
+			i++;
+		boolean digitsFound = false;
+		while(i<end && isDigit(value.charAt(i))){
+			digitsFound=true;
+			i++;
+		}
+		if(i<end && value.charAt(i)=='.'){
+			i++;
+			while(i<end && isDigit(value.charAt(i))){
+				digitsFound=true;
+				i++;
+			}
+		}
+		if(!digitsFound)
+			return false;
+		if(i<end && (value.charAt(i)=='E' || value.charAt(i)=='e')){
+			i++;
+			if(i<end && (value.charAt(i)=='+' || value.charAt(i)=='-'))
+				i++;
+			int exponentStart = i;
+			while(i<end && isDigit(value.charAt(i)))
+				i++;
+			if(i==exponentStart)
+				return false;
+		}
+		return i==end;
+	}
+	
+	/**
+	 * Tells whether a trimmed value is a valid xs:date, xs:time or xs:dateTime value. Dates are checked to exist 
+	 * (leap years included), but leap seconds and the hour 24 are not accepted.
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @return {@link LexicalClassifier#DATE}, {@link LexicalClassifier#TIME}, {@link LexicalClassifier#DATE_TIME} or 0
+	 */
+	private static int classifyDateTime(String value, int start, int end) {
+		int dateEnd = parseDate(value, start, end);
+		if(dateEnd<0){
+			int timeEnd = parseTime(value, start, end);
+			return timeEnd>=0 && isTimezone(value, timeEnd, end)?TIME:0;
+		}
+		if(isTimezone(value, dateEnd, end))
+			return DATE;
+		if(dateEnd<end && value.charAt(dateEnd)=='T'){
+			int timeEnd = parseTime(value, dateEnd+1, end);
+			if(timeEnd>=0 && isTimezone(value, timeEnd, end))
+				return DATE_TIME;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Parses a date of the form <code>-?YYYY-MM-DD</code> (years may have more than four digits, but then they 
+	 * cannot start by zero, and the year 0000 does not exist).
+	 * @param value the value
+	 * @param start the index where the date should start
+	 * @param end the index after the last character which may be parsed
+	 * @return the index after the date or -1 if there is not a valid date
+	 */
+	private static int parseDate(String value, int start, int end) {
+		int i = start;
+		if(i<end && value.charAt(i)=='-')
+			i++;
+		int yearStart = i;
+		boolean onlyZeros = true;
+		while(i<end && isDigit(value.charAt(i))){
+			onlyZeros&=value.charAt(i)=='0';
+			i++;
+		}
+		int yearDigits = i-yearStart;
+		if(yearDigits<4 || (yearDigits>4 && value.charAt(yearStart)=='0') || onlyZeros)
+			return -1;
+		if(i+6>end || value.charAt(i)!='-' || value.charAt(i+3)!='-')
+			return -1;
+		int month = parseTwoDigits(value, i+1);
+		int day = parseTwoDigits(value, i+4);
+		if(month<1 || month>12 || day<1)
+			return -1;
+		//The last four digits of the year are enough to know whether it is a leap year
+		int year = parseTwoDigits(value, i-4)*100+parseTwoDigits(value, i-2);
+		boolean leapYear = year%4==0 && (year%100!=0 || year%400==0);
+		int daysInMonth;
+		if(month==2)
+			daysInMonth=leapYear?29:28;
+		else if(month==4 || month==6 || month==9 || month==11)
+			daysInMonth=30;
+		else
+			daysInMonth=31;
+		return day<=daysInMonth?i+6:-1;
+	}
+	
+	/**
+	 * Parses a time of the form <code>hh:mm:ss(\.s+)?</code>.
+	 * @param value the value
+	 * @param start the index where the time should start
+	 * @param end the index after the last character which may be parsed
+	 * @return the index after the time or -1 if there is not a valid time
+	 */
+	private static int parseTime(String value, int start, int end) {
+		if(start+8>end || value.charAt(start+2)!=':' || value.charAt(start+5)!=':')
+			return -1;
+		int hours = parseTwoDigits(value, start);
+		int minutes = parseTwoDigits(value, start+3);
+		int seconds = parseTwoDigits(value, start+6);
+		if(hours<0 || hours>23 || minutes<0 || minutes>59 || seconds<0 || seconds>59)
+			return -1;
+		int i = start+8;
+		if(i<end && value.charAt(i)=='.'){
+			int fractionStart = ++i;
+			while(i<end && isDigit(value.charAt(i)))
+				i++;
+			if(i==fractionStart)
+				return -1;
+		}
+		return i;
+	}
+	
+	/**
+	 * Checks whether the rest of a value is an optional timezone (<code>Z</code> or <code>(\+|-)hh:mm</code>, up to 14:00).
+	 * @param value the value
+	 * @param start the index where the timezone should start
+	 * @param end the index after the last character of the value (once trimmed)
+	 * @return true if there is nothing else or just a valid timezone
+	 */
+	private static boolean isTimezone(String value, int start, int end) {
+		if(start==end)
+			return true;
+		if(value.charAt(start)=='Z')
+			return start+1==end;
+		if(start+6!=end || (value.charAt(start)!='+' && value.charAt(start)!='-') || value.charAt(start+3)!=':')
+			return false;
+		int hours = parseTwoDigits(value, start+1);
+		int minutes = parseTwoDigits(value, start+4);
+		return hours>=0 && minutes>=0 && minutes<=59 && (hours<14 || (hours==14 && minutes==0));
+	}
+	
+	/**
+	 * @param value a value
+	 * @param index the index of the first digit
+	 * @return the number made by the two digits or -1 if any of them is not a digit
+	 */
+	private static int parseTwoDigits(String value, int index) {
+		char first = value.charAt(index);
+		char second = value.charAt(index+1);
+		if(!isDigit(first) || !isDigit(second))
+			return -1;
+		return (first-'0')*10+(second-'0');
+	}
+	
+	/**
+	 * Checks whether a trimmed value is an absolute URI: a scheme (a letter followed by letters, digits, +, - or .), 
+	 * a colon and a non-empty rest without whitespaces nor the characters which are never allowed in URIs 
+	 * (<code>&lt;&gt;"{}|\^`</code>). As values like <code>ID:123</code> or <code>Re:foo</code> have that form too, 
+	 * the rest must also start by <code>//</code> and an authority or a path (i.e. <code>http://host</code> or 
+	 * <code>file:///path</code>), unless the scheme is <code>urn</code> and the rest is a namespace identifier, 
+	 * a colon and a non-empty specific string, or the scheme is <code>mailto</code> and the rest has an <code>@</code>. 
+	 * Relative references are valid xs:anyURI values too, but then almost any string would be.
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @return true if it is such an absolute URI
+	 */
+	private static boolean isAbsoluteURI(String value, int start, int end) {
+		int i = start+1;
+		while(i<end){
+			char c = value.charAt(i);
+			if(!isLetter(c) && !isDigit(c) && c!='+' && c!='-' && c!='.')
+				break;
+			i++;
+		}
+		if(i+1>=end || value.charAt(i)!=':')
+			return false;
+		int schemeEnd = i;
+		boolean atFound = false;
+		for(i++;i<end;i++){
+			char c = value.charAt(i);
+			if(c<=' ' || c=='<' || c=='>' || c=='"' || c=='{' || c=='}' || c=='|' || c=='\\' || c=='^' || c=='`')
+				return false;
+			atFound|=c=='@';
+		}
+		int restStart = schemeEnd+1;
+		if(end-restStart>2 && value.charAt(restStart)=='/' && value.charAt(restStart+1)=='/')
+			return true;
+		int schemeLength = schemeEnd-start;
+		if(schemeLength==6 && value.regionMatches(true, start, "mailto", 0, 6))
+			return atFound;
+		if(schemeLength!=3 || !value.regionMatches(true, start, "urn", 0, 3))
+			return false;
+		//The namespace identifier: a letter or digit followed by up to 31 letters, digits or hyphens
+		for(i=restStart;i<end && i-restStart<=32;i++){
+			char c = value.charAt(i);
+			if(c==':')
+				break;
+			if(!isLetter(c) && !isDigit(c) && (c!='-' || i==restStart))
+				return false;
+		}
+		return i>restStart && i+1<end && value.charAt(i)==':';
+	}
+	
+	/**
+	 * Checks whether a trimmed value is a valid xs:base64Binary value without whitespaces. As any word or code of letters 
+	 * and digits whose length is a multiple of four would be valid too, the value must also have padding, a <code>+</code> 
+	 * or a <code>/</code>, or else be at least {@link LexicalClassifier#MIN_UNMARKED_BASE64_LENGTH} characters long and 
+	 * mix lowercase letters, uppercase letters and digits (so hexadecimal digests are not taken as base64 data either).
+	 * @param value the value
+	 * @param start the index of its first non-whitespace character
+	 * @param end the index after its last non-whitespace character
+	 * @return true if it is such a value
+	 */
+	private static boolean isBase64Binary(String value, int start, int end) {
+		int length = end-start;
+		if(length%4!=0)
+			return false;
+		int padding = 0;
+		if(value.charAt(end-1)=='=')
+			padding=value.charAt(end-2)=='='?2:1;
+		boolean markFound = padding>0;
+		boolean lowercaseFound = false;
+		boolean uppercaseFound = false;
+		boolean digitFound = false;
+		for(int i=start;i<end-padding;i++){
+			char c = value.charAt(i);
+			if(c>='a' && c<='z')
+				lowercaseFound=true;
+			else if(c>='A' && c<='Z')
+				uppercaseFound=true;
+			else if(isDigit(c))
+				digitFound=true;
+			else if(c=='+' || c=='/')
+				markFound=true;
+			else
+				return false;
+		}
+		//The last character before the padding must not have bits which would be discarded
+		if(padding==1 && "AEIMQUYcgkosw048".indexOf(value.charAt(end-2))<0)
+			return false;
+		if(padding==2 && "AQgw".indexOf(value.charAt(end-3))<0)
+			return false;
+		return markFound || (length>=MIN_UNMARKED_BASE64_LENGTH && lowercaseFound && uppercaseFound && digitFound);
+	}
+	
+	/**
+	 * @param c a character
+	 * @return whether it is an ASCII letter
+	 */
+	private static boolean isLetter(char c) {
+		return (c>='a' && c<='z') || (c>='A' && c<='Z');
+	}
+	
+	/**
+	 * @param c a character
+	 * @return whether it is an ASCII digit
+	 */
+	private static boolean isDigit(char c) {
+		return c>='0' && c<='9';
+	}
+	
+	/**
+	 * @param c a character
+	 * @return whether it is a whitespace character as defined by the XML specification: 
+	 * #x9 (tab), #xA (line feed), #xD (carriage return) or #x20 (space)
+	 */
+	public static boolean isWhitespace(char c) {
+		return c==' ' || c=='\t' || c=='\n' || c=='\r';
+	}
+	
+	/**
+	 * @param value a value
+	 * @return whether all its characters are whitespace characters (see {@link LexicalClassifier#isWhitespace(char)})
+	 */
+	public static boolean consistsOfWhitespaces(String value) {
+		for(int i=0;i<value.length();i++){
+			if(!isWhitespace(value.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Replaces each tab, line feed and carriage return of a value by a space and trims it, as 
+	 * <code>value.replaceAll("[\t\n\r]", " ").trim()</code> does. Optionally, it also collapses consecutive 
+	 * spaces into one, as <code>replaceAll("[ ]{2,}", " ")</code> does.
+	 * @param value the value
+	 * @param collapse whether consecutive spaces are collapsed
+	 * @return the normalized value (the same object if it does not change)
+	 */
+	public static String replaceAndTrimWhitespaces(String value, boolean collapse) {
+		int start = 0;
+		int end = value.length();
+		while(start<end && value.charAt(start)<=' ')
+			start++;
+		while(end>start && value.charAt(end-1)<=' ')
+			end--;
+		int i = start;
+		for(;i<end;i++){
+			char c = value.charAt(i);
+			if(c=='\t' || c=='\n' || c=='\r' || (collapse && c==' ' && isWhitespace(value.charAt(i-1))))
+				break;
+		}
+		if(i==end)
+			return value.substring(start, end);
+		StringBuilder result = new StringBuilder(end-start);
+		result.append(value, start, i);
+		for(;i<end;i++){
+			char c = value.charAt(i);
+			if(isWhitespace(c)){
+				if(collapse && result.charAt(result.length()-1)==' ')
+					continue;
+				c=' ';
+			}
+			result.append(c);
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * In xs:integer and xs:decimal, values such as +5 and 5 are equivalent.
+	 * In xs:decimal, values like 5.0 and 5 are also equivalent. 
+	 * This method transforms a value like those to its shortest equivalent (without + or 0 decimals), as 
+	 * removing all the + characters if it starts with + and then, if it ends with decimals which are 
+	 * only zeros, all the occurrences of <code>\.0+</code> does.
+	 * @param value a value, with its whitespaces already trimmed
+	 * @return its shortest equivalent (the same object if it does not change)
+	 */
+	public static String getEquivalentNumber(String value) {
+		boolean removePluses = value.startsWith("+");
+		boolean removeZeroDecimals = endsWithZeroDecimals(value);
+		if(!removePluses && !removeZeroDecimals)
+			return value;
+		int length = value.length();
+		StringBuilder result = new StringBuilder(length);
+		for(int i=0;i<length;i++){
+			char c = value.charAt(i);
+			if(removePluses && c=='+')
+				continue;
+			if(removeZeroDecimals && c=='.'){
+				//It skips the dot and the zeros after it (pluses are removed anyway)
+				int j = i+1;
+				while(j<length && removePluses && value.charAt(j)=='+')
+					j++;
+				if(j<length && value.charAt(j)=='0'){
+					while(j<length && (value.charAt(j)=='0' || (removePluses && value.charAt(j)=='+')))
+						j++;
+					i=j-1;
+					continue;
+				}
+			}
+			result.append(c);
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Checks whether a value matches <code>^.+\.0+$</code>, that is, whether it ends with a dot followed by zeros and 
+	 * there is at least a character before the dot (none of them being a line terminator).
+	 * @param value the value
+	 * @return true if it matches
+	 */
+	private static boolean endsWithZeroDecimals(String value) {
+		int i = value.length();
+		while(i>0 && value.charAt(i-1)=='0')
+			i--;
+		if(i==value.length() || i<2 || value.charAt(i-1)!='.')
+			return false;
+		for(int j=0;j<i-1;j++){
+			char c = value.charAt(j);
+			if(c=='\n' || c=='\r' || c=='\u0085' || c=='\u2028' || c=='\u2029')
+				return false;
+		}
+		return true;
+	}
+	
+}
@@ -0,0 +1,242 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.sketches;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * HyperLogLog sketch which estimates how many distinct values have been added to it, using 2<sup>precision</sup> 
+ * bytes whatever the number of values is. The relative standard error of the estimate is 1.04/sqrt(2<sup>precision</sup>) 
+ * (i.e. 1.6% with precision 12), and small cardinalities are estimated by linear counting, which is almost exact. 
+ * Sketches of the same precision may be merged, so that the result is the sketch of the union of their values. 
+ * The harmonic sum of the registers is updated along with them, so getting the estimate takes constant time.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class HyperLogLog {
+	
+	/**
+	 * Minimum allowed precision
+	 */
+	public static final int MIN_PRECISION = 4;
+	
+	/**
+	 * Maximum allowed precision
+	 */
+	public static final int MAX_PRECISION = 18;
+	
+	/**
+	 * Hash function applied to the values
+	 */
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+	
+	/**
+	 * Number of bits of the hash which choose the register
+	 */
+	private final int precision;
+	
+	/**
+	 * The registers: each one has the maximum rank (position of the first 1 bit after the register bits) 
+	 * of the hashes which have fallen into it
+	 */
+	private final byte[] registers;
+	
+	/**
+	 * Sum of 2<sup>-register</sup> for all the registers
+	 */
+	private double inverseSum;
+	
+	/**
+	 * Number of registers which are still zero
+	 */
+	private int zeroRegisters;
+	
+	/**
+	 * Constructor of an empty sketch
+	 * @param precision the precision, between {@link HyperLogLog#MIN_PRECISION} and {@link HyperLogLog#MAX_PRECISION}
+	 * @throws IllegalArgumentException if the precision is out of bounds
+	 */
+	public HyperLogLog(int precision) {
+		checkArgument(precision>=MIN_PRECISION && precision<=MAX_PRECISION, "'precision' must be between %s and %s", MIN_PRECISION, MAX_PRECISION);
+		this.precision=precision;
+		this.registers=new byte[1<<precision];
+		this.inverseSum=registers.length;
+		this.zeroRegisters=registers.length;
+	}
+	
+	/**
+	 * Constructor of a sketch from previously saved registers (see {@link HyperLogLog#getRegisters()})
+	 * @param precision the precision
+	 * @param registers the registers (they are copied)
+	 * @throws IllegalArgumentException if the precision is out of bounds or there is not a register for each 
+	 * combination of precision bits
+	 */
+	public HyperLogLog(int precision, byte[] registers) {
+		this(precision);
+		checkNotNull(registers, "'registers' must not be null");
+		checkArgument(registers.length==this.registers.length, "There must be 2^precision registers");
+		for(int i=0;i<registers.length;i++){
+			updateRegister(i, registers[i]);
+		}
+	}
+	
+	/**
+	 * Copy constructor
+	 * @param other the sketch to copy
+	 */
+	public HyperLogLog(HyperLogLog other) {
+		this.precision=other.precision;
+		this.registers=other.registers.clone();
+		this.inverseSum=other.inverseSum;
+		this.zeroRegisters=other.zeroRegisters;
+	}
+	
+	/**
+	 * Adds a value to the sketch
+	 * @param value the value
+	 */
+	public void add(String value) {
+		checkNotNull(value, "'value' must not be null");
+		addHash(HASH_FUNCTION.hashString(value, Charsets.UTF_8).asLong());
+	}
+	
+	/**
+	 * Adds the 64 bits hash of a value to the sketch
+	 * @param hash the hash
+	 */
+	void addHash(long hash) {
+		int index = (int) (hash>>>(Long.SIZE-precision));
+		//A 1 bit after the remaining bits of the hash bounds the rank
+		long remainingBits = (hash<<precision)|(1L<<(precision-1));
+		updateRegister(index, Long.numberOfLeadingZeros(remainingBits)+1);
+	}
+	
+	/**
+	 * Sets a register to a rank if it is greater than its current value, updating the harmonic sum
+	 * @param index the index of the register
+	 * @param rank the rank
+	 */
+	private void updateRegister(int index, int rank) {
+		int previousRank = registers[index];
+		if(rank<=previousRank)
+			return;
+		if(previousRank==0)
+			zeroRegisters--;
+		inverseSum+=Math.scalb(1.0, -rank)-Math.scalb(1.0, -previousRank);
+		registers[index]=(byte) rank;
+	}
+	
+	/**
+	 * Adds all the values of another sketch to this one (the other one is not modified)
+	 * @param other the other sketch
+	 * @throws IllegalArgumentException if the other sketch has a different precision
+	 */
+	public void merge(HyperLogLog other) {
+		checkNotNull(other, "'other' must not be null");
+		checkArgument(other.precision==precision, "Only sketches with the same precision may be merged");
+		for(int i=0;i<registers.length;i++){
+			updateRegister(i, other.registers[i]);
+		}
+	}
+	
+	/**
+	 * @return the estimated number of distinct values added to the sketch
+	 */
+	public long estimate() {
+		double m = registers.length;
+		double alpha;
+		if(registers.length==16)
+			alpha=0.673;
+		else if(registers.length==32)
+			alpha=0.697;
+		else if(registers.length==64)
+			alpha=0.709;
+		else
+			alpha=0.7213/(1+1.079/m);
+		double estimate = alpha*m*m/inverseSum;
+		if(estimate<=2.5*m && zeroRegisters>0){
+			estimate=m*Math.log(m/zeroRegisters);
+		}
+		return Math.round(estimate);
+	}
+	
+	/**
+	 * @return the relative standard error of the estimate
+	 */
+	public double getRelativeStandardError() {
+		return 1.04/Math.sqrt(registers.length);
+	}
+	
+	/**
+	 * @return whether no value has been added
+	 */
+	public boolean isEmpty() {
+		return zeroRegisters==registers.length;
+	}
+	
+	/**
+	 * @return the precision
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+	
+	/**
+	 * @return a copy of the registers
+	 */
+	public byte[] getRegisters() {
+		return registers.clone();
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(registers);
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof HyperLogLog)) {
+			return false;
+		}
+		HyperLogLog other = (HyperLogLog) obj;
+		return precision==other.precision && Arrays.equals(registers, other.registers);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "HyperLogLog [precision=" + precision + ", estimate=" + estimate() + "]";
+	}
+	
+}
@@ -0,0 +1,345 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.util.sketches;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * SpaceSaving sketch which keeps the approximate frequencies of the most frequent values added to it 
+ * (the heavy hitters), monitoring at most a fixed number of values (its capacity) whatever the number of distinct values is. 
+ * When an unmonitored value arrives and the sketch is full, it replaces the monitored value with the lowest count, inheriting 
+ * that count as its error. So, the count of each monitored value never underestimates its real frequency, the count minus 
+ * the error never overestimates it, and any value whose frequency is greater than totalCount/capacity is monitored. 
+ * Sketches may be merged, so that the result summarizes the union of both streams of values with the same guarantees.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class SpaceSaving {
+	
+	/**
+	 * Orders the counters by increasing count and then by decreasing value, so that the first one is the one to replace 
+	 * and the descending order lists ties by value
+	 */
+	private static final Comparator<Counter> COUNTER_COMPARATOR = new Comparator<Counter>() {
+		@Override
+		public int compare(Counter o1, Counter o2) {
+			int result = Long.compare(o1.count, o2.count);
+			if(result!=0)
+				return result;
+			return o2.value.compareTo(o1.value);
+		}
+	};
+	
+	/**
+	 * The frequency estimate of a monitored value
+	 * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+	 *
+	 */
+	public static class Counter {
+		
+		/**
+		 * The value
+		 */
+		private final String value;
+		
+		/**
+		 * The estimated frequency (an upper bound of the real one)
+		 */
+		private long count;
+		
+		/**
+		 * The maximum overestimation of the count
+		 */
+		private long error;
+		
+		/**
+		 * Constructor.
+		 * @param value the value
+		 * @param count the estimated frequency
+		 * @param error the maximum overestimation of the count
+		 * @throws IllegalArgumentException if the count or the error are negative or the error is greater than the count
+		 */
+		public Counter(String value, long count, long error) {
+			checkNotNull(value, "'value' must not be null");
+			checkArgument(count>=0 && error>=0 && error<=count, "The count and the error must not be negative and the error must not be greater than the count");
+			this.value = value;
+			this.count = count;
+			this.error = error;
+		}
+		
+		/**
+		 * @return the value
+		 */
+		public String getValue() {
+			return value;
+		}
+		
+		/**
+		 * @return the estimated frequency, which is never lower than the real one
+		 */
+		public long getCount() {
+			return count;
+		}
+		
+		/**
+		 * @return the maximum overestimation of the count
+		 */
+		public long getError() {
+			return error;
+		}
+		
+		/**
+		 * @return the guaranteed frequency (count minus error), which is never greater than the real one
+		 */
+		public long getGuaranteedCount() {
+			return count-error;
+		}
+		
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hash(value, count, error);
+		}
+		
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Counter)) {
+				return false;
+			}
+			Counter other = (Counter) obj;
+			return value.equals(other.value) && count==other.count && error==other.error;
+		}
+		
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "Value: "+value+" Count: "+count+" Error: "+error;
+		}
+	}
+	
+	/**
+	 * Maximum number of monitored values
+	 */
+	private final int capacity;
+	
+	/**
+	 * Number of values added (including repetitions)
+	 */
+	private long totalCount;
+	
+	/**
+	 * The counters of the monitored values, indexed by value
+	 */
+	private final Map<String, Counter> counters;
+	
+	/**
+	 * The same counters, ordered by count (the lowest one is replaced when the sketch is full)
+	 */
+	private final TreeSet<Counter> orderedCounters;
+	
+	/**
+	 * Constructor of an empty sketch
+	 * @param capacity the maximum number of monitored values
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public SpaceSaving(int capacity) {
+		checkArgument(capacity>0, "'capacity' must be positive");
+		this.capacity=capacity;
+		this.totalCount=0;
+		this.counters=new HashMap<String, Counter>();
+		this.orderedCounters=new TreeSet<Counter>(COUNTER_COMPARATOR);
+	}
+	
+	/**
+	 * Constructor of a sketch from previously saved counters (see {@link SpaceSaving#getCounters()})
+	 * @param capacity the maximum number of monitored values
+	 * @param totalCount the number of values added
+	 * @param counters the counters (they are copied)
+	 * @throws IllegalArgumentException if the capacity is not positive, there are more counters than the capacity, 
+	 * some value is repeated or the counts are greater than the total count
+	 */
+	public SpaceSaving(int capacity, long totalCount, List<Counter> counters) {
+		this(capacity);
+		checkNotNull(counters, "'counters' must not be null");
+		checkArgument(counters.size()<=capacity, "There must not be more counters than the capacity");
+		long countsSum = 0;
+		for(Counter counter: counters){
+			checkArgument(!this.counters.containsKey(counter.value), "Repeated value: %s", counter.value);
+			putCounter(new Counter(counter.value, counter.count, counter.error));
+			countsSum+=counter.getGuaranteedCount();
+		}
+		checkArgument(countsSum<=totalCount, "The total count must not be lower than the guaranteed counts");
+		this.totalCount=totalCount;
+	}
+	
+	/**
+	 * Copy constructor
+	 * @param other the sketch to copy
+	 */
+	public SpaceSaving(SpaceSaving other) {
+		this(other.capacity, other.totalCount, other.getCounters());
+	}
+	
+	/**
+	 * Adds a value to the sketch
+	 * @param value the value
+	 */
+	public void add(String value) {
+		checkNotNull(value, "'value' must not be null");
+		totalCount++;
+		Counter counter = counters.get(value);
+		if(counter!=null){
+			orderedCounters.remove(counter);
+			counter.count++;
+			orderedCounters.add(counter);
+		}
+		else if(counters.size()<capacity){
+			putCounter(new Counter(value, 1, 0));
+		}
+		else{
+			Counter replaced = orderedCounters.pollFirst();
+			counters.remove(replaced.value);
+			putCounter(new Counter(value, replaced.count+1, replaced.count));
+		}
+	}
+	
+	/**
+	 * Puts a new counter into both indexes
+	 * @param counter the counter
+	 */
+	private void putCounter(Counter counter) {
+		counters.put(counter.value, counter);
+		orderedCounters.add(counter);
+	}
+	
+	/**
+	 * Adds all the values of another sketch to this one (the other one is not modified). A value which is not 
+	 * monitored by one of the sketches is considered to have the maximum frequency it may have there, which is added both to its 
+	 * count and to its error, and then only the values with the highest counts are kept.
+	 * @param other the other sketch
+	 */
+	public void merge(SpaceSaving other) {
+		checkNotNull(other, "'other' must not be null");
+		long thisUnmonitoredCount = getMaxUnmonitoredCount();
+		long otherUnmonitoredCount = other.getMaxUnmonitoredCount();
+		List<Counter> mergedCounters = new ArrayList<Counter>(counters.size()+other.counters.size());
+		for(Counter counter: counters.values()){
+			Counter otherCounter = other.counters.get(counter.value);
+			if(otherCounter!=null)
+				mergedCounters.add(new Counter(counter.value, counter.count+otherCounter.count, counter.error+otherCounter.error));
+			else
+				mergedCounters.add(new Counter(counter.value, counter.count+otherUnmonitoredCount, counter.error+otherUnmonitoredCount));
+		}
+		for(Counter otherCounter: other.counters.values()){
+			if(!counters.containsKey(otherCounter.value))
+				mergedCounters.add(new Counter(otherCounter.value, otherCounter.count+thisUnmonitoredCount, otherCounter.error+thisUnmonitoredCount));
+		}
+		counters.clear();
+		orderedCounters.clear();
+		for(Counter counter: mergedCounters){
+			putCounter(counter);
+			if(orderedCounters.size()>capacity)
+				counters.remove(orderedCounters.pollFirst().value);
+		}
+		totalCount+=other.totalCount;
+	}
+	
+	/**
+	 * @return the maximum frequency that a value which is not monitored may have (0 if the sketch is not full, so that 
+	 * all the added values are monitored and their counts are exact)
+	 */
+	public long getMaxUnmonitoredCount() {
+		if(counters.size()<capacity)
+			return 0;
+		return orderedCounters.first().count;
+	}
+	
+	/**
+	 * @return the monitored counters, ordered by decreasing count (they are copies)
+	 */
+	public List<Counter> getCounters() {
+		List<Counter> result = new ArrayList<Counter>(orderedCounters.size());
+		for(Counter counter: orderedCounters.descendingSet()){
+			result.add(new Counter(counter.value, counter.count, counter.error));
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the maximum number of monitored values
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return the number of values added (including repetitions)
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(capacity, totalCount, counters.keySet());
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SpaceSaving)) {
+			return false;
+		}
+		SpaceSaving other = (SpaceSaving) obj;
+		return capacity==other.capacity && totalCount==other.totalCount && getCounters().equals(other.getCounters());
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "SpaceSaving [capacity=" + capacity + ", totalCount=" + totalCount + ", counters=" + getCounters() + "]";
+	}
+	
+}
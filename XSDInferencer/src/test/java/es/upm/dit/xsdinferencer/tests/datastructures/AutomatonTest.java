@@ -1779,6 +1779,49 @@ public class AutomatonTest {
 		assertEquals(1,eqClassAutomaton.getEdgeWeight(eqClassD, eqClassF));
 	}
 	
+	/**
+	 * Test method for {@link Automaton#learn(List, long)}.
+	 * We learn a word several times at once and check that the result is the same as learning it once each time.
+	 */
+	@Test
+	public void testLearnMultiplicity() {
+		SchemaElement[] elementWordArray = {element0,elementA,elementA,elementD,elementE,element1};
+		Automaton<SchemaElement> otherElementAutomaton = new Automaton<SchemaElement>(elementAutomaton);
+		elementAutomaton.learn(Arrays.asList(elementWordArray), 3);
+		for(int i=0;i<3;i++){
+			otherElementAutomaton.learn(Arrays.asList(elementWordArray));
+		}
+		assertEquals(otherElementAutomaton, elementAutomaton);
+		assertEquals(5,elementAutomaton.getEdgeWeight(element0, elementA));
+		assertEquals(3,elementAutomaton.getEdgeWeight(elementA, elementA));
+		assertEquals(4,elementAutomaton.getEdgeWeight(elementE, element1));
+	}
+	
+	/**
+	 * Test method for {@link Automaton#learnRuns(List, List, long)}.
+	 * We learn a run-length encoded word several times at once and check that the result is the same as learning the expanded word.
+	 */
+	@Test
+	public void testLearnRuns() {
+		SchemaElement[] elementWordArray = {element0,elementA,elementA,elementA,elementD,elementE,elementE,element1};
+		SchemaElement[] elementRunsArray = {element0,elementA,elementD,elementE,element1};
+		Automaton<SchemaElement> otherElementAutomaton = new Automaton<SchemaElement>(elementAutomaton);
+		elementAutomaton.learnRuns(Arrays.asList(elementRunsArray), Arrays.asList(1,3,1,2,1), 2);
+		otherElementAutomaton.learn(Arrays.asList(elementWordArray), 2);
+		assertEquals(otherElementAutomaton, elementAutomaton);
+		assertEquals(4,elementAutomaton.getEdgeWeight(elementA, elementA));
+	}
+	
+	/**
+	 * Test method for {@link Automaton#learn(List, long)}.
+	 * We try to learn a word zero times.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testLearnMultiplicityIllegal() {
+		SchemaElement[] elementWordArray = {element0,elementA,elementD,elementE,element1};
+		elementAutomaton.learn(Arrays.asList(elementWordArray), 0);
+	}
+	
 	/**
 	 * Test method for {@link Automaton#learn(List)}.
 	 * We learn a word with new symbols and check that the changes made to the automaton are correct.
@@ -0,0 +1,76 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import es.upm.dit.xsdinferencer.datastructures.SymbolTable;
+
+/**
+ * Test class for {@link SymbolTable}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ *
+ */
+public class SymbolTableTest {
+
+	@Test
+	public void testIntern() {
+		String symbol = new String("element");
+		String otherSymbol = new String("element");
+		SymbolTable symbolTable = new SymbolTable();
+		assertSame(symbol, symbolTable.intern(symbol));
+		assertSame(symbol, symbolTable.intern(otherSymbol));
+		//Each table has its own symbols
+		assertSame(otherSymbol, new SymbolTable().intern(otherSymbol));
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testInternNull() {
+		new SymbolTable().intern(null);
+	}
+	
+	@Test
+	public void testGetQualifiedNameId() {
+		SymbolTable symbolTable = new SymbolTable();
+		int id = symbolTable.getQualifiedNameId("http://my.customnamespace.com", "element");
+		assertEquals(0, id);
+		assertEquals(id, symbolTable.getQualifiedNameId(new String("http://my.customnamespace.com"), new String("element")));
+		assertNotEquals(id, symbolTable.getQualifiedNameId("http://my.customnamespace.com", "otherElement"));
+		assertNotEquals(id, symbolTable.getQualifiedNameId("http://my.othernamespace.com", "element"));
+		assertNotEquals(id, symbolTable.getQualifiedNameId("", "element"));
+		//Ids are dense
+		assertEquals(4, symbolTable.getQualifiedNameId("", "otherElement"));
+	}
+	
+	@Test
+	public void testCompareQualifiedNames() {
+		String[][] qualifiedNames = {{"", "a"}, {"", "b"}, {"a", "b"}, {"a", "ba"}, {"a:b", "c"}, {"ab", "c"}, {"a", "b"}, {"http://a.com", "z"}};
+		for(String[] first: qualifiedNames){
+			for(String[] second: qualifiedNames){
+				int expected = Integer.signum((first[0]+":"+first[1]).compareTo(second[0]+":"+second[1]));
+				int actual = Integer.signum(SymbolTable.compareQualifiedNames(first[0], first[1], second[0], second[1]));
+				assertEquals(expected, actual);
+			}
+		}
+		assertTrue(SymbolTable.compareQualifiedNames("a", "b", "a", "c")<0);
+	}
+
+}
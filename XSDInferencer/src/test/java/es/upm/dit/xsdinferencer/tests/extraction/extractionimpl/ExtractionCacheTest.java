@@ -0,0 +1,200 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.CachedTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ExtractionCache;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.NameTypeNameInferencer;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.XMLStreamTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.util.inputs.DeduplicatedInputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * Test class for {@link ExtractionCache}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ExtractionCacheTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private static HashCode key(int i) {
+		return Hashing.murmur3_128().hashInt(i);
+	}
+	
+	@Test
+	public void testGetAndPut() throws Exception {
+		File directory = temporaryFolder.newFolder();
+		ExtractionCache cache = new ExtractionCache(directory, 1000, 0);
+		assertNull(cache.get(key(1)));
+		cache.put(key(1), new byte[]{1,2,3});
+		assertArrayEquals(new byte[]{1,2,3}, cache.get(key(1)).read());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		//Entries are kept between runs
+		assertArrayEquals(new byte[]{1,2,3}, new ExtractionCache(directory, 1000, 0).get(key(1)).read());
+	}
+	
+	@Test
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		ExtractionCache cache = new ExtractionCache(temporaryFolder.newFolder(), 25, 0);
+		cache.put(key(1), new byte[10]);
+		cache.put(key(2), new byte[10]);
+		assertNotNull(cache.get(key(1)));
+		cache.put(key(3), new byte[10]);
+		assertNull(cache.get(key(2)));
+		assertNotNull(cache.get(key(1)));
+		assertNotNull(cache.get(key(3)));
+		assertEquals(1, cache.getEvictions());
+	}
+	
+	@Test
+	public void testMaxEntries() throws Exception {
+		ExtractionCache cache = new ExtractionCache(temporaryFolder.newFolder(), 1000, 2);
+		for(int i=0;i<5;i++){
+			cache.put(key(i), new byte[]{(byte) i});
+		}
+		assertEquals(3, cache.getEvictions());
+		assertNull(cache.get(key(2)));
+		assertNotNull(cache.get(key(3)));
+		assertNotNull(cache.get(key(4)));
+	}
+	
+	/**
+	 * It checks that a cache opened by a later run evicts the entries which were least recently used by the previous runs
+	 */
+	@Test
+	public void testEvictionAcrossRuns() throws Exception {
+		File directory = temporaryFolder.newFolder();
+		ExtractionCache firstRunCache = new ExtractionCache(directory, 1000, 0);
+		for(int i=1;i<=3;i++){
+			firstRunCache.put(key(i), new byte[10]);
+		}
+		//The entry 1 is the least recently used one, then the entry 3
+		new File(directory, key(1)+".state").setLastModified(1000000L);
+		new File(directory, key(2)+".state").setLastModified(3000000L);
+		new File(directory, key(3)+".state").setLastModified(2000000L);
+		ExtractionCache secondRunCache = new ExtractionCache(directory, 25, 0);
+		assertEquals(1, secondRunCache.getEvictions());
+		assertNull(secondRunCache.get(key(1)));
+		assertNotNull(secondRunCache.get(key(3)));
+		assertNotNull(secondRunCache.get(key(2)));
+		ExtractionCache thirdRunCache = new ExtractionCache(directory, 1000, 1);
+		assertEquals(1, thirdRunCache.getEvictions());
+		assertNull(thirdRunCache.get(key(3)));
+		assertNotNull(thirdRunCache.get(key(2)));
+	}
+	
+	/**
+	 * @return the configuration used by the tests of {@link CachedTypesExtractorImpl}
+	 */
+	private static XSDInferenceConfiguration mockConfiguration() {
+		XSDInferenceConfiguration config=mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(8);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getTypeNameInferencer()).thenReturn(new NameTypeNameInferencer());
+		when(config.getWorkingFormat()).thenReturn("xml");
+		return config;
+	}
+	
+	/**
+	 * It checks that an entry which cannot be read is removed and its file extracted again, 
+	 * so that the schema is the same one extracted without the cache
+	 */
+	@Test
+	public void testCorruptEntry() throws Exception {
+		XSDInferenceConfiguration config=mockConfiguration();
+		List<ByteSource> xmlFiles = new ArrayList<>();
+		xmlFiles.add(ByteSource.wrap("<root><a>1</a><b>x</b></root>".getBytes(Charsets.UTF_8)));
+		xmlFiles.add(ByteSource.wrap("<root><a>2</a></root>".getBytes(Charsets.UTF_8)));
+		InputDocumentsSource xmlSource = InputDocumentsSources.fromByteSources(xmlFiles);
+		File directory = temporaryFolder.newFolder();
+		
+		CachedTypesExtractorImpl firstRunExtractor = new CachedTypesExtractorImpl(xmlSource, config, new ExtractionCache(directory, 1000000, 0));
+		Schema expected = firstRunExtractor.getInitalSchema();
+		assertEquals(2, firstRunExtractor.getExtractedFilesCount());
+		
+		//One entry is truncated and the other one is replaced by garbage
+		File[] entryFiles = directory.listFiles();
+		assertEquals(2, entryFiles.length);
+		byte[] entryContent = Files.toByteArray(entryFiles[0]);
+		Files.write(Arrays.copyOf(entryContent, entryContent.length/2), entryFiles[0]);
+		Files.write(new byte[]{1,2,3,4,5,6,7,8}, entryFiles[1]);
+		
+		CachedTypesExtractorImpl secondRunExtractor = new CachedTypesExtractorImpl(xmlSource, config, new ExtractionCache(directory, 1000000, 0));
+		Schema actual = secondRunExtractor.getInitalSchema();
+		assertEquals(2, secondRunExtractor.getExtractedFilesCount());
+		assertEquals(0, secondRunExtractor.getCachedFilesCount());
+		assertEquals(expected, actual);
+		assertEquals(expected.getStatistics().getInputDocumentsCount(), actual.getStatistics().getInputDocumentsCount());
+		
+		//The entries have been replaced
+		CachedTypesExtractorImpl thirdRunExtractor = new CachedTypesExtractorImpl(xmlSource, config, new ExtractionCache(directory, 1000000, 0));
+		assertEquals(expected, thirdRunExtractor.getInitalSchema());
+		assertEquals(2, thirdRunExtractor.getCachedFilesCount());
+	}
+	
+	/**
+	 * It checks that a file which stands for several identical ones is extracted once, with the same result as 
+	 * extracting all of them
+	 */
+	@Test
+	public void testDeduplicatedFiles() throws Exception {
+		XSDInferenceConfiguration config=mockConfiguration();
+		List<ByteSource> xmlFiles = new ArrayList<>();
+		xmlFiles.add(ByteSource.wrap("<root><a>1</a><b>x</b></root>".getBytes(Charsets.UTF_8)));
+		xmlFiles.add(ByteSource.wrap("<root><a>1</a><b>x</b></root>".getBytes(Charsets.UTF_8)));
+		xmlFiles.add(ByteSource.wrap("<root><a>2</a></root>".getBytes(Charsets.UTF_8)));
+		InputDocumentsSource xmlSource = InputDocumentsSources.fromByteSources(xmlFiles);
+		Schema expected = new XMLStreamTypesExtractorImpl(xmlSource, config).getInitalSchema();
+		
+		CachedTypesExtractorImpl extractor = new CachedTypesExtractorImpl(new DeduplicatedInputDocumentsSource(xmlSource), config, 
+				new ExtractionCache(temporaryFolder.newFolder(), 1000000, 0));
+		Schema actual = extractor.getInitalSchema();
+		assertEquals(2, extractor.getExtractedFilesCount());
+		assertEquals(expected, actual);
+		assertEquals(3, actual.getStatistics().getInputDocumentsCount());
+		assertEquals(expected.getStatistics().getElementAtPathInfo(), actual.getStatistics().getElementAtPathInfo());
+	}
+
+}
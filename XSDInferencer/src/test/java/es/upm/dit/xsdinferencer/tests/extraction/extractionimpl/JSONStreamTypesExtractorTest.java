@@ -0,0 +1,200 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.CharSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.InferencersFactory;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONLinesTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONStreamTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.JSONTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.KLocalTypeNameInferencer;
+import es.upm.dit.xsdinferencer.exceptions.InputReadingException;
+
+/**
+ * Test for {@link JSONStreamTypesExtractorImpl} and {@link JSONLinesTypesExtractorImpl}. It checks that the schema extracted directly from the JSON tokens 
+ * is the same one extracted by {@link JSONTypesExtractorImpl} from the equivalent XML documents.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class JSONStreamTypesExtractorTest {
+	
+	/**
+	 * JSON documents whose root is an object
+	 */
+	private static final String[] testingJSONObjects = {
+		"{\"name\":\"first\",\"size\":3,\"ratio\":1.50,\"tags\":[\"a\",\"b\"],\"inner\":{\"flag\":true,\"other\":null}}",
+		"{\"size\":-7,\"name\":\"second\",\"inner\":{\"flag\":false},\"tags\":[],\"big\":1e3}"
+	};
+	
+	/**
+	 * JSON documents whose root is an array
+	 */
+	private static final String[] testingJSONArrays = {
+		"[1,\"two\",{\"name\":\"third\"},[3.0,4]]"
+	};
+	
+	/**
+	 * Configuration used
+	 */
+	private XSDInferenceConfiguration config;
+	
+	/**
+	 * JSON sources with all the testing documents, object-rooted ones first
+	 */
+	private List<CharSource> jsonSources;
+	
+	@Before
+	public void setUp() throws Exception {
+		config=mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(8);
+		when(config.getMinNumberOfDistinctValuesToEnum()).thenReturn(0);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getGenerateEnumerations()).thenReturn(false);
+		when(config.getTypeNameInferencer()).thenReturn(new KLocalTypeNameInferencer(2));
+		when(config.getWorkingFormat()).thenReturn("json");
+		
+		jsonSources=new ArrayList<CharSource>(testingJSONObjects.length+testingJSONArrays.length);
+		for(String json: testingJSONObjects){
+			jsonSources.add(CharSource.wrap(json));
+		}
+		for(String json: testingJSONArrays){
+			jsonSources.add(CharSource.wrap(json));
+		}
+	}
+	
+	/**
+	 * It checks that both JSON extractors infer the same schema, automatons and simple type values
+	 */
+	@Test
+	public void testSameSchemaAsXMLConversion() throws Exception {
+		List<JSONObject> jsonObjects = new ArrayList<JSONObject>(testingJSONObjects.length);
+		for(String json: testingJSONObjects){
+			jsonObjects.add(new JSONObject(json));
+		}
+		List<JSONArray> jsonArrays = new ArrayList<JSONArray>(testingJSONArrays.length);
+		for(String json: testingJSONArrays){
+			jsonArrays.add(new JSONArray(json));
+		}
+		Schema expected = new JSONTypesExtractorImpl(jsonObjects, jsonArrays, config, InferencersFactory.getInstance()).getInitalSchema();
+		Schema actual = new JSONStreamTypesExtractorImpl(jsonSources, config, InferencersFactory.getInstance()).getInitalSchema();
+		
+		assertEquals(expected, actual);
+		assertEquals(expected.getSolvedNamespaceMappings(), actual.getSolvedNamespaceMappings());
+		for(ComplexType expectedComplexType: expected.getComplexTypes().values()){
+			ComplexType actualComplexType = actual.getComplexTypes().get(expectedComplexType.getName());
+			assertEquals(expectedComplexType.getAutomaton(), actualComplexType.getAutomaton());
+			assertEquals(expectedComplexType.getTextSimpleType(), actualComplexType.getTextSimpleType());
+		}
+	}
+	
+	/**
+	 * It checks that {@link JSONLinesTypesExtractorImpl} extracts each line as an independent document, 
+	 * so that it infers the same schema as if each line were a whole file.
+	 */
+	@Test
+	public void testJSONLinesSameSchemaAsFiles() throws Exception {
+		StringBuilder jsonLines = new StringBuilder();
+		for(String json: testingJSONObjects){
+			jsonLines.append(json).append('\n');
+		}
+		List<CharSource> jsonLinesSources = new ArrayList<CharSource>(2);
+		jsonLinesSources.add(CharSource.wrap(jsonLines.toString()));
+		jsonLinesSources.add(CharSource.wrap(testingJSONArrays[0]+"\r\n\r\n"));
+		
+		Schema expected = new JSONStreamTypesExtractorImpl(jsonSources, config, InferencersFactory.getInstance()).getInitalSchema();
+		Schema actual = new JSONLinesTypesExtractorImpl(jsonLinesSources, config, InferencersFactory.getInstance()).getInitalSchema();
+		
+		assertEquals(expected, actual);
+		assertEquals(testingJSONObjects.length+testingJSONArrays.length, actual.getStatistics().getInputDocumentsCount());
+		assertEquals(expected.getStatistics().getElementAtPathInfo(), actual.getStatistics().getElementAtPathInfo());
+		for(ComplexType expectedComplexType: expected.getComplexTypes().values()){
+			ComplexType actualComplexType = actual.getComplexTypes().get(expectedComplexType.getName());
+			assertEquals(expectedComplexType.getAutomaton(), actualComplexType.getAutomaton());
+		}
+	}
+	
+	/**
+	 * It checks that a JSON Lines record split across several lines is reported as an input error at its line
+	 */
+	@Test
+	public void testJSONLinesSplitRecord() {
+		String jsonLines = testingJSONObjects[0]+"\n{\"name\":\"second\",\n\"size\":2}\n";
+		assertJSONLinesError(jsonLines, "line 2");
+	}
+	
+	/**
+	 * It checks that two JSON Lines records at the same line are reported as an input error at their line
+	 */
+	@Test
+	public void testJSONLinesTwoRecordsAtOneLine() {
+		String jsonLines = testingJSONObjects[0]+"\n"+testingJSONObjects[1]+" "+testingJSONArrays[0]+"\n";
+		assertJSONLinesError(jsonLines, "line 2");
+	}
+	
+	/**
+	 * Checks that extracting the given JSON Lines file fails with an {@link InputReadingException} which mentions the given line
+	 * @param jsonLines the contents of the JSON Lines file
+	 * @param line the expected mention of the line, i.e. "line 2"
+	 */
+	private void assertJSONLinesError(String jsonLines, String line) {
+		List<CharSource> jsonLinesSources = Collections.singletonList(CharSource.wrap(jsonLines));
+		try{
+			new JSONLinesTypesExtractorImpl(jsonLinesSources, config, InferencersFactory.getInstance()).getInitalSchema();
+			fail("The JSON Lines file has been accepted");
+		} catch (InputReadingException e) {
+			String message = e.getMessage()+" "+e.getCause().getMessage();
+			assertTrue(message, message.contains(line));
+		}
+	}
+	
+	/**
+	 * It checks that malformed JSON documents are reported as input errors
+	 */
+	@Test(expected=InputReadingException.class)
+	public void testMalformedDocument() {
+		List<CharSource> malformedSources = Collections.singletonList(CharSource.wrap("{\"name\":\"first\",}"));
+		new JSONStreamTypesExtractorImpl(malformedSources, config, InferencersFactory.getInstance()).getInitalSchema();
+	}
+	
+	/**
+	 * It checks that empty JSON documents are reported as input errors
+	 */
+	@Test(expected=InputReadingException.class)
+	public void testEmptyDocument() {
+		List<CharSource> emptySources = Collections.singletonList(CharSource.wrap("  "));
+		new JSONStreamTypesExtractorImpl(emptySources, config, InferencersFactory.getInstance()).getInitalSchema();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import java.util.List;
+
+import org.jdom2.Document;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.InferencersFactory;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ParallelTypesExtractorImpl;
+
+/**
+ * Test for {@link ParallelTypesExtractorImpl} which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios, so that the combination of the 
+ * partial states built by each thread is checked to generate exactly the same information than the sequential extractor. 
+ * Each document is extracted by its own partial extractor.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ParallelTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		return new ParallelTypesExtractorImpl(testingXMLDocuments, config, InferencersFactory.getInstance(), 2);
+	}
+
+}
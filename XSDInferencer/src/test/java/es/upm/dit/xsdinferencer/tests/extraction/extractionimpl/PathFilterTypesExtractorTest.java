@@ -0,0 +1,161 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.Collections;
+
+import org.jdom2.Document;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.InferencersFactory;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.KLocalTypeNameInferencer;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.TypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.XMLStreamTypesExtractorImpl;
+
+/**
+ * Test for the include and exclude paths of {@link TypesExtractorImpl} and {@link XMLStreamTypesExtractorImpl}.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class PathFilterTypesExtractorTest {
+	
+	/**
+	 * Testing XML document with an opaque payload
+	 */
+	private static final String testingXML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<envelope>\n"
+			+ "	<header><id>1</id></header>\n"
+			+ "	<body><blob encoding=\"html\"><p>Some <b>text</b></p><p/></blob><size>12</size></body>\n"
+			+ "</envelope>";
+	
+	/**
+	 * Mocked configuration
+	 */
+	private XSDInferenceConfiguration config;
+	
+	@Before
+	public void setUp() throws Exception {
+		config=mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(8);
+		when(config.getMinNumberOfDistinctValuesToEnum()).thenReturn(0);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getGenerateEnumerations()).thenReturn(false);
+		when(config.getTypeNameInferencer()).thenReturn(new KLocalTypeNameInferencer(2));
+		when(config.getWorkingFormat()).thenReturn("xml");
+	}
+	
+	/**
+	 * Extracts the testing document with the DOM-based extractor
+	 * @return the extracted schema
+	 * @throws Exception if the document cannot be parsed
+	 */
+	private Schema extractDocument() throws Exception {
+		Document document = new SAXBuilder().build(new StringReader(testingXML));
+		return new TypesExtractorImpl(Collections.singletonList(document), config).getInitalSchema();
+	}
+	
+	/**
+	 * Extracts the testing document with the streaming extractor
+	 * @return the extracted schema
+	 */
+	private Schema extractStream() {
+		ByteSource xmlSource = ByteSource.wrap(testingXML.getBytes(Charsets.UTF_8));
+		return new XMLStreamTypesExtractorImpl(Collections.singletonList(xmlSource), config, InferencersFactory.getInstance()).getInitalSchema();
+	}
+	
+	/**
+	 * Returns the {@link SchemaElement} of a schema with the given name, if any
+	 * @param schema the schema
+	 * @param name the name of the element
+	 * @return the element or null if it is not found
+	 */
+	private static SchemaElement getElement(Schema schema, String name){
+		for(SchemaElement element: schema.getElements().values()){
+			if(element.getName().equals(name))
+				return element;
+		}
+		return null;
+	}
+	
+	/**
+	 * Checks that the content of the elements at an excluded path is skipped and that they are still 
+	 * children of their parents.
+	 * @param schema the schema extracted with /envelope/body/blob excluded
+	 */
+	private static void checkBlobSkipped(Schema schema){
+		SchemaElement blob = getElement(schema, "blob");
+		assertTrue(blob.getType().isContentSkipped());
+		assertTrue(blob.getType().getAttributeList().isEmpty());
+		assertEquals(null, getElement(schema, "p"));
+		assertEquals(null, getElement(schema, "b"));
+		assertEquals(1, getElement(schema, "body").getType().getAutomaton().getEdgeWeight(blob, getElement(schema, "size")));
+		assertFalse(getElement(schema, "size").getType().isContentSkipped());
+		assertTrue(schema.getStatistics().getElementAtPathInfo().containsKey("/envelope/body/blob"));
+		assertFalse(schema.getStatistics().getElementAtPathInfo().containsKey("/envelope/body/blob/p"));
+		assertFalse(schema.getStatistics().getValuesAtPathInfo().containsRow("/envelope/body/blob"));
+	}
+	
+	/**
+	 * It checks that excluded paths are skipped by the DOM-based extractor
+	 */
+	@Test
+	public void testExcludePath() throws Exception {
+		when(config.getExcludePaths()).thenReturn(Collections.singletonList("/envelope/body/blob"));
+		checkBlobSkipped(extractDocument());
+	}
+	
+	/**
+	 * It checks that excluded paths are skipped by the streaming extractor
+	 */
+	@Test
+	public void testExcludePathStreaming() {
+		when(config.getExcludePaths()).thenReturn(Collections.singletonList("/envelope/body/blob"));
+		checkBlobSkipped(extractStream());
+	}
+	
+	/**
+	 * It checks that the content of the elements which are neither at, above or under an included path is skipped
+	 */
+	@Test
+	public void testIncludePath() throws Exception {
+		when(config.getIncludePaths()).thenReturn(Collections.singletonList("/envelope/header"));
+		for(Schema schema: new Schema[]{extractDocument(), extractStream()}){
+			assertFalse(getElement(schema, "envelope").getType().isContentSkipped());
+			assertFalse(getElement(schema, "header").getType().isContentSkipped());
+			assertFalse(getElement(schema, "id").getType().isContentSkipped());
+			assertTrue(getElement(schema, "body").getType().isContentSkipped());
+			assertEquals(null, getElement(schema, "blob"));
+			assertEquals(null, getElement(schema, "size"));
+		}
+	}
+
+}
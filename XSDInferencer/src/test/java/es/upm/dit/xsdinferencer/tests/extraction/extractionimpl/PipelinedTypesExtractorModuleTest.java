@@ -0,0 +1,53 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.InferencersFactory;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.PipelinedTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * Test for {@link PipelinedTypesExtractorImpl} which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios, with several parser threads and 
+ * a queue of a single document, so that the pipelined extractor is checked to extract exactly the same information 
+ * (in the same order) than the sequential one.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class PipelinedTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		List<ByteSource> xmlSources = new ArrayList<>(testingXMLs.length);
+		for(int i=0;i<testingXMLs.length;i++){
+			xmlSources.add(ByteSource.wrap(testingXMLs[i].getBytes(Charsets.UTF_8)));
+		}
+		return new PipelinedTypesExtractorImpl(InputDocumentsSources.fromByteSources(xmlSources), config, InferencersFactory.getInstance(), 3, 1);
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.NameTypeNameInferencer;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.TypesExtractorImpl;
+
+/**
+ * Test for the saving and resuming of the learner state of {@link TypesExtractorImpl}, which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios: the first half of the documents is 
+ * extracted and its state saved, then the other half is extracted resuming from it, so that the resumed extraction is 
+ * checked to generate exactly the same information than the extraction of all the documents at once.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ResumedTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		int half = testingXMLDocuments.size()/2;
+		TypesExtractorImpl previousExtractor = new TypesExtractorImpl(testingXMLDocuments.subList(0, half), config);
+		previousExtractor.getInitalSchema();
+		ByteArrayOutputStream savedState = new ByteArrayOutputStream();
+		previousExtractor.saveState(savedState);
+		TypesExtractorImpl resumedExtractor = new TypesExtractorImpl(testingXMLDocuments.subList(half, testingXMLDocuments.size()), config);
+		resumedExtractor.setResumedState(ByteSource.wrap(savedState.toByteArray()));
+		return resumedExtractor;
+	}
+	
+	/**
+	 * Builds a configuration mock with a given maximum number of distinct values of an enumeration.
+	 * @param maxNumberOfDistinctValuesToEnum the maximum number
+	 * @return the configuration mock
+	 */
+	private XSDInferenceConfiguration mockConfiguration(int maxNumberOfDistinctValuesToEnum) {
+		XSDInferenceConfiguration config = mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(maxNumberOfDistinctValuesToEnum);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getTypeNameInferencer()).thenReturn(new NameTypeNameInferencer());
+		when(config.getWorkingFormat()).thenReturn("xml");
+		return config;
+	}
+	
+	/**
+	 * A state saved with a maximum number of distinct values of an enumeration must not be resumed with another one, 
+	 * because the values kept at the state depend on it.
+	 * @throws Exception
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testResumeWithDifferentMaxNumberOfDistinctValuesToEnum() throws Exception {
+		Document document = new SAXBuilder().build(new StringReader("<a><b>1</b><b>2</b><b>3</b></a>"));
+		TypesExtractorImpl previousExtractor = new TypesExtractorImpl(Collections.singletonList(document), mockConfiguration(2));
+		previousExtractor.getInitalSchema();
+		ByteArrayOutputStream savedState = new ByteArrayOutputStream();
+		previousExtractor.saveState(savedState);
+		TypesExtractorImpl resumedExtractor = new TypesExtractorImpl(Collections.<Document>emptyList(), mockConfiguration(50));
+		resumedExtractor.setResumedState(ByteSource.wrap(savedState.toByteArray()));
+		resumedExtractor.getInitalSchema();
+	}
+
+}
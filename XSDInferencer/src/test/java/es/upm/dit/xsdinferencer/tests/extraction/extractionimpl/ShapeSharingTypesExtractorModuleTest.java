@@ -0,0 +1,140 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+
+import com.google.common.collect.Table;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.ExtendedAutomaton;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.datastructures.SchemaAttribute;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.KLocalTypeNameInferencer;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.TypesExtractorImpl;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+
+/**
+ * Test for {@link TypesExtractorImpl} in shape sharing mode which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios, so that the structure 
+ * of repeated subtrees learned once with their occurrences is checked to generate exactly the same information 
+ * than learning each element on its own.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ShapeSharingTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		when(config.getShapeSharing()).thenReturn(true);
+		return new TypesExtractorImpl(testingXMLDocuments, config);
+	}
+	
+	/**
+	 * Parses some XML documents
+	 * @param xmls the XML documents, as strings
+	 * @return the parsed documents
+	 */
+	private static List<Document> parse(String... xmls) throws Exception {
+		List<Document> documents = new ArrayList<>(xmls.length);
+		for(String xml: xmls){
+			documents.add(new SAXBuilder().build(new StringReader(xml)));
+		}
+		return documents;
+	}
+	
+	/**
+	 * Returns the only {@link SchemaAttribute} of a schema with the given name
+	 * @param schema the schema
+	 * @param name the name of the attribute
+	 * @return the attribute
+	 */
+	private static SchemaAttribute getAttribute(Schema schema, String name){
+		for(SchemaAttribute attribute: schema.getAttributes().values()){
+			if(attribute.getName().equals(name))
+				return attribute;
+		}
+		throw new AssertionError("Attribute "+name+" not found");
+	}
+	
+	/**
+	 * It checks that documents made of many repeated records (with optional attributes and children and repeated 
+	 * subtrees at several levels) generate the same automatons, attributes and statistics whether shapes are shared or not.
+	 */
+	@Test
+	public void testRepeatedSubtrees() throws Exception {
+		String[] xmls = {
+				"<catalog><record id=\"1\" lang=\"en\"><a>1</a><b>x</b></record><record id=\"2\"><a>2</a></record>"
+						+ "<record id=\"3\" lang=\"es\"><a>3</a><b>y</b></record><record id=\"4\"><a>4</a></record>"
+						+ "<record id=\"5\"><a>5</a></record><group><record id=\"6\"><a>6</a></record><record id=\"7\"><a>7</a></record></group></catalog>",
+				"<catalog><record id=\"8\" flag=\"y\"><a>8</a><b>z</b><b>w</b></record><record id=\"9\"><a>9</a></record>"
+						+ "<record id=\"10\"><a>10</a></record><group><record id=\"11\"><a>11</a></record><record id=\"12\"><a>12</a></record></group>"
+						+ "<group><record id=\"13\"><a>13</a></record><record id=\"14\"><a>14</a></record></group></catalog>",
+				"<catalog/>"
+		};
+		XSDInferenceConfiguration config=mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(8);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getTypeNameInferencer()).thenReturn(new KLocalTypeNameInferencer(2));
+		when(config.getWorkingFormat()).thenReturn("xml");
+		Schema expected = new TypesExtractorImpl(parse(xmls), config).getInitalSchema();
+		when(config.getShapeSharing()).thenReturn(true);
+		Schema actual = new TypesExtractorImpl(parse(xmls), config).getInitalSchema();
+		
+		assertEquals(expected, actual);
+		for(ComplexType complexType: expected.getComplexTypes().values()){
+			ExtendedAutomaton expectedAutomaton = complexType.getAutomaton();
+			ExtendedAutomaton actualAutomaton = actual.getComplexTypes().get(complexType.getName()).getAutomaton();
+			assertEquals(expectedAutomaton, actualAutomaton);
+			assertEquals(expectedAutomaton.getSourceWordSymbolOccurrences(), actualAutomaton.getSourceWordSymbolOccurrences());
+		}
+		for(Table.Cell<String, String, SchemaAttribute> attributeCell: expected.getAttributes().cellSet()){
+			assertEquals(attributeCell.getValue().isOptional(), actual.getAttributes().get(attributeCell.getRowKey(), attributeCell.getColumnKey()).isOptional());
+		}
+		assertFalse(getAttribute(actual, "id").isOptional());
+		assertTrue(getAttribute(actual, "lang").isOptional());
+		assertTrue(getAttribute(actual, "flag").isOptional());
+		
+		Statistics expectedStatistics = expected.getStatistics();
+		Statistics actualStatistics = actual.getStatistics();
+		assertEquals(expectedStatistics.getComplexTypeInfo(), actualStatistics.getComplexTypeInfo());
+		assertEquals(expectedStatistics.getElementAtPathInfo(), actualStatistics.getElementAtPathInfo());
+		assertEquals(expectedStatistics.getAttributeAtPathInfo(), actualStatistics.getAttributeAtPathInfo());
+		assertEquals(expectedStatistics.getValuesAtPathInfo(), actualStatistics.getValuesAtPathInfo());
+		assertEquals(expectedStatistics.getRootElementOccurrences(), actualStatistics.getRootElementOccurrences());
+		assertEquals(expectedStatistics.getDepthsInfo(), actualStatistics.getDepthsInfo());
+		assertEquals(expectedStatistics.getWidthsInfo(), actualStatistics.getWidthsInfo());
+	}
+
+}
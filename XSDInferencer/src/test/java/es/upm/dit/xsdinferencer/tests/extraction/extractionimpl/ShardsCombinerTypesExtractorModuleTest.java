@@ -0,0 +1,68 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.ShardsCombinerTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.TypesExtractorImpl;
+
+/**
+ * Test for {@link ShardsCombinerTypesExtractorImpl} which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios: each document is extracted 
+ * into its own shard, all the shards but the first one are combined into an intermediate shard and then the first 
+ * shard and the intermediate one are combined, so that combining nested shards is checked to generate exactly 
+ * the same information than the extraction of all the documents at once.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class ShardsCombinerTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		List<ByteSource> shards = new ArrayList<>(testingXMLDocuments.size());
+		for(Document document: testingXMLDocuments){
+			shards.add(extractShard(new TypesExtractorImpl(ImmutableList.of(document), config)));
+		}
+		ByteSource lastShards = extractShard(new ShardsCombinerTypesExtractorImpl(shards.subList(1, shards.size()), config));
+		return new ShardsCombinerTypesExtractorImpl(ImmutableList.of(shards.get(0), lastShards), config);
+	}
+	
+	/**
+	 * Extracts the initial schema with an extractor and saves its state.
+	 * @param extractor the extractor
+	 * @return the saved state
+	 * @throws Exception if the state cannot be saved
+	 */
+	private ByteSource extractShard(TypesExtractorImpl extractor) throws Exception {
+		extractor.getInitalSchema();
+		ByteArrayOutputStream shard = new ByteArrayOutputStream();
+		extractor.saveState(shard);
+		return ByteSource.wrap(shard.toByteArray());
+	}
+
+}
@@ -724,4 +724,142 @@ public class SimpleTypeInferencerTest {
 		assertEquals(1,sourceKeys.size());
 		assertTrue(sourceKeys.contains(":t"));
 	}
+	
+	/**
+	 * Checks that, once there are too many distinct values for an enumeration, only a sample of them is kept 
+	 * and the simple type is not an enumeration.
+	 */
+	@Test
+	public void testTooManyValuesAreSampled(){
+		for(int i=0;i<1000;i++){
+			simpleTypeInferencer.learnValue("text"+i, "", "t");
+		}
+		assertTrue(((SimpleTypeInferencerImpl)simpleTypeInferencer).isEnumerationRuledOut());
+		assertEquals(16,simpleTypeInferencer.getDistinctValuesCount());
+		SimpleType simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:string",simpleType.getBuiltinType());
+		assertEquals(16,simpleType.enumerationCount());
+		assertFalse(simpleType.isEnum());
+		//Check that the source element is correct
+		Set<String> sourceKeys=simpleType.getSourceNodeNamespacesAndNames();
+		assertEquals(1,sourceKeys.size());
+		assertTrue(sourceKeys.contains(":t"));
+	}
+	
+	/**
+	 * Checks that the builtin type still considers the values which are not kept once there are too many 
+	 * distinct values for an enumeration.
+	 */
+	@Test
+	public void testTooManyValuesBuiltinType(){
+		for(int i=0;i<1000;i++){
+			simpleTypeInferencer.learnValue(Integer.toString(i), "", "t");
+		}
+		SimpleType simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:integer",simpleType.getBuiltinType());
+		assertFalse(simpleType.isEnum());
+		simpleTypeInferencer.learnValue("2.5", "", "t");
+		simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:decimal",simpleType.getBuiltinType());
+		assertTrue(simpleType.containsIntegerValues());
+		assertTrue(simpleType.containsDecimalNonIntegerValues());
+		assertTrue(simpleType.enumerationCount()<=18);
+		simpleTypeInferencer.learnValue("text", "", "t");
+		simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:string",simpleType.getBuiltinType());
+		assertTrue(simpleType.enumerationContains("text"));
+		assertFalse(simpleType.isEnum());
+	}
+	
+	/**
+	 * Checks that equivalent numbers are counted once when deciding whether there are too many distinct 
+	 * values for an enumeration.
+	 */
+	@Test
+	public void testEquivalentNumbersCountedOnce(){
+		for(int i=0;i<15;i++){
+			simpleTypeInferencer.learnValue(Integer.toString(i), "", "t");
+			simpleTypeInferencer.learnValue("+"+i, "", "t");
+			simpleTypeInferencer.learnValue(" "+i+" ", "", "t");
+		}
+		assertFalse(((SimpleTypeInferencerImpl)simpleTypeInferencer).isEnumerationRuledOut());
+		SimpleType simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:integer",simpleType.getBuiltinType());
+		assertEquals(15,simpleType.enumerationCount());
+		assertTrue(simpleType.isEnum());
+		simpleTypeInferencer.learnValue("15", "", "t");
+		assertTrue(((SimpleTypeInferencerImpl)simpleTypeInferencer).isEnumerationRuledOut());
+		simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:integer",simpleType.getBuiltinType());
+		assertFalse(simpleType.isEnum());
+	}
+	
+	/**
+	 * Checks that the narrowest extended builtin type is inferred when they are enabled.
+	 */
+	@Test
+	public void testExtendedBuiltinTypes(){
+		when(config.getInferExtendedBuiltinTypes()).thenReturn(true);
+		assertEquals("xs:byte",inferBuiltinType("1","0","-128","+127"));
+		assertEquals("xs:short",inferBuiltinType("1","128"));
+		assertEquals("xs:int",inferBuiltinType("1","-40000"));
+		assertEquals("xs:long",inferBuiltinType("1","3000000000"));
+		assertEquals("xs:integer",inferBuiltinType("1","9223372036854775808"));
+		assertEquals("xs:decimal",inferBuiltinType("1","2.5"));
+		assertEquals("xs:double",inferBuiltinType("1","2.5","1E10","INF"));
+		assertEquals("xs:date",inferBuiltinType("2013-01-01"," 2013-12-31Z "));
+		assertEquals("xs:time",inferBuiltinType("10:00:00","23:59:59.5+01:00"));
+		assertEquals("xs:dateTime",inferBuiltinType("2013-01-01T10:00:00","2013-12-31T23:59:59Z"));
+		assertEquals("xs:string",inferBuiltinType("2013-01-01","2013-01-01T10:00:00"));
+		assertEquals("xs:anyURI",inferBuiltinType("http://www.example.org/","mailto:someone@example.org"));
+		assertEquals("xs:base64Binary",inferBuiltinType("SGVsbG8=","d29ybGQ="));
+		assertEquals("xs:string",inferBuiltinType("AB12","X9Y8"));
+		assertEquals("xs:string",inferBuiltinType("ID:123","Re:foo"));
+		assertEquals("xs:boolean",inferBuiltinType("true","0"));
+		assertEquals("xs:string",inferBuiltinType("1",""));
+	}
+	
+	/**
+	 * Checks that extended builtin types are not inferred if they are not enabled or if the working format is not XML.
+	 */
+	@Test
+	public void testExtendedBuiltinTypesDisabled(){
+		assertEquals("xs:integer",inferBuiltinType("1","0","-128","+127"));
+		assertEquals("xs:string",inferBuiltinType("2013-01-01"));
+		when(config.getInferExtendedBuiltinTypes()).thenReturn(true);
+		when(config.getWorkingFormat()).thenReturn("json");
+		assertEquals("xs:integer",inferBuiltinType("1","0","-128","+127"));
+		assertEquals("xs:string",inferBuiltinType("2013-01-01"));
+	}
+	
+	/**
+	 * Checks that numbers of extended builtin types are normalized and counted as the xs:integer ones.
+	 */
+	@Test
+	public void testExtendedBuiltinTypesEquivalentNumbers(){
+		when(config.getInferExtendedBuiltinTypes()).thenReturn(true);
+		simpleTypeInferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance("", config);
+		for(int i=0;i<15;i++){
+			simpleTypeInferencer.learnValue(Integer.toString(i), "", "t");
+			simpleTypeInferencer.learnValue("+"+i, "", "t");
+			simpleTypeInferencer.learnValue(" "+i+" ", "", "t");
+		}
+		SimpleType simpleType = simpleTypeInferencer.getSimpleType("simpleType");
+		assertEquals("xs:byte",simpleType.getBuiltinType());
+		assertEquals(15,simpleType.enumerationCount());
+		assertTrue(simpleType.isEnum());
+	}
+	
+	/**
+	 * Learns some values with a new inferencer which uses the current configuration
+	 * @param values the values to learn
+	 * @return the inferred builtin type
+	 */
+	private String inferBuiltinType(String... values){
+		SimpleTypeInferencer inferencer = InferencersFactory.getInstance().getSimpleTypeInferencerInstance("", config);
+		for(String value: values){
+			inferencer.learnValue(value, "", "t");
+		}
+		return inferencer.getSimpleType("simpleType").getBuiltinType();
+	}
 }
@@ -262,7 +262,7 @@ public class TypesExtractorModuleTest {
 			testingXMLDocuments1.add(document);
 		}
 		
-		typesExtractor1=new TypesExtractorImpl(testingXMLDocuments1, config1);
+		typesExtractor1=buildTypesExtractor(testingXMLs1, testingXMLDocuments1, config1);
 		
 		//Build second scenario
 		
@@ -282,7 +282,7 @@ public class TypesExtractorModuleTest {
 			testingXMLDocuments2.add(document);
 		}
 		
-		typesExtractor2=new TypesExtractorImpl(testingXMLDocuments2, config2y3);
+		typesExtractor2=buildTypesExtractor(testingXMLs2, testingXMLDocuments2, config2y3);
 		
 		//Build third scenario
 		
@@ -292,10 +292,23 @@ public class TypesExtractorModuleTest {
 			testingXMLDocuments3.add(document);
 		}
 		
-		typesExtractor3=new TypesExtractorImpl(testingXMLDocuments3, config2y3);
+		typesExtractor3=buildTypesExtractor(testingXMLs3, testingXMLDocuments3, config2y3);
 		
 	}
 	
+	/**
+	 * Builds the {@link TypesExtractor} of a testing scenario. Subclasses may override it to test other 
+	 * implementations on the same scenarios.
+	 * @param testingXMLs the testing XML files of the scenario
+	 * @param testingXMLDocuments JDOM2 Document objects for the testing XML files
+	 * @param config the inference configuration of the scenario
+	 * @return the extractor to test
+	 * @throws Exception
+	 */
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		return new TypesExtractorImpl(testingXMLDocuments, config);
+	}
+	
 	//First scenario methods
 	
 	/**
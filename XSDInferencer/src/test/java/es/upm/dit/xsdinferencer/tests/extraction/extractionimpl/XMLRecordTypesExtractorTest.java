@@ -0,0 +1,149 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.datastructures.ExtendedAutomaton;
+import es.upm.dit.xsdinferencer.datastructures.Schema;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.InferencersFactory;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.KLocalTypeNameInferencer;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.XMLStreamTypesExtractorImpl;
+import es.upm.dit.xsdinferencer.statistics.BasicStatisticsEntry;
+
+/**
+ * Test for {@link XMLStreamTypesExtractorImpl} when the input documents are split into records.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class XMLRecordTypesExtractorTest {
+	
+	/**
+	 * Testing XML document with three records
+	 */
+	private static final String testingXML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<catalog>\n"
+			+ "	<record id=\"1\"><a>1</a><b>x</b></record>\n"
+			+ "	<record id=\"2\"><a>2</a></record>\n"
+			+ "	<record id=\"3\"><a>3</a><b>y</b></record>\n"
+			+ "</catalog>";
+	
+	/**
+	 * Schema extracted from the whole document
+	 */
+	private Schema wholeDocumentSchema;
+	
+	/**
+	 * Schema extracted from the records of the document
+	 */
+	private Schema recordsSchema;
+	
+	@Before
+	public void setUp() throws Exception {
+		XSDInferenceConfiguration config=mock(XSDInferenceConfiguration.class);
+		when(config.getTypeNamesAncestorsSeparator()).thenReturn("-");
+		when(config.getMaxNumberOfDistinctValuesToEnum()).thenReturn(8);
+		when(config.getMinNumberOfDistinctValuesToEnum()).thenReturn(0);
+		when(config.getSimpleTypeInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_SIMPLE_TYPE_INFERENCER_DEFAULTIMPL);
+		when(config.getAttributeListInferencer()).thenReturn(XSDInferenceConfiguration.VALUE_ATTRIBUTE_LIST_INFERENCER_DEFAULTIMPL);
+		when(config.getGenerateEnumerations()).thenReturn(false);
+		when(config.getTypeNameInferencer()).thenReturn(new KLocalTypeNameInferencer(2));
+		when(config.getWorkingFormat()).thenReturn("xml");
+		
+		ByteSource xmlSource = ByteSource.wrap(testingXML.getBytes(Charsets.UTF_8));
+		wholeDocumentSchema = new XMLStreamTypesExtractorImpl(Collections.singletonList(xmlSource), config, InferencersFactory.getInstance()).getInitalSchema();
+		when(config.getRecordPath()).thenReturn("/catalog/record");
+		recordsSchema = new XMLStreamTypesExtractorImpl(Collections.singletonList(xmlSource), config, InferencersFactory.getInstance()).getInitalSchema();
+	}
+	
+	/**
+	 * Returns the only {@link SchemaElement} of a schema with the given name
+	 * @param schema the schema
+	 * @param name the name of the element
+	 * @return the element
+	 */
+	private static SchemaElement getElement(Schema schema, String name){
+		for(SchemaElement element: schema.getElements().values()){
+			if(element.getName().equals(name))
+				return element;
+		}
+		throw new AssertionError("Element "+name+" not found");
+	}
+	
+	/**
+	 * It checks that each record is counted as a different document
+	 */
+	@Test
+	public void testRecordsAreDocuments() {
+		assertEquals(1, wholeDocumentSchema.getStatistics().getInputDocumentsCount());
+		assertEquals(3, recordsSchema.getStatistics().getInputDocumentsCount());
+		SchemaElement catalog = getElement(recordsSchema, "catalog");
+		SchemaElement record = getElement(recordsSchema, "record");
+		BasicStatisticsEntry recordOccurrences = recordsSchema.getStatistics().getComplexTypeInfo().get(catalog.getType()).getElementInfo().get(record);
+		assertEquals(3, recordOccurrences.getTotal());
+		assertEquals(1.0, recordOccurrences.getNonZeroRatio(), 0.0);
+		BasicStatisticsEntry bOccurrences = recordsSchema.getStatistics().getComplexTypeInfo().get(record.getType()).getElementInfo().get(getElement(recordsSchema, "b"));
+		assertEquals(2, bOccurrences.getTotal());
+		assertEquals(2.0/3.0, bOccurrences.getNonZeroRatio(), 0.0001);
+	}
+	
+	/**
+	 * It checks that the same types are extracted from the records and from the whole document
+	 */
+	@Test
+	public void testSameTypesAsWholeDocument() {
+		assertEquals(wholeDocumentSchema, recordsSchema);
+		SchemaElement wholeDocumentRecord = getElement(wholeDocumentSchema, "record");
+		SchemaElement record = getElement(recordsSchema, "record");
+		assertEquals(wholeDocumentRecord.getType().getAutomaton(), record.getType().getAutomaton());
+		assertEquals(wholeDocumentRecord.getType().getAttributeList(), record.getType().getAttributeList());
+	}
+	
+	/**
+	 * It checks that the automaton of the root learns the run of records with the same weights and symbol occurrences 
+	 * as if the whole document had been extracted, and that the subpatterns of up to two records are counted as well.
+	 */
+	@Test
+	public void testRootAutomatonSameWeightsAsWholeDocument() {
+		SchemaElement record = getElement(recordsSchema, "record");
+		ExtendedAutomaton wholeDocumentCatalogAutomaton = getElement(wholeDocumentSchema, "catalog").getType().getAutomaton();
+		ExtendedAutomaton catalogAutomaton = getElement(recordsSchema, "catalog").getType().getAutomaton();
+		assertEquals(wholeDocumentCatalogAutomaton, catalogAutomaton);
+		assertEquals(2, catalogAutomaton.getEdgeWeight(record, record));
+		assertEquals(wholeDocumentCatalogAutomaton.getSourceWordSymbolOccurrences(), catalogAutomaton.getSourceWordSymbolOccurrences());
+		
+		SchemaElement catalog = getElement(recordsSchema, "catalog");
+		Map<List<SchemaElement>, Integer> subpatterns = recordsSchema.getStatistics().getComplexTypeInfo().get(catalog.getType()).getSubpatternsInfo();
+		assertEquals(Integer.valueOf(3), subpatterns.get(Collections.singletonList(record)));
+		assertEquals(Integer.valueOf(2), subpatterns.get(Arrays.asList(record, record)));
+		assertEquals(2, subpatterns.size());
+	}
+
+}
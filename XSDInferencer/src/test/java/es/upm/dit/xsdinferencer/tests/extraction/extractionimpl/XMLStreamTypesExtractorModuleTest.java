@@ -0,0 +1,50 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.extraction.extractionimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+
+import es.upm.dit.xsdinferencer.XSDInferenceConfiguration;
+import es.upm.dit.xsdinferencer.extraction.TypesExtractor;
+import es.upm.dit.xsdinferencer.extraction.extractorImpl.XMLStreamTypesExtractorImpl;
+
+/**
+ * Test for {@link XMLStreamTypesExtractorImpl} which DOES NOT use mocks for submodules. 
+ * It runs all the tests of {@link TypesExtractorModuleTest} on the same scenarios, so that the streaming 
+ * extractor is checked to extract exactly the same information than the DOM-based one.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class XMLStreamTypesExtractorModuleTest extends TypesExtractorModuleTest {
+
+	/**
+	 * @see TypesExtractorModuleTest#buildTypesExtractor(String[], List, XSDInferenceConfiguration)
+	 */
+	@Override
+	protected TypesExtractor buildTypesExtractor(String[] testingXMLs, List<Document> testingXMLDocuments, XSDInferenceConfiguration config) throws Exception {
+		List<ByteSource> xmlSources = new ArrayList<>(testingXMLs.length);
+		for(int i=0;i<testingXMLs.length;i++){
+			xmlSources.add(ByteSource.wrap(testingXMLs[i].getBytes(Charsets.UTF_8)));
+		}
+		return new XMLStreamTypesExtractorImpl(xmlSources, config);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.inputs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+import com.google.common.io.CharStreams;
+
+import es.upm.dit.xsdinferencer.util.inputs.DeduplicatedInputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * Test class for {@link DeduplicatedInputDocumentsSource}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class DeduplicatedInputDocumentsSourceTest {
+	
+	/**
+	 * Reads all the documents of a source as strings, each one followed by its multiplicity
+	 */
+	private static List<String> readAll(InputDocumentsSource source) throws IOException{
+		List<String> result = new ArrayList<>();
+		try(InputDocumentsReader reader = source.open()){
+			while(reader.next()){
+				result.add(CharStreams.toString(reader.getReader(Charsets.UTF_8))+"*"+reader.getMultiplicity());
+			}
+		}
+		return result;
+	}
+	
+	@Test
+	public void testByteSources() throws Exception {
+		List<ByteSource> byteSources = new ArrayList<>();
+		for(String content: Arrays.asList("<a/>","<b/>","<a/>","<c/>","<a/>","<b/>")){
+			byteSources.add(ByteSource.wrap(content.getBytes(Charsets.UTF_8)));
+		}
+		DeduplicatedInputDocumentsSource source = new DeduplicatedInputDocumentsSource(InputDocumentsSources.fromByteSources(byteSources));
+		List<String> expected = Arrays.asList("<a/>*3","<b/>*2","<c/>*1");
+		assertEquals(expected, readAll(source));
+		assertEquals(expected, readAll(source));
+		assertEquals(6, source.getInputDocumentsCount());
+		assertEquals(6, source.getDocumentsCount());
+		assertEquals(3, source.getUniqueDocumentsCount());
+		assertEquals(3, source.getCollapsedDocumentsCount());
+	}
+	
+	@Test
+	public void testCharSources() throws Exception {
+		List<CharSource> charSources = new ArrayList<>();
+		for(String content: Arrays.asList("{}","[]","{}")){
+			charSources.add(CharSource.wrap(content));
+		}
+		DeduplicatedInputDocumentsSource source = new DeduplicatedInputDocumentsSource(InputDocumentsSources.fromCharSources(charSources));
+		assertEquals(Arrays.asList("{}*2","[]*1"), readAll(source));
+		assertEquals(1, source.getCollapsedDocumentsCount());
+	}
+
+}
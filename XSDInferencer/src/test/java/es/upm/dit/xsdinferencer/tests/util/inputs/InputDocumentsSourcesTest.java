@@ -0,0 +1,206 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.inputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+
+/**
+ * Test class for {@link InputDocumentsSources}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class InputDocumentsSourcesTest {
+	
+	/**
+	 * Filter which accepts only .xml entries
+	 */
+	private static final FilenameFilter XML_FILTER = new FilenameFilter() {
+		
+		@Override
+		public boolean accept(File dir, String name) {
+			return name.endsWith(".xml");
+		}
+	};
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Reads all the documents of a source as strings
+	 * @param source the source
+	 * @return the contents of its documents, in order
+	 * @throws IOException if something goes wrong
+	 */
+	private static List<String> readAll(InputDocumentsSource source) throws IOException{
+		List<String> result = new ArrayList<>();
+		try(InputDocumentsReader reader = source.open()){
+			while(reader.next()){
+				result.add(CharStreams.toString(reader.getReader(Charsets.UTF_8)));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Writes a TAR entry (header and padded content) to a stream.
+	 * @param out the stream
+	 * @param name the entry name
+	 * @param content the entry content
+	 * @throws IOException if something goes wrong
+	 */
+	private static void writeTarEntry(OutputStream out, String name, String content) throws IOException{
+		byte[] data = content.getBytes(Charsets.UTF_8);
+		byte[] header = new byte[512];
+		byte[] nameBytes = name.getBytes(Charsets.UTF_8);
+		System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+		putOctal(header, 100, 8, 0644);
+		putOctal(header, 124, 12, data.length);
+		header[156]='0';
+		System.arraycopy("ustar\u000000".getBytes(Charsets.US_ASCII), 0, header, 257, 8);
+		Arrays.fill(header, 148, 156, (byte)' ');
+		int checksum=0;
+		for(byte b: header)
+			checksum+=b & 0xFF;
+		putOctal(header, 148, 8, checksum);
+		out.write(header);
+		out.write(data);
+		out.write(new byte[(512-data.length%512)%512]);
+	}
+	
+	/**
+	 * Writes a NUL terminated octal number into a TAR header field
+	 */
+	private static void putOctal(byte[] header, int offset, int length, long value){
+		String octal = String.format("%0"+(length-1)+"o", value);
+		System.arraycopy(octal.getBytes(Charsets.US_ASCII), 0, header, offset, length-1);
+		header[offset+length-1]=0;
+	}
+	
+	@Test
+	public void testZipArchive() throws Exception {
+		File zipFile = temporaryFolder.newFile("docs.zip");
+		try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))){
+			out.putNextEntry(new ZipEntry("dir/"));
+			out.putNextEntry(new ZipEntry("dir/a.xml"));
+			out.write("<a/>".getBytes(Charsets.UTF_8));
+			out.putNextEntry(new ZipEntry("readme.txt"));
+			out.write("ignored".getBytes(Charsets.UTF_8));
+			out.putNextEntry(new ZipEntry("b.xml"));
+			out.write("<b/>".getBytes(Charsets.UTF_8));
+		}
+		InputDocumentsSource source = InputDocumentsSources.fromFile(zipFile, XML_FILTER);
+		assertEquals(Arrays.asList("<a/>","<b/>"), readAll(source));
+		try(InputDocumentsReader reader = source.open()){
+			assertTrue(reader.next());
+			assertEquals(zipFile.getPath()+"!/dir/a.xml", reader.getName());
+		}
+	}
+	
+	@Test
+	public void testTarGzArchive() throws Exception {
+		File tarGzFile = temporaryFolder.newFile("docs.tar.gz");
+		try(OutputStream out = new GZIPOutputStream(new FileOutputStream(tarGzFile))){
+			writeTarEntry(out, "a.xml", "<a/>");
+			writeTarEntry(out, "readme.txt", "ignored");
+			writeTarEntry(out, "b.xml", "<b>"+new String(new char[600]).replace('\0', 'x')+"</b>");
+			out.write(new byte[1024]);
+		}
+		List<String> documents = readAll(InputDocumentsSources.fromFile(tarGzFile, XML_FILTER));
+		assertEquals(2, documents.size());
+		assertEquals("<a/>", documents.get(0));
+		assertEquals(607, documents.get(1).length());
+	}
+	
+	@Test
+	public void testGzipAndPlainFiles() throws Exception {
+		File gzFile = temporaryFolder.newFile("a.xml.gz");
+		try(OutputStream out = new GZIPOutputStream(new FileOutputStream(gzFile))){
+			out.write("<a/>".getBytes(Charsets.UTF_8));
+		}
+		File plainFile = temporaryFolder.newFile("b.xml");
+		try(OutputStream out = new FileOutputStream(plainFile)){
+			out.write("<b/>".getBytes(Charsets.UTF_8));
+		}
+		InputDocumentsSource source = InputDocumentsSources.fromFiles(Arrays.asList(gzFile, plainFile), XML_FILTER);
+		assertEquals(2, source.getDocumentsCount());
+		assertEquals(Arrays.asList("<a/>","<b/>"), readAll(source));
+	}
+	
+	@Test
+	public void testPrefetching() throws Exception {
+		List<File> files = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for(int i=0;i<10;i++){
+			File file = temporaryFolder.newFile("doc"+i+".xml"+(i%2==0?".gz":""));
+			try(OutputStream out = i%2==0?new GZIPOutputStream(new FileOutputStream(file)):new FileOutputStream(file)){
+				out.write(("<doc"+i+"/>").getBytes(Charsets.UTF_8));
+			}
+			files.add(file);
+			expected.add("<doc"+i+"/>");
+		}
+		File zipFile = temporaryFolder.newFile("docs.zip");
+		try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))){
+			out.putNextEntry(new ZipEntry("a.xml"));
+			out.write("<a/>".getBytes(Charsets.UTF_8));
+		}
+		files.add(3, zipFile);
+		expected.add(3, "<a/>");
+		InputDocumentsSource source = InputDocumentsSources.fromFiles(files, XML_FILTER, 3);
+		assertEquals(-1, source.getDocumentsCount());
+		assertEquals(expected, readAll(source));
+		assertEquals(expected, readAll(source));
+		try(InputDocumentsReader reader = source.open()){
+			assertTrue(reader.next());
+			assertEquals(files.get(0).getPath(), reader.getName());
+		}
+	}
+	
+	@Test
+	public void testFileNameFilters() {
+		FilenameFilter filter = InputDocumentsSources.withCompressedFiles(XML_FILTER);
+		assertTrue(filter.accept(null, "a.xml"));
+		assertTrue(filter.accept(null, "a.xml.gz"));
+		assertTrue(filter.accept(null, "a.TGZ"));
+		assertFalse(filter.accept(null, "a.json.gz"));
+		assertEquals("a.xml", InputDocumentsSources.getUncompressedName("a.xml.GZ"));
+		assertEquals("a.tar.gz", InputDocumentsSources.getUncompressedName("a.tar.gz"));
+	}
+
+}
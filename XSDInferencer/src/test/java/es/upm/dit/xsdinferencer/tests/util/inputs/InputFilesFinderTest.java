@@ -0,0 +1,119 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.inputs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import es.upm.dit.xsdinferencer.util.inputs.InputFilesFinder;
+
+/**
+ * Test class for {@link InputFilesFinder}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class InputFilesFinderTest {
+	
+	/**
+	 * Filter which accepts only .xml files
+	 */
+	private static final FilenameFilter XML_FILTER = new FilenameFilter() {
+		
+		@Override
+		public boolean accept(File dir, String name) {
+			return name.endsWith(".xml");
+		}
+	};
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private File root;
+	
+	private File a;
+	
+	private File b;
+	
+	private File c;
+	
+	private File d;
+	
+	@Before
+	public void setUp() throws Exception {
+		root = temporaryFolder.newFolder("input");
+		a = createFile("a.xml");
+		b = createFile("data/b.xml");
+		c = createFile("data/old/c.xml");
+		d = createFile("data/d.txt");
+	}
+	
+	/**
+	 * Creates a file (and its parent directories) relative to the input directory
+	 */
+	private File createFile(String relativePath) throws IOException {
+		File file = new File(root, relativePath);
+		Files.createParentDirs(file);
+		Files.touch(file);
+		return file;
+	}
+	
+	@Test
+	public void testNotRecursive() throws Exception {
+		List<String> noGlobs = Collections.emptyList();
+		assertEquals(Arrays.asList(a), InputFilesFinder.findFiles(root, false, XML_FILTER, noGlobs, noGlobs));
+	}
+	
+	@Test
+	public void testRecursive() throws Exception {
+		List<String> noGlobs = Collections.emptyList();
+		assertEquals(Arrays.asList(a, b, c), InputFilesFinder.findFiles(root, true, XML_FILTER, noGlobs, noGlobs));
+	}
+	
+	@Test
+	public void testGlobs() throws Exception {
+		assertEquals(Arrays.asList(a, b, d), InputFilesFinder.findFiles(root, true, XML_FILTER, Arrays.asList("*.xml", "*.txt"), Arrays.asList("old")));
+		assertEquals(Arrays.asList(b, c), InputFilesFinder.findFiles(root, true, XML_FILTER, Arrays.asList("data/**.xml"), Collections.<String>emptyList()));
+	}
+	
+	@Test
+	public void testManifest() throws Exception {
+		File manifest = new File(root, "manifest.txt");
+		Files.write("# input files\n\ndata/b.xml\n"+a.getAbsolutePath()+"\n", manifest, Charsets.UTF_8);
+		assertEquals(Arrays.asList(new File(root.getAbsoluteFile(), "data/b.xml"), a.getAbsoluteFile()), InputFilesFinder.readManifest(manifest));
+	}
+	
+	@Test(expected=FileNotFoundException.class)
+	public void testManifestMissingFile() throws Exception {
+		File manifest = new File(root, "manifest.txt");
+		Files.write("missing.xml\n", manifest, Charsets.UTF_8);
+		InputFilesFinder.readManifest(manifest);
+	}
+
+}
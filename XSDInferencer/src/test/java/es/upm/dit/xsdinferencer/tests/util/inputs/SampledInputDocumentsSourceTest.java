@@ -0,0 +1,142 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.inputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharStreams;
+
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsReader;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSource;
+import es.upm.dit.xsdinferencer.util.inputs.InputDocumentsSources;
+import es.upm.dit.xsdinferencer.util.inputs.SampledInputDocumentsSource;
+
+/**
+ * Test class for {@link SampledInputDocumentsSource}
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class SampledInputDocumentsSourceTest {
+	
+	/**
+	 * Source with 90 documents at directory a and 10 documents at directory b. 
+	 * The content of each document is its name.
+	 */
+	private InputDocumentsSource source;
+	
+	/**
+	 * How many documents of the source have been opened
+	 */
+	private AtomicInteger openedDocuments;
+	
+	@Before
+	public void setUp() {
+		openedDocuments = new AtomicInteger();
+		List<ByteSource> byteSources = new ArrayList<>();
+		for(int i=0;i<100;i++){
+			final String name = (i<90?"a/":"b/")+i;
+			byteSources.add(new ByteSource() {
+				
+				@Override
+				public InputStream openStream() throws IOException {
+					openedDocuments.incrementAndGet();
+					return ByteSource.wrap(name.getBytes(Charsets.UTF_8)).openStream();
+				}
+				
+				@Override
+				public String toString() {
+					return name;
+				}
+			});
+		}
+		source = InputDocumentsSources.fromByteSources(byteSources);
+	}
+	
+	/**
+	 * Reads all the documents of a source as strings
+	 */
+	private static List<String> readAll(InputDocumentsSource source) throws IOException{
+		List<String> result = new ArrayList<>();
+		try(InputDocumentsReader reader = source.open()){
+			while(reader.next()){
+				result.add(CharStreams.toString(reader.getReader(Charsets.UTF_8)));
+			}
+		}
+		return result;
+	}
+	
+	@Test
+	public void testReservoir() throws Exception {
+		SampledInputDocumentsSource sampledSource = SampledInputDocumentsSource.reservoir(source, 10, 0);
+		List<String> sample = readAll(sampledSource);
+		assertEquals(10, sample.size());
+		assertEquals(10, new HashSet<>(sample).size());
+		assertEquals(10, openedDocuments.get());
+		assertEquals(sample, readAll(sampledSource));
+		assertEquals(100, sampledSource.getCandidateDocumentsCount());
+		assertEquals(10, sampledSource.getSampledDocumentsCount());
+		assertEquals(SampledInputDocumentsSource.STRATEGY_RESERVOIR, sampledSource.getStrategyName());
+	}
+	
+	@Test
+	public void testStratifiedByDirectory() throws Exception {
+		List<String> sample = readAll(SampledInputDocumentsSource.stratifiedByDirectory(source, 10, 0));
+		assertEquals(10, sample.size());
+		int fromB = 0;
+		for(String document: sample){
+			if(document.startsWith("b/"))
+				fromB++;
+		}
+		assertEquals(1, fromB);
+	}
+	
+	@Test
+	public void testFirstThenEvery() throws Exception {
+		assertEquals(Arrays.asList("a/0","a/1","a/2","a/7","a/12","a/17"), readAll(SampledInputDocumentsSource.firstThenEvery(source, 3, 5, 6, 0)));
+		SampledInputDocumentsSource sampledSource = SampledInputDocumentsSource.firstThenEvery(source, 0, 50, 1000, 0);
+		assertEquals(Arrays.asList("a/49","b/99"), readAll(sampledSource));
+		assertEquals(100, sampledSource.getCandidateDocumentsCount());
+	}
+	
+	@Test
+	public void testTimeBudget() throws Exception {
+		SampledInputDocumentsSource sampledSource = SampledInputDocumentsSource.firstThenEvery(source, 100, 1, 100, 50);
+		List<String> firstReading = new ArrayList<>();
+		try(InputDocumentsReader reader = sampledSource.open()){
+			while(reader.next()){
+				firstReading.add(reader.getName());
+				if(firstReading.size()==3)
+					Thread.sleep(100);
+			}
+		}
+		assertTrue(firstReading.size()>=1 && firstReading.size()<=3);
+		assertEquals(firstReading.size(), readAll(sampledSource).size());
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.lexical;
+
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.ANY_URI;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.BASE64_BINARY;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.BOOLEAN;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.BYTE;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.DATE;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.DATE_TIME;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.DECIMAL;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.DOUBLE;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.INT;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.INTEGER;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.INTEGRAL_DECIMAL;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.JSON_NULL;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.LONG;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.SHORT;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.TIME;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.TRUE_FALSE;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.UNTRIMMED_INTEGER;
+import static es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier.ZERO_OR_ONE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.upm.dit.xsdinferencer.util.lexical.LexicalClassifier;
+
+/**
+ * Test class for {@link LexicalClassifier}. Apart from some concrete cases, it checks that it gives the same 
+ * results than the regular expressions that it replaces for many random values.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class LexicalClassifierTest {
+	
+	private static final String REGEX_XSBOOLEAN = "^true|false|0|1$";
+	private static final String REGEX_XSINTEGER = "^(\\+|\\-)?[0-9]+$";
+	private static final String REGEX_XSDECIMAL = "^(\\+|\\-)?[0-9]+(\\.[0-9]+)?$";
+	
+	@Test
+	public void testClassify() {
+		int integerRanges = BYTE|SHORT|INT|LONG;
+		assertEquals(BOOLEAN|TRUE_FALSE, LexicalClassifier.classify(" true\n"));
+		assertEquals(BOOLEAN|ZERO_OR_ONE|INTEGER|UNTRIMMED_INTEGER|DECIMAL|INTEGRAL_DECIMAL|integerRanges|DOUBLE, LexicalClassifier.classify("1"));
+		assertEquals(INTEGER|DECIMAL|INTEGRAL_DECIMAL|integerRanges|DOUBLE, LexicalClassifier.classify("\t-25 "));
+		assertEquals(DECIMAL|INTEGRAL_DECIMAL|DOUBLE, LexicalClassifier.classify("+7.000"));
+		assertEquals(DECIMAL|DOUBLE, LexicalClassifier.classify("7.05"));
+		assertEquals(JSON_NULL, LexicalClassifier.classify("null"));
+		assertEquals(DOUBLE, LexicalClassifier.classify("7."));
+		assertEquals(DOUBLE, LexicalClassifier.classify(".5"));
+		assertEquals(0, LexicalClassifier.classify("1 2"));
+		assertEquals(0, LexicalClassifier.classify(""));
+	}
+	
+	@Test
+	public void testClassifyExtendedTypes() {
+		assertEquals(SHORT|INT|LONG, LexicalClassifier.classify("-32768")&(BYTE|SHORT|INT|LONG));
+		assertEquals(INT|LONG, LexicalClassifier.classify("32768")&(BYTE|SHORT|INT|LONG));
+		assertEquals(LONG, LexicalClassifier.classify("-9223372036854775808")&(BYTE|SHORT|INT|LONG));
+		assertEquals(0, LexicalClassifier.classify("9223372036854775808")&(BYTE|SHORT|INT|LONG));
+		assertEquals(BYTE|SHORT|INT|LONG, LexicalClassifier.classify("+0000000000000000000000127")&(BYTE|SHORT|INT|LONG));
+		assertEquals(DOUBLE, LexicalClassifier.classify("-1.5E-10"));
+		assertEquals(DOUBLE, LexicalClassifier.classify("INF"));
+		assertEquals(DOUBLE, LexicalClassifier.classify("NaN"));
+		assertEquals(BASE64_BINARY, LexicalClassifier.classify("+INF")); //Only -INF and INF are xs:double values
+		assertEquals(0, LexicalClassifier.classify("1E"));
+		assertEquals(DATE, LexicalClassifier.classify(" 2012-02-29 "));
+		assertEquals(DATE, LexicalClassifier.classify("2013-12-31+14:00"));
+		assertEquals(0, LexicalClassifier.classify("2013-02-29"));
+		assertEquals(0, LexicalClassifier.classify("1900-02-29"));
+		assertEquals(DATE, LexicalClassifier.classify("2000-02-29Z"));
+		assertEquals(DATE, LexicalClassifier.classify("12000-02-29"));
+		assertEquals(0, LexicalClassifier.classify("12100-02-29"));
+		assertEquals(0, LexicalClassifier.classify("0000-01-01"));
+		assertEquals(0, LexicalClassifier.classify("2013-01-01+14:30"));
+		assertEquals(TIME, LexicalClassifier.classify("23:59:59.999"));
+		assertEquals(0, LexicalClassifier.classify("24:00:00"));
+		assertEquals(0, LexicalClassifier.classify("10:00"));
+		assertEquals(DATE_TIME, LexicalClassifier.classify("-12345-06-15T10:30:00-05:00"));
+		assertEquals(0, LexicalClassifier.classify("2013-06-15 10:30:00"));
+		assertEquals(ANY_URI, LexicalClassifier.classify("http://www.example.org/a?b=c#d"));
+		assertEquals(ANY_URI, LexicalClassifier.classify("urn:isbn:0451450523"));
+		assertEquals(0, LexicalClassifier.classify("http://www.example.org/a b"));
+		assertEquals(0, LexicalClassifier.classify("note: hello"));
+		assertEquals(BASE64_BINARY, LexicalClassifier.classify("SGVsbG8="));
+		assertEquals(BASE64_BINARY, LexicalClassifier.classify("YQ=="));
+		assertEquals(0, LexicalClassifier.classify("YR=="));
+		assertEquals(0, LexicalClassifier.classify("Word"));
+		assertEquals(0, LexicalClassifier.classify("SGVsbG8"));
+		assertEquals(ANY_URI, LexicalClassifier.classify("file:///tmp/a.xml"));
+		assertEquals(ANY_URI, LexicalClassifier.classify("mailto:someone@example.org"));
+		assertEquals(0, LexicalClassifier.classify("mailto:someone"));
+		assertEquals(0, LexicalClassifier.classify("ID:123"));
+		assertEquals(0, LexicalClassifier.classify("Re:foo"));
+		assertEquals(0, LexicalClassifier.classify("urn:x"));
+		assertEquals(0, LexicalClassifier.classify("urn:-x:y"));
+		assertEquals(0, LexicalClassifier.classify("http:"));
+		assertEquals(0, LexicalClassifier.classify("AB12"));
+		assertEquals(0, LexicalClassifier.classify("X9Y8"));
+		assertEquals(0, LexicalClassifier.classify("d29ybGQh"));
+		assertEquals(0, LexicalClassifier.classify("ABCD1234EFGH5678"));
+		assertEquals(0, LexicalClassifier.classify("d41d8cd98f00b204e9800998ecf8427e"));
+		assertEquals(BASE64_BINARY, LexicalClassifier.classify("SGVsbG8sIFdvcmxkIQAB"));
+		assertEquals(BASE64_BINARY, LexicalClassifier.classify("ab/c"));
+	}
+	
+	@Test
+	public void testSameResultsThanParsers() {
+		String[] pieces = {"0","1","2","9","+","-",".","E","INF","NaN",":","T","Z","=","/","a","12","29","2000-","02-","13:","59"};
+		Random random = new Random(0);
+		for(int i=0;i<200000;i++){
+			StringBuilder builder = new StringBuilder();
+			for(int j=random.nextInt(10);j>0;j--){
+				builder.append(pieces[random.nextInt(pieces.length)]);
+			}
+			String value = builder.toString();
+			int lexicalSpaces = LexicalClassifier.classify(value);
+			boolean isLong = value.matches("^(\\+|\\-)?[0-9]+$");
+			long number = 0;
+			try{
+				number = Long.parseLong(value.startsWith("+")?value.substring(1):value);
+			} catch(NumberFormatException e){
+				isLong = false;
+			}
+			assertEquals(value, isLong, (lexicalSpaces&LONG)!=0);
+			assertEquals(value, isLong && number>=Byte.MIN_VALUE && number<=Byte.MAX_VALUE, (lexicalSpaces&BYTE)!=0);
+			assertEquals(value, value.matches("^(\\+|-)?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([Ee](\\+|-)?[0-9]+)?|-?INF|NaN$"), (lexicalSpaces&DOUBLE)!=0);
+			if(value.matches("^[0-9]{4}-[0-9]{2}-[0-9]{2}$")){
+				boolean isDate = !value.startsWith("0000");
+				try{
+					LocalDate.parse(value);
+				} catch(DateTimeException e){
+					isDate = false;
+				}
+				assertEquals(value, isDate, (lexicalSpaces&DATE)!=0);
+			}
+		}
+	}
+	
+	@Test
+	public void testNormalization() {
+		String value = "already normalized";
+		assertSame(value, LexicalClassifier.replaceAndTrimWhitespaces(value, true));
+		assertSame(value, LexicalClassifier.getEquivalentNumber(value));
+		assertEquals("a  b", LexicalClassifier.replaceAndTrimWhitespaces(" a\t\nb\r", false));
+		assertEquals("a b", LexicalClassifier.replaceAndTrimWhitespaces(" a\t\nb\r", true));
+		assertEquals("5", LexicalClassifier.getEquivalentNumber("+5.00"));
+		assertEquals("-5.05", LexicalClassifier.getEquivalentNumber("-5.05"));
+		assertTrue(LexicalClassifier.consistsOfWhitespaces(" \t\r\n"));
+		assertFalse(LexicalClassifier.consistsOfWhitespaces(" \u000B"));
+	}
+	
+	@Test
+	public void testSameResultsThanRegularExpressions() {
+		String[] pieces = {"0","1","9","+","-","."," ","\t","\n","\r","\u000B","x","true","false","null",".0","00"};
+		Random random = new Random(0);
+		for(int i=0;i<200000;i++){
+			StringBuilder builder = new StringBuilder();
+			for(int j=random.nextInt(8);j>0;j--){
+				builder.append(pieces[random.nextInt(pieces.length)]);
+			}
+			String value = builder.toString();
+			String trimmedValue = value.trim();
+			String collapsedValue = value.replaceAll("[\t\n\r]", " ").replaceAll("[ ]{2,}", " ").trim();
+			int lexicalSpaces = LexicalClassifier.classify(value);
+			assertEquals(value, trimmedValue.matches(REGEX_XSBOOLEAN), (lexicalSpaces&BOOLEAN)!=0);
+			assertEquals(value, trimmedValue.equals("true")||trimmedValue.equals("false"), (lexicalSpaces&TRUE_FALSE)!=0);
+			assertEquals(value, collapsedValue.matches(REGEX_XSINTEGER), (lexicalSpaces&INTEGER)!=0);
+			assertEquals(value, value.matches(REGEX_XSINTEGER), (lexicalSpaces&UNTRIMMED_INTEGER)!=0);
+			assertEquals(value, collapsedValue.matches(REGEX_XSDECIMAL), (lexicalSpaces&DECIMAL)!=0);
+			assertEquals(value, value.replaceAll("[\t\n\r]", " ").trim(), LexicalClassifier.replaceAndTrimWhitespaces(value, false));
+			assertEquals(value, collapsedValue, LexicalClassifier.replaceAndTrimWhitespaces(value, true));
+			String equivalentNumber = value;
+			if(value.startsWith("+"))
+				equivalentNumber=value.replaceAll("\\+", "");
+			if(value.matches("^.+\\.0+$"))
+				equivalentNumber=equivalentNumber.replaceAll("\\.0+", "");
+			assertEquals(value, equivalentNumber, LexicalClassifier.getEquivalentNumber(value));
+			assertEquals(value, value.matches("[\t\n\r ]*"), LexicalClassifier.consistsOfWhitespaces(value));
+		}
+	}
+
+}
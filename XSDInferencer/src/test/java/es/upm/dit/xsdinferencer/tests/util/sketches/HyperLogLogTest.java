@@ -0,0 +1,128 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.sketches;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+import es.upm.dit.xsdinferencer.util.sketches.HyperLogLog;
+
+/**
+ * Test class for {@link HyperLogLog} and for its use in {@link Statistics} to discard the values 
+ * of the paths with too many distinct values.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class HyperLogLogTest {
+	
+	@Test
+	public void testSmallCardinalities() {
+		HyperLogLog sketch = new HyperLogLog(12);
+		assertTrue(sketch.isEmpty());
+		assertEquals(0, sketch.estimate());
+		for(int i=0;i<100;i++){
+			sketch.add("value"+(i%20));
+		}
+		assertFalse(sketch.isEmpty());
+		assertEquals(20, sketch.estimate());
+	}
+	
+	@Test
+	public void testLargeCardinalities() {
+		HyperLogLog sketch = new HyperLogLog(12);
+		int distinctValues = 200000;
+		for(int i=0;i<distinctValues;i++){
+			sketch.add(Integer.toString(i));
+			sketch.add(Integer.toString(i/2));
+		}
+		double error = Math.abs(sketch.estimate()-distinctValues)/(double)distinctValues;
+		assertTrue("Error too high: "+error, error<4*sketch.getRelativeStandardError());
+	}
+	
+	@Test
+	public void testMerge() {
+		HyperLogLog sketch1 = new HyperLogLog(10);
+		HyperLogLog sketch2 = new HyperLogLog(10);
+		HyperLogLog sketchAll = new HyperLogLog(10);
+		for(int i=0;i<50000;i++){
+			String value = Integer.toString(i);
+			if(i%3==0)
+				sketch1.add(value);
+			if(i%2==0)
+				sketch2.add(value);
+			if(i%3==0||i%2==0)
+				sketchAll.add(value);
+		}
+		sketch1.merge(sketch2);
+		assertEquals(sketchAll, sketch1);
+		assertEquals(sketchAll.estimate(), sketch1.estimate());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testMergeDifferentPrecisions() {
+		new HyperLogLog(10).merge(new HyperLogLog(11));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidPrecision() {
+		new HyperLogLog(HyperLogLog.MAX_PRECISION+1);
+	}
+	
+	@Test
+	public void testRegistersRoundTrip() {
+		HyperLogLog sketch = new HyperLogLog(8);
+		for(int i=0;i<1000;i++){
+			sketch.add("v"+i);
+		}
+		HyperLogLog rebuilt = new HyperLogLog(8, sketch.getRegisters());
+		assertEquals(sketch, rebuilt);
+		assertEquals(sketch.estimate(), rebuilt.estimate());
+		assertArrayEquals(sketch.getRegisters(), new HyperLogLog(sketch).getRegisters());
+	}
+	
+	@Test
+	public void testStatisticsDiscardValues() {
+		Statistics statistics = new Statistics(1);
+		statistics.setDistinctValuesSketching(12, 5);
+		for(int i=0;i<5;i++){
+			statistics.registerValueAtPathCount("/a", "v"+i, 0);
+			statistics.registerValueAtPathCount("/b", "v"+i, 0);
+		}
+		statistics.registerValueAtPathCount("/b", "v5", 0);
+		assertEquals(5, statistics.getValuesAtPathInfo().row("/a").size());
+		assertTrue(statistics.getValuesAtPathInfo().row("/b").isEmpty());
+		assertFalse(statistics.getPathsWithDiscardedValues().contains("/a"));
+		assertTrue(statistics.getPathsWithDiscardedValues().contains("/b"));
+		assertEquals(6, statistics.getDistinctValuesAtPathSketches().get("/b").estimate());
+		
+		Statistics other = new Statistics(1);
+		other.setDistinctValuesSketching(12, 5);
+		other.registerValueAtPathCount("/a", "v5", 0);
+		statistics.addAll(other, Collections.<ComplexType, ComplexType>emptyMap(), Collections.<SchemaElement, SchemaElement>emptyMap());
+		assertTrue(statistics.getValuesAtPathInfo().row("/a").isEmpty());
+		assertTrue(statistics.getPathsWithDiscardedValues().contains("/a"));
+		assertEquals(6, statistics.getDistinctValuesAtPathSketches().get("/a").estimate());
+	}
+
+}
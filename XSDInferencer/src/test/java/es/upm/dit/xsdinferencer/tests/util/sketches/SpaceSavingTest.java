@@ -0,0 +1,194 @@
+/*
+Copyright 2013 Universidad Politcnica de Madrid - Center for Open Middleware (http://www.centeropenmiddleware.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package es.upm.dit.xsdinferencer.tests.util.sketches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.upm.dit.xsdinferencer.datastructures.ComplexType;
+import es.upm.dit.xsdinferencer.datastructures.SchemaElement;
+import es.upm.dit.xsdinferencer.statistics.Statistics;
+import es.upm.dit.xsdinferencer.util.sketches.SpaceSaving;
+
+/**
+ * Test class for {@link SpaceSaving} and for its use in {@link Statistics} to keep only the most frequent values of each path.
+ * @author Pablo Alonso Rodriguez (Center for Open Middleware)
+ */
+public class SpaceSavingTest {
+	
+	/**
+	 * Generates a skewed stream of values, where the value i appears about 1/(i+1) times as often as the value 0.
+	 * @param random the random generator
+	 * @param size the number of values
+	 * @param realCounts map where the real frequency of each value is accumulated
+	 * @return the stream
+	 */
+	private List<String> generateSkewedValues(Random random, int size, Map<String, Long> realCounts){
+		List<String> result = new ArrayList<>(size);
+		for(int i=0;i<size;i++){
+			String value = "v"+(int) Math.floor(Math.pow(1000, random.nextDouble())-1);
+			Long previousCount = realCounts.get(value);
+			realCounts.put(value, previousCount==null?1:previousCount+1);
+			result.add(value);
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks the guarantees of a sketch against the real frequencies of its values.
+	 * @param sketch the sketch
+	 * @param realCounts the real frequencies
+	 */
+	private void checkBounds(SpaceSaving sketch, Map<String, Long> realCounts){
+		long totalCount = 0;
+		for(long count: realCounts.values()){
+			totalCount+=count;
+		}
+		assertEquals(totalCount, sketch.getTotalCount());
+		Map<String, SpaceSaving.Counter> counters = new HashMap<>();
+		for(SpaceSaving.Counter counter: sketch.getCounters()){
+			long realCount = realCounts.get(counter.getValue());
+			assertTrue(counter.toString(), counter.getGuaranteedCount()<=realCount && realCount<=counter.getCount());
+			counters.put(counter.getValue(), counter);
+		}
+		for(Map.Entry<String, Long> realCount: realCounts.entrySet()){
+			if(!counters.containsKey(realCount.getKey())){
+				assertTrue(realCount.getKey(), realCount.getValue()<=sketch.getMaxUnmonitoredCount());
+			}
+			if(realCount.getValue()>totalCount/sketch.getCapacity()){
+				assertNotNull(realCount.getKey(), counters.get(realCount.getKey()));
+			}
+		}
+	}
+	
+	@Test
+	public void testExactUnderCapacity() {
+		SpaceSaving sketch = new SpaceSaving(10);
+		for(int i=0;i<100;i++){
+			sketch.add("value"+(i%4));
+			if(i%10==0)
+				sketch.add("rare");
+		}
+		assertEquals(110, sketch.getTotalCount());
+		assertEquals(0, sketch.getMaxUnmonitoredCount());
+		List<SpaceSaving.Counter> counters = sketch.getCounters();
+		assertEquals(5, counters.size());
+		assertEquals(new SpaceSaving.Counter("value0", 25, 0), counters.get(0));
+		assertEquals(new SpaceSaving.Counter("rare", 10, 0), counters.get(4));
+	}
+	
+	@Test
+	public void testHeavyHitters() {
+		Map<String, Long> realCounts = new HashMap<>();
+		SpaceSaving sketch = new SpaceSaving(50);
+		for(String value: generateSkewedValues(new Random(0), 100000, realCounts)){
+			sketch.add(value);
+		}
+		assertEquals(50, sketch.getCounters().size());
+		assertEquals("v0", sketch.getCounters().get(0).getValue());
+		checkBounds(sketch, realCounts);
+	}
+	
+	@Test
+	public void testMerge() {
+		Random random = new Random(1);
+		Map<String, Long> realCounts = new HashMap<>();
+		SpaceSaving sketch1 = new SpaceSaving(30);
+		SpaceSaving sketch2 = new SpaceSaving(30);
+		SpaceSaving sketch3 = new SpaceSaving(30);
+		for(String value: generateSkewedValues(random, 50000, realCounts)){
+			sketch1.add(value);
+		}
+		Map<String, Long> otherRealCounts = new HashMap<>();
+		for(String value: generateSkewedValues(random, 20000, otherRealCounts)){
+			sketch2.add("other"+value);
+		}
+		sketch3.add("v0");
+		for(Map.Entry<String, Long> otherRealCount: otherRealCounts.entrySet()){
+			realCounts.put("other"+otherRealCount.getKey(), otherRealCount.getValue());
+		}
+		realCounts.put("v0", realCounts.get("v0")+1);
+		SpaceSaving copy = new SpaceSaving(sketch1);
+		sketch1.merge(sketch2);
+		sketch1.merge(sketch3);
+		checkBounds(sketch1, realCounts);
+		assertEquals(30, sketch1.getCounters().size());
+		assertEquals("v0", sketch1.getCounters().get(0).getValue());
+		assertEquals(50000, copy.getTotalCount());
+	}
+	
+	@Test
+	public void testCountersRoundTrip() {
+		SpaceSaving sketch = new SpaceSaving(5);
+		for(String value: generateSkewedValues(new Random(2), 1000, new HashMap<String, Long>())){
+			sketch.add(value);
+		}
+		SpaceSaving rebuilt = new SpaceSaving(5, sketch.getTotalCount(), sketch.getCounters());
+		assertEquals(sketch, rebuilt);
+		assertEquals(sketch.getMaxUnmonitoredCount(), rebuilt.getMaxUnmonitoredCount());
+		sketch.add("new");
+		rebuilt.add("new");
+		assertEquals(sketch, rebuilt);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooManyCounters() {
+		List<SpaceSaving.Counter> counters = new ArrayList<>();
+		counters.add(new SpaceSaving.Counter("a", 1, 0));
+		counters.add(new SpaceSaving.Counter("b", 1, 0));
+		new SpaceSaving(1, 2, counters);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testInconsistentTotalCount() {
+		new SpaceSaving(1, 1, Collections.singletonList(new SpaceSaving.Counter("a", 2, 0)));
+	}
+	
+	@Test
+	public void testStatisticsTopValues() {
+		Statistics statistics = new Statistics(2);
+		statistics.setValuesTopK(2);
+		for(int i=0;i<10;i++){
+			statistics.registerValueAtPathCount("/a", i%5==4?"v"+i:"v0", 0);
+		}
+		assertTrue(statistics.getValuesAtPathInfo().isEmpty());
+		SpaceSaving topValues = statistics.getTopValuesAtPath().get("/a");
+		assertEquals(10, topValues.getTotalCount());
+		assertEquals(new SpaceSaving.Counter("v0", 8, 0), topValues.getCounters().get(0));
+		
+		Statistics other = new Statistics(2);
+		other.setValuesTopK(2);
+		other.registerValueAtPathCount("/a", "v0", 1);
+		other.registerValueAtPathCount("/b", "x", 1);
+		Statistics copy = new Statistics(statistics);
+		statistics.addAll(other, Collections.<ComplexType, ComplexType>emptyMap(), Collections.<SchemaElement, SchemaElement>emptyMap());
+		assertEquals(new SpaceSaving.Counter("v0", 9, 0), statistics.getTopValuesAtPath().get("/a").getCounters().get(0));
+		assertEquals(11, statistics.getTopValuesAtPath().get("/a").getTotalCount());
+		assertEquals(1, statistics.getTopValuesAtPath().get("/b").getTotalCount());
+		assertEquals(10, copy.getTopValuesAtPath().get("/a").getTotalCount());
+	}
+
+}